@@ -0,0 +1,53 @@
+package com.project.api.config;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+// The assessment content tables used to take AUTO_INCREMENT ids and now draw pooled blocks from
+// id_generators. On startup each generator row is moved past the highest existing id (plus one
+// block) so new ids never collide with rows written before the switch or by the old mapping.
+@Component
+public class IdGeneratorSeeder {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorSeeder.class);
+
+    // Must match allocationSize of the @TableGenerator mappings
+    private static final int ALLOCATION_SIZE = 50;
+
+    // gen_name -> {table, id column}
+    private static final Map<String, String[]> GENERATORS = Map.of(
+            "questions", new String[] {"questions", "question_id"},
+            "question_options", new String[] {"question_options", "option_id"},
+            "question_keywords", new String[] {"question_keywords", "keyword_id"},
+            "question_test_cases", new String[] {"question_test_cases", "test_case_id"},
+            "rubric_criteria", new String[] {"rubric_criteria", "criteria_id"});
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Injected only so the schema (including id_generators) exists before seeding
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void seed() {
+        for (Map.Entry<String, String[]> generator : GENERATORS.entrySet()) {
+            String table = generator.getValue()[0];
+            String idColumn = generator.getValue()[1];
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + table, Long.class);
+            jdbcTemplate.update(
+                    "INSERT INTO id_generators (gen_name, next_val) VALUES (?, ?) "
+                            + "ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val))",
+                    generator.getKey(), maxId + ALLOCATION_SIZE + 1);
+            logger.debug("Seeded id generator {} above max id {}", generator.getKey(), maxId);
+        }
+    }
+}
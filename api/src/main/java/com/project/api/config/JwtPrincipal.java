@@ -0,0 +1,48 @@
+package com.project.api.config;
+
+import com.project.api.model.UserRole;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Verified claims of a JWT. Built once per token by JwtUtil.parseToken and exposed to
+// controllers as the authentication principal, so nothing downstream re-parses the token.
+// Services take this resolved identity instead of an email, which saves the findByEmail round trip.
+@Getter
+@ToString
+@AllArgsConstructor
+public class JwtPrincipal {
+
+    private final String email;
+
+    private final String role;
+
+    private final Long userId;
+
+    // Null for non-students and for students that have no Student row yet
+    private final Long studentId;
+
+    // The token's jti, checked against the revocation filter; null for tokens issued before jti was added
+    private final String tokenId;
+
+    // Expiration time in epoch milliseconds
+    private final long expiresAt;
+
+    public boolean isExpired() {
+        return expiresAt <= System.currentTimeMillis();
+    }
+
+    public boolean hasRole(UserRole userRole) {
+        return userRole.name().equals(role);
+    }
+
+    // True once userId and, for students, studentId are known
+    public boolean isResolved() {
+        return userId != null && (!hasRole(UserRole.STUDENT) || studentId != null);
+    }
+
+    public JwtPrincipal withIdentity(Long userId, Long studentId) {
+        return new JwtPrincipal(email, role, userId, studentId, tokenId, expiresAt);
+    }
+}
@@ -1,16 +1,19 @@
 package com.project.api.config;
 
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.project.api.service.PrincipalResolver;
+import com.project.api.service.TokenRevocationService;
+
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 import jakarta.servlet.FilterChain;
@@ -26,6 +29,12 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private PrincipalResolver principalResolver;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
 
     private static final Logger logger = LoggerFactory.getLogger(JwtRequestFilter.class);
     @Override
@@ -33,44 +42,51 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String email = null;
-        String jwtToken = null;
-    
-        final String[] role = {null};
+        JwtPrincipal principal = null;
 
         // Check if the Authorization header is present and starts with "Bearer "
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7); // Remove "Bearer " prefix
+            String jwtToken = requestTokenHeader.substring(7); // Remove "Bearer " prefix
             try {
-                email = jwtUtil.getEmailFromToken(jwtToken);
-                role[0] = jwtUtil.getRoleFromToken(jwtToken);
+                // Single verification per request; controllers receive the principal via @AuthenticationPrincipal
+                principal = jwtUtil.parseToken(jwtToken);
             } catch (IllegalArgumentException e) {
                 logger.warn("Unable to parse JWT token");
             } catch (ExpiredJwtException e) {
                 logger.warn("JWT token has expired");
             } catch (MalformedJwtException e) {
                 logger.warn("Invalid JWT token");
+            } catch (JwtException e) {
+                logger.warn("JWT token verification failed");
             }
         } else {
             logger.warn("Authorization header missing or does not start with Bearer");
         }
 
+        // In-memory filter lookup; only a filter hit goes to the database
+        if (principal != null && tokenRevocationService.isRevoked(principal.getTokenId())) {
+            logger.warn("JWT token {} has been revoked", principal.getTokenId());
+            principal = null;
+        }
+
         // Validate the token and set the authentication context
-        if (email != null && role[0] != null && jwtUtil.validateToken(jwtToken, email) && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = new User(email, "", Collections.singletonList(() -> "ROLE_" + role[0]));
+        if (principal != null && principal.getEmail() != null && principal.getRole() != null && !principal.isExpired()
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            principal = principalResolver.resolve(principal);
             UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                    userDetails, null, userDetails.getAuthorities());
+                    principal, null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.getRole())));
             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authToken);
            
-            logger.info("Set authentication for user: {} with role: {}", email, role[0]);
+            logger.info("Set authentication for user: {} with role: {}", principal.getEmail(), principal.getRole());
            
             chain.doFilter(request, response);
         } else if (request.getRequestURI().equals("/api/educator/login") ||
                    request.getRequestURI().equals("/api/educator/register") ||
                    request.getRequestURI().equals("/api/educator/validate") ||
                    request.getRequestURI().equals("/api/student/login") ||
-                   request.getRequestURI().equals("/api/student/register")) {
+                   request.getRequestURI().equals("/api/student/register") ||
+                   request.getRequestURI().equals("/api/auth/refresh")) {
             // Unauthenticated endpoints, proceed without validation
             chain.doFilter(request, response);
         } else {
@@ -7,12 +7,20 @@ import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.project.api.model.User;
+
 import jakarta.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
@@ -23,7 +31,24 @@ public class JwtUtil {
 
     private SecretKey signingKey;
 
-    private final long JWT_TOKEN_VALIDITY = 5 * 60 * 60 * 1000; // 5 hours in milliseconds
+    // Access tokens are short-lived; sessions are extended through rotating refresh tokens (TokenService)
+    @Value("${jwt.access-token.validity-ms:900000}")
+    private long accessTokenValidity;
+
+    // Upper bound on cached verified tokens; expired entries are purged first when it is reached
+    @Value("${jwt.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    // Verified principals keyed by the SHA-256 digest of the raw token
+    private final Map<String, JwtPrincipal> verifiedTokens = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
 
     // Initialize signingKey after SECRET_KEY is injected
     @PostConstruct
@@ -34,19 +59,52 @@ public class JwtUtil {
         this.signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
     }
 
+    /**
+     * Verify the token and return its principal. The signature is checked once per distinct
+     * token; later calls are served from a bounded cache until the token expires.
+     * @param token The raw JWT.
+     * @return The verified principal.
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired.
+     */
+    public JwtPrincipal parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT token is empty");
+        }
+        String key = digest(token);
+        JwtPrincipal cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return cached;
+            }
+            verifiedTokens.remove(key, cached);
+        }
+
+        // Expired tokens fail here with ExpiredJwtException, same as an uncached parse
+        Claims claims = getAllClaimsFromToken(token);
+        JwtPrincipal principal = new JwtPrincipal(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.get("uid", Long.class),
+                claims.get("sid", Long.class),
+                claims.getId(),
+                claims.getExpiration().getTime());
+        cachePrincipal(key, principal);
+        return principal;
+    }
+
     // Retrieve email (subject) from JWT token
     public String getEmailFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+        return parseToken(token).getEmail();
     }
 
     // Retrieve role from JWT token
     public String getRoleFromToken(String token) {
-        return getClaimFromToken(token, claims -> claims.get("role", String.class));
+        return parseToken(token).getRole();
     }
 
     // Retrieve expiration date from JWT token
     public Date getExpirationDateFromToken(String token) {
-        return getClaimFromToken(token, Claims::getExpiration);
+        return new Date(parseToken(token).getExpiresAt());
     }
 
     // Generic method to retrieve a claim from the token
@@ -64,10 +122,38 @@ public class JwtUtil {
                 .getPayload();
     }
 
-    // Check if the token has expired
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    private void cachePrincipal(String key, JwtPrincipal principal) {
+        if (verifiedTokens.size() >= cacheMaxEntries) {
+            verifiedTokens.values().removeIf(JwtPrincipal::isExpired);
+        }
+        // Still full of live tokens: drop an arbitrary tenth rather than grow without bound
+        if (verifiedTokens.size() >= cacheMaxEntries) {
+            int toEvict = Math.max(1, cacheMaxEntries / 10);
+            Iterator<String> it = verifiedTokens.keySet().iterator();
+            while (toEvict-- > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        verifiedTokens.put(key, principal);
+    }
+
+    private static String digest(String token) {
+        MessageDigest md = SHA_256.get();
+        md.reset();
+        return Base64.getEncoder().withoutPadding()
+                .encodeToString(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    // Generate a token carrying the user's ids so requests can be served without an identity lookup
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("role", user.getRole().name());
+        claims.put("uid", user.getUserId());
+        if (user.getStudent() != null) {
+            claims.put("sid", user.getStudent().getStudentId());
+        }
+        return doGenerateToken(claims, user.getEmail());
     }
 
     // Generate a token for the user
@@ -82,8 +168,9 @@ public class JwtUtil {
         return Jwts.builder()
                 .claims(claims)
                 .subject(subject)
+                .id(UUID.randomUUID().toString())
                 .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY))
+                .expiration(new Date(System.currentTimeMillis() + accessTokenValidity))
                 .signWith(signingKey)
                 .compact();
     }
@@ -91,8 +178,8 @@ public class JwtUtil {
     // Validate the token
     public Boolean validateToken(String token, String email) {
         try {
-            final String tokenEmail = getEmailFromToken(token);
-            return (tokenEmail.equals(email) && !isTokenExpired(token));
+            final JwtPrincipal principal = parseToken(token);
+            return (principal.getEmail().equals(email) && !principal.isExpired());
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
@@ -0,0 +1,41 @@
+package com.project.api.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+// Per-route token-bucket limits for the unauthenticated auth endpoints, e.g.
+// rate-limit.routes[/api/student/login].ip-capacity=30
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+@Data
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Number of independently locked bucket maps
+    private int stripes = 64;
+
+    // Buckets untouched for this long are dropped by the eviction sweep
+    private long idleEvictionMs = 10 * 60 * 1000;
+
+    // Largest request body read to find the email; larger bodies are rejected with 413
+    private int maxBodyBytes = 16 * 1024;
+
+    // Use the first X-Forwarded-For hop as the client address (only behind a trusted proxy)
+    private boolean trustForwardedFor = false;
+
+    private Map<String, Limit> routes = new HashMap<>();
+
+    @Data
+    public static class Limit {
+        private int ipCapacity = 20;
+        private double ipRefillPerMinute = 20;
+        private int emailCapacity = 5;
+        private double emailRefillPerMinute = 5;
+    }
+}
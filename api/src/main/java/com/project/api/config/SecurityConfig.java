@@ -1,6 +1,7 @@
 package com.project.api.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -15,32 +16,44 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 
+import jakarta.servlet.DispatcherType;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // BCrypt cost factor; pick it with BCryptCostBenchmark on the target hardware
+    @Value("${auth.bcrypt.strength:10}")
+    private int bcryptStrength;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Autowired
     private JwtRequestFilter jwtRequestFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource())) // Enable CORS
             .csrf(csrf -> csrf.disable()) // Disable CSRF for API
             .authorizeHttpRequests(auth -> auth
+                // Completion of a streamed response (regrade progress) is dispatched again; the request was authorized already
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/educator/register", "/api/educator/login", "/api/student/register", "/api/student/login",
                 "/api/admin/register", "/api/admin/login",
-                "/api/educator/validate").permitAll() // Allow unauthenticated access
+                "/api/educator/validate", "/api/auth/refresh").permitAll() // Allow unauthenticated access
                 .requestMatchers("/api/educator/**").hasRole("EDUCATOR") // Require EDUCATOR role
                 .requestMatchers("/api/student/**").hasRole("STUDENT") // Require STUDENT role
                 .anyRequest().authenticated() // All other endpoints require authentication
             )
-            .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(rateLimitFilter, JwtRequestFilter.class); // Throttle auth endpoints before any token or DB work
 
         return http.build();
     }
@@ -0,0 +1,99 @@
+package com.project.api.config;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// In-memory token buckets split across lock stripes, so concurrent requests for different
+// keys rarely contend on the same monitor. Each stripe guards a plain HashMap of buckets.
+public class TokenBucketRateLimiter {
+
+    private final Stripe[] stripes;
+
+    public TokenBucketRateLimiter(int stripeCount) {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount));
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Take one token for the key.
+     * @param key Bucket key, e.g. route plus client IP.
+     * @param capacity Bucket size (burst).
+     * @param refillPerMinute Tokens added per minute.
+     * @return 0 if the request is allowed, otherwise nanoseconds until a token is available.
+     */
+    public long tryAcquire(String key, int capacity, double refillPerMinute) {
+        long now = System.nanoTime();
+        double refillPerNano = refillPerMinute / 60_000_000_000d;
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.lastRefillNanos) * refillPerNano);
+                bucket.lastRefillNanos = now;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            if (refillPerNano <= 0) {
+                return Long.MAX_VALUE;
+            }
+            return (long) Math.ceil((1 - bucket.tokens) / refillPerNano);
+        }
+    }
+
+    // Drop buckets idle for longer than maxIdleNanos; they would be full again anyway
+    public int evictIdle(long maxIdleNanos) {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Bucket> it = stripe.buckets.values().iterator();
+                while (it.hasNext()) {
+                    if (now - it.next().lastRefillNanos > maxIdleNanos) {
+                        it.remove();
+                        evicted++;
+                    }
+                }
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.buckets.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    private static final class Stripe {
+        private final Map<String, Bucket> buckets = new HashMap<>();
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(double tokens, long lastRefillNanos) {
+            this.tokens = tokens;
+            this.lastRefillNanos = lastRefillNanos;
+        }
+    }
+}
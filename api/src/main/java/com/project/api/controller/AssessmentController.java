@@ -1,5 +1,7 @@
 package com.project.api.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -7,20 +9,45 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.project.api.config.JwtUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.project.api.config.JwtPrincipal;
 import com.project.api.model.Assessment;
 import com.project.api.service.AssessmentService;
+import com.project.api.service.AssessmentTransferService;
+import com.project.api.service.AutoGradingService;
+import com.project.api.service.CodeExecutionService;
+import com.project.api.service.GradingJobService;
+import com.project.api.service.QuestionLibraryService;
+import com.project.api.service.RegradeService;
+import com.project.api.service.ScoreStatisticsService;
+import com.project.api.dto.AnswerKeyCorrection;
+import com.project.api.dto.AssessmentCloneRequest;
 import com.project.api.dto.AssessmentCreateRequest;
+import com.project.api.dto.AssessmentStatistics;
+import com.project.api.dto.AssessmentSummaryPage;
+import com.project.api.dto.AssignmentResult;
+import com.project.api.dto.BulkAssignmentRequest;
+import com.project.api.dto.QuestionImportResult;
+import com.project.api.dto.QuestionLibraryEntry;
+import com.project.api.dto.ReviewQueuePage;
+import com.project.api.dto.ReviewScoreRequest;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/educator/assessment")
@@ -32,35 +59,39 @@ public class AssessmentController {
     private AssessmentService assessmentService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private AssessmentTransferService transferService;
+
+    @Autowired
+    private QuestionLibraryService questionLibraryService;
+
+    @Autowired
+    private GradingJobService gradingJobService;
+
+    @Autowired
+    private RegradeService regradeService;
+
+    @Autowired
+    private ScoreStatisticsService scoreStatisticsService;
 
     // api endpoint to create a new assessment
     @PostMapping("/create")
     public ResponseEntity<Map<String, String>> createAssessment(
             @RequestBody AssessmentCreateRequest assessmentRequest,
-            @RequestHeader("Authorization") String authHeader) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         logger.info("Received request to create assessment: {}", assessmentRequest.getTitle());
-        logger.debug("Authorization header: {}", authHeader);
 
         Map<String, String> response = new HashMap<>();
         try {
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (principal == null) {
                 response.put("status", "error");
                 response.put("message", "Authorization header missing or invalid");
                 logger.error("Authorization header missing or invalid");
                 return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
             }
 
-            String token = authHeader.substring(7);
-            String educatorEmail = jwtUtil.getEmailFromToken(token);
-            if (!jwtUtil.validateToken(token, educatorEmail)) {
-                response.put("status", "error");
-                response.put("message", "Invalid token");
-                logger.error("Invalid token");
-                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
-            }
+            String educatorEmail = principal.getEmail();
 
-            Assessment createdAssessment = assessmentService.createAssessment(assessmentRequest, educatorEmail);
+            Assessment createdAssessment = assessmentService.createAssessment(assessmentRequest, principal);
             response.put("status", "success");
             response.put("message", "Assessment created successfully");
             response.put("assessmentId", createdAssessment.getAssessmentId().toString());
@@ -80,64 +111,418 @@ public class AssessmentController {
         }
     }
 
-    //api endpoint to list all assessments created by the educator
+    //api endpoint to list the educator's assessments: summary rows, keyset-paginated by cursor
     @GetMapping("/list")
     public ResponseEntity<Map<String, Object>> getEducatorAssessments(
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @AuthenticationPrincipal JwtPrincipal principal) {
         logger.info("Received request to fetch assessments for educator");
 
         Map<String, Object> response = new HashMap<>();
         try {
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (principal == null) {
                 response.put("status", "error");
                 response.put("message", "Authorization header missing or invalid");
                 return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
             }
 
-            String token = authHeader.substring(7);
-            String email = jwtUtil.getEmailFromToken(token);
-            if (!jwtUtil.validateToken(token, email)) {
+            AssessmentSummaryPage page = assessmentService.getEducatorAssessmentSummaries(principal, status, type, cursor, limit);
+            response.put("status", "success");
+            response.put("assessments", page.getAssessments());
+            response.put("nextCursor", page.getNextCursor());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while fetching assessments: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to fetch assessments due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    //api endpoint to create a new DRAFT version of an assessment; the body optionally overrides title, description, duration and times
+    @PostMapping("/clone")
+    public ResponseEntity<Map<String, String>> cloneAssessment(
+            @RequestParam("assessmentId") Long assessmentId,
+            @RequestBody(required = false) AssessmentCloneRequest cloneRequest,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        logger.info("Received request to clone assessment with ID: {}", assessmentId);
+
+        Map<String, String> response = new HashMap<>();
+        try {
+            if (principal == null) {
                 response.put("status", "error");
-                response.put("message", "Invalid token");
+                response.put("message", "Authorization header missing or invalid");
                 return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
             }
 
-            List<Assessment> assessments = assessmentService.getEducatorAssessments(email);
+            Assessment clone = assessmentService.cloneAssessment(assessmentId, cloneRequest, principal);
             response.put("status", "success");
-            response.put("assessments", assessments);
+            response.put("message", "Assessment cloned successfully");
+            response.put("assessmentId", clone.getAssessmentId().toString());
+            response.put("version", clone.getVersion().toString());
+            return new ResponseEntity<>(response, HttpStatus.CREATED);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while cloning assessment: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to clone assessment due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    //api endpoint to edit one question of a DRAFT assessment; returns the id the assessment now links for it
+    @PostMapping("/question/update")
+    public ResponseEntity<Map<String, String>> updateQuestion(
+            @RequestParam("assessmentId") Long assessmentId,
+            @RequestParam("questionId") Long questionId,
+            @RequestBody AssessmentCreateRequest.Question questionRequest,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, String> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            Long newQuestionId = assessmentService.updateQuestion(assessmentId, questionId, questionRequest, principal);
+            response.put("status", "success");
+            response.put("message", "Question updated successfully");
+            response.put("questionId", newQuestionId.toString());
             return new ResponseEntity<>(response, HttpStatus.OK);
 
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while updating question: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to update question due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    //api endpoint to correct a question's answer key after publishing; the assessment's auto-graded answers are regraded in the background
+    @PostMapping("/question/answer-key")
+    public ResponseEntity<Map<String, String>> correctAnswerKey(
+            @RequestParam("assessmentId") Long assessmentId,
+            @RequestParam("questionId") Long questionId,
+            @RequestBody AnswerKeyCorrection correction,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        logger.info("Received request to correct the answer key of question {} in assessment {}", questionId, assessmentId);
+
+        Map<String, String> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            long regradeId = assessmentService.correctAnswerKey(assessmentId, questionId, correction, principal);
+            response.put("status", "success");
+            response.put("message", "Answer key corrected, regrade queued");
+            response.put("regradeId", String.valueOf(regradeId));
+            return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+
         } catch (IllegalArgumentException e) {
             response.put("status", "error");
             response.put("message", e.getMessage());
             return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.CONFLICT);
         } catch (Exception e) {
-            logger.error("Unexpected error while fetching assessments: {}", e.getMessage(), e);
+            logger.error("Unexpected error while correcting answer key: {}", e.getMessage(), e);
             response.put("status", "error");
-            response.put("message", "Failed to fetch assessments due to an unexpected error");
+            response.put("message", "Failed to correct answer key due to an unexpected error");
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-   @PostMapping("/assign")
-    public ResponseEntity<Map<String, String>> assignAssessment(
-            @RequestBody Map<String, Object> requestBody,
-            @RequestHeader("Authorization") String authHeader) {
-        logger.info("Received request to assign assessment with ID: {}", requestBody.get("assessmentId"));
+    //api endpoint to follow a regrade as server-sent "progress" events until it is DONE or FAILED; errors are sent as one "error" event
+    @GetMapping(value = "/regrade/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamRegradeProgress(
+            @RequestParam("regradeId") Long regradeId,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        try {
+            if (principal == null) {
+                return errorStream(HttpStatus.UNAUTHORIZED, "Authorization header missing or invalid");
+            }
+            return ResponseEntity.ok(regradeService.subscribe(regradeId, principal));
+
+        } catch (IllegalArgumentException e) {
+            return errorStream(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Unexpected error while streaming regrade progress: {}", e.getMessage(), e);
+            return errorStream(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to stream regrade progress due to an unexpected error");
+        }
+    }
+
+    private static ResponseEntity<SseEmitter> errorStream(HttpStatus status, String message) {
+        SseEmitter emitter = new SseEmitter();
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("status", "error", "message", message)));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return ResponseEntity.status(status).body(emitter);
+    }
+
+    //api endpoint to auto-grade the pending answers of a published assessment from its answer key
+    @PostMapping("/grade")
+    public ResponseEntity<Map<String, String>> gradeAssessment(
+            @RequestParam("assessmentId") Long assessmentId,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        logger.info("Received request to auto-grade assessment with ID: {}", assessmentId);
 
         Map<String, String> response = new HashMap<>();
         try {
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (principal == null) {
                 response.put("status", "error");
                 response.put("message", "Authorization header missing or invalid");
                 return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
             }
 
-            String token = authHeader.substring(7);
-            String email = jwtUtil.getEmailFromToken(token);
-            if (!jwtUtil.validateToken(token, email)) {
+            AutoGradingService.GradingResult result = assessmentService.gradeAssessment(assessmentId, principal);
+            response.put("status", "success");
+            response.put("message", "Assessment graded successfully");
+            response.put("answersGraded", String.valueOf(result.answersGraded()));
+            response.put("submissionsUpdated", String.valueOf(result.submissionsUpdated()));
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while grading assessment: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to grade assessment due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    //api endpoint to run a program (request body, Java with a Main class) against a coding question's test cases
+    @PostMapping("/question/run")
+    public ResponseEntity<Map<String, Object>> runCode(
+            @RequestParam("questionId") Long questionId,
+            @RequestBody String source,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
                 response.put("status", "error");
-                response.put("message", "Invalid token");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            CodeExecutionService.CodeResult result = assessmentService.runCode(questionId, source, principal);
+            response.put("status", "success");
+            response.put("result", result);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            logger.error("Unexpected error while running code: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to run code due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    //api endpoint to list the answers waiting for the educator's review, earliest grading deadline first, keyset-paginated by cursor
+    @GetMapping("/review")
+    public ResponseEntity<Map<String, Object>> getReviewQueue(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            ReviewQueuePage page = gradingJobService.getReviewQueue(principal, cursor, limit);
+            response.put("status", "success");
+            response.put("items", page.getItems());
+            response.put("nextCursor", page.getNextCursor());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while fetching review queue: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to fetch review queue due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    //api endpoint to score one answer from the educator's review queue
+    @PostMapping("/review/score")
+    public ResponseEntity<Map<String, String>> scoreReview(
+            @RequestBody ReviewScoreRequest request,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, String> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            gradingJobService.submitReview(request.getJobId(), request.getScore(), request.getComments(), principal);
+            response.put("status", "success");
+            response.put("message", "Answer scored successfully");
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            logger.error("Unexpected error while scoring review: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to score answer due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    //api endpoint to fetch score statistics of an assessment: totals and per question mean, standard deviation, min/max, percentiles and histogram
+    @GetMapping("/statistics")
+    public ResponseEntity<Map<String, Object>> getStatistics(
+            @RequestParam("assessmentId") Long assessmentId,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            AssessmentStatistics statistics = scoreStatisticsService.getStatistics(assessmentId, principal);
+            response.put("status", "success");
+            response.put("statistics", statistics);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while fetching score statistics: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to fetch score statistics due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    //api endpoint to recompute the score statistics of an assessment from its stored scores
+    @PostMapping("/statistics/rebuild")
+    public ResponseEntity<Map<String, String>> rebuildStatistics(
+            @RequestParam("assessmentId") Long assessmentId,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, String> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            scoreStatisticsService.rebuild(assessmentId, principal);
+            response.put("status", "success");
+            response.put("message", "Score statistics rebuilt successfully");
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while rebuilding score statistics: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to rebuild score statistics due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    //api endpoint to browse the educator's question library, newest first; cursor is the last questionId of the previous page
+    @GetMapping("/library")
+    public ResponseEntity<Map<String, Object>> getQuestionLibrary(
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            List<QuestionLibraryEntry> questions = questionLibraryService.getLibrary(principal, type, cursor);
+            response.put("status", "success");
+            response.put("questions", questions);
+            response.put("nextCursor", questions.size() < QuestionLibraryService.LIBRARY_PAGE_SIZE
+                    ? null : questions.get(questions.size() - 1).getQuestionId());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while fetching question library: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to fetch question library due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+   @PostMapping("/assign")
+    public ResponseEntity<Map<String, String>> assignAssessment(
+            @RequestBody Map<String, Object> requestBody,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        logger.info("Received request to assign assessment with ID: {}", requestBody.get("assessmentId"));
+
+        Map<String, String> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
                 return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
             }
 
@@ -150,10 +535,10 @@ public class AssessmentController {
                 return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
             }
 
-            Assessment updatedAssessment = assessmentService.assignAssessment(assessmentId, email, classIds);
+            assessmentService.assignAssessment(assessmentId, principal, classIds);
             response.put("status", "success");
             response.put("message", "Assessment assigned successfully to selected classes");
-            response.put("assessmentId", updatedAssessment.getAssessmentId().toString());
+            response.put("assessmentId", assessmentId.toString());
             return new ResponseEntity<>(response, HttpStatus.OK);
 
         } catch (IllegalArgumentException | IllegalStateException e) {
@@ -167,4 +552,157 @@ public class AssessmentController {
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    //api endpoint to assign many assessments to many classes at once; only missing links are written
+    @PostMapping("/assign/bulk")
+    public ResponseEntity<Map<String, Object>> assignAssessments(
+            @RequestBody BulkAssignmentRequest assignmentRequest,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        return bulkAssignment(assignmentRequest, principal, true);
+    }
+
+    //api endpoint to remove many classes from many assessments at once
+    @PostMapping("/unassign/bulk")
+    public ResponseEntity<Map<String, Object>> unassignAssessments(
+            @RequestBody BulkAssignmentRequest assignmentRequest,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        return bulkAssignment(assignmentRequest, principal, false);
+    }
+
+    private ResponseEntity<Map<String, Object>> bulkAssignment(BulkAssignmentRequest assignmentRequest, JwtPrincipal principal,
+                                                               boolean assign) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            AssignmentResult result = assign
+                    ? assessmentService.assignAssessments(assignmentRequest.getAssessmentIds(), assignmentRequest.getClassIds(), principal)
+                    : assessmentService.unassignAssessments(assignmentRequest.getAssessmentIds(), assignmentRequest.getClassIds(), principal);
+            response.put("status", "success");
+            response.put("result", result);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while changing assessment classes: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to update assessment classes due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // api endpoint to import questions: text/csv or NDJSON body, or a multipart "file" upload.
+    // Without assessmentId the first NDJSON line creates a new DRAFT assessment.
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importQuestions(
+            @RequestParam(value = "assessmentId", required = false) Long assessmentId,
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            HttpServletRequest request,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        logger.info("Received request to import questions (assessmentId={})", assessmentId);
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            QuestionImportResult result;
+            if (file != null) {
+                String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+                boolean csv = name.endsWith(".csv") || isCsv(file.getContentType());
+                try (InputStream in = file.getInputStream()) {
+                    result = transferService.importQuestions(in, csv, assessmentId, principal);
+                }
+            } else {
+                result = transferService.importQuestions(request.getInputStream(), isCsv(request.getContentType()), assessmentId, principal);
+            }
+
+            response.put("status", result.getFailed() == 0 ? "success" : "partial");
+            response.put("assessmentId", result.getAssessmentId());
+            response.put("totalRows", result.getTotalRows());
+            response.put("imported", result.getImported());
+            response.put("failed", result.getFailed());
+            response.put("errors", result.getErrors());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (JsonProcessingException e) {
+            response.put("status", "error");
+            response.put("message", "Malformed JSON: " + e.getOriginalMessage());
+            logger.error("Malformed JSON in question import: {}", e.getOriginalMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            logger.error("Validation error while importing questions: {}", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while importing questions: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to import questions due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // api endpoint to export an assessment and its questions as NDJSON (default) or CSV.
+    // The file is written straight to the response; errors are only possible before the first byte.
+    @GetMapping("/export")
+    public ResponseEntity<Map<String, Object>> exportQuestions(
+            @RequestParam("assessmentId") Long assessmentId,
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            HttpServletResponse servletResponse,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        logger.info("Received request to export assessment {} as {}", assessmentId, format);
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+            boolean csv = "csv".equalsIgnoreCase(format);
+            if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+                throw new IllegalArgumentException("Format must be ndjson or csv");
+            }
+
+            Assessment assessment = transferService.findExportableAssessment(assessmentId, principal);
+            servletResponse.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+            servletResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"assessment-" + assessmentId + (csv ? ".csv" : ".ndjson") + "\"");
+            if (csv) {
+                transferService.exportCsv(assessmentId, servletResponse.getOutputStream());
+            } else {
+                transferService.exportNdjson(assessment, servletResponse.getOutputStream());
+            }
+            return null; // response already written
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while exporting assessment {}: {}", assessmentId, e.getMessage(), e);
+            if (servletResponse.isCommitted()) {
+                return null; // the client sees a truncated file
+            }
+            servletResponse.reset();
+            response.put("status", "error");
+            response.put("message", "Failed to export assessment due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private static boolean isCsv(String contentType) {
+        return contentType != null && (contentType.startsWith("text/csv") || contentType.startsWith("application/csv"));
+    }
+}
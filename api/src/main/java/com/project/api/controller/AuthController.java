@@ -2,20 +2,26 @@ package com.project.api.controller;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.project.api.config.JwtUtil;
+import com.project.api.config.JwtPrincipal;
 import com.project.api.dto.EducatorLoginRequest;
 import com.project.api.dto.EducatorRegisterRequest;
 import com.project.api.dto.StudentLoginRequest;
 import com.project.api.dto.StudentRegisterRequest;
+import com.project.api.dto.TokenPair;
+import com.project.api.exception.HashingCapacityExceededException;
+import com.project.api.exception.InvalidRefreshTokenException;
 import com.project.api.exception.UserAlreadyExistsException;
 import com.project.api.model.User;
+import com.project.api.service.TokenService;
 import com.project.api.service.UserService;
 
 import java.util.HashMap;
@@ -36,7 +42,7 @@ public class AuthController {
     private UserService userService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private TokenService tokenService;
 
         @PostMapping("/educator/register")
     public ResponseEntity<String> registerEducator(@RequestBody EducatorRegisterRequest registerRequest){
@@ -52,6 +58,11 @@ public class AuthController {
         } catch (UserAlreadyExistsException e) {
             logger.error("Educator registration failed for username: {}. Reason: {}", registerRequest.getName(), e.getMessage());
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (HashingCapacityExceededException e) {
+            logger.warn("Educator registration rejected for username: {}. Reason: {}", registerRequest.getName(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
         } catch (Exception e) {
             logger.error("Unexpected error during educator registration for username: {}", registerRequest.getName(), e);
             return new ResponseEntity<>("Educator registration failed due to an unexpected error", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -62,16 +73,27 @@ public class AuthController {
     public ResponseEntity<Map<String, String>> loginEducator(@RequestBody EducatorLoginRequest educatorLoginRequest) {
         logger.info("Educator login attempt for email: {}", educatorLoginRequest.getEmail());
 
-        Optional<User> user = userService.loginEducator(educatorLoginRequest);
-
         Map<String, String> response = new HashMap<>();
+
+        Optional<User> user;
+        try {
+            user = userService.loginEducator(educatorLoginRequest);
+        } catch (HashingCapacityExceededException e) {
+            logger.warn("Educator login rejected for email: {}. Reason: {}", educatorLoginRequest.getEmail(), e.getMessage());
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(response);
+        }
         
         
         if (user.isPresent()) {
-            String token = jwtUtil.generateToken(user.get().getEmail(), user.get().getRole().name());
+            TokenPair tokens = tokenService.issueTokens(user.get());
             logger.info("Educator login successful for email: {}", educatorLoginRequest.getEmail());
             response.put("status","success");
-            response.put("token", token);
+            response.put("token", tokens.getAccessToken());
+            response.put("refreshToken", tokens.getRefreshToken());
             response.put("role",user.get().getRole().name());
             logger.info("Educator login successful for email: {}", educatorLoginRequest.getEmail());
             return new ResponseEntity<>(response, HttpStatus.OK);
@@ -99,6 +121,11 @@ public class AuthController {
         } catch (UserAlreadyExistsException e) {
             logger.error("Student registration failed for username: {}. Reason: {}", registerRequest.getName(), e.getMessage());
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (HashingCapacityExceededException e) {
+            logger.warn("Student registration rejected for username: {}. Reason: {}", registerRequest.getName(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
         } catch (Exception e) {
             logger.error("Unexpected error during student registration for username: {}", registerRequest.getName(), e);
             return new ResponseEntity<>("Student registration failed due to an unexpected error", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -109,16 +136,27 @@ public class AuthController {
     public ResponseEntity<Map<String, String>> loginStudent(@RequestBody StudentLoginRequest studentLoginRequest) {
         logger.info("Student login attempt for email: {}", studentLoginRequest.getEmail());
 
-        Optional<User> user = userService.loginStudent(studentLoginRequest);
-
         Map<String, String> response = new HashMap<>();
+
+        Optional<User> user;
+        try {
+            user = userService.loginStudent(studentLoginRequest);
+        } catch (HashingCapacityExceededException e) {
+            logger.warn("Student login rejected for email: {}. Reason: {}", studentLoginRequest.getEmail(), e.getMessage());
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(response);
+        }
         
         
         if (user.isPresent()) {
-            String token = jwtUtil.generateToken(user.get().getEmail(), user.get().getRole().name());
+            TokenPair tokens = tokenService.issueTokens(user.get());
             logger.info("Student login successful for email: {}", studentLoginRequest.getEmail());
             response.put("status","success");
-            response.put("token", token);
+            response.put("token", tokens.getAccessToken());
+            response.put("refreshToken", tokens.getRefreshToken());
             response.put("role",user.get().getRole().name());
             logger.info("Student login successful for email: {}", studentLoginRequest.getEmail());
             return new ResponseEntity<>(response, HttpStatus.OK);
@@ -130,6 +168,50 @@ public class AuthController {
         }
     }
 
+    // Rotate a refresh token: the presented token is spent and a new pair is returned
+    @PostMapping("/auth/refresh")
+    public ResponseEntity<Map<String, String>> refreshToken(@RequestBody Map<String, String> request) {
+        Map<String, String> response = new HashMap<>();
+        try {
+            TokenPair tokens = tokenService.refresh(request.get("refreshToken"));
+            response.put("status", "success");
+            response.put("token", tokens.getAccessToken());
+            response.put("refreshToken", tokens.getRefreshToken());
+            response.put("role", tokens.getRole());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (InvalidRefreshTokenException e) {
+            logger.warn("Token refresh rejected: {}", e.getMessage());
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+        } catch (Exception e) {
+            logger.error("Unexpected error during token refresh", e);
+            response.put("status", "error");
+            response.put("message", "Token refresh failed due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
+    // Revoke the caller's access token and, if supplied, its refresh token family
+    @PostMapping("/auth/logout")
+    public ResponseEntity<Map<String, String>> logout(@RequestBody(required = false) Map<String, String> request,
+                                                      @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, String> response = new HashMap<>();
+        if (principal == null) {
+            response.put("status", "error");
+            response.put("message", "Authorization header missing or invalid");
+            return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+        }
+        try {
+            tokenService.logout(principal, request != null ? request.get("refreshToken") : null);
+            response.put("status", "success");
+            response.put("message", "Logged out successfully");
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Unexpected error during logout for email: {}", principal.getEmail(), e);
+            response.put("status", "error");
+            response.put("message", "Logout failed due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
-
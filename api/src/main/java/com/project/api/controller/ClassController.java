@@ -8,16 +8,16 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.project.api.model.Class;
-import com.project.api.config.JwtUtil;
+import com.project.api.config.JwtPrincipal;
 import com.project.api.dto.ClassCreateRequest;
 import com.project.api.service.AssessmentService;
 import com.project.api.service.ClassService;
@@ -30,23 +30,19 @@ public class ClassController {
     @Autowired
     private ClassService classService;
 
-    @Autowired
-    private JwtUtil jwtUtil;
-
     @Autowired
     private AssessmentService assessmentService;
 
     @PostMapping("/create/class")
     public ResponseEntity<Map<String,String>> createClass(@RequestBody ClassCreateRequest classRequest
-    , @RequestHeader("Authorization") String authHeader) {
+    , @AuthenticationPrincipal JwtPrincipal principal) {
 
         logger.info("Received request to create class: {}", classRequest.getClassName());
-        logger.debug("Authorization header: {}", authHeader);
     
         Map<String,String> response = new HashMap<>();
         try{
 
-            if(authHeader == null || !authHeader.startsWith("Bearer ")){
+            if (principal == null) {
 
                 response.put("status","error");
                 response.put("message","Authorization header missing or invalid");
@@ -54,19 +50,10 @@ public class ClassController {
                 return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
 
             }
-       
-            String token = authHeader.substring(7);
-            String educatorEmail = jwtUtil.getEmailFromToken(token);
-            if(!jwtUtil.validateToken(token, educatorEmail)){
 
-                response.put("status","error");
-                response.put("message","Invalid token");
-                logger.error("Invalid token");
-                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            String educatorEmail = principal.getEmail();
 
-            }
-
-            Class createdClass = classService.createClass(classRequest, educatorEmail);
+            Class createdClass = classService.createClass(classRequest, principal);
             response.put("status", "success");
             response.put("message", "Class created successfully");
             response.put("classId", createdClass.getClassId().toString());
@@ -90,26 +77,18 @@ public class ClassController {
 
 
     @GetMapping("/classes")
-    public ResponseEntity<Map<String, Object>> getEducatorClasses(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<Map<String, Object>> getEducatorClasses(@AuthenticationPrincipal JwtPrincipal principal) {
         logger.info("Received request to fetch classes for educator");
 
         Map<String, Object> response = new HashMap<>();
         try {
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (principal == null) {
                 response.put("status", "error");
                 response.put("message", "Authorization header missing or invalid");
                 return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
             }
 
-            String token = authHeader.substring(7);
-            String email = jwtUtil.getEmailFromToken(token);
-            if (!jwtUtil.validateToken(token, email)) {
-                response.put("status", "error");
-                response.put("message", "Invalid token");
-                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
-            }
-
-            List<Class> classes = classService.getEducatorClasses(email);
+            List<Class> classes = classService.getEducatorClasses(principal);
             response.put("status", "success");
             response.put("classes", classes);
             return new ResponseEntity<>(response, HttpStatus.OK);
@@ -129,30 +108,22 @@ public class ClassController {
     @GetMapping("/class-details")
     public ResponseEntity<Map<String, Object>> getClassDetails(
             @RequestParam("classId") Long classId,
-            @RequestHeader("Authorization") String authHeader) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         logger.info("Received request to fetch details for class ID: {}", classId);
-        logger.debug("Authorization header: {}", authHeader);
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (principal == null) {
                 response.put("status", "error");
                 response.put("message", "Authorization header missing or invalid");
                 logger.error("Authorization header missing or invalid");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
             }
 
-            String token = authHeader.substring(7);
-            String educatorEmail = jwtUtil.getEmailFromToken(token);
-            if (!jwtUtil.validateToken(token, educatorEmail)) {
-                response.put("status", "error");
-                response.put("message", "Invalid token");
-                logger.error("Invalid token");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
-            }
+            String educatorEmail = principal.getEmail();
 
-            Map<String, Object> classDetails = classService.getClassDetails(classId, educatorEmail);
+            Map<String, Object> classDetails = classService.getClassDetails(classId, principal);
             response.put("status", "success");
             response.put("classDetails", classDetails);
             logger.info("Class details fetched successfully for class ID: {} by educator: {}", classId, educatorEmail);
@@ -13,7 +13,9 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.project.api.config.JwtPrincipal;
 import com.project.api.config.JwtUtil;
+import com.project.api.service.TokenRevocationService;
 
 @RestController
 @RequestMapping("/api/educator")
@@ -23,6 +25,9 @@ public class EducatorController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     private static final Logger logger = LoggerFactory.getLogger(EducatorController.class);
 
 
@@ -33,17 +38,17 @@ public class EducatorController {
         Map<String, String> response = new HashMap<>();
 
         try {
-            String email = jwtUtil.getEmailFromToken(token);
-            String role = jwtUtil.getRoleFromToken(token);
+            JwtPrincipal principal = jwtUtil.parseToken(token);
 
-            if (jwtUtil.validateToken(token, email)) {
+            // Same revocation check as JwtRequestFilter, so a logged-out token stops validating here too
+            if (!principal.isExpired() && !tokenRevocationService.isRevoked(principal.getTokenId())) {
                 response.put("status", "valid");
-                response.put("email", email);
-                response.put("role", role);
+                response.put("email", principal.getEmail());
+                response.put("role", principal.getRole());
                 return new ResponseEntity<>(response, HttpStatus.OK);
             } else {
                 response.put("status", "invalid");
-                response.put("message", "Token is invalid or expired");
+                response.put("message", "Token is invalid, expired or revoked");
                 return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
             }
         } catch (Exception e) {
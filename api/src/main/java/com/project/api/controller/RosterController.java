@@ -0,0 +1,93 @@
+package com.project.api.controller;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.StudentImportResult;
+import com.project.api.service.StudentRosterImportService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+@RestController
+@RequestMapping("/api/educator/students")
+public class RosterController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RosterController.class);
+
+    @Autowired
+    private StudentRosterImportService rosterImportService;
+
+    // Bulk import: raw text/csv or application/json body, or a multipart "file" upload
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importStudents(
+            @RequestParam(value = "classId", required = false) Long classId,
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            HttpServletRequest request,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        logger.info("Received request to import students (classId={})", classId);
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            boolean csv;
+            StudentImportResult result;
+            if (file != null) {
+                String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+                csv = name.endsWith(".csv") || isCsv(file.getContentType());
+                try (InputStream in = file.getInputStream()) {
+                    result = rosterImportService.importStudents(in, csv, classId, principal);
+                }
+            } else {
+                csv = isCsv(request.getContentType());
+                result = rosterImportService.importStudents(request.getInputStream(), csv, classId, principal);
+            }
+
+            response.put("status", result.getFailed() == 0 ? "success" : "partial");
+            response.put("totalRows", result.getTotalRows());
+            response.put("imported", result.getImported());
+            response.put("failed", result.getFailed());
+            response.put("errors", result.getErrors());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (JsonProcessingException e) {
+            response.put("status", "error");
+            response.put("message", "Malformed JSON: " + e.getOriginalMessage());
+            logger.error("Malformed JSON in student import: {}", e.getOriginalMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            logger.error("Validation error while importing students: {}", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while importing students: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to import students due to an unexpected error");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private static boolean isCsv(String contentType) {
+        return contentType != null && (contentType.startsWith("text/csv") || contentType.startsWith("application/csv"));
+    }
+}
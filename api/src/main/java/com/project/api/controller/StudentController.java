@@ -2,8 +2,11 @@ package com.project.api.controller;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -19,9 +22,15 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.project.api.config.JwtUtil;
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.SubmissionReceipt;
+import com.project.api.dto.SubmissionRequest;
 import com.project.api.model.Class;
+import com.project.api.service.AnswerAutosaveService;
 import com.project.api.service.ClassService;
+import com.project.api.service.DeliverySnapshotService;
+import com.project.api.service.QuestionLayoutService;
+import com.project.api.service.SubmissionIngestService;
 
 
 
@@ -33,31 +42,32 @@ public class StudentController {
     private ClassService classService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private DeliverySnapshotService deliverySnapshotService;
+
+    @Autowired
+    private QuestionLayoutService questionLayoutService;
+
+    @Autowired
+    private SubmissionIngestService submissionIngestService;
+
+    @Autowired
+    private AnswerAutosaveService answerAutosaveService;
 
     private static final Logger logger = LoggerFactory.getLogger(StudentController.class);
 
     @GetMapping("/classes")
-    public ResponseEntity<Map<String, Object>> getStudentClasses(@RequestHeader("Authorization") String authHeader){
+    public ResponseEntity<Map<String, Object>> getStudentClasses(@AuthenticationPrincipal JwtPrincipal principal){
         logger.info("Received request to fetch classes for student");
 
         Map<String, Object> response = new HashMap<>();
         try {
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (principal == null) {
                 response.put("status", "error");
                 response.put("message", "Authorization header missing or invalid");
                 return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
             }
 
-            String token = authHeader.substring(7);
-            String email = jwtUtil.getEmailFromToken(token);
-            if (!jwtUtil.validateToken(token, email)) {
-                response.put("status", "error");
-                response.put("message", "Invalid token");
-                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
-            }
-
-            List<Class> classes = classService.getStudentClasses(email);
+            List<Class> classes = classService.getStudentClasses(principal);
             response.put("status", "success");
             response.put("classes", classes);
             return new ResponseEntity<>(response, HttpStatus.OK);
@@ -75,25 +85,17 @@ public class StudentController {
     }
 
     @PostMapping("/join/class")
-public ResponseEntity<Map<String, Object>> joinClass(@RequestHeader("Authorization") String authHeader,
+public ResponseEntity<Map<String, Object>> joinClass(@AuthenticationPrincipal JwtPrincipal principal,
                                                      @RequestBody Map<String, String> requestBody){
 logger.info("Received request to join class with code: {}", requestBody.get("classCode"));
     Map<String, Object> response = new HashMap<>();
     try {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (principal == null) {
             response.put("status", "error");
             response.put("message", "Authorization header missing or invalid");
             return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
         }
 
-        String token = authHeader.substring(7);
-        String email = jwtUtil.getEmailFromToken(token);
-        if (!jwtUtil.validateToken(token, email)) {
-            response.put("status", "error");
-            response.put("message", "Invalid token");
-            return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
-        }
-
         String classCode = requestBody.get("classCode");
         if (classCode == null || classCode.trim().isEmpty()) {
             response.put("status", "error");
@@ -101,7 +103,7 @@ logger.info("Received request to join class with code: {}", requestBody.get("cla
             return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         }
 
-        Class joinedClass = classService.joinClass(classCode, email);
+        Class joinedClass = classService.joinClass(classCode, principal);
         response.put("status", "success");
         response.put("message", "Successfully joined class: " + joinedClass.getClassName());
         return new ResponseEntity<>(response, HttpStatus.OK);
@@ -123,23 +125,18 @@ logger.info("Received request to join class with code: {}", requestBody.get("cla
     @GetMapping("/class-details")
 public ResponseEntity<Map<String, Object>> getClassDetails(
         @RequestParam("classId") Long classId,
-        @RequestHeader("Authorization") String authHeader) {
+        @AuthenticationPrincipal JwtPrincipal principal) {
     logger.info("Received request to fetch details for class ID: {} by student", classId);
     Map<String, Object> response = new HashMap<>();
     try {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (principal == null) {
             response.put("status", "error");
             response.put("message", "Authorization header missing or invalid");
             return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
         }
-        String token = authHeader.substring(7);
-        String email = jwtUtil.getEmailFromToken(token);
-        if (!jwtUtil.validateToken(token, email)) {
-            response.put("status", "error");
-            response.put("message", "Invalid token");
-            return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
-        }
-        Map<String, Object> classDetails = classService.getClassDetailsForStudent(classId, email);
+
+        String email = principal.getEmail();
+        Map<String, Object> classDetails = classService.getClassDetailsForStudent(classId, principal);
         response.put("status", "success");
         response.put("classDetails", classDetails);
         logger.info("Class details fetched successfully for class ID: {} by student: {}", classId, email);
@@ -157,4 +154,173 @@ public ResponseEntity<Map<String, Object>> getClassDetails(
     }
 
 }
-}
\ No newline at end of file
+
+    // Question paper of an ACTIVE assessment (no answers), served from the cached delivery snapshot.
+    // Clients that accept gzip get the cached bytes as they are; If-None-Match avoids the body entirely.
+    @GetMapping("/assessment")
+    public ResponseEntity<?> getAssessment(
+            @RequestParam("assessmentId") Long assessmentId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            DeliverySnapshotService.Snapshot snapshot = deliverySnapshotService.getForStudent(assessmentId, principal);
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            String etag = snapshot.getETag(gzip);
+            if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+            }
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .header(HttpHeaders.CACHE_CONTROL, "private, no-cache")
+                    .contentType(MediaType.APPLICATION_JSON);
+            if (gzip) {
+                return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzipped());
+            }
+            return ok.body(snapshot.decompress());
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            logger.error("Validation error while opening assessment {}: {}", assessmentId, e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while opening assessment {}: {}", assessmentId, e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to open assessment");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // The student's question and option order for the assessment (shuffled for exams)
+    @GetMapping("/assessment/layout")
+    public ResponseEntity<Map<String, Object>> getAssessmentLayout(
+            @RequestParam("assessmentId") Long assessmentId,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            response.put("status", "success");
+            response.putAll(questionLayoutService.layoutFor(assessmentId, principal));
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            logger.error("Validation error while fetching layout of assessment {}: {}", assessmentId, e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while fetching layout of assessment {}: {}", assessmentId, e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to fetch assessment layout");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Autosave of in-progress answers; buffered in memory and written in batches every few seconds
+    @PostMapping("/autosave")
+    public ResponseEntity<Map<String, Object>> autosaveAnswers(
+            @RequestBody SubmissionRequest autosaveRequest,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            response.put("status", "success");
+            response.put("saved", answerAutosaveService.save(autosaveRequest, principal));
+            return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while autosaving answers: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to autosave answers");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // The student's autosaved answers, to resume an attempt (question id -> stored answer)
+    @GetMapping("/autosave")
+    public ResponseEntity<Map<String, Object>> getAutosavedAnswers(
+            @RequestParam("assessmentId") Long assessmentId,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            response.put("status", "success");
+            response.put("answers", answerAutosaveService.getSaved(assessmentId, principal));
+            return new ResponseEntity<>(response, HttpStatus.OK);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Unexpected error while fetching autosaved answers: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to fetch autosaved answers");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Final submission of an assessment. Acknowledged with 202 once stored; retries must reuse the
+    // same Idempotency-Key and get the original receipt back
+    @PostMapping("/submission")
+    public ResponseEntity<Map<String, Object>> submitAssessment(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody SubmissionRequest submissionRequest,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (principal == null) {
+                response.put("status", "error");
+                response.put("message", "Authorization header missing or invalid");
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+
+            SubmissionReceipt receipt = submissionIngestService.submit(submissionRequest, idempotencyKey, principal);
+            response.put("status", "success");
+            response.put("receipt", receipt);
+            return new ResponseEntity<>(response, receipt.isDuplicate() ? HttpStatus.OK : HttpStatus.ACCEPTED);
+
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            logger.error("Unexpected error while accepting submission: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Failed to accept submission");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.project.api.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+// Corrected answer key of a question after the assessment was published: correctAnswer for MCQ
+// (option index) and TRUE_FALSE ("true"/"false"), the full keyword list for SHORT_ANSWER and ESSAY
+@Data
+public class AnswerKeyCorrection {
+
+    private String correctAnswer;
+    private List<AssessmentCreateRequest.Keyword> keywords;
+}
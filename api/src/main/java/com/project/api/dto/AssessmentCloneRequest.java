@@ -0,0 +1,16 @@
+package com.project.api.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+// Fields of the new version; null keeps the value of the assessment being cloned
+@Data
+public class AssessmentCloneRequest {
+
+    private String title;
+    private String description;
+    private Integer durationMinutes;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+}
@@ -13,6 +13,7 @@ public class AssessmentCreateRequest {
     private LocalDateTime endTime;
     private String gradingMode; // e.g., "AUTO", "MANUAL"
     private List<Question> questions;
+    private List<Long> libraryQuestionIds; // existing questions of the educator's library to link after the new ones
 
     // Getters and Setters
     public String getTitle() {
@@ -79,14 +80,23 @@ public class AssessmentCreateRequest {
         this.questions = questions;
     }
 
+    public List<Long> getLibraryQuestionIds() {
+        return libraryQuestionIds;
+    }
+
+    public void setLibraryQuestionIds(List<Long> libraryQuestionIds) {
+        this.libraryQuestionIds = libraryQuestionIds;
+    }
+
     // Nested Question class
     public static class Question {
         private String text;
-        private String type; // e.g., "MCQ", "TRUE_FALSE", "SHORT_ANSWER", "ESSAY"
+        private String type; // e.g., "MCQ", "TRUE_FALSE", "SHORT_ANSWER", "ESSAY", "CODING"
         private Double maxScore;
         private String correctAnswer; // Index for MCQ, "true"/"false" for TRUE_FALSE
         private List<Option> options;
         private List<Keyword> keywords;
+        private List<TestCase> testCases; // CODING only
 
         // Getters and Setters
         public String getText() {
@@ -136,6 +146,14 @@ public class AssessmentCreateRequest {
         public void setKeywords(List<Keyword> keywords) {
             this.keywords = keywords;
         }
+
+        public List<TestCase> getTestCases() {
+            return testCases;
+        }
+
+        public void setTestCases(List<TestCase> testCases) {
+            this.testCases = testCases;
+        }
     }
 
     // Nested Option class
@@ -165,6 +183,7 @@ public class AssessmentCreateRequest {
     public static class Keyword {
         private String keyword;
         private Double weight;
+        private Integer tolerance;
 
         // Getters and Setters
         public String getKeyword() {
@@ -182,5 +201,45 @@ public class AssessmentCreateRequest {
         public void setWeight(Double weight) {
             this.weight = weight;
         }
+
+        public Integer getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(Integer tolerance) {
+            this.tolerance = tolerance;
+        }
+    }
+
+    // Nested TestCase class
+    public static class TestCase {
+        private String input;
+        private String expectedOutput;
+        private Double weight;
+
+        // Getters and Setters
+        public String getInput() {
+            return input;
+        }
+
+        public void setInput(String input) {
+            this.input = input;
+        }
+
+        public String getExpectedOutput() {
+            return expectedOutput;
+        }
+
+        public void setExpectedOutput(String expectedOutput) {
+            this.expectedOutput = expectedOutput;
+        }
+
+        public Double getWeight() {
+            return weight;
+        }
+
+        public void setWeight(Double weight) {
+            this.weight = weight;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package com.project.api.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Score statistics of an assessment: GRADED submission totals, and every scored answer per question.
+// Percentiles and histogram counts are estimates from a t-digest, exact for small classes.
+@Data
+@AllArgsConstructor
+public class AssessmentStatistics {
+
+    private Long assessmentId;
+    private Summary totals;
+    private List<Summary> questions;
+
+    @Data
+    @AllArgsConstructor
+    public static class Summary {
+        // Null for the submission totals
+        private Long questionId;
+        private Long count;
+        private Double mean;
+        private Double standardDeviation;
+        private Double min;
+        private Double max;
+        private Double maxScore;
+        // p10, p25, p50, p75, p90
+        private Map<String, Double> percentiles;
+        private List<Bin> histogram;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Bin {
+        private Double from;
+        private Double to;
+        private Long count;
+    }
+}
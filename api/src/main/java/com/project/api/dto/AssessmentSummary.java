@@ -0,0 +1,31 @@
+package com.project.api.dto;
+
+import java.time.LocalDateTime;
+
+import com.project.api.model.AssessmentStatus;
+import com.project.api.model.AssessmentType;
+import com.project.api.model.GradingMode;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// List row for an educator's assessments: summary columns plus counts, built directly by a
+// JPQL constructor expression so no questions, options or classes are loaded.
+@Data
+@AllArgsConstructor
+public class AssessmentSummary {
+
+    private Long assessmentId;
+    private String title;
+    private String description;
+    private AssessmentType type;
+    private AssessmentStatus status;
+    private GradingMode gradingMode;
+    private Integer durationMinutes;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long questionCount;
+    private Long classCount;
+}
@@ -0,0 +1,15 @@
+package com.project.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AssessmentSummaryPage {
+
+    private List<AssessmentSummary> assessments;
+    // Opaque keyset cursor for the next page, null on the last page
+    private String nextCursor;
+}
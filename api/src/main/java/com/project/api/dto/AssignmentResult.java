@@ -0,0 +1,15 @@
+package com.project.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AssignmentResult {
+
+    // assessment_classes rows written or deleted; pairs that were already in the requested state are not counted
+    private int linksAdded;
+    private int linksRemoved;
+    // Assessments moved DRAFT -> ASSIGNED on assign, or back to DRAFT when their last class was removed
+    private int statusChanged;
+}
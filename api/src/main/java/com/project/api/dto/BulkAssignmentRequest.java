@@ -0,0 +1,13 @@
+package com.project.api.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+// Every listed assessment is assigned to (or unassigned from) every listed class
+@Data
+public class BulkAssignmentRequest {
+
+    private List<Long> assessmentIds;
+    private List<Long> classIds;
+}
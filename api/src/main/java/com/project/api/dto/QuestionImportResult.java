@@ -0,0 +1,34 @@
+package com.project.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+public class QuestionImportResult {
+
+    private Long assessmentId;
+    private long totalRows;
+    private long imported;
+    // Imported questions that were already in the educator's library and were linked instead of copied
+    private long reused;
+    // Questions skipped because the assessment already contains an identical one
+    private long duplicates;
+    private long failed;
+    private List<RowError> errors = new ArrayList<>();
+
+    public void addError(long row, String question, String message) {
+        failed++;
+        errors.add(new RowError(row, question, message));
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private String question;
+        private String message;
+    }
+}
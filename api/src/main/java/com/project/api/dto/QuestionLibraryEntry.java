@@ -0,0 +1,21 @@
+package com.project.api.dto;
+
+import java.time.LocalDateTime;
+
+import com.project.api.model.QuestionType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// List row of an educator's question library, with the number of assessments using the question
+@Data
+@AllArgsConstructor
+public class QuestionLibraryEntry {
+
+    private Long questionId;
+    private String text;
+    private QuestionType type;
+    private Double maxScore;
+    private Long usageCount;
+    private LocalDateTime createdAt;
+}
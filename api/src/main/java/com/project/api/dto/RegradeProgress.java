@@ -0,0 +1,25 @@
+package com.project.api.dto;
+
+import java.time.LocalDateTime;
+
+import com.project.api.model.RegradeStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Progress of a regrade run, as sent to the progress stream
+@Data
+@AllArgsConstructor
+public class RegradeProgress {
+
+    private Long regradeId;
+    private Long assessmentId;
+    private Long questionId;
+    private RegradeStatus status;
+    private Integer total;
+    private Integer processed;
+    private Integer changed;
+    private Double scoreDelta;
+    private String error;
+    private LocalDateTime finishedAt;
+}
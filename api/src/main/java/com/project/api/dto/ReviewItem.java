@@ -0,0 +1,28 @@
+package com.project.api.dto;
+
+import java.time.LocalDateTime;
+
+import com.project.api.model.QuestionType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// One answer waiting in an educator's review queue. suggestedScore is the keyword score of
+// SHORT_ANSWER and ESSAY answers whose question has keywords, null otherwise.
+@Data
+@AllArgsConstructor
+public class ReviewItem {
+
+    private Long jobId;
+    private Long submissionId;
+    private Long submissionAnswerId;
+    private Long assessmentId;
+    private String assessmentTitle;
+    private Long questionId;
+    private String questionText;
+    private QuestionType questionType;
+    private Double maxScore;
+    private String answerText;
+    private Double suggestedScore;
+    private LocalDateTime deadline;
+}
@@ -0,0 +1,12 @@
+package com.project.api.dto;
+
+import lombok.Data;
+
+// An educator's score for one answer in their review queue
+@Data
+public class ReviewScoreRequest {
+
+    private Long jobId;
+    private Double score;
+    private String comments;
+}
@@ -0,0 +1,29 @@
+package com.project.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+public class StudentImportResult {
+
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private List<RowError> errors = new ArrayList<>();
+
+    public void addError(long row, String email, String message) {
+        failed++;
+        errors.add(new RowError(row, email, message));
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private String email;
+        private String message;
+    }
+}
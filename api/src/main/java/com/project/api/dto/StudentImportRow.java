@@ -0,0 +1,23 @@
+package com.project.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class StudentImportRow {
+
+    private String email;
+    private String name;
+    private String password;
+
+    // Position in the uploaded file, used in error reports (not read from the payload)
+    @JsonIgnore
+    private long rowNumber;
+
+    // Set when the row could not be parsed; the row is reported and skipped
+    @JsonIgnore
+    private String error;
+}
@@ -0,0 +1,18 @@
+package com.project.api.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Acknowledgement of a durably stored submission; grading happens later
+@Data
+@AllArgsConstructor
+public class SubmissionReceipt {
+
+    private Long receiptId;
+    private Long assessmentId;
+    private LocalDateTime receivedAt;
+    // true when this request was a retry of one already accepted with the same idempotency key
+    private boolean duplicate;
+}
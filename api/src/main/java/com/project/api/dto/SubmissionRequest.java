@@ -0,0 +1,21 @@
+package com.project.api.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class SubmissionRequest {
+
+    private Long assessmentId;
+    private List<Answer> answers;
+
+    @Data
+    public static class Answer {
+        private Long questionId;
+        // Free-text answer (TRUE_FALSE, SHORT_ANSWER, ESSAY, CODING)
+        private String answerText;
+        // Position of the chosen option as displayed to the student (MCQ); mapped back to the canonical index
+        private Integer optionIndex;
+    }
+}
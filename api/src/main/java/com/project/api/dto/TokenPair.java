@@ -0,0 +1,16 @@
+package com.project.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Access token plus the refresh token that can renew it
+@Data
+@AllArgsConstructor
+public class TokenPair {
+
+    private String accessToken;
+    private String refreshToken;
+    private String role;
+    // Access token expiry in epoch milliseconds
+    private long accessExpiresAt;
+}
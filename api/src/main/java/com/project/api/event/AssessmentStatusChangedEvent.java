@@ -0,0 +1,26 @@
+package com.project.api.event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.project.api.model.AssessmentStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Published after a batch of assessments has moved from one status to another and the change
+// is committed. Listeners receive every id of the batch in one event.
+@Getter
+@ToString
+@AllArgsConstructor
+public class AssessmentStatusChangedEvent {
+
+    private final List<Long> assessmentIds;
+
+    private final AssessmentStatus from;
+
+    private final AssessmentStatus to;
+
+    private final LocalDateTime transitionedAt;
+}
@@ -0,0 +1,9 @@
+package com.project.api.exception;
+
+// Thrown when the code execution queue is full; the job can be resubmitted later unchanged
+public class CodeExecutionQueueFullException extends IllegalStateException{
+
+    public CodeExecutionQueueFullException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.project.api.exception;
+
+// Thrown when the password hashing pool is saturated; mapped to 503 with a Retry-After header
+public class HashingCapacityExceededException extends RuntimeException{
+
+    private final int retryAfterSeconds;
+
+    public HashingCapacityExceededException(String message, int retryAfterSeconds){
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds(){
+        return retryAfterSeconds;
+    }
+}
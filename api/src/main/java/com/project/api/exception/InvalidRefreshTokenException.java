@@ -0,0 +1,8 @@
+package com.project.api.exception;
+
+public class InvalidRefreshTokenException extends RuntimeException{
+
+    public InvalidRefreshTokenException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,54 @@
+package com.project.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Latest autosaved answer of a student to one question of an assessment they have not submitted
+// yet. AnswerAutosaveService writes it with batched upserts; the final submission is built from
+// the request or, if that has no answers, from these rows.
+@Entity
+@Table(name = "answer_drafts")
+@IdClass(AnswerDraft.Key.class)
+@Getter
+@Setter
+public class AnswerDraft {
+
+    @Id
+    @Column(name = "assessment_id")
+    private Long assessmentId;
+
+    @Id
+    @Column(name = "student_id")
+    private Long studentId;
+
+    @Id
+    @Column(name = "question_id")
+    private Long questionId;
+
+    // Stored form, as in submission_answers (canonical option index for MCQ)
+    @Lob
+    @Column(name = "answer_text")
+    private String answerText;
+
+    // Increases with every save; an upsert never replaces a newer revision with an older one
+    @Column(name = "revision", nullable = false)
+    private Long revision;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long assessmentId;
+        private Long studentId;
+        private Long questionId;
+    }
+}
@@ -1,6 +1,7 @@
 package com.project.api.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import lombok.Data;
@@ -13,7 +14,10 @@ import java.util.List;
 
 @Entity
 @Table(name = "assessments", indexes = {
-    @Index(name = "idx_assessment_created_by", columnList = "created_by")
+    @Index(name = "idx_assessment_created_by", columnList = "created_by"),
+    @Index(name = "idx_assessment_status_window", columnList = "status, start_time, end_time"),
+    @Index(name = "idx_assessment_owner_updated", columnList = "created_by, updated_at, assessment_id"),
+    @Index(name = "idx_assessment_root_version", columnList = "root_assessment_id, version", unique = true)
 })
 @Data
 public class Assessment {
@@ -60,9 +64,19 @@ public class Assessment {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
-    @OneToMany(mappedBy = "assessment", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonManagedReference
-    private List<Question> questions = new ArrayList<>();
+    // Versioning: a clone points at the assessment it was cloned from and shares the root of its
+    // lineage; version numbers are unique within a lineage (idx_assessment_root_version). Null root =
+    // this is the first version.
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parent_assessment_id")
+    @JsonIgnore
+    private Assessment parentAssessment;
+
+    @Column(name = "root_assessment_id")
+    private Long rootAssessmentId;
+
+    @Column(name = "version")
+    private Integer version = 1;
 
     @ManyToMany
     @JoinTable(
@@ -0,0 +1,54 @@
+package com.project.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Membership of a library question in an assessment. A question is stored once per educator
+// and content (see Question.contentHash) and linked into every assessment that uses it; the
+// sort order is the order students see when the assessment is not shuffled.
+@Entity
+@Table(name = "assessment_questions", indexes = {
+    @Index(name = "idx_assessment_question_order", columnList = "assessment_id, sort_order"),
+    @Index(name = "idx_assessment_question_question_id", columnList = "question_id")
+})
+@IdClass(AssessmentQuestion.Key.class)
+@Getter
+@Setter
+public class AssessmentQuestion {
+
+    @Id
+    @Column(name = "assessment_id")
+    private Long assessmentId;
+
+    @Id
+    @Column(name = "question_id")
+    private Long questionId;
+
+    @Column(name = "sort_order", nullable = false)
+    private Integer sortOrder;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "assessment_id", insertable = false, updatable = false)
+    private Assessment assessment;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "question_id", insertable = false, updatable = false)
+    private Question question;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long assessmentId;
+        private Long questionId;
+    }
+}
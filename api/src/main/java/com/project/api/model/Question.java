@@ -1,7 +1,6 @@
 package com.project.api.model;
 
 
-import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import lombok.Getter;
@@ -13,22 +12,39 @@ import java.util.List;
 
 @Entity
 @Table(name = "questions", indexes = {
-    @Index(name = "idx_question_assessment_id", columnList = "assessment_id")
+    @Index(name = "idx_question_assessment_id", columnList = "assessment_id"),
+    @Index(name = "idx_question_owner", columnList = "created_by"),
+    @Index(name = "idx_question_owner_hash", columnList = "created_by, content_hash")
 })
 @Getter
 @Setter
 public class Question {
 
+    // Pooled ids from id_generators (not IDENTITY) so Hibernate can batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "question_id")
+    @TableGenerator(name = "question_id", table = "id_generators", pkColumnName = "gen_name",
+                    valueColumnName = "next_val", pkColumnValue = "questions", allocationSize = 50)
     @Column(name = "question_id")
     private Long questionId;
 
+    // Assessment the question was first written for; every assessment using it (this one
+    // included) links it through assessment_questions, which is the only membership to read
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "assessment_id", nullable = false)
-    @JsonBackReference
+    @JsonIgnore
     private Assessment assessment;
 
+    // Owner of the library entry; questions are shared only between the same educator's assessments
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "created_by")
+    @JsonIgnore
+    private User createdBy;
+
+    // SHA-256 of the normalized content (see QuestionLibraryService), used to reuse identical questions
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(nullable = false)
     private String text;
 
@@ -52,10 +68,12 @@ public class Question {
     private LocalDateTime updatedAt;
 
     @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("optionId")
     @JsonManagedReference
     private List<QuestionOption> options = new ArrayList<>();
 
     @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("keywordId")
     @JsonManagedReference
     private List<QuestionKeyword> keywords = new ArrayList<>();
 
@@ -63,6 +81,11 @@ public class Question {
     @JsonManagedReference
     private List<RubricCriteria> rubricCriteria = new ArrayList<>();
 
+    // CODING only; hidden from students like keywords
+    @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonManagedReference
+    private List<QuestionTestCase> testCases = new ArrayList<>();
+
     @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
     private List<SubmissionAnswer> answers = new ArrayList<>();
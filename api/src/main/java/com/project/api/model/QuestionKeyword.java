@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
 public class QuestionKeyword {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "question_keyword_id")
+    @TableGenerator(name = "question_keyword_id", table = "id_generators", pkColumnName = "gen_name",
+                    valueColumnName = "next_val", pkColumnValue = "question_keywords", allocationSize = 50)
     @Column(name = "keyword_id")
     private Long keywordId;
 
@@ -29,6 +31,10 @@ public class QuestionKeyword {
     @Column(nullable = false)
     private Double weight;
 
+    // Misspellings within this many edits still match (0 = exact); see KeywordMatcher
+    @Column(name = "tolerance")
+    private Integer tolerance = 0;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
 public class QuestionOption {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "question_option_id")
+    @TableGenerator(name = "question_option_id", table = "id_generators", pkColumnName = "gen_name",
+                    valueColumnName = "next_val", pkColumnValue = "question_options", allocationSize = 50)
     @Column(name = "option_id")
     private Long optionId;
 
@@ -0,0 +1,46 @@
+package com.project.api.model;
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import lombok.Getter;
+import lombok.Setter;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One test of a CODING question: the program gets input on stdin and must print expectedOutput
+// (compared ignoring trailing whitespace); weight is the test's share of the question's score.
+@Entity
+@Table(name = "question_test_cases", indexes = {
+    @Index(name = "idx_test_case_question_id", columnList = "question_id")
+})
+@Getter
+@Setter
+public class QuestionTestCase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "question_test_case_id")
+    @TableGenerator(name = "question_test_case_id", table = "id_generators", pkColumnName = "gen_name",
+                    valueColumnName = "next_val", pkColumnValue = "question_test_cases", allocationSize = 50)
+    @Column(name = "test_case_id")
+    private Long testCaseId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "question_id", nullable = false)
+    @JsonBackReference
+    private Question question;
+
+    @Lob
+    @Column(name = "input")
+    private String input;
+
+    @Lob
+    @Column(name = "expected_output", nullable = false)
+    private String expectedOutput;
+
+    @Column(nullable = false)
+    private Double weight;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,8 @@
+package com.project.api.model;
+
+public enum RegradeStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
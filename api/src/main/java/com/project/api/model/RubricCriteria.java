@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
 public class RubricCriteria {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "rubric_criteria_id")
+    @TableGenerator(name = "rubric_criteria_id", table = "id_generators", pkColumnName = "gen_name",
+                    valueColumnName = "next_val", pkColumnValue = "rubric_criteria", allocationSize = 50)
     @Column(name = "criteria_id")
     private Long criteriaId;
 
@@ -35,7 +35,9 @@ public class SubmissionAnswer {
     @JsonBackReference
     private Question question;
 
-    @Column(name = "answer_text", length = 1000)
+    // Essays and CODING programs go through here too, so the column is LONGTEXT
+    @Lob
+    @Column(name = "answer_text")
     private String answerText;
 
     @Column(name = "is_auto_graded", nullable = false)
@@ -2,15 +2,100 @@ package com.project.api.repository;
 
 
 import com.project.api.model.Assessment;
+import com.project.api.dto.AssessmentSummary;
+import com.project.api.model.AssessmentStatus;
+import com.project.api.model.AssessmentType;
 import com.project.api.model.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 public interface AssessmentRepository extends JpaRepository<Assessment, Long> {
 
     List<Assessment> findByCreatedBy(User createdBy);
 
+    List<Assessment> findByCreatedByUserId(Long userId);
+
+    // One page of an educator's assessments, newest update first, with the question and class
+    // counts from one aggregate query (COUNT DISTINCT, since the two joins multiply). Keyset
+    // pagination: the next page is read after the (updatedAt, assessmentId) of the last row seen,
+    // so every page is an index range scan on idx_assessment_owner_updated regardless of depth.
+    String SUMMARY_SELECT = "SELECT new com.project.api.dto.AssessmentSummary(a.assessmentId, a.title, a.description, a.type, a.status, "
+            + "a.gradingMode, a.durationMinutes, a.startTime, a.endTime, a.createdAt, a.updatedAt, "
+            + "COUNT(DISTINCT l.questionId), COUNT(DISTINCT c.classId)) "
+            + "FROM Assessment a LEFT JOIN AssessmentQuestion l ON l.assessmentId = a.assessmentId LEFT JOIN a.classes c "
+            + "WHERE a.createdBy.userId = :userId "
+            + "AND (:status IS NULL OR a.status = :status) AND (:type IS NULL OR a.type = :type) ";
+    String SUMMARY_ORDER = "GROUP BY a.assessmentId ORDER BY a.updatedAt DESC, a.assessmentId DESC";
+
+    @Query(SUMMARY_SELECT + SUMMARY_ORDER)
+    List<AssessmentSummary> findSummariesByOwner(@Param("userId") Long userId,
+                                                 @Param("status") AssessmentStatus status,
+                                                 @Param("type") AssessmentType type,
+                                                 Pageable page);
+
+    @Query(SUMMARY_SELECT
+            + "AND (a.updatedAt < :afterUpdatedAt OR (a.updatedAt = :afterUpdatedAt AND a.assessmentId < :afterId)) "
+            + SUMMARY_ORDER)
+    List<AssessmentSummary> findSummariesByOwnerAfter(@Param("userId") Long userId,
+                                                      @Param("status") AssessmentStatus status,
+                                                      @Param("type") AssessmentType type,
+                                                      @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                                      @Param("afterId") Long afterId,
+                                                      Pageable page);
+
+    // Highest version in a lineage; rows from before versioning count as version 1
+    @Query("SELECT COALESCE(MAX(COALESCE(a.version, 1)), 1) FROM Assessment a "
+            + "WHERE a.assessmentId = :rootId OR a.rootAssessmentId = :rootId")
+    int findMaxVersion(@Param("rootId") Long rootId);
+
+    // Status transitions: both lookups are range scans on idx_assessment_status_window
+
+    // minId/maxId restrict the scan to one shard when the job is split across nodes
+    @Query("SELECT a.assessmentId FROM Assessment a WHERE a.status = :status AND a.startTime <= :now AND a.endTime > :now "
+            + "AND a.assessmentId BETWEEN :minId AND :maxId")
+    List<Long> findIdsDueForActivation(@Param("status") AssessmentStatus status, @Param("now") LocalDateTime now,
+                                       @Param("minId") long minId, @Param("maxId") long maxId);
+
+    @Query("SELECT a.assessmentId FROM Assessment a WHERE a.status = :status AND a.endTime <= :now "
+            + "AND a.assessmentId BETWEEN :minId AND :maxId")
+    List<Long> findIdsDueForCompletion(@Param("status") AssessmentStatus status, @Param("now") LocalDateTime now,
+                                       @Param("minId") long minId, @Param("maxId") long maxId);
+
+    @Query("SELECT MIN(a.assessmentId) FROM Assessment a")
+    Long findMinAssessmentId();
+
+    @Query("SELECT MAX(a.assessmentId) FROM Assessment a")
+    Long findMaxAssessmentId();
+
+    // Locks the rows still in the given status, in id order, so the transition updates and
+    // announces exactly these; rows that moved on since they were selected are left out
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.assessmentId FROM Assessment a WHERE a.assessmentId IN :ids AND a.status = :status ORDER BY a.assessmentId")
+    List<Long> lockIdsWithStatus(@Param("ids") Collection<Long> ids, @Param("status") AssessmentStatus status);
+
+    // The status guard keeps the update idempotent if a row moved on since it was selected
+    @Modifying
+    @Query("UPDATE Assessment a SET a.status = :to, a.updatedAt = :now WHERE a.assessmentId IN :ids AND a.status = :from")
+    int transitionStatus(@Param("ids") Collection<Long> ids, @Param("from") AssessmentStatus from,
+                         @Param("to") AssessmentStatus to, @Param("now") LocalDateTime now);
+
+    // Start/end times of ASSIGNED and ACTIVE assessments falling due before the horizon
+    @Query("SELECT a.startTime FROM Assessment a WHERE a.status = com.project.api.model.AssessmentStatus.ASSIGNED "
+            + "AND a.startTime > :now AND a.startTime <= :horizon")
+    List<LocalDateTime> findUpcomingStartTimes(@Param("now") LocalDateTime now, @Param("horizon") LocalDateTime horizon);
 
+    @Query("SELECT a.endTime FROM Assessment a WHERE a.status IN (com.project.api.model.AssessmentStatus.ASSIGNED, com.project.api.model.AssessmentStatus.ACTIVE) "
+            + "AND a.endTime > :now AND a.endTime <= :horizon")
+    List<LocalDateTime> findUpcomingEndTimes(@Param("now") LocalDateTime now, @Param("horizon") LocalDateTime horizon);
 
 }
@@ -11,4 +11,7 @@ public interface ClassRepository extends JpaRepository<Class, Long> {
 
     Optional<Class> findByClassCode(String classCode);
     List<Class> findByCreatedBy(User createdBy);
+    List<Class> findByCreatedByUserId(Long userId);
+    List<Class> findByStudentsStudentId(Long studentId);
+    boolean existsByClassIdAndStudentsStudentId(Long classId, Long studentId);
 }
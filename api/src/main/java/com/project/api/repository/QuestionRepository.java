@@ -0,0 +1,35 @@
+package com.project.api.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.project.api.dto.QuestionLibraryEntry;
+import com.project.api.model.Question;
+import com.project.api.model.QuestionType;
+
+public interface QuestionRepository extends JpaRepository<Question, Long> {
+
+    // (contentHash, questionId) of the owner's library questions with any of the hashes; uses idx_question_owner_hash
+    @Query("SELECT q.contentHash, q.questionId FROM Question q WHERE q.createdBy.userId = :ownerId "
+            + "AND q.contentHash IN :hashes ORDER BY q.questionId")
+    List<Object[]> findIdsByOwnerAndContentHashes(@Param("ownerId") Long ownerId, @Param("hashes") Collection<String> hashes);
+
+    @Query("SELECT q.questionId FROM Question q WHERE q.createdBy.userId = :ownerId AND q.questionId IN :ids")
+    List<Long> findOwnedIds(@Param("ownerId") Long ownerId, @Param("ids") Collection<Long> ids);
+
+    // One page of the owner's library, newest first; keyset on questionId
+    @Query("SELECT new com.project.api.dto.QuestionLibraryEntry(q.questionId, q.text, q.type, q.maxScore, "
+            + "(SELECT COUNT(l) FROM AssessmentQuestion l WHERE l.questionId = q.questionId), q.createdAt) "
+            + "FROM Question q WHERE q.createdBy.userId = :ownerId AND (:type IS NULL OR q.type = :type) "
+            + "AND q.questionId < :afterId ORDER BY q.questionId DESC")
+    List<QuestionLibraryEntry> findLibraryPage(@Param("ownerId") Long ownerId, @Param("type") QuestionType type,
+                                               @Param("afterId") Long afterId, Pageable page);
+
+    @Query("SELECT q FROM Question q WHERE q.contentHash IS NULL ORDER BY q.questionId")
+    List<Question> findWithoutContentHash(Pageable page);
+}
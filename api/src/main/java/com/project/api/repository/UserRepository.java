@@ -1,7 +1,10 @@
 package com.project.api.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import com.project.api.model.User;
@@ -16,4 +19,8 @@ public interface UserRepository extends JpaRepository<User,Long>{
 
     List<User> findByRole(UserRole role);
 
+    // Single IN query used by bulk imports to find emails that are already registered
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
 }
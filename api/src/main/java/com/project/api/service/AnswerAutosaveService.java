@@ -0,0 +1,254 @@
+package com.project.api.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.SubmissionRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Autosave of in-progress answers. Saves only update an in-memory buffer per attempt (assessment
+// and student) that keeps the latest value per question; a periodic flush writes the dirty
+// entries of all attempts with batched upserts into answer_drafts. However often a student
+// saves, each changed question costs one row write per flush window. Every value carries a
+// revision and the upsert keeps the higher one, so concurrent flushes (or nodes) cannot put an
+// older answer back. Final submission and shutdown flush synchronously.
+@Service
+public class AnswerAutosaveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnswerAutosaveService.class);
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO answer_drafts (assessment_id, student_id, question_id, answer_text, revision, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+                    // Assignments run left to right: revision must be compared before it is replaced
+                    + "answer_text = IF(VALUES(revision) > revision, VALUES(answer_text), answer_text), "
+                    + "updated_at = IF(VALUES(revision) > revision, VALUES(updated_at), updated_at), "
+                    + "revision = GREATEST(revision, VALUES(revision))";
+
+    @Autowired
+    private DeliverySnapshotService deliverySnapshotService;
+
+    @Autowired
+    private QuestionLayoutService questionLayoutService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${autosave.max-buffered-answers:100000}")
+    private int maxBufferedAnswers;
+
+    @Value("${autosave.batch-size:500}")
+    private int batchSize;
+
+    @Value("${autosave.idle-eviction-ms:600000}")
+    private long idleEvictionMs;
+
+    private final ConcurrentHashMap<AttemptKey, Attempt> attempts = new ConcurrentHashMap<>();
+
+    // Dirty entries across all attempts
+    private final AtomicInteger buffered = new AtomicInteger();
+
+    // Starts at the clock so revisions from different nodes and restarts are roughly time-ordered
+    private final AtomicLong revisions = new AtomicLong(System.currentTimeMillis() << 10);
+
+    private Counter savedCounter;
+    private Counter writtenCounter;
+
+    private record AttemptKey(long assessmentId, long studentId) {
+    }
+
+    private record Draft(String answerText, long revision, LocalDateTime savedAt) {
+    }
+
+    private record PendingDraft(AttemptKey attempt, long questionId, Draft draft) {
+    }
+
+    private static final class Attempt {
+        // Question id -> latest unsaved value; an entry is removed only once that exact value is written
+        final ConcurrentHashMap<Long, Draft> dirty = new ConcurrentHashMap<>();
+        volatile long lastSave = System.nanoTime();
+    }
+
+    @PostConstruct
+    public void init() {
+        savedCounter = Counter.builder("autosave.answers.saved")
+                .description("Answers received by autosave requests")
+                .register(meterRegistry);
+        writtenCounter = Counter.builder("autosave.answers.written")
+                .description("Answer drafts written to the database")
+                .register(meterRegistry);
+        Gauge.builder("autosave.answers.buffered", buffered, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAll();
+    }
+
+    /**
+     * Buffer a student's in-progress answers; the latest value per question is written on the next flush.
+     * @return Number of answers buffered.
+     * @throws IllegalArgumentException if the assessment is not open to the student or an answer is invalid.
+     */
+    public int save(SubmissionRequest request, JwtPrincipal principal) {
+        if (request.getAssessmentId() == null || request.getAnswers() == null) {
+            throw new IllegalArgumentException("assessmentId and answers are required");
+        }
+        DeliverySnapshotService.Snapshot snapshot = deliverySnapshotService.getForStudent(request.getAssessmentId(), principal);
+        Map<Long, String> answers = questionLayoutService.canonicalAnswers(snapshot, principal.getStudentId(), request.getAnswers());
+
+        // Buffered under the map's lock for the attempt, which idle eviction takes too, so a save
+        // never lands in an attempt that was just evicted
+        LocalDateTime now = LocalDateTime.now();
+        int[] added = {0};
+        attempts.compute(new AttemptKey(request.getAssessmentId(), principal.getStudentId()), (key, existing) -> {
+            Attempt attempt = existing != null ? existing : new Attempt();
+            for (Map.Entry<Long, String> answer : answers.entrySet()) {
+                Draft draft = new Draft(answer.getValue(), revisions.incrementAndGet(), now);
+                if (attempt.dirty.put(answer.getKey(), draft) == null) {
+                    added[0]++;
+                }
+            }
+            attempt.lastSave = System.nanoTime();
+            return attempt;
+        });
+        buffered.addAndGet(added[0]);
+        savedCounter.increment(answers.size());
+
+        // Backpressure: if the writers fall behind, the saving threads help instead of growing the buffer
+        if (buffered.get() > maxBufferedAnswers) {
+            logger.warn("Autosave buffer holds {} answers, flushing on the request thread", buffered.get());
+            flushAll();
+        }
+        return answers.size();
+    }
+
+    /**
+     * A student's saved answers, buffered ones included.
+     * @return Question id -> stored answer text.
+     */
+    public Map<Long, String> getSaved(Long assessmentId, JwtPrincipal principal) {
+        deliverySnapshotService.getForStudent(assessmentId, principal);
+        return findSaved(assessmentId, principal.getStudentId());
+    }
+
+    // Write one attempt's buffered answers now; used before final submission
+    public void flushAttempt(long assessmentId, long studentId) {
+        AttemptKey key = new AttemptKey(assessmentId, studentId);
+        Attempt attempt = attempts.get(key);
+        if (attempt == null || attempt.dirty.isEmpty()) {
+            return;
+        }
+        List<PendingDraft> pending = new ArrayList<>(attempt.dirty.size());
+        attempt.dirty.forEach((questionId, draft) -> pending.add(new PendingDraft(key, questionId, draft)));
+        write(pending);
+    }
+
+    // Flushes the attempt, then returns what is stored
+    Map<Long, String> findSaved(long assessmentId, long studentId) {
+        flushAttempt(assessmentId, studentId);
+        Map<Long, String> saved = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT question_id, answer_text FROM answer_drafts WHERE assessment_id = ? AND student_id = ? ORDER BY question_id",
+                rs -> {
+                    saved.put(rs.getLong("question_id"), rs.getString("answer_text"));
+                },
+                assessmentId, studentId);
+        return saved;
+    }
+
+    // Forget an attempt once it was submitted; anything still buffered was flushed by the submission
+    void discard(long assessmentId, long studentId) {
+        Attempt attempt = attempts.remove(new AttemptKey(assessmentId, studentId));
+        if (attempt != null) {
+            // Entry by entry, so one a concurrent write already removed is not counted twice
+            for (Long questionId : attempt.dirty.keySet()) {
+                if (attempt.dirty.remove(questionId) != null) {
+                    buffered.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${autosave.flush-interval-ms:3000}")
+    public void flush() {
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            // Entries stay dirty and are written on the next flush
+            logger.error("Autosave flush failed: {}", e.getMessage(), e);
+        }
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleEvictionMs);
+        for (AttemptKey key : attempts.keySet()) {
+            attempts.computeIfPresent(key, (k, attempt) -> attempt.dirty.isEmpty() && attempt.lastSave < idleBefore ? null : attempt);
+        }
+    }
+
+    private void flushAll() {
+        List<PendingDraft> batch = new ArrayList<>(batchSize);
+        int written = 0;
+        for (Map.Entry<AttemptKey, Attempt> entry : attempts.entrySet()) {
+            for (Map.Entry<Long, Draft> draft : entry.getValue().dirty.entrySet()) {
+                batch.add(new PendingDraft(entry.getKey(), draft.getKey(), draft.getValue()));
+                if (batch.size() >= batchSize) {
+                    written += write(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            written += write(batch);
+        }
+        if (written > 0) {
+            logger.debug("Autosave flush wrote {} answers", written);
+        }
+    }
+
+    private int write(List<PendingDraft> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (PendingDraft pending : batch) {
+            rows.add(new Object[] {pending.attempt().assessmentId(), pending.attempt().studentId(), pending.questionId(),
+                    pending.draft().answerText(), pending.draft().revision(), Timestamp.valueOf(pending.draft().savedAt())});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+        for (PendingDraft pending : batch) {
+            Attempt attempt = attempts.get(pending.attempt());
+            // A newer value saved meanwhile stays dirty
+            if (attempt != null && attempt.dirty.remove(pending.questionId(), pending.draft())) {
+                buffered.decrementAndGet();
+            }
+        }
+        writtenCounter.increment(batch.size());
+        return batch.size();
+    }
+}
@@ -0,0 +1,111 @@
+package com.project.api.service;
+
+import java.util.Arrays;
+
+// An assessment's answer key compiled into parallel primitive arrays, sorted by question id, so
+// grading an answer is a binary search and a comparison with no entity or map lookups.
+// Immutable and safe to share between grading threads.
+public final class AnswerKey {
+
+    // Question kinds; MANUAL questions are not graded from the key
+    public static final byte MANUAL = 0;
+    public static final byte MCQ = 1;
+    public static final byte TRUE_FALSE = 2;
+    // SHORT_ANSWER and ESSAY scored by weighted keywords, capped at the max score
+    public static final byte KEYWORD = 3;
+    // CODING answers run against test cases (CodeExecutionService), not scored here
+    public static final byte CODE = 4;
+
+    private final long assessmentId;
+    private final long[] questionIds;
+    private final byte[] kinds;
+    // MCQ: canonical index of the correct option (-1 if none is marked); TRUE_FALSE: 1 = true, 0 = false
+    private final int[] correct;
+    private final double[] maxScores;
+    // KEYWORD: the question's compiled keywords; null for other kinds
+    private final KeywordMatcher[] matchers;
+
+    AnswerKey(long assessmentId, long[] questionIds, byte[] kinds, int[] correct, double[] maxScores, KeywordMatcher[] matchers) {
+        this.assessmentId = assessmentId;
+        this.questionIds = questionIds;
+        this.kinds = kinds;
+        this.correct = correct;
+        this.maxScores = maxScores;
+        this.matchers = matchers;
+    }
+
+    public long getAssessmentId() {
+        return assessmentId;
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    // Position of a question in the key, or -1 if it is not part of the assessment
+    public int indexOf(long questionId) {
+        int found = Arrays.binarySearch(questionIds, questionId);
+        return found >= 0 ? found : -1;
+    }
+
+    public byte kindAt(int index) {
+        return kinds[index];
+    }
+
+    public double maxScoreAt(int index) {
+        return maxScores[index];
+    }
+
+    /**
+     * Score of a stored answer (see QuestionLayoutService.canonicalAnswers) to the question at index.
+     * @return The score, or NaN if the question is not graded from the key.
+     */
+    public double score(int index, String answerText) {
+        switch (kinds[index]) {
+            case MCQ:
+                return parseIndex(answerText) == correct[index] && correct[index] >= 0 ? maxScores[index] : 0;
+            case TRUE_FALSE:
+                int value = parseBoolean(answerText);
+                return value >= 0 && value == correct[index] ? maxScores[index] : 0;
+            case KEYWORD:
+                return Math.min(maxScores[index], matchers[index].score(answerText));
+            default:
+                return Double.NaN;
+        }
+    }
+
+    // -1 for anything that is not a non-negative integer, without throwing
+    private static int parseIndex(String text) {
+        if (text == null) {
+            return -1;
+        }
+        String trimmed = text.trim();
+        if (trimmed.isEmpty() || trimmed.length() > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // 1 = true, 0 = false, -1 = neither
+    static int parseBoolean(String text) {
+        if (text == null) {
+            return -1;
+        }
+        String trimmed = text.trim();
+        if (trimmed.equalsIgnoreCase("true")) {
+            return 1;
+        }
+        if (trimmed.equalsIgnoreCase("false")) {
+            return 0;
+        }
+        return -1;
+    }
+}
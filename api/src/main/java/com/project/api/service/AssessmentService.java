@@ -1,19 +1,27 @@
 package com.project.api.service;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 
-import com.project.api.model.Class;
+import com.project.api.config.JwtPrincipal;
 import com.project.api.model.Assessment;
 import com.project.api.model.AssessmentStatus;
 import com.project.api.model.AssessmentType;
@@ -21,36 +29,71 @@ import com.project.api.model.GradingMode;
 import com.project.api.model.Question;
 import com.project.api.model.QuestionKeyword;
 import com.project.api.model.QuestionOption;
+import com.project.api.model.QuestionTestCase;
 import com.project.api.model.QuestionType;
 import com.project.api.model.User;
 import com.project.api.model.UserRole;
 import com.project.api.repository.AssessmentRepository;
-import com.project.api.repository.ClassRepository;
+import com.project.api.repository.QuestionRepository;
 import com.project.api.repository.UserRepository;
+import com.project.api.dto.AssessmentCloneRequest;
+import com.project.api.dto.AnswerKeyCorrection;
 import com.project.api.dto.AssessmentCreateRequest;
+import com.project.api.dto.AssessmentSummary;
+import com.project.api.dto.AssessmentSummaryPage;
+import com.project.api.dto.AssignmentResult;
 
 @Service
 public class AssessmentService {
 
     private static final Logger logger = LoggerFactory.getLogger(AssessmentService.class);
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final int MAX_BULK_IDS = 1000;
+
     @Autowired
     private AssessmentRepository assessmentRepository;
 
     @Autowired
     private UserRepository userRepository;
 
-    @Autowired private ClassRepository classRepository;
+    @Autowired
+    private AssessmentStatusTransitionService statusTransitionService;
+
+    @Autowired
+    private QuestionLibraryService questionLibraryService;
+
+    @Autowired
+    private AutoGradingService autoGradingService;
+
+    @Autowired
+    private KeywordScoringService keywordScoringService;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private RegradeService regradeService;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
     @Transactional
-    public Assessment createAssessment(AssessmentCreateRequest request, String educatorEmail) {
-        logger.info("Creating assessment for educator: {}", educatorEmail);
+    public Assessment createAssessment(AssessmentCreateRequest request, JwtPrincipal principal) {
+        logger.info("Creating assessment for educator: {}", principal.getEmail());
 
-        Optional<User> educatorOpt = userRepository.findByEmail(educatorEmail);
-        if (educatorOpt.isEmpty() || educatorOpt.get().getRole() != UserRole.EDUCATOR) {
-            logger.error("User {} is not an educator or does not exist", educatorEmail);
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            logger.error("User {} is not an educator or does not exist", principal.getEmail());
             throw new IllegalArgumentException("Only educators can create assessments");
         }
-        User educator = educatorOpt.get();
+        // Reference only; the educator row is never read
+        User educator = userRepository.getReferenceById(principal.getUserId());
 
         if (request.getTitle() == null || request.getTitle().trim().isEmpty()) {
             throw new IllegalArgumentException("Assessment title is required");
@@ -95,165 +138,566 @@ public class AssessmentService {
         assessment.setCreatedAt(LocalDateTime.now());
         assessment.setUpdatedAt(LocalDateTime.now());
 
+        List<Question> questions = new ArrayList<>();
         if (request.getQuestions() != null) {
-            List<Question> questions = new ArrayList<>();
             for (AssessmentCreateRequest.Question questionRequest : request.getQuestions()) {
-                Question question = new Question();
-                question.setText(questionRequest.getText());
-                question.setType(QuestionType.valueOf(questionRequest.getType().toUpperCase()));
-                question.setMaxScore(questionRequest.getMaxScore());
-                question.setCorrectAnswer(questionRequest.getCorrectAnswer());
-                question.setAssessment(assessment);
-                question.setCreatedAt(LocalDateTime.now());
-                question.setUpdatedAt(LocalDateTime.now());
-
-                if (question.getType() == QuestionType.MCQ) {
-                    if (questionRequest.getCorrectAnswer() == null) {
-                        throw new IllegalArgumentException("Correct option must be specified for MCQ question: " + questionRequest.getText());
-                    }
-                    int correctOptionIndex = Integer.parseInt(questionRequest.getCorrectAnswer());
-                    if (questionRequest.getOptions() == null || questionRequest.getOptions().size() <= correctOptionIndex) {
-                        throw new IllegalArgumentException("Invalid correct option index for MCQ question: " + questionRequest.getText());
-                    }
-                    List<QuestionOption> options = new ArrayList<>();
-                    for (int i = 0; i < questionRequest.getOptions().size(); i++) {
-                        AssessmentCreateRequest.Option optionRequest = questionRequest.getOptions().get(i);
-                        QuestionOption option = new QuestionOption();
-                        option.setOptionText(optionRequest.getText());
-                        option.setIsCorrect(i == correctOptionIndex);
-                        option.setQuestion(question);
-                        option.setCreatedAt(LocalDateTime.now());
-                        option.setUpdatedAt(LocalDateTime.now());
-                        options.add(option);
-                    }
-                    question.setOptions(options);
-                }
+                questions.add(buildQuestion(questionRequest));
+            }
+        }
+
+        Assessment savedAssessment = assessmentRepository.save(assessment);
+        // Questions go into the educator's library and are linked; identical ones are reused
+        QuestionLibraryService.LinkResult linked = questionLibraryService.addQuestions(
+                savedAssessment.getAssessmentId(), principal.getUserId(), questions, 0);
+        if (request.getLibraryQuestionIds() != null) {
+            questionLibraryService.linkLibraryQuestions(savedAssessment.getAssessmentId(), principal.getUserId(),
+                    request.getLibraryQuestionIds(), questions.size());
+        }
+        if (linked.reused() > 0) {
+            logger.info("Assessment {} reuses {} library questions", savedAssessment.getAssessmentId(), linked.reused());
+        }
+        logger.info("Assessment created successfully: assessmentId={}, title={}", savedAssessment.getAssessmentId(), savedAssessment.getTitle());
+        return savedAssessment;
+    }
+
+    /**
+     * Validate one question of a create or import request and build it with its options or keywords.
+     * The caller attaches the returned question to its assessment.
+     * @throws IllegalArgumentException if the question is invalid.
+     */
+    Question buildQuestion(AssessmentCreateRequest.Question questionRequest) {
+        if (questionRequest.getText() == null || questionRequest.getText().trim().isEmpty()) {
+            throw new IllegalArgumentException("Question text is required");
+        }
+        QuestionType questionType;
+        try {
+            questionType = QuestionType.valueOf(questionRequest.getType().toUpperCase());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid question type: " + questionRequest.getType());
+        }
 
-                if (question.getType() == QuestionType.TRUE_FALSE) {
-                    if (questionRequest.getCorrectAnswer() == null || (!questionRequest.getCorrectAnswer().equals("true") && !questionRequest.getCorrectAnswer().equals("false"))) {
-                        throw new IllegalArgumentException("Correct answer must be 'true' or 'false' for True/False question: " + questionRequest.getText());
-                    }
+        Question question = new Question();
+        question.setText(questionRequest.getText());
+        question.setType(questionType);
+        question.setMaxScore(questionRequest.getMaxScore());
+        question.setCorrectAnswer(questionRequest.getCorrectAnswer());
+        question.setCreatedAt(LocalDateTime.now());
+        question.setUpdatedAt(LocalDateTime.now());
+
+        if (question.getType() == QuestionType.MCQ) {
+            if (questionRequest.getCorrectAnswer() == null) {
+                throw new IllegalArgumentException("Correct option must be specified for MCQ question: " + questionRequest.getText());
+            }
+            int correctOptionIndex;
+            try {
+                correctOptionIndex = Integer.parseInt(questionRequest.getCorrectAnswer().trim());
+            } catch (NumberFormatException e) {
+                correctOptionIndex = -1;
+            }
+            if (correctOptionIndex < 0 || questionRequest.getOptions() == null || questionRequest.getOptions().size() <= correctOptionIndex) {
+                throw new IllegalArgumentException("Invalid correct option index for MCQ question: " + questionRequest.getText());
+            }
+            List<QuestionOption> options = new ArrayList<>();
+            for (int i = 0; i < questionRequest.getOptions().size(); i++) {
+                AssessmentCreateRequest.Option optionRequest = questionRequest.getOptions().get(i);
+                if (optionRequest.getText() == null || optionRequest.getText().isEmpty()) {
+                    throw new IllegalArgumentException("Option text is required for MCQ question: " + questionRequest.getText());
                 }
+                QuestionOption option = new QuestionOption();
+                option.setOptionText(optionRequest.getText());
+                option.setIsCorrect(i == correctOptionIndex);
+                option.setQuestion(question);
+                option.setCreatedAt(LocalDateTime.now());
+                option.setUpdatedAt(LocalDateTime.now());
+                options.add(option);
+            }
+            question.setOptions(options);
+        }
 
-                if (question.getType() == QuestionType.SHORT_ANSWER || question.getType() == QuestionType.ESSAY) {
-                    if (questionRequest.getKeywords() == null || questionRequest.getKeywords().isEmpty()) {
-                        throw new IllegalArgumentException("At least one keyword is required for Short Answer or Essay question: " + questionRequest.getText());
-                    }
-                    double totalPoints = 0;
-                    List<QuestionKeyword> keywords = new ArrayList<>();
-                    for (AssessmentCreateRequest.Keyword keywordRequest : request.getQuestions().get(0).getKeywords()) {
-                        QuestionKeyword keyword = new QuestionKeyword();
-                        keyword.setKeyword(keywordRequest.getKeyword());
-                        keyword.setWeight(keywordRequest.getWeight());
-                        keyword.setQuestion(question);
-                        keyword.setCreatedAt(LocalDateTime.now());
-                        keyword.setUpdatedAt(LocalDateTime.now());
-                        totalPoints += keyword.getWeight();
-                        keywords.add(keyword);
-                    }
-                    question.setMaxScore(totalPoints);
-                    question.setKeywords(keywords);
+        if (question.getType() == QuestionType.TRUE_FALSE) {
+            if (questionRequest.getCorrectAnswer() == null || (!questionRequest.getCorrectAnswer().equals("true") && !questionRequest.getCorrectAnswer().equals("false"))) {
+                throw new IllegalArgumentException("Correct answer must be 'true' or 'false' for True/False question: " + questionRequest.getText());
+            }
+        }
+
+        if (question.getType() == QuestionType.SHORT_ANSWER || question.getType() == QuestionType.ESSAY) {
+            if (questionRequest.getKeywords() == null || questionRequest.getKeywords().isEmpty()) {
+                throw new IllegalArgumentException("At least one keyword is required for Short Answer or Essay question: " + questionRequest.getText());
+            }
+            double totalPoints = 0;
+            List<QuestionKeyword> keywords = new ArrayList<>();
+            for (AssessmentCreateRequest.Keyword keywordRequest : questionRequest.getKeywords()) {
+                if (keywordRequest.getKeyword() == null || keywordRequest.getKeyword().isBlank() || keywordRequest.getWeight() == null) {
+                    throw new IllegalArgumentException("Every keyword needs text and a weight for question: " + questionRequest.getText());
                 }
+                int tolerance = keywordRequest.getTolerance() != null ? keywordRequest.getTolerance() : 0;
+                if (tolerance < 0 || tolerance > KeywordMatcher.MAX_TOLERANCE) {
+                    throw new IllegalArgumentException("Keyword tolerance must be between 0 and " + KeywordMatcher.MAX_TOLERANCE
+                            + " for question: " + questionRequest.getText());
+                }
+                QuestionKeyword keyword = new QuestionKeyword();
+                keyword.setKeyword(keywordRequest.getKeyword());
+                keyword.setWeight(keywordRequest.getWeight());
+                keyword.setTolerance(tolerance);
+                keyword.setQuestion(question);
+                keyword.setCreatedAt(LocalDateTime.now());
+                keyword.setUpdatedAt(LocalDateTime.now());
+                totalPoints += keyword.getWeight();
+                keywords.add(keyword);
+            }
+            question.setMaxScore(totalPoints);
+            question.setKeywords(keywords);
+        }
 
-                questions.add(question);
+        if (question.getType() == QuestionType.CODING) {
+            if (questionRequest.getTestCases() == null || questionRequest.getTestCases().isEmpty()) {
+                throw new IllegalArgumentException("At least one test case is required for Coding question: " + questionRequest.getText());
             }
-            assessment.setQuestions(questions);
+            List<QuestionTestCase> testCases = new ArrayList<>();
+            for (AssessmentCreateRequest.TestCase testCaseRequest : questionRequest.getTestCases()) {
+                if (testCaseRequest.getExpectedOutput() == null) {
+                    throw new IllegalArgumentException("Every test case needs an expected output for question: " + questionRequest.getText());
+                }
+                if (testCaseRequest.getWeight() != null && testCaseRequest.getWeight() <= 0) {
+                    throw new IllegalArgumentException("Test case weights must be positive for question: " + questionRequest.getText());
+                }
+                QuestionTestCase testCase = new QuestionTestCase();
+                testCase.setInput(testCaseRequest.getInput() != null ? testCaseRequest.getInput() : "");
+                testCase.setExpectedOutput(testCaseRequest.getExpectedOutput());
+                testCase.setWeight(testCaseRequest.getWeight() != null ? testCaseRequest.getWeight() : 1.0);
+                testCase.setQuestion(question);
+                testCase.setCreatedAt(LocalDateTime.now());
+                testCase.setUpdatedAt(LocalDateTime.now());
+                testCases.add(testCase);
+            }
+            question.setTestCases(testCases);
         }
+        return question;
+    }
 
-        Assessment savedAssessment = assessmentRepository.save(assessment);
-        logger.info("Assessment created successfully: assessmentId={}, title={}", savedAssessment.getAssessmentId(), savedAssessment.getTitle());
-        return savedAssessment;
+    /**
+     * One page of the educator's assessments as summary rows with question and class counts.
+     * @param principal The educator.
+     * @param status Optional status filter.
+     * @param type Optional type filter.
+     * @param cursor nextCursor of the previous page, or null for the first page.
+     * @param limit Page size, capped at MAX_PAGE_SIZE.
+     * @return The page and the cursor of the next one.
+     */
+    public AssessmentSummaryPage getEducatorAssessmentSummaries(JwtPrincipal principal, String status, String type,
+                                                                String cursor, Integer limit) {
+        logger.info("Fetching assessment summaries for educator: {}", principal.getEmail());
+
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            logger.error("User {} is not an educator or does not exist", principal.getEmail());
+            throw new IllegalArgumentException("Only educators can view their assessments");
+        }
+
+        AssessmentStatus statusFilter = null;
+        if (status != null && !status.isBlank()) {
+            try {
+                statusFilter = AssessmentStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid assessment status: " + status);
+            }
+        }
+        AssessmentType typeFilter = null;
+        if (type != null && !type.isBlank()) {
+            try {
+                typeFilter = AssessmentType.valueOf(type.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid assessment type: " + type);
+            }
+        }
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+
+        // One extra row tells whether there is a next page without a COUNT query
+        List<AssessmentSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = assessmentRepository.findSummariesByOwner(principal.getUserId(), statusFilter, typeFilter,
+                    PageRequest.of(0, pageSize + 1));
+        } else {
+            LocalDateTime afterUpdatedAt;
+            long afterId;
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                afterUpdatedAt = LocalDateTime.parse(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            rows = assessmentRepository.findSummariesByOwnerAfter(principal.getUserId(), statusFilter, typeFilter,
+                    afterUpdatedAt, afterId, PageRequest.of(0, pageSize + 1));
+        }
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            AssessmentSummary last = rows.get(pageSize - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getUpdatedAt() + "|" + last.getAssessmentId()).getBytes(StandardCharsets.UTF_8));
+        }
+        logger.info("Found {} assessment summaries for educator: {}", rows.size(), principal.getEmail());
+        return new AssessmentSummaryPage(rows, nextCursor);
     }
 
-    public List<Assessment> getEducatorAssessments(String educatorEmail) {
-        logger.info("Fetching assessments for educator: {}", educatorEmail);
+    /**
+     * Create a new DRAFT version of an assessment. The version links the same library questions in
+     * the same order, so no question, option or keyword rows are copied; questions edited later
+     * through updateQuestion are materialized for the new version only. Submissions keep pointing
+     * at the version they were taken against. Classes are not copied.
+     * @param request Fields to change in the new version; may be null.
+     * @return The new version.
+     */
+    @Transactional
+    public Assessment cloneAssessment(Long assessmentId, AssessmentCloneRequest request, JwtPrincipal principal) {
+        logger.info("Cloning assessment {} for educator: {}", assessmentId, principal.getEmail());
+        Assessment source = findOwnedAssessment(assessmentId, principal);
+        if (request == null) {
+            request = new AssessmentCloneRequest();
+        }
 
-        Optional<User> userOpt = userRepository.findByEmail(educatorEmail);
-        if (userOpt.isEmpty() || userOpt.get().getRole() != UserRole.EDUCATOR) {
-            logger.error("User {} is not an educator or does not exist", educatorEmail);
-            throw new IllegalArgumentException("Only educators can view their assessments");
+        Assessment clone = new Assessment();
+        clone.setTitle(request.getTitle() != null && !request.getTitle().trim().isEmpty() ? request.getTitle() : source.getTitle());
+        clone.setDescription(request.getDescription() != null ? request.getDescription() : source.getDescription());
+        clone.setType(source.getType());
+        clone.setGradingMode(source.getGradingMode());
+        clone.setDurationMinutes(request.getDurationMinutes() != null ? request.getDurationMinutes() : source.getDurationMinutes());
+        clone.setStartTime(request.getStartTime() != null ? request.getStartTime() : source.getStartTime());
+        clone.setEndTime(request.getEndTime() != null ? request.getEndTime() : source.getEndTime());
+        if (clone.getDurationMinutes() <= 0) {
+            throw new IllegalArgumentException("Duration must be greater than 0");
+        }
+        if (clone.getStartTime().isAfter(clone.getEndTime())) {
+            throw new IllegalArgumentException("Start time must be before end time");
         }
-        User educator = userOpt.get();
+        clone.setCreatedBy(source.getCreatedBy());
+        clone.setStatus(AssessmentStatus.DRAFT);
+        clone.setParentAssessment(source);
+        Long rootId = source.getRootAssessmentId() != null ? source.getRootAssessmentId() : source.getAssessmentId();
+        clone.setRootAssessmentId(rootId);
+        // Concurrent clones of the same lineage take the next version one after the other
+        namedParameterJdbcTemplate.queryForList(
+                "SELECT assessment_id FROM assessments WHERE assessment_id = :rootId FOR UPDATE",
+                new MapSqlParameterSource("rootId", rootId), Long.class);
+        clone.setVersion(assessmentRepository.findMaxVersion(rootId) + 1);
+        clone.setCreatedAt(LocalDateTime.now());
+        clone.setUpdatedAt(LocalDateTime.now());
+
+        Assessment savedClone = assessmentRepository.save(clone);
+        int linked = questionLibraryService.copyLinks(source.getAssessmentId(), savedClone.getAssessmentId());
+        logger.info("Assessment {} cloned as {} (version {}), sharing {} questions",
+                assessmentId, savedClone.getAssessmentId(), savedClone.getVersion(), linked);
+        return savedClone;
+    }
 
-        List<Assessment> assessments = assessmentRepository.findByCreatedBy(educator);
-        logger.info("Found {} assessments for educator: {}", assessments.size(), educatorEmail);
-        return assessments;
+    /**
+     * Edit one question of a DRAFT assessment. Copy-on-write: the stored question is left as is for
+     * the other versions and submissions using it, and this assessment is relinked to the edited copy.
+     * @return Id of the question the assessment now links in its place.
+     */
+    @Transactional
+    public Long updateQuestion(Long assessmentId, Long questionId, AssessmentCreateRequest.Question questionRequest,
+                               JwtPrincipal principal) {
+        Assessment assessment = findOwnedAssessment(assessmentId, principal);
+        if (assessment.getStatus() != AssessmentStatus.DRAFT) {
+            throw new IllegalStateException("Questions can only be edited in DRAFT assessments");
+        }
+        Long newQuestionId = questionLibraryService.replaceQuestion(assessmentId, principal.getUserId(), questionId,
+                buildQuestion(questionRequest));
+        if (!newQuestionId.equals(questionId)) {
+            assessment.setUpdatedAt(LocalDateTime.now());
+            keywordScoringService.invalidate(questionId);
+            logger.info("Question {} of assessment {} replaced by question {}", questionId, assessmentId, newQuestionId);
+        }
+        return newQuestionId;
     }
 
-   @Transactional
-    public Assessment assignAssessment(Long assessmentId, String educatorEmail, List<Long> classIds) {
-        logger.info("Assigning assessment with ID: {} to classes: {} by educator: {}", 
-                    assessmentId, classIds, educatorEmail);
+    /**
+     * Correct the answer key of a question after the assessment was published: the correct option
+     * or answer of an MCQ or TRUE_FALSE question, or the keywords and weights of a SHORT_ANSWER or
+     * ESSAY question. Like updateQuestion this is copy-on-write, but the assessment's submitted
+     * answers (and their grading jobs) move to the corrected question with it, so pending answers
+     * are graded with the new key and the auto-graded ones are regraded incrementally by a queued
+     * run (see RegradeService). Other assessments sharing the question keep the old key. Answers
+     * still arriving under the old question (accepted before the correction, or against a stale
+     * snapshot) are written under the corrected one by SubmissionIngestService.
+     * @return Id of the regrade run, whose progress can be streamed.
+     * @throws IllegalStateException if the assessment is a DRAFT (edit the question instead).
+     */
+    @Transactional
+    public long correctAnswerKey(Long assessmentId, Long questionId, AnswerKeyCorrection correction,
+                                 JwtPrincipal principal) {
+        Assessment assessment = findOwnedAssessment(assessmentId, principal);
+        if (assessment.getStatus() == AssessmentStatus.DRAFT) {
+            throw new IllegalStateException("Edit the questions of a DRAFT assessment instead");
+        }
+        if (correction == null) {
+            throw new IllegalArgumentException("The corrected answer key is required");
+        }
+        // Waits for submission writes in flight for this assessment; later ones see the regrade run
+        namedParameterJdbcTemplate.queryForList(
+                "SELECT assessment_id FROM assessments WHERE assessment_id = :assessmentId FOR UPDATE",
+                new MapSqlParameterSource("assessmentId", assessmentId), Long.class);
+        Question current = questionRepository.findById(questionId)
+                .orElseThrow(() -> new IllegalArgumentException("Question " + questionId + " is not part of this assessment"));
+
+        // The current question as a request, with only its answer key replaced
+        AssessmentCreateRequest.Question request = new AssessmentCreateRequest.Question();
+        request.setText(current.getText());
+        request.setType(current.getType().name());
+        request.setMaxScore(current.getMaxScore());
+        request.setCorrectAnswer(current.getCorrectAnswer());
+        List<AssessmentCreateRequest.Option> options = new ArrayList<>();
+        for (QuestionOption option : current.getOptions()) {
+            AssessmentCreateRequest.Option optionRequest = new AssessmentCreateRequest.Option();
+            optionRequest.setText(option.getOptionText());
+            optionRequest.setIsCorrect(option.getIsCorrect());
+            options.add(optionRequest);
+        }
+        request.setOptions(options);
+        List<AssessmentCreateRequest.Keyword> keywords = new ArrayList<>();
+        for (QuestionKeyword keyword : current.getKeywords()) {
+            AssessmentCreateRequest.Keyword keywordRequest = new AssessmentCreateRequest.Keyword();
+            keywordRequest.setKeyword(keyword.getKeyword());
+            keywordRequest.setWeight(keyword.getWeight());
+            keywordRequest.setTolerance(keyword.getTolerance());
+            keywords.add(keywordRequest);
+        }
+        request.setKeywords(keywords);
+        switch (current.getType()) {
+            case MCQ, TRUE_FALSE -> {
+                if (correction.getCorrectAnswer() == null) {
+                    throw new IllegalArgumentException("The correct answer is required for " + current.getType() + " questions");
+                }
+                request.setCorrectAnswer(correction.getCorrectAnswer().trim());
+            }
+            case SHORT_ANSWER, ESSAY -> {
+                if (correction.getKeywords() == null) {
+                    throw new IllegalArgumentException("The keywords are required for " + current.getType() + " questions");
+                }
+                request.setKeywords(correction.getKeywords());
+            }
+            default -> throw new IllegalArgumentException(current.getType() + " questions have no answer key to correct");
+        }
+        Question corrected = buildQuestion(request);
+        corrected.setInstructions(current.getInstructions());
 
-        Optional<User> userOpt = userRepository.findByEmail(educatorEmail);
-        if (userOpt.isEmpty() || userOpt.get().getRole() != UserRole.EDUCATOR) {
-            logger.error("User {} is not an educator or does not exist", educatorEmail);
-            throw new IllegalArgumentException("Only educators can assign assessments");
+        Long correctedId = questionLibraryService.replaceQuestion(assessmentId, principal.getUserId(), questionId, corrected);
+        if (correctedId.equals(questionId)) {
+            throw new IllegalArgumentException("The answer key is unchanged");
         }
-        User educator = userOpt.get();
+        LocalDateTime now = LocalDateTime.now();
+        MapSqlParameterSource params = new MapSqlParameterSource("assessmentId", assessmentId)
+                .addValue("questionId", questionId).addValue("correctedId", correctedId).addValue("now", now);
+        int answers = namedParameterJdbcTemplate.update(
+                "UPDATE submission_answers sa JOIN submissions s ON s.submission_id = sa.submission_id "
+                        + "SET sa.question_id = :correctedId, sa.updated_at = :now "
+                        + "WHERE s.assessment_id = :assessmentId AND sa.question_id = :questionId",
+                params);
+        namedParameterJdbcTemplate.update(
+                "UPDATE grading_jobs SET question_id = :correctedId, updated_at = :now "
+                        + "WHERE assessment_id = :assessmentId AND question_id = :questionId",
+                params);
+        assessment.setUpdatedAt(now);
+        long regradeId = regradeService.enqueue(assessmentId, correctedId, questionId, principal.getUserId());
+        logger.info("Answer key of question {} in assessment {} corrected as question {}; {} answers moved, regrade {} queued",
+                questionId, assessmentId, correctedId, answers, regradeId);
+        return regradeId;
+    }
 
-        Optional<Assessment> assessmentOpt = assessmentRepository.findById(assessmentId);
-        if (assessmentOpt.isEmpty()) {
-            logger.error("Assessment with ID {} not found", assessmentId);
-            throw new IllegalArgumentException("Assessment not found");
+    /**
+     * Auto-grade the pending answers of an assessment now (see AutoGradingService), e.g. for submissions
+     * that arrived after it was completed. Answers that are already graded are left alone.
+     * @throws IllegalStateException if the assessment is graded manually or has not been published.
+     */
+    public AutoGradingService.GradingResult gradeAssessment(Long assessmentId, JwtPrincipal principal) {
+        Assessment assessment = findOwnedAssessment(assessmentId, principal);
+        if (assessment.getGradingMode() == GradingMode.MANUAL) {
+            throw new IllegalStateException("Assessment is graded manually");
+        }
+        if (assessment.getStatus() == AssessmentStatus.DRAFT) {
+            throw new IllegalStateException("DRAFT assessments have no submissions to grade");
         }
-        Assessment assessment = assessmentOpt.get();
+        return autoGradingService.gradeAssessment(assessmentId);
+    }
 
-        if (!assessment.getCreatedBy().getEmail().equals(educatorEmail)) {
-            logger.error("Educator {} is not authorized to assign assessment {}", educatorEmail, assessmentId);
-            throw new IllegalArgumentException("You are not authorized to assign this assessment");
+    /**
+     * Run a program against one of the educator's CODING questions, e.g. to check a reference
+     * solution before publishing. Uses the same sandbox and result cache as grading.
+     * @throws IllegalArgumentException if the question is not the educator's coding question.
+     * @throws IllegalStateException if the execution queue is full.
+     */
+    public CodeExecutionService.CodeResult runCode(Long questionId, String source, JwtPrincipal principal) {
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            throw new IllegalArgumentException("Only educators can run code against questions");
+        }
+        List<Long> owners = namedParameterJdbcTemplate.queryForList(
+                "SELECT created_by FROM questions WHERE question_id = :questionId",
+                new MapSqlParameterSource("questionId", questionId), Long.class);
+        if (owners.isEmpty() || !principal.getUserId().equals(owners.get(0))) {
+            throw new IllegalArgumentException("Question not found");
         }
+        return codeExecutionService.run(questionId, source);
+    }
 
-        if (assessment.getStatus() != AssessmentStatus.DRAFT) {
-            logger.error("Assessment {} is not in DRAFT status, current status: {}", 
-                         assessmentId, assessment.getStatus());
+    private Assessment findOwnedAssessment(Long assessmentId, JwtPrincipal principal) {
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            logger.error("User {} is not an educator or does not exist", principal.getEmail());
+            throw new IllegalArgumentException("Only educators can manage assessments");
+        }
+        Assessment assessment = assessmentRepository.findById(assessmentId)
+                .orElseThrow(() -> new IllegalArgumentException("Assessment not found"));
+        // Comparing ids reads the foreign key from the lazy proxy without loading the educator
+        if (!assessment.getCreatedBy().getUserId().equals(principal.getUserId())) {
+            logger.error("Educator {} is not authorized to access assessment {}", principal.getEmail(), assessmentId);
+            throw new IllegalArgumentException("You are not authorized to access this assessment");
+        }
+        return assessment;
+    }
+
+    /**
+     * Assign a DRAFT assessment to exactly the given classes, as the original endpoint did: links to
+     * classes no longer selected are deleted and only the missing ones are inserted.
+     */
+    @Transactional
+    public AssignmentResult assignAssessment(Long assessmentId, JwtPrincipal principal, List<Long> classIds) {
+        logger.info("Assigning assessment {} to classes {} by educator: {}", assessmentId, classIds, principal.getEmail());
+        List<Long> assessmentIds = List.of(assessmentId);
+        List<Map<String, Object>> assessments = checkAssignment(assessmentIds, classIds, principal);
+        Object status = assessments.get(0).get("status");
+        if (!AssessmentStatus.DRAFT.name().equals(status)) {
+            logger.error("Assessment {} is not in DRAFT status, current status: {}", assessmentId, status);
             throw new IllegalStateException("Only DRAFT assessments can be assigned");
         }
 
-        List<Class> classes = classRepository.findAllById(classIds);
-        if (classes.size() != classIds.size()) {
-            logger.error("One or more class IDs are invalid: {}", classIds);
-            throw new IllegalArgumentException("One or more class IDs are invalid");
+        int removed = namedParameterJdbcTemplate.update(
+                "DELETE FROM assessment_classes WHERE assessment_id = :assessmentId AND class_id NOT IN (:classIds)",
+                new MapSqlParameterSource("assessmentId", assessmentId).addValue("classIds", classIds));
+        AssignmentResult result = linkClasses(assessmentIds, classIds, assessments);
+        result.setLinksRemoved(removed);
+        return result;
+    }
+
+    /**
+     * Assign every given assessment to every given class. Ownership and status of all assessments
+     * and classes are checked with one query; only missing assessment_classes rows are inserted,
+     * with one INSERT ... SELECT, and DRAFT assessments become ASSIGNED with one UPDATE.
+     * Assessments must be DRAFT or ASSIGNED (adding sections before the start is allowed).
+     */
+    @Transactional
+    public AssignmentResult assignAssessments(List<Long> assessmentIds, List<Long> classIds, JwtPrincipal principal) {
+        logger.info("Assigning assessments {} to classes {} by educator: {}", assessmentIds, classIds, principal.getEmail());
+        return linkClasses(assessmentIds, classIds, checkAssignment(assessmentIds, classIds, principal));
+    }
+
+    // Inserts the missing links and moves the DRAFT assessments among the checked rows to ASSIGNED
+    private AssignmentResult linkClasses(List<Long> assessmentIds, List<Long> classIds, List<Map<String, Object>> assessments) {
+        MapSqlParameterSource params = new MapSqlParameterSource("assessmentIds", assessmentIds)
+                .addValue("classIds", classIds)
+                .addValue("now", LocalDateTime.now());
+        int added = namedParameterJdbcTemplate.update(
+                "INSERT INTO assessment_classes (assessment_id, class_id) "
+                        + "SELECT a.assessment_id, c.class_id FROM assessments a CROSS JOIN classes c "
+                        + "WHERE a.assessment_id IN (:assessmentIds) AND c.class_id IN (:classIds) "
+                        + "AND NOT EXISTS (SELECT 1 FROM assessment_classes x "
+                        + "WHERE x.assessment_id = a.assessment_id AND x.class_id = c.class_id)",
+                params);
+        int assigned = namedParameterJdbcTemplate.update(
+                "UPDATE assessments SET status = 'ASSIGNED', updated_at = :now "
+                        + "WHERE assessment_id IN (:assessmentIds) AND status = 'DRAFT'",
+                params);
+        for (Map<String, Object> assessment : assessments) {
+            if (AssessmentStatus.DRAFT.name().equals(assessment.get("status"))) {
+                statusTransitionService.track(toLocalDateTime(assessment.get("start_time")), toLocalDateTime(assessment.get("end_time")));
+            }
         }
+        logger.info("Assigned {} assessments: {} class links added, {} moved to ASSIGNED", assessmentIds.size(), added, assigned);
+        return new AssignmentResult(added, 0, assigned);
+    }
 
-        for (Class cls : classes) {
-            if (!cls.getCreatedBy().getEmail().equals(educatorEmail)) {
-                logger.error("Class {} not created by educator {}", cls.getClassId(), educatorEmail);
-                throw new IllegalArgumentException("You are not authorized to assign to class: " + cls.getClassId());
+    /**
+     * Remove every given class from every given assessment with one DELETE. Assessments left
+     * without classes go back to DRAFT. Only DRAFT and ASSIGNED assessments can be changed.
+     */
+    @Transactional
+    public AssignmentResult unassignAssessments(List<Long> assessmentIds, List<Long> classIds, JwtPrincipal principal) {
+        logger.info("Unassigning assessments {} from classes {} by educator: {}", assessmentIds, classIds, principal.getEmail());
+        checkAssignment(assessmentIds, classIds, principal);
+
+        MapSqlParameterSource params = new MapSqlParameterSource("assessmentIds", assessmentIds)
+                .addValue("classIds", classIds)
+                .addValue("now", LocalDateTime.now());
+        int removed = namedParameterJdbcTemplate.update(
+                "DELETE FROM assessment_classes WHERE assessment_id IN (:assessmentIds) AND class_id IN (:classIds)",
+                params);
+        int reverted = namedParameterJdbcTemplate.update(
+                "UPDATE assessments a SET a.status = 'DRAFT', a.updated_at = :now "
+                        + "WHERE a.assessment_id IN (:assessmentIds) AND a.status = 'ASSIGNED' "
+                        + "AND NOT EXISTS (SELECT 1 FROM assessment_classes x WHERE x.assessment_id = a.assessment_id)",
+                params);
+        logger.info("Unassigned {} assessments: {} class links removed, {} back to DRAFT", assessmentIds.size(), removed, reverted);
+        return new AssignmentResult(0, removed, reverted);
+    }
+
+    // One round trip: a row per requested assessment, each carrying the count of requested classes the
+    // educator owns. The assessment rows are locked, in id order, so the status read here still holds
+    // when the caller writes links and statuses from it.
+    private List<Map<String, Object>> checkAssignment(List<Long> assessmentIds, List<Long> classIds, JwtPrincipal principal) {
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            logger.error("User {} is not an educator or does not exist", principal.getEmail());
+            throw new IllegalArgumentException("Only educators can assign assessments");
+        }
+        if (assessmentIds == null || assessmentIds.isEmpty() || classIds == null || classIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one assessment and one class must be selected");
+        }
+        if (assessmentIds.size() > MAX_BULK_IDS || classIds.size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_IDS + " assessments and " + MAX_BULK_IDS + " classes per request");
+        }
+        Set<Long> distinctAssessments = new HashSet<>(assessmentIds);
+        Set<Long> distinctClasses = new HashSet<>(classIds);
+
+        List<Map<String, Object>> rows = namedParameterJdbcTemplate.queryForList(
+                "SELECT a.assessment_id, a.created_by, a.status, a.start_time, a.end_time, "
+                        + "(SELECT COUNT(*) FROM classes c WHERE c.class_id IN (:classIds) AND c.created_by = :userId) AS owned_classes "
+                        + "FROM assessments a WHERE a.assessment_id IN (:assessmentIds) ORDER BY a.assessment_id FOR UPDATE",
+                new MapSqlParameterSource("assessmentIds", distinctAssessments)
+                        .addValue("classIds", distinctClasses)
+                        .addValue("userId", principal.getUserId()));
+        if (rows.size() != distinctAssessments.size()) {
+            throw new IllegalArgumentException("One or more assessment IDs are invalid");
+        }
+        for (Map<String, Object> row : rows) {
+            if (((Number) row.get("created_by")).longValue() != principal.getUserId()) {
+                logger.error("Educator {} is not authorized to assign assessment {}", principal.getEmail(), row.get("assessment_id"));
+                throw new IllegalArgumentException("You are not authorized to assign assessment: " + row.get("assessment_id"));
+            }
+            Object status = row.get("status");
+            if (!AssessmentStatus.DRAFT.name().equals(status) && !AssessmentStatus.ASSIGNED.name().equals(status)) {
+                throw new IllegalStateException("Assessment " + row.get("assessment_id") + " is " + status
+                        + "; only DRAFT or ASSIGNED assessments can change classes");
             }
         }
+        if (((Number) rows.get(0).get("owned_classes")).intValue() != distinctClasses.size()) {
+            logger.error("One or more classes in {} are invalid or not created by educator {}", classIds, principal.getEmail());
+            throw new IllegalArgumentException("One or more classes are invalid or not yours");
+        }
+        return rows;
+    }
 
-        assessment.setClasses(classes);
-        assessment.setStatus(AssessmentStatus.ASSIGNED);
-        assessment.setUpdatedAt(LocalDateTime.now());
-        Assessment updatedAssessment = assessmentRepository.save(assessment);
-        logger.info("Assessment {} successfully assigned to classes: {}", assessmentId, classIds);
-        return updatedAssessment;
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime;
+        }
+        return ((Timestamp) value).toLocalDateTime();
     }
 
+    // Catch-up sweep; AssessmentStatusTransitionService fires transitions on time between sweeps
     @Scheduled(cron = "0 * * * * *") // Runs every minute
     public void updateAssessmentStatuses() {
         logger.info("Running scheduled task to update assessment statuses");
-
-        LocalDateTime now = LocalDateTime.now();
-        List<Assessment> assessments = assessmentRepository.findAll();
-
-        for (Assessment assessment : assessments) {
-            if (assessment.getStatus() == AssessmentStatus.ASSIGNED 
-                && assessment.getStartTime() != null 
-                && now.isAfter(assessment.getStartTime()) 
-                && now.isBefore(assessment.getEndTime())) {
-                assessment.setStatus(AssessmentStatus.ACTIVE);
-                assessment.setUpdatedAt(now);
-                logger.info("Assessment {} transitioned to ACTIVE", assessment.getAssessmentId());
-            } else if (assessment.getStatus() == AssessmentStatus.ACTIVE 
-                       && assessment.getEndTime() != null 
-                       && now.isAfter(assessment.getEndTime())) {
-                assessment.setStatus(AssessmentStatus.COMPLETED);
-                assessment.setUpdatedAt(now);
-                logger.info("Assessment {} transitioned to COMPLETED", assessment.getAssessmentId());
-            }
+        int changed = statusTransitionService.runDueTransitions();
+        if (changed > 0) {
+            logger.info("Catch-up sweep transitioned {} assessments", changed);
         }
-        assessmentRepository.saveAll(assessments);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,225 @@
+package com.project.api.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.api.event.AssessmentStatusChangedEvent;
+import com.project.api.exception.LeaseLostException;
+import com.project.api.model.AssessmentStatus;
+import com.project.api.repository.AssessmentRepository;
+import com.project.api.service.LeaseService.Lease;
+
+// Moves assessments ASSIGNED -> ACTIVE at start_time and ACTIVE -> COMPLETED at end_time.
+// Due rows are found with index range scans on (status, start_time, end_time) and changed with
+// set-based UPDATEs, so the cost depends on how many rows are due rather than on history.
+// Upcoming start/end times are kept in an ordered queue and a single timer is armed for the
+// earliest one, so transitions happen on time; the minute cron in AssessmentService is only
+// a catch-up sweep for anything the queue missed (restarts, edits made on another node).
+// With several api nodes only the holder of the job lease (or of a shard lease) does the work.
+@Service
+public class AssessmentStatusTransitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssessmentStatusTransitionService.class);
+
+    private static final String JOB_NAME = "assessment-status";
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private LeaseService leaseService;
+
+    // Split the job into this many assessment-id ranges, each with its own lease
+    @Value("${scheduler.jobs.assessment-status.shards:1}")
+    private int shards;
+
+    // How far ahead deadlines are loaded into the queue
+    @Value("${assessment.transitions.horizon-ms:900000}")
+    private long horizonMs;
+
+    // Maximum ids per UPDATE ... IN statement
+    @Value("${assessment.transitions.batch-size:1000}")
+    private int batchSize;
+
+    // Upcoming deadlines, earliest first; guarded by this
+    private final NavigableSet<LocalDateTime> deadlines = new TreeSet<>();
+
+    private ScheduledFuture<?> wakeUp;
+
+    private LocalDateTime armedFor;
+
+    // Serializes the timer, the catch-up sweep and manual runs so each row yields one event
+    private final Object transitionLock = new Object();
+
+    /**
+     * Run every transition that is due now, for the shards whose lease this node holds.
+     * @return Number of assessments whose status changed.
+     */
+    public int runDueTransitions() {
+        synchronized (transitionLock) {
+            Map<Integer, Lease> leases;
+            if (shards > 1) {
+                leases = leaseService.tryAcquireShards(JOB_NAME, shards);
+            } else {
+                Lease lease = leaseService.tryAcquire(JOB_NAME);
+                leases = lease != null ? Map.of(0, lease) : Map.of();
+            }
+            if (leases.isEmpty()) {
+                logger.debug("Assessment status transitions are led by another node");
+                return 0;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            Long minId = shards > 1 ? assessmentRepository.findMinAssessmentId() : null;
+            Long maxId = shards > 1 ? assessmentRepository.findMaxAssessmentId() : null;
+            int changed = 0;
+            for (Map.Entry<Integer, Lease> entry : leases.entrySet()) {
+                long lo = Long.MIN_VALUE;
+                long hi = Long.MAX_VALUE;
+                if (shards > 1) {
+                    if (minId == null) {
+                        break; // no assessments yet
+                    }
+                    // Equal id ranges; shard i covers [min + span*i/n, min + span*(i+1)/n)
+                    long span = maxId - minId + 1;
+                    lo = minId + span * entry.getKey() / shards;
+                    hi = minId + span * (entry.getKey() + 1) / shards - 1;
+                }
+                try {
+                    changed += transition(
+                            assessmentRepository.findIdsDueForActivation(AssessmentStatus.ASSIGNED, now, lo, hi),
+                            AssessmentStatus.ASSIGNED, AssessmentStatus.ACTIVE, now, entry.getValue());
+                    changed += transition(
+                            assessmentRepository.findIdsDueForCompletion(AssessmentStatus.ACTIVE, now, lo, hi),
+                            AssessmentStatus.ACTIVE, AssessmentStatus.COMPLETED, now, entry.getValue());
+                } catch (LeaseLostException e) {
+                    logger.warn("Skipping shard {}: {}", entry.getKey(), e.getMessage());
+                }
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * Queue the start and end time of an assessment that was just assigned or rescheduled.
+     * Inside a transaction the times are queued after commit, so the timer never fires
+     * before the new status is visible.
+     */
+    public void track(LocalDateTime startTime, LocalDateTime endTime) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(List.of(startTime, endTime));
+                }
+            });
+        } else {
+            enqueue(List.of(startTime, endTime));
+        }
+    }
+
+    // Reload the deadlines inside the horizon; also picks up assessments changed on other nodes
+    @Scheduled(fixedDelayString = "${assessment.transitions.refresh-interval-ms:300000}")
+    public void loadUpcomingDeadlines() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.plusNanos(horizonMs * 1_000_000);
+        List<LocalDateTime> times = new ArrayList<>(assessmentRepository.findUpcomingStartTimes(now, horizon));
+        times.addAll(assessmentRepository.findUpcomingEndTimes(now, horizon));
+        enqueue(times);
+        logger.debug("Loaded {} upcoming assessment deadlines", times.size());
+    }
+
+    private int transition(List<Long> ids, AssessmentStatus from, AssessmentStatus to, LocalDateTime now, Lease lease) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // Only the rows locked under the status guard are updated and announced, so listeners never
+        // act on an assessment that an overlapping sweep or a manual change already moved
+        List<Long> moved = transactionTemplate.execute(status -> {
+            // Fencing: fails if another node took the lease; otherwise holds it until commit
+            leaseService.assertHeld(lease);
+            List<Long> sorted = ids.stream().sorted().toList();
+            List<Long> locked = new ArrayList<>(sorted.size());
+            for (int i = 0; i < sorted.size(); i += batchSize) {
+                List<Long> batch = assessmentRepository.lockIdsWithStatus(sorted.subList(i, Math.min(sorted.size(), i + batchSize)), from);
+                if (!batch.isEmpty()) {
+                    assessmentRepository.transitionStatus(batch, from, to, now);
+                    locked.addAll(batch);
+                }
+            }
+            return locked;
+        });
+        logger.info("Transitioned {} assessments from {} to {}", moved.size(), from, to);
+        if (!moved.isEmpty()) {
+            eventPublisher.publishEvent(new AssessmentStatusChangedEvent(List.copyOf(moved), from, to, now));
+        }
+        return moved.size();
+    }
+
+    private synchronized void enqueue(List<LocalDateTime> times) {
+        LocalDateTime horizon = LocalDateTime.now().plusNanos(horizonMs * 1_000_000);
+        for (LocalDateTime time : times) {
+            if (time != null && !time.isAfter(horizon)) {
+                deadlines.add(time);
+            }
+        }
+        arm();
+    }
+
+    private void onWakeUp() {
+        try {
+            runDueTransitions();
+        } catch (RuntimeException e) {
+            logger.error("Assessment status transition failed, the catch-up sweep will retry: {}", e.getMessage(), e);
+        }
+        synchronized (this) {
+            deadlines.headSet(LocalDateTime.now(), true).clear();
+            wakeUp = null;
+            armedFor = null;
+            arm();
+        }
+    }
+
+    // Keep exactly one timer, set for the earliest queued deadline
+    private void arm() {
+        if (deadlines.isEmpty()) {
+            return;
+        }
+        LocalDateTime next = deadlines.first();
+        if (armedFor != null && !next.isBefore(armedFor)) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUp = taskScheduler.schedule(this::onWakeUp, next.atZone(ZoneId.systemDefault()).toInstant());
+        armedFor = next;
+    }
+}
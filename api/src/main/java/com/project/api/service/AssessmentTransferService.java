@@ -0,0 +1,635 @@
+package com.project.api.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.AssessmentCreateRequest;
+import com.project.api.dto.QuestionImportResult;
+import com.project.api.model.Assessment;
+import com.project.api.model.AssessmentStatus;
+import com.project.api.model.Question;
+import com.project.api.model.QuestionKeyword;
+import com.project.api.model.QuestionTestCase;
+import com.project.api.model.QuestionOption;
+import com.project.api.model.UserRole;
+import com.project.api.repository.AssessmentRepository;
+import com.project.api.util.CsvReader;
+import com.project.api.util.CsvWriter;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+
+// Moves assessment content between environments as NDJSON or CSV without holding it in memory.
+// Import reads one question at a time from a streaming parser, validates it on its own (a bad
+// question is reported and skipped) and persists valid ones in chunks, one transaction each.
+// Export pages through the assessment's linked questions in order and writes each page straight to the output stream,
+// loading only that page's options, keywords and test cases; no entity graph is built.
+//
+// NDJSON: an optional first line with the assessment fields (title, type, ...), then one
+// question per line in the shape of AssessmentCreateRequest.Question.
+// CSV: header text,type,max_score,correct_answer,options,keywords; options are separated by
+// '|', keywords are keyword=weight or keyword=weight=tolerance entries separated by '|', and
+// '\' escapes '|', '=' and '\'. CSV has no column for test cases, so CODING questions need NDJSON.
+@Service
+public class AssessmentTransferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssessmentTransferService.class);
+
+    private static final String[] CSV_HEADER = {"text", "type", "max_score", "correct_answer", "options", "keywords"};
+
+    @Autowired
+    private AssessmentService assessmentService;
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Autowired
+    private DeliverySnapshotService deliverySnapshotService;
+
+    @Autowired
+    private QuestionLibraryService questionLibraryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${import.questions.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${export.questions.page-size:500}")
+    private int pageSize;
+
+    /**
+     * Import questions from an NDJSON or CSV upload.
+     * @param in The uploaded content.
+     * @param csv true for CSV, false for NDJSON.
+     * @param assessmentId DRAFT assessment of the educator to add the questions to; if null, the
+     *                     first NDJSON line must describe a new assessment, which is created first.
+     * @param principal The educator running the import.
+     * @return Counts plus one error entry per rejected question.
+     */
+    public QuestionImportResult importQuestions(InputStream in, boolean csv, Long assessmentId, JwtPrincipal principal) throws IOException {
+        requireEducator(principal);
+        if (assessmentId != null) {
+            Assessment assessment = findOwnedAssessment(assessmentId, principal);
+            if (assessment.getStatus() != AssessmentStatus.DRAFT) {
+                throw new IllegalStateException("Questions can only be imported into DRAFT assessments");
+            }
+        } else if (csv) {
+            throw new IllegalArgumentException("CSV imports need an assessmentId; use NDJSON with an assessment line to create one");
+        }
+
+        logger.info("Starting question import by educator: {} (format={}, assessmentId={})", principal.getEmail(), csv ? "csv" : "ndjson", assessmentId);
+        RowSource source = csv ? csvRows(in) : new NdjsonRows(in);
+        if (assessmentId == null) {
+            AssessmentCreateRequest header = source.header();
+            if (header == null) {
+                throw new IllegalArgumentException("The first NDJSON line must describe the assessment when no assessmentId is given");
+            }
+            header.setQuestions(null);
+            assessmentId = assessmentService.createAssessment(header, principal).getAssessmentId();
+        }
+
+        QuestionImportResult result = new QuestionImportResult();
+        result.setAssessmentId(assessmentId);
+        // Imported questions are linked after the existing ones; each linked question takes the next position
+        int firstSortOrder = questionLibraryService.nextSortOrder(assessmentId);
+        List<PendingQuestion> chunk = new ArrayList<>(chunkSize);
+        QuestionRow row;
+        while ((row = source.next()) != null) {
+            result.setTotalRows(result.getTotalRows() + 1);
+            if (row.error() != null) {
+                result.addError(row.rowNumber(), row.request() != null ? row.request().getText() : null, row.error());
+                continue;
+            }
+            try {
+                chunk.add(new PendingQuestion(row.rowNumber(), assessmentService.buildQuestion(row.request())));
+            } catch (IllegalArgumentException e) {
+                result.addError(row.rowNumber(), row.request().getText(), e.getMessage());
+                continue;
+            }
+            if (chunk.size() >= chunkSize) {
+                saveChunk(assessmentId, principal.getUserId(), firstSortOrder, chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(assessmentId, principal.getUserId(), firstSortOrder, chunk, result);
+        }
+        if (result.getImported() > 0) {
+            jdbcTemplate.update("UPDATE assessments SET updated_at = ? WHERE assessment_id = ?", LocalDateTime.now(), assessmentId);
+            deliverySnapshotService.invalidate(assessmentId);
+        }
+
+        logger.info("Question import into assessment {} finished: total={}, imported={}, reused={}, duplicates={}, failed={}",
+                assessmentId, result.getTotalRows(), result.getImported(), result.getReused(), result.getDuplicates(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * Check that the educator may export an assessment; call before writing any output.
+     * @return The assessment row (questions are not loaded).
+     */
+    public Assessment findExportableAssessment(Long assessmentId, JwtPrincipal principal) {
+        requireEducator(principal);
+        return findOwnedAssessment(assessmentId, principal);
+    }
+
+    /**
+     * Write the assessment line followed by one line per question. The stream is flushed but not closed.
+     */
+    public void exportNdjson(Assessment assessment, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+        generator.writeStartObject();
+        generator.writeStringField("title", assessment.getTitle());
+        generator.writeStringField("description", assessment.getDescription());
+        generator.writeStringField("type", assessment.getType().name());
+        generator.writeNumberField("durationMinutes", assessment.getDurationMinutes());
+        generator.writeStringField("startTime", assessment.getStartTime().toString());
+        generator.writeStringField("endTime", assessment.getEndTime().toString());
+        generator.writeStringField("gradingMode", assessment.getGradingMode().name());
+        generator.writeEndObject();
+
+        long written = forEachQuestionPage(assessment.getAssessmentId(), page -> {
+            for (AssessmentCreateRequest.Question question : page) {
+                generator.writeStartObject();
+                generator.writeStringField("text", question.getText());
+                generator.writeStringField("type", question.getType());
+                if (question.getMaxScore() != null) {
+                    generator.writeNumberField("maxScore", question.getMaxScore());
+                }
+                if (question.getCorrectAnswer() != null) {
+                    generator.writeStringField("correctAnswer", question.getCorrectAnswer());
+                }
+                if (!question.getOptions().isEmpty()) {
+                    generator.writeArrayFieldStart("options");
+                    for (AssessmentCreateRequest.Option option : question.getOptions()) {
+                        generator.writeStartObject();
+                        generator.writeStringField("text", option.getText());
+                        generator.writeEndObject();
+                    }
+                    generator.writeEndArray();
+                }
+                if (!question.getKeywords().isEmpty()) {
+                    generator.writeArrayFieldStart("keywords");
+                    for (AssessmentCreateRequest.Keyword keyword : question.getKeywords()) {
+                        generator.writeStartObject();
+                        generator.writeStringField("keyword", keyword.getKeyword());
+                        generator.writeNumberField("weight", keyword.getWeight());
+                        if (keyword.getTolerance() != null) {
+                            generator.writeNumberField("tolerance", keyword.getTolerance());
+                        }
+                        generator.writeEndObject();
+                    }
+                    generator.writeEndArray();
+                }
+                if (!question.getTestCases().isEmpty()) {
+                    generator.writeArrayFieldStart("testCases");
+                    for (AssessmentCreateRequest.TestCase testCase : question.getTestCases()) {
+                        generator.writeStartObject();
+                        generator.writeStringField("input", testCase.getInput());
+                        generator.writeStringField("expectedOutput", testCase.getExpectedOutput());
+                        generator.writeNumberField("weight", testCase.getWeight());
+                        generator.writeEndObject();
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
+            }
+            generator.flush();
+        });
+        generator.writeRaw('\n');
+        generator.close();
+        logger.info("Exported assessment {} as NDJSON ({} questions)", assessment.getAssessmentId(), written);
+    }
+
+    /**
+     * Write a header row and one row per question. The stream is flushed but not closed.
+     */
+    public void exportCsv(Long assessmentId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        CsvWriter csv = new CsvWriter(writer);
+        csv.writeRecord(CSV_HEADER);
+        long written = forEachQuestionPage(assessmentId, page -> {
+            for (AssessmentCreateRequest.Question question : page) {
+                StringBuilder options = new StringBuilder();
+                for (AssessmentCreateRequest.Option option : question.getOptions()) {
+                    if (options.length() > 0) {
+                        options.append('|');
+                    }
+                    options.append(escape(option.getText()));
+                }
+                StringBuilder keywords = new StringBuilder();
+                for (AssessmentCreateRequest.Keyword keyword : question.getKeywords()) {
+                    if (keywords.length() > 0) {
+                        keywords.append('|');
+                    }
+                    keywords.append(escape(keyword.getKeyword())).append('=').append(keyword.getWeight());
+                    if (keyword.getTolerance() != null) {
+                        keywords.append('=').append(keyword.getTolerance());
+                    }
+                }
+                csv.writeRecord(question.getText(), question.getType(),
+                        question.getMaxScore() != null ? question.getMaxScore().toString() : null,
+                        question.getCorrectAnswer(), options.toString(), keywords.toString());
+            }
+            csv.flush();
+        });
+        csv.flush();
+        logger.info("Exported assessment {} as CSV ({} questions)", assessmentId, written);
+    }
+
+    private void requireEducator(JwtPrincipal principal) {
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            logger.error("User {} is not an educator or does not exist", principal.getEmail());
+            throw new IllegalArgumentException("Only educators can import or export assessments");
+        }
+    }
+
+    private Assessment findOwnedAssessment(Long assessmentId, JwtPrincipal principal) {
+        Optional<Assessment> assessmentOpt = assessmentRepository.findById(assessmentId);
+        if (assessmentOpt.isEmpty()) {
+            throw new IllegalArgumentException("Assessment not found");
+        }
+        Assessment assessment = assessmentOpt.get();
+        if (!assessment.getCreatedBy().getUserId().equals(principal.getUserId())) {
+            logger.error("Educator {} is not authorized to access assessment {}", principal.getEmail(), assessmentId);
+            throw new IllegalArgumentException("You are not authorized to access this assessment");
+        }
+        return assessment;
+    }
+
+    private void saveChunk(Long assessmentId, Long ownerId, int firstSortOrder, List<PendingQuestion> chunk,
+                           QuestionImportResult result) {
+        try {
+            count(result, transactionTemplate.execute(status -> persist(assessmentId, ownerId, chunk,
+                    firstSortOrder + (int) result.getImported())));
+        } catch (DataAccessException | PersistenceException e) {
+            // Retry row by row so only the offending questions fail
+            logger.warn("Batch insert of {} questions failed ({}), retrying rows individually", chunk.size(), e.getMessage());
+            for (PendingQuestion pending : chunk) {
+                resetIds(pending.question());
+                try {
+                    count(result, transactionTemplate.execute(status -> persist(assessmentId, ownerId, List.of(pending),
+                            firstSortOrder + (int) result.getImported())));
+                } catch (DataAccessException | PersistenceException rowError) {
+                    resetIds(pending.question());
+                    result.addError(pending.rowNumber(), pending.question().getText(), "Could not be saved: " + rowError.getMessage());
+                }
+            }
+        }
+    }
+
+    // Each chunk runs in its own persistence context, so the session never grows past one chunk
+    private QuestionLibraryService.LinkResult persist(Long assessmentId, Long ownerId, List<PendingQuestion> chunk,
+                                                      int firstSortOrder) {
+        List<Question> questions = new ArrayList<>(chunk.size());
+        for (PendingQuestion pending : chunk) {
+            questions.add(pending.question());
+        }
+        return questionLibraryService.addQuestions(assessmentId, ownerId, questions, firstSortOrder);
+    }
+
+    // imported counts every question linked into the assessment, reused the subset taken from the library
+    private static void count(QuestionImportResult result, QuestionLibraryService.LinkResult linked) {
+        result.setImported(result.getImported() + linked.created() + linked.reused());
+        result.setReused(result.getReused() + linked.reused());
+        result.setDuplicates(result.getDuplicates() + linked.duplicates());
+    }
+
+    // Ids assigned in a rolled-back transaction must be dropped before the entity is persisted again
+    private static void resetIds(Question question) {
+        question.setQuestionId(null);
+        for (QuestionOption option : question.getOptions()) {
+            option.setOptionId(null);
+        }
+        for (QuestionKeyword keyword : question.getKeywords()) {
+            keyword.setKeywordId(null);
+        }
+        for (QuestionTestCase testCase : question.getTestCases()) {
+            testCase.setTestCaseId(null);
+        }
+    }
+
+    private interface PageWriter {
+        void write(List<AssessmentCreateRequest.Question> page) throws IOException;
+    }
+
+    // Keyset pages over the assessment's links in (sort_order, question_id) order; options and
+    // keywords are fetched per page
+    private long forEachQuestionPage(Long assessmentId, PageWriter writer) throws IOException {
+        int afterSortOrder = -1;
+        long afterId = 0;
+        long total = 0;
+        while (true) {
+            Map<Long, AssessmentCreateRequest.Question> page = new LinkedHashMap<>();
+            int[] lastSortOrder = {afterSortOrder};
+            jdbcTemplate.query(
+                    "SELECT q.question_id, q.text, q.type, q.max_score, q.correct_answer, l.sort_order "
+                            + "FROM assessment_questions l JOIN questions q ON q.question_id = l.question_id "
+                            + "WHERE l.assessment_id = ? AND (l.sort_order > ? OR (l.sort_order = ? AND l.question_id > ?)) "
+                            + "ORDER BY l.sort_order, l.question_id LIMIT ?",
+                    rs -> {
+                        AssessmentCreateRequest.Question question = new AssessmentCreateRequest.Question();
+                        question.setText(rs.getString("text"));
+                        question.setType(rs.getString("type"));
+                        question.setMaxScore(rs.getObject("max_score", Double.class));
+                        question.setCorrectAnswer(rs.getString("correct_answer"));
+                        question.setOptions(new ArrayList<>());
+                        question.setKeywords(new ArrayList<>());
+                        question.setTestCases(new ArrayList<>());
+                        page.put(rs.getLong("question_id"), question);
+                        lastSortOrder[0] = rs.getInt("sort_order");
+                    },
+                    assessmentId, afterSortOrder, afterSortOrder, afterId, pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            MapSqlParameterSource ids = new MapSqlParameterSource("ids", page.keySet());
+            namedParameterJdbcTemplate.query(
+                    "SELECT question_id, option_text FROM question_options WHERE question_id IN (:ids) ORDER BY question_id, option_id",
+                    ids,
+                    rs -> {
+                        AssessmentCreateRequest.Option option = new AssessmentCreateRequest.Option();
+                        option.setText(rs.getString("option_text"));
+                        page.get(rs.getLong("question_id")).getOptions().add(option);
+                    });
+            namedParameterJdbcTemplate.query(
+                    "SELECT question_id, keyword, weight, tolerance FROM question_keywords WHERE question_id IN (:ids) ORDER BY question_id, keyword_id",
+                    ids,
+                    rs -> {
+                        AssessmentCreateRequest.Keyword keyword = new AssessmentCreateRequest.Keyword();
+                        keyword.setKeyword(rs.getString("keyword"));
+                        keyword.setWeight(rs.getDouble("weight"));
+                        // Written only when set, so exact keywords export as before
+                        if (rs.getInt("tolerance") > 0) {
+                            keyword.setTolerance(rs.getInt("tolerance"));
+                        }
+                        page.get(rs.getLong("question_id")).getKeywords().add(keyword);
+                    });
+            namedParameterJdbcTemplate.query(
+                    "SELECT question_id, input, expected_output, weight FROM question_test_cases WHERE question_id IN (:ids) ORDER BY question_id, test_case_id",
+                    ids,
+                    rs -> {
+                        AssessmentCreateRequest.TestCase testCase = new AssessmentCreateRequest.TestCase();
+                        testCase.setInput(rs.getString("input"));
+                        testCase.setExpectedOutput(rs.getString("expected_output"));
+                        testCase.setWeight(rs.getDouble("weight"));
+                        page.get(rs.getLong("question_id")).getTestCases().add(testCase);
+                    });
+
+            writer.write(new ArrayList<>(page.values()));
+            total += page.size();
+            if (page.size() < pageSize) {
+                break;
+            }
+            afterSortOrder = lastSortOrder[0];
+            for (Long id : page.keySet()) {
+                afterId = id;
+            }
+        }
+        return total;
+    }
+
+    private record PendingQuestion(long rowNumber, Question question) {
+    }
+
+    // A parsed question, or the reason it could not be read
+    private record QuestionRow(long rowNumber, AssessmentCreateRequest.Question request, String error) {
+    }
+
+    // Pull-style row iterator so neither format is materialized in memory
+    private interface RowSource {
+        QuestionRow next() throws IOException;
+
+        // Assessment described by the input, if it has such a line
+        default AssessmentCreateRequest header() {
+            return null;
+        }
+    }
+
+    // One JSON object per line (a top-level array is accepted too); each object is read as a
+    // small tree so a question with a wrongly typed field is reported without aborting the import
+    private class NdjsonRows implements RowSource {
+
+        private final JsonParser parser;
+        private AssessmentCreateRequest header;
+        private JsonNode pending;
+        private long pendingLine;
+
+        NdjsonRows(InputStream in) throws IOException {
+            parser = objectMapper.getFactory().createParser(in);
+            JsonToken first = parser.nextToken();
+            if (first == JsonToken.START_ARRAY) {
+                first = parser.nextToken();
+            }
+            if (first == JsonToken.START_OBJECT) {
+                pendingLine = parser.currentTokenLocation().getLineNr();
+                JsonNode node = parser.readValueAsTree();
+                if (node.has("title")) {
+                    header = objectMapper.treeToValue(node, AssessmentCreateRequest.class);
+                } else {
+                    pending = node;
+                }
+            } else if (first != null && first != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON object on line 1");
+            }
+        }
+
+        @Override
+        public AssessmentCreateRequest header() {
+            return header;
+        }
+
+        @Override
+        public QuestionRow next() throws IOException {
+            JsonNode node = pending;
+            long line = pendingLine;
+            pending = null;
+            if (node == null) {
+                JsonToken token = parser.nextToken();
+                if (token == null || token == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                line = parser.currentTokenLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Expected a JSON object on line " + line);
+                }
+                node = parser.readValueAsTree();
+            }
+            try {
+                return new QuestionRow(line, objectMapper.treeToValue(node, AssessmentCreateRequest.Question.class), null);
+            } catch (JsonProcessingException e) {
+                AssessmentCreateRequest.Question partial = new AssessmentCreateRequest.Question();
+                partial.setText(node.path("text").asText(null));
+                return new QuestionRow(line, partial, "Invalid question: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private RowSource csvRows(InputStream in) throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> header = reader.readRecord();
+        if (header == null) {
+            return () -> null;
+        }
+        int[] columns = new int[CSV_HEADER.length];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            if (i == 0 && column.startsWith("\uFEFF")) {
+                column = column.substring(1);
+            }
+            for (int c = 0; c < CSV_HEADER.length; c++) {
+                if (CSV_HEADER[c].equals(column)) {
+                    columns[c] = i;
+                }
+            }
+        }
+        if (columns[0] < 0 || columns[1] < 0) {
+            throw new IllegalArgumentException("CSV header must contain at least the text and type columns");
+        }
+        return () -> {
+            List<String> record;
+            long line;
+            do {
+                line = reader.getLineNumber();
+                record = reader.readRecord();
+            } while (record != null && record.size() == 1 && record.get(0).isBlank());
+            if (record == null) {
+                return null;
+            }
+            AssessmentCreateRequest.Question question = new AssessmentCreateRequest.Question();
+            question.setText(field(record, columns[0]));
+            question.setType(field(record, columns[1]));
+            question.setCorrectAnswer(field(record, columns[3]));
+            try {
+                String maxScore = field(record, columns[2]);
+                question.setMaxScore(maxScore != null ? Double.valueOf(maxScore) : null);
+
+                List<AssessmentCreateRequest.Option> options = new ArrayList<>();
+                String optionList = field(record, columns[4]);
+                if (optionList != null) {
+                    for (String part : splitEscaped(optionList, '|')) {
+                        AssessmentCreateRequest.Option option = new AssessmentCreateRequest.Option();
+                        option.setText(unescape(part));
+                        options.add(option);
+                    }
+                }
+                question.setOptions(options);
+
+                List<AssessmentCreateRequest.Keyword> keywords = new ArrayList<>();
+                String keywordList = field(record, columns[5]);
+                if (keywordList != null) {
+                    for (String part : splitEscaped(keywordList, '|')) {
+                        List<String> pair = splitEscaped(part, '=');
+                        if (pair.size() != 2 && pair.size() != 3) {
+                            return new QuestionRow(line, question, "Keywords must be keyword=weight or keyword=weight=tolerance");
+                        }
+                        AssessmentCreateRequest.Keyword keyword = new AssessmentCreateRequest.Keyword();
+                        keyword.setKeyword(unescape(pair.get(0)));
+                        keyword.setWeight(Double.valueOf(pair.get(1).trim()));
+                        if (pair.size() == 3) {
+                            keyword.setTolerance(Integer.valueOf(pair.get(2).trim()));
+                        }
+                        keywords.add(keyword);
+                    }
+                }
+                question.setKeywords(keywords);
+            } catch (NumberFormatException e) {
+                return new QuestionRow(line, question, "Invalid number: " + e.getMessage());
+            }
+            return new QuestionRow(line, question, null);
+        };
+    }
+
+    private static String field(List<String> record, int index) {
+        if (index < 0 || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("|", "\\|").replace("=", "\\=");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                c = value.charAt(++i);
+            }
+            out.append(c);
+        }
+        return out.toString();
+    }
+
+    // Split on unescaped delimiters; escapes are kept so the parts can be split again
+    private static List<String> splitEscaped(String value, char delimiter) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == delimiter) {
+                parts.add(value.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(value.substring(start));
+        return parts;
+    }
+}
@@ -0,0 +1,455 @@
+package com.project.api.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.api.event.AssessmentStatusChangedEvent;
+import com.project.api.model.AssessmentStatus;
+import com.project.api.model.GradingMode;
+import com.project.api.model.QuestionType;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Grades MCQ and TRUE_FALSE answers of an assessment in bulk, and SHORT_ANSWER and ESSAY answers
+// by their weighted keywords if the assessment is graded AUTO (HYBRID leaves those to educators).
+// CODING answers are run against their test cases on the code execution pool afterwards. The answer key is compiled once
+// into primitive arrays (AnswerKey); pending answers are read in keyset pages of plain columns,
+// scored in parallel on a fork-join pool and written back per page with JDBC batches. Each
+// answer moves PENDING -> GRADED with a guarded UPDATE and gets its AnswerScore only if that
+// UPDATE hit, so overlapping runs (and GradingJobService) never score an answer twice. Submission
+// totals are recomputed set-based in the same transaction. Answers not graded from the key stay PENDING.
+@Service
+public class AutoGradingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoGradingService.class);
+
+    private static final int TOTALS_BATCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private KeywordScoringService keywordScoringService;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private ScoreStatisticsService scoreStatisticsService;
+
+    @Value("${grading.parallelism:0}")
+    private int parallelism;
+
+    @Value("${grading.page-size:20000}")
+    private int pageSize;
+
+    // Answers per fork-join leaf task
+    @Value("${grading.chunk-size:2048}")
+    private int chunkSize;
+
+    // CODING answers per page; also bounded by half the code execution queue
+    @Value("${grading.code-page-size:200}")
+    private int codePageSize;
+
+    private ForkJoinPool pool;
+
+    // Runs whole-assessment grading started by status changes; only the scoring of each page
+    // goes to the fork-join pool, so waits on database writes and CODING runs never hold a worker
+    private ExecutorService gradingExecutor;
+
+    public record GradingResult(long assessmentId, int answersGraded, int submissionsUpdated, long millis) {
+    }
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        logger.info("Auto-grading pool started with parallelism {}", pool.getParallelism());
+        gradingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "auto-grading");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gradingExecutor.shutdown();
+        pool.shutdown();
+    }
+
+    // Completed AUTO and HYBRID assessments are graded in the background; the event is only
+    // published on the node that ran the transition
+    @EventListener
+    public void onStatusChanged(AssessmentStatusChangedEvent event) {
+        if (event.getTo() != AssessmentStatus.COMPLETED) {
+            return;
+        }
+        List<Long> autoGraded = namedParameterJdbcTemplate.queryForList(
+                "SELECT assessment_id FROM assessments WHERE assessment_id IN (:ids) AND grading_mode IN ('AUTO', 'HYBRID')",
+                new MapSqlParameterSource("ids", event.getAssessmentIds()), Long.class);
+        for (Long assessmentId : autoGraded) {
+            gradingExecutor.execute(() -> {
+                try {
+                    gradeAssessment(assessmentId);
+                } catch (RuntimeException e) {
+                    logger.error("Auto-grading of assessment {} failed: {}", assessmentId, e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Compile the answer key of an assessment from its linked questions. MCQ answers are stored as
+     * canonical option indexes (options ordered by id), so the key holds the index of the option
+     * marked correct. A question without a max score is worth 1. SHORT_ANSWER and ESSAY questions
+     * are scored by keywords only in AUTO assessments; CODING questions are marked for execution.
+     */
+    public AnswerKey compile(long assessmentId) {
+        boolean keywords = GradingMode.AUTO.name().equals(jdbcTemplate.queryForObject(
+                "SELECT grading_mode FROM assessments WHERE assessment_id = ?", String.class, assessmentId));
+        List<Map<String, Object>> questions = jdbcTemplate.queryForList(
+                "SELECT q.question_id, q.type, q.max_score, q.correct_answer "
+                        + "FROM assessment_questions l JOIN questions q ON q.question_id = l.question_id "
+                        + "WHERE l.assessment_id = ? ORDER BY q.question_id",
+                assessmentId);
+        return build(assessmentId, questions, keywords,
+                "SELECT o.question_id, o.is_correct FROM question_options o "
+                        + "JOIN assessment_questions l ON l.question_id = o.question_id "
+                        + "WHERE l.assessment_id = ? ORDER BY o.question_id, o.option_id",
+                assessmentId);
+    }
+
+    /**
+     * Compile the answer key of a single question, as used to regrade its auto-graded answers.
+     * SHORT_ANSWER and ESSAY questions are always scored by keywords here, since only answers that
+     * were graded that way are regraded.
+     */
+    public AnswerKey compileQuestion(long assessmentId, long questionId) {
+        List<Map<String, Object>> questions = jdbcTemplate.queryForList(
+                "SELECT question_id, type, max_score, correct_answer FROM questions WHERE question_id = ?", questionId);
+        return build(assessmentId, questions, true,
+                "SELECT question_id, is_correct FROM question_options WHERE question_id = ? ORDER BY option_id",
+                questionId);
+    }
+
+    private AnswerKey build(long assessmentId, List<Map<String, Object>> questions, boolean keywords,
+                            String optionsSql, long optionsArg) {
+        int size = questions.size();
+        long[] questionIds = new long[size];
+        byte[] kinds = new byte[size];
+        int[] correct = new int[size];
+        double[] maxScores = new double[size];
+        KeywordMatcher[] matchers = new KeywordMatcher[size];
+        List<Long> keywordQuestions = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> question = questions.get(i);
+            questionIds[i] = ((Number) question.get("question_id")).longValue();
+            maxScores[i] = question.get("max_score") != null ? ((Number) question.get("max_score")).doubleValue() : 1.0;
+            QuestionType type = QuestionType.valueOf((String) question.get("type"));
+            if (type == QuestionType.MCQ) {
+                kinds[i] = AnswerKey.MCQ;
+                correct[i] = -1;
+            } else if (type == QuestionType.TRUE_FALSE) {
+                kinds[i] = AnswerKey.TRUE_FALSE;
+                correct[i] = AnswerKey.parseBoolean((String) question.get("correct_answer"));
+            } else if (keywords && (type == QuestionType.SHORT_ANSWER || type == QuestionType.ESSAY)) {
+                kinds[i] = AnswerKey.KEYWORD;
+                keywordQuestions.add(questionIds[i]);
+            } else if (type == QuestionType.CODING) {
+                kinds[i] = AnswerKey.CODE;
+            } else {
+                kinds[i] = AnswerKey.MANUAL;
+            }
+        }
+
+        AnswerKey positions = new AnswerKey(assessmentId, questionIds, kinds, correct, maxScores, matchers);
+        Map<Long, KeywordMatcher> compiled = keywordScoringService.getMatchers(keywordQuestions);
+        for (Long questionId : keywordQuestions) {
+            matchers[positions.indexOf(questionId)] = compiled.get(questionId);
+        }
+        int[] optionCounts = new int[size];
+        jdbcTemplate.query(optionsSql,
+                rs -> {
+                    int index = positions.indexOf(rs.getLong("question_id"));
+                    if (index < 0 || kinds[index] != AnswerKey.MCQ) {
+                        return;
+                    }
+                    int optionIndex = optionCounts[index]++;
+                    if (rs.getBoolean("is_correct") && correct[index] < 0) {
+                        correct[index] = optionIndex;
+                    }
+                },
+                optionsArg);
+        return positions;
+    }
+
+    /**
+     * Grade every pending answer of an assessment that its key covers and update the totals of the
+     * submissions involved. Safe to run again: only PENDING answers are graded.
+     */
+    public GradingResult gradeAssessment(long assessmentId) {
+        long started = System.currentTimeMillis();
+        AnswerKey key = compile(assessmentId);
+        List<String> gradedTypes = new ArrayList<>(List.of(QuestionType.MCQ.name(), QuestionType.TRUE_FALSE.name()));
+        boolean code = false;
+        for (int i = 0; i < key.size(); i++) {
+            if (key.kindAt(i) == AnswerKey.KEYWORD && !gradedTypes.contains(QuestionType.ESSAY.name())) {
+                gradedTypes.addAll(List.of(QuestionType.SHORT_ANSWER.name(), QuestionType.ESSAY.name()));
+            }
+            code |= key.kindAt(i) == AnswerKey.CODE;
+        }
+        Set<Long> submissions = new LinkedHashSet<>();
+        int graded = 0;
+        long afterId = 0;
+        while (true) {
+            AnswerPage page = loadPage(assessmentId, gradedTypes, afterId, pageSize);
+            if (page.size == 0) {
+                break;
+            }
+            scoreAll(key, page.questionIds, page.answerTexts, page.scores, page.size);
+            ScoreStatisticsService.Batch statistics = new ScoreStatisticsService.Batch();
+            graded += transactionTemplate.execute(status -> writePage(assessmentId, page, submissions, statistics));
+            scoreStatisticsService.record(statistics);
+            afterId = page.answerIds[page.size - 1];
+            if (page.size < pageSize) {
+                break;
+            }
+        }
+        if (code) {
+            graded += gradeCode(assessmentId, key, submissions);
+        }
+        int updated = submissions.size();
+        long millis = System.currentTimeMillis() - started;
+        logger.info("Auto-graded assessment {}: {} answers, {} submissions, {} ms", assessmentId, graded, updated, millis);
+        return new GradingResult(assessmentId, graded, updated, millis);
+    }
+
+    /**
+     * Score the first size answers from the key on the grading pool. scores[i] is NaN where the
+     * key does not score answer i (manual, CODING, or a question not in the key).
+     */
+    public void scoreAll(AnswerKey key, long[] questionIds, String[] answerTexts, double[] scores, int size) {
+        pool.invoke(new GradeTask(key, questionIds, answerTexts, scores, 0, size));
+    }
+
+    // Runs each page of pending CODING answers on the execution pool and waits for it; answers
+    // whose run failed (e.g. the queue was full) stay PENDING for the next run
+    private int gradeCode(long assessmentId, AnswerKey key, Set<Long> submissions) {
+        int limit = Math.max(1, Math.min(codePageSize, codeExecutionService.getQueueCapacity() / 2));
+        int graded = 0;
+        long afterId = 0;
+        while (true) {
+            AnswerPage page = loadPage(assessmentId, List.of(QuestionType.CODING.name()), afterId, limit);
+            if (page.size == 0) {
+                break;
+            }
+            List<CompletableFuture<CodeExecutionService.CodeResult>> runs = new ArrayList<>(page.size);
+            for (int i = 0; i < page.size; i++) {
+                try {
+                    runs.add(codeExecutionService.submit(page.questionIds[i], page.answerTexts[i]));
+                } catch (RuntimeException e) {
+                    runs.add(CompletableFuture.failedFuture(e));
+                }
+            }
+            for (int i = 0; i < page.size; i++) {
+                int index = key.indexOf(page.questionIds[i]);
+                try {
+                    double fraction = CodeExecutionService.await(runs.get(i)).scoreFraction();
+                    page.scores[i] = index < 0 ? Double.NaN : fraction * key.maxScoreAt(index);
+                } catch (CompletionException e) {
+                    logger.warn("Code answer {} was not graded: {}", page.answerIds[i], e.getCause().getMessage());
+                    page.scores[i] = Double.NaN;
+                }
+            }
+            ScoreStatisticsService.Batch statistics = new ScoreStatisticsService.Batch();
+            graded += transactionTemplate.execute(status -> writePage(assessmentId, page, submissions, statistics));
+            scoreStatisticsService.record(statistics);
+            afterId = page.answerIds[page.size - 1];
+            if (page.size < limit) {
+                break;
+            }
+        }
+        return graded;
+    }
+
+    // Pending answers to the given question types, as parallel arrays
+    private AnswerPage loadPage(long assessmentId, List<String> types, long afterId, int limit) {
+        AnswerPage page = new AnswerPage(limit);
+        namedParameterJdbcTemplate.query(
+                "SELECT sa.submission_answer_id, sa.submission_id, sa.question_id, sa.answer_text "
+                        + "FROM submission_answers sa "
+                        + "JOIN submissions s ON s.submission_id = sa.submission_id "
+                        + "JOIN questions q ON q.question_id = sa.question_id "
+                        + "WHERE s.assessment_id = :assessmentId AND sa.status = 'PENDING' AND q.type IN (:types) "
+                        + "AND sa.submission_answer_id > :afterId ORDER BY sa.submission_answer_id LIMIT :limit",
+                new MapSqlParameterSource("assessmentId", assessmentId).addValue("types", types)
+                        .addValue("afterId", afterId).addValue("limit", limit),
+                rs -> {
+                    int i = page.size++;
+                    page.answerIds[i] = rs.getLong(1);
+                    page.submissionIds[i] = rs.getLong(2);
+                    page.questionIds[i] = rs.getLong(3);
+                    page.answerTexts[i] = rs.getString(4);
+                });
+        return page;
+    }
+
+    // One transaction per page. The statistics epoch and then the page's submissions are locked
+    // first, in id order like the grading jobs lock theirs, and their totals are recomputed before commit, so a submission
+    // turns GRADED in the transaction that scores its last answer. The scores written, and the
+    // totals of submissions that turned GRADED, are collected for the statistics
+    private int writePage(long assessmentId, AnswerPage page, Set<Long> submissions, ScoreStatisticsService.Batch statistics) {
+        scoreStatisticsService.lockEpoch(statistics, assessmentId);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> claims = new ArrayList<>(page.size);
+        List<Integer> claimed = new ArrayList<>(page.size);
+        Set<Long> locked = new TreeSet<>();
+        for (int i = 0; i < page.size; i++) {
+            if (!Double.isNaN(page.scores[i])) {
+                claims.add(new Object[] {now, page.answerIds[i], page.questionIds[i]});
+                claimed.add(i);
+                locked.add(page.submissionIds[i]);
+            }
+        }
+        List<Long> lockOrder = new ArrayList<>(locked);
+        for (int i = 0; i < lockOrder.size(); i += TOTALS_BATCH_SIZE) {
+            namedParameterJdbcTemplate.queryForList(
+                    "SELECT submission_id FROM submissions WHERE submission_id IN (:ids) ORDER BY submission_id FOR UPDATE",
+                    new MapSqlParameterSource("ids", lockOrder.subList(i, Math.min(lockOrder.size(), i + TOTALS_BATCH_SIZE))),
+                    Long.class);
+        }
+        int[] counts = jdbcTemplate.batchUpdate(
+                "UPDATE submission_answers SET status = 'GRADED', is_auto_graded = true, updated_at = ? "
+                        + "WHERE submission_answer_id = ? AND status = 'PENDING' AND question_id = ?",
+                claims);
+
+        List<Object[]> scores = new ArrayList<>(claimed.size());
+        Set<Long> touched = new LinkedHashSet<>();
+        for (int c = 0; c < counts.length; c++) {
+            // Another run graded it in the meantime, or its answer key was corrected
+            if (counts[c] == 0) {
+                continue;
+            }
+            int i = claimed.get(c);
+            scores.add(new Object[] {page.answerIds[i], page.scores[i], now, now});
+            statistics.answer(assessmentId, page.questionIds[i], page.scores[i]);
+            touched.add(page.submissionIds[i]);
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO answer_scores (submission_answer_id, score, created_at, updated_at) VALUES (?, ?, ?, ?)",
+                scores);
+        List<Long> touchedIds = new ArrayList<>(touched);
+        updateTotals(touchedIds);
+        // Touched submissions had a pending answer, so those GRADED now were not before
+        for (int i = 0; i < touchedIds.size(); i += TOTALS_BATCH_SIZE) {
+            namedParameterJdbcTemplate.query(
+                    "SELECT total_score FROM submissions WHERE submission_id IN (:ids) AND status = 'GRADED'",
+                    new MapSqlParameterSource("ids", touchedIds.subList(i, Math.min(touchedIds.size(), i + TOTALS_BATCH_SIZE))),
+                    rs -> {
+                        statistics.total(assessmentId, rs.getDouble(1));
+                    });
+        }
+        submissions.addAll(touched);
+        return scores.size();
+    }
+
+    // Totals from the stored scores, so reruns and manual grades elsewhere stay consistent;
+    // a submission with no pending answers left is GRADED
+    private int updateTotals(List<Long> submissionIds) {
+        int updated = 0;
+        for (int i = 0; i < submissionIds.size(); i += TOTALS_BATCH_SIZE) {
+            List<Long> batch = submissionIds.subList(i, Math.min(submissionIds.size(), i + TOTALS_BATCH_SIZE));
+            updated += namedParameterJdbcTemplate.update(
+                    "UPDATE submissions s SET "
+                            + "s.total_score = (SELECT COALESCE(SUM(sc.score), 0) FROM submission_answers sa "
+                            + "JOIN answer_scores sc ON sc.submission_answer_id = sa.submission_answer_id WHERE sa.submission_id = s.submission_id), "
+                            + "s.status = CASE WHEN EXISTS (SELECT 1 FROM submission_answers p WHERE p.submission_id = s.submission_id AND p.status = 'PENDING') "
+                            + "THEN s.status ELSE 'GRADED' END, "
+                            + "s.updated_at = :now "
+                            + "WHERE s.submission_id IN (:ids)",
+                    new MapSqlParameterSource("ids", batch).addValue("now", LocalDateTime.now()));
+        }
+        return updated;
+    }
+
+    private static final class AnswerPage {
+        final long[] answerIds;
+        final long[] submissionIds;
+        final long[] questionIds;
+        final String[] answerTexts;
+        final double[] scores;
+        int size;
+
+        AnswerPage(int capacity) {
+            answerIds = new long[capacity];
+            submissionIds = new long[capacity];
+            questionIds = new long[capacity];
+            answerTexts = new String[capacity];
+            scores = new double[capacity];
+        }
+    }
+
+    // Splits the range until it is at most chunkSize answers, then scores it in a tight loop
+    private final class GradeTask extends RecursiveAction {
+        private final AnswerKey key;
+        private final long[] questionIds;
+        private final String[] answerTexts;
+        private final double[] scores;
+        private final int from;
+        private final int to;
+
+        GradeTask(AnswerKey key, long[] questionIds, String[] answerTexts, double[] scores, int from, int to) {
+            this.key = key;
+            this.questionIds = questionIds;
+            this.answerTexts = answerTexts;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    int index = key.indexOf(questionIds[i]);
+                    // NaN marks answers to questions no longer in the assessment; they stay PENDING
+                    scores[i] = index < 0 ? Double.NaN : key.score(index, answerTexts[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new GradeTask(key, questionIds, answerTexts, scores, from, middle),
+                    new GradeTask(key, questionIds, answerTexts, scores, middle, to));
+        }
+    }
+}
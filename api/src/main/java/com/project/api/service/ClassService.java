@@ -15,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.project.api.config.JwtPrincipal;
 import com.project.api.dto.ClassCreateRequest;
 import com.project.api.model.ClassStatus;
 import com.project.api.model.Student;
@@ -40,22 +41,24 @@ public class ClassService {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private PrincipalResolver principalResolver;
+
     public Optional<Class> findById(Long classId) {
         return classRepository.findById(classId);
     }
 
     //Educator creating class
    @Transactional
-    public Class createClass(ClassCreateRequest request, String educatorEmail) {
-        logger.info("Creating class for educator: {}", educatorEmail);
+    public Class createClass(ClassCreateRequest request, JwtPrincipal principal) {
+        logger.info("Creating class for educator: {}", principal.getEmail());
 
         // Verify the user is an educator
-        Optional<User> educatorOpt = userRepository.findByEmail(educatorEmail);
-        if (educatorOpt.isEmpty() || educatorOpt.get().getRole() != UserRole.EDUCATOR) {
-            logger.error("User {} is not an educator or does not exist", educatorEmail);
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            logger.error("User {} is not an educator or does not exist", principal.getEmail());
             throw new IllegalArgumentException("Only educators can create classes");
         }
-        User educator = educatorOpt.get();
+        User educator = userRepository.getReferenceById(principal.getUserId());
 
         // Validate request
         if (request.getClassName() == null || request.getClassName().trim().isEmpty()) {
@@ -98,32 +101,27 @@ public class ClassService {
     
     //Students joining a class
    @Transactional
-    public Class joinClass(String classCode, String studentEmail) {
+    public Class joinClass(String classCode, JwtPrincipal principal) {
+        String studentEmail = principal.getEmail();
         logger.info("Student {} attempting to join class with code: {}", studentEmail, classCode);
 
-        // Find the User by email
-        Optional<User> userOpt = userRepository.findByEmail(studentEmail);
-        if (userOpt.isEmpty() || userOpt.get().getRole() != UserRole.STUDENT) {
+        if (!principal.hasRole(UserRole.STUDENT) || principal.getUserId() == null) {
             logger.error("User {} is not a student or does not exist", studentEmail);
             throw new IllegalArgumentException("Only students can join classes");
         }
-        User user = userOpt.get();
 
-        // Find or create the associated Student entity
-        Optional<Student> studentOpt = studentRepository.findByUser(user);
+        // Use the resolved Student, or create one if this user never had a Student row
         Student student;
-        if (studentOpt.isEmpty()) {
-            // If no Student entity exists for this User, create one
+        if (principal.getStudentId() == null) {
             student = new Student();
-            student.setUser(user);
+            student.setUser(userRepository.getReferenceById(principal.getUserId()));
             student.setCreatedAt(LocalDateTime.now());
             student.setUpdatedAt(LocalDateTime.now());
             student = studentRepository.save(student);
-            user.setStudent(student); // Update the User's student field
-            userRepository.save(user);
+            principalResolver.invalidate(studentEmail);
             logger.info("Created new Student entity for user: {}", studentEmail);
         } else {
-            student = studentOpt.get();
+            student = studentRepository.getReferenceById(principal.getStudentId());
         }
 
         // Find the Class by class code
@@ -135,7 +133,7 @@ public class ClassService {
         Class targetClass = classOpt.get();
 
         // Check if the student is already enrolled
-        if (targetClass.getStudents().contains(student)) {
+        if (classRepository.existsByClassIdAndStudentsStudentId(targetClass.getClassId(), student.getStudentId())) {
             logger.warn("Student {} is already enrolled in class {}", studentEmail, targetClass.getClassId());
             throw new IllegalArgumentException("You are already enrolled in this class");
         }
@@ -150,45 +148,39 @@ public class ClassService {
 
 
     //List of classes a student is enrolled in
-    public List<Class> getStudentClasses(String studentEmail) {
+    public List<Class> getStudentClasses(JwtPrincipal principal) {
 
+    String studentEmail = principal.getEmail();
     logger.info("Fetching classes for student: {}", studentEmail);
 
-    // Find the User by email
-    Optional<User> userOpt = userRepository.findByEmail(studentEmail);
-    if (userOpt.isEmpty() || userOpt.get().getRole() != UserRole.STUDENT) {
+    if (!principal.hasRole(UserRole.STUDENT) || principal.getUserId() == null) {
         logger.error("User {} is not a student or does not exist", studentEmail);
         throw new IllegalArgumentException("Only students can view their classes");
     }
-    User user = userOpt.get();
 
-    // Find the associated Student entity
-    Optional<Student> studentOpt = studentRepository.findByUser(user);
-    if (studentOpt.isEmpty()) {
+    if (principal.getStudentId() == null) {
         logger.info("Student entity not found for user: {}. No classes to display.", studentEmail);
         return new ArrayList<>(); // Return empty list if no Student entity exists
     }
-    Student student = studentOpt.get();
 
-    // Get the classes the student is enrolled in
-    List<Class> classes = student.getClasses(); // Use the Student's classes field
+    // Get the classes the student is enrolled in, keyed directly by the student id from the token
+    List<Class> classes = classRepository.findByStudentsStudentId(principal.getStudentId());
     logger.info("Found {} classes for student: {}", classes.size(), studentEmail);
     return classes;
 }
 
     //List of classes created by educator
-    public List<Class> getEducatorClasses(String educatorEmail) {
+    public List<Class> getEducatorClasses(JwtPrincipal principal) {
+    String educatorEmail = principal.getEmail();
     logger.info("Fetching classes for educator: {}", educatorEmail);
 
-    Optional<User> userOpt = userRepository.findByEmail(educatorEmail);
-    if (userOpt.isEmpty() || userOpt.get().getRole() != UserRole.EDUCATOR) {
+    if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
         logger.error("User {} is not an educator or does not exist", educatorEmail);
         throw new IllegalArgumentException("Only educators can view their classes");
     }
-    User educator = userOpt.get();
 
 
-    List<Class> classes = classRepository.findByCreatedBy(educator);
+    List<Class> classes = classRepository.findByCreatedByUserId(principal.getUserId());
         classes.forEach(cls -> {
         cls.getStudents().size(); // Initialize students collection
     });
@@ -198,15 +190,14 @@ public class ClassService {
 
 
 @Transactional
-public Map<String, Object> getClassDetailsForStudent(Long classId, String studentEmail) {
+public Map<String, Object> getClassDetailsForStudent(Long classId, JwtPrincipal principal) {
+    String studentEmail = principal.getEmail();
     logger.info("Fetching details for class ID: {} by student: {}", classId, studentEmail);
-    Optional<User> userOpt = userRepository.findByEmail(studentEmail);
-    if (userOpt.isEmpty() || userOpt.get().getRole() != UserRole.STUDENT) {
+    if (!principal.hasRole(UserRole.STUDENT)) {
         logger.error("User {} is not a student", studentEmail);
         throw new IllegalArgumentException("Only students can access class details");
     }
-    Optional<Student> studentOpt = studentRepository.findByUser(userOpt.get());
-    if (studentOpt.isEmpty()) {
+    if (principal.getStudentId() == null) {
         logger.error("Student entity not found for user: {}", studentEmail);
         throw new IllegalArgumentException("Student not found");
     }
@@ -216,7 +207,7 @@ public Map<String, Object> getClassDetailsForStudent(Long classId, String studen
         throw new IllegalArgumentException("Class not found");
     }
     Class classroom = classOpt.get();
-    if (!classroom.getStudents().contains(studentOpt.get())) {
+    if (!classRepository.existsByClassIdAndStudentsStudentId(classId, principal.getStudentId())) {
         logger.error("Student {} is not enrolled in class {}", studentEmail, classId);
         throw new IllegalArgumentException("You are not enrolled in this class");
     }
@@ -238,11 +229,11 @@ public Map<String, Object> getClassDetailsForStudent(Long classId, String studen
     return classDetails;
 }
 @Transactional
-    public Map<String, Object> getClassDetails(Long classId, String educatorEmail) {
+    public Map<String, Object> getClassDetails(Long classId, JwtPrincipal principal) {
+        String educatorEmail = principal.getEmail();
         logger.info("Fetching details for class ID: {} by educator: {}", classId, educatorEmail);
 
-        Optional<User> userOpt = userRepository.findByEmail(educatorEmail);
-        if (userOpt.isEmpty() || userOpt.get().getRole() != UserRole.EDUCATOR) {
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
             logger.error("User {} is not an educator or does not exist", educatorEmail);
             throw new IllegalArgumentException("Only educators can access class details");
         }
@@ -254,7 +245,7 @@ public Map<String, Object> getClassDetailsForStudent(Long classId, String studen
         }
 
         Class classroom = classOpt.get();
-        if (!classroom.getCreatedBy().getEmail().equals(educatorEmail)) {
+        if (!classroom.getCreatedBy().getUserId().equals(principal.getUserId())) {
             logger.error("Educator {} is not authorized to access class {}", educatorEmail, classId);
             throw new IllegalArgumentException("You are not authorized to view this class details");
         }
@@ -0,0 +1,560 @@
+package com.project.api.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.api.exception.CodeExecutionQueueFullException;
+import com.project.api.model.QuestionType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Runs CODING answers against their question's test cases. A code answer is a Java program
+// whose entry point is a class named Main, reading the test input from stdin. Each job is
+// compiled by a child javac (annotation processing off, heap and wall-clock limits) into its own
+// temp directory, then every test case runs in a separate child JVM under a security manager (no
+// file writes, network or processes), with a heap cap, a CPU-time and a wall-clock limit, an
+// output limit and an empty environment. code.execution.command-prefix wraps both child
+// processes in an OS sandbox. JDKs from 24 on cannot enable a security manager, so there the
+// prefix is required: without it no CODING answer is run.
+// Jobs run on a bounded pool that fails fast when its queue is full; the test cases of a job run
+// in parallel on a second pool that caps the number of child JVMs. Results are cached in
+// code_execution_results by a hash of the test suite, the limits and the normalized source, and
+// identical jobs in flight share one run, so a resubmitted program never runs twice.
+@Service
+public class CodeExecutionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CodeExecutionService.class);
+
+    private static final String ENTRY_CLASS = "Main";
+
+    private static final int MAX_COMPILER_OUTPUT = 2000;
+
+    private static final long POLL_MS = 20;
+
+    // Exit code of -XX:+ExitOnOutOfMemoryError
+    private static final int OUT_OF_MEMORY_EXIT = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Jobs (answers) compiled and run at the same time
+    @Value("${code.execution.workers:2}")
+    private int workers;
+
+    // Child JVMs at the same time, across all jobs
+    @Value("${code.execution.max-processes:4}")
+    private int maxProcesses;
+
+    @Value("${code.execution.queue-capacity:500}")
+    private int queueCapacity;
+
+    // Per test case; includes JVM startup
+    @Value("${code.execution.cpu-time-ms:3000}")
+    private long cpuTimeMs;
+
+    @Value("${code.execution.wall-time-ms:10000}")
+    private long wallTimeMs;
+
+    // Per job, for the child javac
+    @Value("${code.execution.compile-time-ms:20000}")
+    private long compileTimeMs;
+
+    @Value("${code.execution.memory-mb:128}")
+    private int memoryMb;
+
+    @Value("${code.execution.max-output-bytes:65536}")
+    private long maxOutputBytes;
+
+    // Command put in front of the child javac and JVMs, e.g. a sandbox such as nsjail or firejail
+    @Value("${code.execution.command-prefix:}")
+    private String commandPrefix;
+
+    private ThreadPoolExecutor jobs;
+
+    private ExecutorService processes;
+
+    // Null when this is a JRE
+    private List<String> javacCommand;
+
+    private List<String> javaCommand;
+
+    // False on a JDK without a security manager and with no command prefix; then nothing is run
+    private boolean sandboxed;
+
+    // Result hash -> running job, so identical concurrent submissions share one run
+    private final Map<String, CompletableFuture<CodeResult>> running = new ConcurrentHashMap<>();
+
+    private Timer queueLatencyTimer;
+    private Timer jobTimer;
+    private Counter testCasesCounter;
+    private Counter cacheHitCounter;
+    private Counter rejectedCounter;
+
+    public enum CaseOutcome {
+        PASSED,
+        WRONG_ANSWER,
+        TIME_LIMIT,
+        MEMORY_LIMIT,
+        OUTPUT_LIMIT,
+        RUNTIME_ERROR
+    }
+
+    public record CaseResult(CaseOutcome outcome, long cpuMillis, long wallMillis) {
+    }
+
+    /**
+     * Outcome of one program against a question's test suite.
+     * @param scoreFraction Weight of the passed test cases over the total weight, 0 to 1.
+     * @param compilerOutput Compiler diagnostics if the program did not compile, otherwise null.
+     */
+    public record CodeResult(boolean compiled, String compilerOutput, int passed, int total, double scoreFraction,
+                             List<CaseResult> cases, boolean cached) {
+    }
+
+    private record TestCase(String input, String expectedOutput, double weight) {
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger jobThreads = new AtomicInteger();
+        jobs = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "code-job-" + jobThreads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        AtomicInteger processThreads = new AtomicInteger();
+        processes = Executors.newFixedThreadPool(maxProcesses, runnable -> {
+            Thread thread = new Thread(runnable, "code-process-" + processThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<String> prefix = commandPrefix.isBlank() ? List.of() : List.of(commandPrefix.trim().split("\\s+"));
+        Path bin = Path.of(System.getProperty("java.home"), "bin");
+        if (Files.isExecutable(bin.resolve("javac"))) {
+            javacCommand = new ArrayList<>(prefix);
+            javacCommand.add(bin.resolve("javac").toString());
+            javacCommand.addAll(List.of("-J-Xmx256m", "-J-XX:+UseSerialGC", "-proc:none", "-nowarn", "-encoding", "UTF-8"));
+        }
+        javaCommand = new ArrayList<>(prefix);
+        javaCommand.add(bin.resolve("java").toString());
+        javaCommand.addAll(List.of("-Xmx" + memoryMb + "m", "-Xss8m", "-XX:MaxMetaspaceSize=64m", "-XX:+UseSerialGC",
+                "-XX:TieredStopAtLevel=1", "-XX:ActiveProcessorCount=1", "-XX:+ExitOnOutOfMemoryError", "-Dfile.encoding=UTF-8"));
+        sandboxed = Runtime.version().feature() < 24 || !prefix.isEmpty();
+        if (Runtime.version().feature() < 24) {
+            javaCommand.add("-Djava.security.manager=default");
+        }
+
+        queueLatencyTimer = Timer.builder("code.execution.queue.latency")
+                .description("Time a code job waits before a worker starts it")
+                .register(meterRegistry);
+        jobTimer = Timer.builder("code.execution.job.duration")
+                .description("Time to compile a code answer and run all its test cases")
+                .register(meterRegistry);
+        testCasesCounter = Counter.builder("code.execution.test.cases")
+                .description("Test cases run in child JVMs")
+                .register(meterRegistry);
+        cacheHitCounter = Counter.builder("code.execution.cache.hits")
+                .description("Code jobs answered from the result cache or an identical running job")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("code.execution.rejected")
+                .description("Code jobs rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("code.execution.queue.depth", jobs, executor -> executor.getQueue().size())
+                .register(meterRegistry);
+
+        if (javacCommand == null) {
+            logger.warn("No Java compiler available (running on a JRE); CODING answers cannot be graded");
+        }
+        if (!sandboxed) {
+            logger.error("This JDK has no security manager and code.execution.command-prefix is blank; "
+                    + "CODING answers will not be run until a sandbox is configured");
+        }
+        logger.info("Code execution started with {} workers, {} processes and queue capacity {}", workers, maxProcesses, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.shutdownNow();
+        processes.shutdownNow();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Wait for a submitted job. On a fork-join worker the wait is a managed block, so the pool can
+     * add a spare worker instead of losing one for the length of a run.
+     * @throws CompletionException if the job failed.
+     */
+    public static CodeResult await(CompletableFuture<CodeResult> run) {
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() {
+                    try {
+                        run.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException | CancellationException e) {
+                        // Reported by join below
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return run.isDone();
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        if (!run.isDone()) {
+            throw new CompletionException(new InterruptedException("Interrupted while waiting for a code job"));
+        }
+        return run.join();
+    }
+
+    /**
+     * Run a program against a CODING question's test cases, or return the cached result.
+     * @return The result once the job has run.
+     * @throws IllegalArgumentException if the question does not exist or is not a CODING question.
+     * @throws IllegalStateException if no compiler or sandbox is available.
+     * @throws CodeExecutionQueueFullException if the queue is full.
+     */
+    public CompletableFuture<CodeResult> submit(Long questionId, String source) {
+        if (javacCommand == null) {
+            throw new IllegalStateException("Code execution needs a JDK");
+        }
+        if (!sandboxed) {
+            throw new IllegalStateException("Code execution is not sandboxed; set code.execution.command-prefix");
+        }
+        List<String> types = jdbcTemplate.queryForList("SELECT type FROM questions WHERE question_id = ?", String.class, questionId);
+        if (types.isEmpty() || !QuestionType.CODING.name().equals(types.get(0))) {
+            throw new IllegalArgumentException("Question " + questionId + " is not a coding question");
+        }
+        List<TestCase> suite = jdbcTemplate.query(
+                "SELECT input, expected_output, weight FROM question_test_cases WHERE question_id = ? ORDER BY test_case_id",
+                (rs, rowNum) -> new TestCase(rs.getString("input"), rs.getString("expected_output"), rs.getDouble("weight")),
+                questionId);
+        String normalized = normalizeSource(source);
+        String hash = resultHash(suite, normalized);
+
+        CodeResult cached = findCached(hash);
+        if (cached != null) {
+            cacheHitCounter.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<CodeResult> created = new CompletableFuture<>();
+        CompletableFuture<CodeResult> existing = running.putIfAbsent(hash, created);
+        if (existing != null) {
+            cacheHitCounter.increment();
+            return existing;
+        }
+        long queuedAt = System.nanoTime();
+        try {
+            jobs.execute(() -> {
+                queueLatencyTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                long started = System.nanoTime();
+                try {
+                    CodeResult result = runJob(normalized, suite);
+                    store(hash, questionId, result);
+                    created.complete(result);
+                } catch (RuntimeException e) {
+                    logger.error("Code job for question {} failed: {}", questionId, e.getMessage(), e);
+                    created.completeExceptionally(e);
+                } finally {
+                    running.remove(hash, created);
+                    jobTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(hash, created);
+            rejectedCounter.increment();
+            throw new CodeExecutionQueueFullException("Code execution queue is full, try again later");
+        }
+        return created;
+    }
+
+    /**
+     * Blocking form of submit.
+     */
+    public CodeResult run(Long questionId, String source) {
+        try {
+            return submit(questionId, source).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Line endings unified, trailing whitespace and blank lines at the end dropped
+    static String normalizeSource(String source) {
+        if (source == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(source.length());
+        for (String line : source.replace("\r\n", "\n").replace('\r', '\n').split("\n")) {
+            normalized.append(line.stripTrailing()).append('\n');
+        }
+        return normalized.toString().strip();
+    }
+
+    private String resultHash(List<TestCase> suite, String normalizedSource) {
+        StringBuilder content = new StringBuilder(normalizedSource.length() + 256);
+        content.append(cpuTimeMs).append('/').append(wallTimeMs).append('/').append(memoryMb).append('/').append(maxOutputBytes);
+        for (TestCase testCase : suite) {
+            content.append('\u001F').append(testCase.input()).append('\u001F').append(testCase.expectedOutput())
+                    .append('=').append(testCase.weight());
+        }
+        content.append('\u001E').append(normalizedSource);
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private CodeResult findCached(String hash) {
+        List<CodeResult> rows = jdbcTemplate.query(
+                "SELECT compiled, passed, total, score_fraction, details FROM code_execution_results WHERE result_hash = ?",
+                (rs, rowNum) -> {
+                    boolean compiled = rs.getBoolean("compiled");
+                    String details = rs.getString("details");
+                    List<CaseResult> cases = List.of();
+                    if (compiled && details != null) {
+                        try {
+                            cases = objectMapper.readValue(details, new TypeReference<List<CaseResult>>() {
+                            });
+                        } catch (JsonProcessingException e) {
+                            logger.warn("Unreadable cached code result {}: {}", hash, e.getMessage());
+                        }
+                    }
+                    return new CodeResult(compiled, compiled ? null : details, rs.getInt("passed"), rs.getInt("total"),
+                            rs.getDouble("score_fraction"), cases, true);
+                },
+                hash);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private void store(String hash, Long questionId, CodeResult result) {
+        String details;
+        try {
+            details = result.compiled() ? objectMapper.writeValueAsString(result.cases()) : result.compilerOutput();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize code result", e);
+        }
+        jdbcTemplate.update(
+                "INSERT IGNORE INTO code_execution_results (result_hash, question_id, compiled, passed, total, score_fraction, details, created_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                hash, questionId, result.compiled(), result.passed(), result.total(), result.scoreFraction(), details,
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private CodeResult runJob(String source, List<TestCase> suite) {
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory("code-job-");
+            Path classes = Files.createDirectory(directory.resolve("classes"));
+            Path sourceFile = directory.resolve(ENTRY_CLASS + ".java");
+            Files.writeString(sourceFile, source, StandardCharsets.UTF_8);
+
+            String compilerOutput = compile(directory, sourceFile, classes);
+            if (compilerOutput != null) {
+                String output = compilerOutput.replace(directory.toString(), "");
+                return new CodeResult(false, output.length() > MAX_COMPILER_OUTPUT ? output.substring(0, MAX_COMPILER_OUTPUT) : output,
+                        0, suite.size(), 0, List.of(), false);
+            }
+
+            List<CompletableFuture<CaseResult>> futures = new ArrayList<>(suite.size());
+            for (int i = 0; i < suite.size(); i++) {
+                TestCase testCase = suite.get(i);
+                Path caseDirectory = Files.createDirectory(directory.resolve("case-" + i));
+                futures.add(CompletableFuture.supplyAsync(() -> runCase(classes, caseDirectory, testCase), processes));
+            }
+            List<CaseResult> cases = new ArrayList<>(suite.size());
+            int passed = 0;
+            double earned = 0;
+            double total = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                CaseResult result = futures.get(i).join();
+                cases.add(result);
+                total += suite.get(i).weight();
+                if (result.outcome() == CaseOutcome.PASSED) {
+                    passed++;
+                    earned += suite.get(i).weight();
+                }
+            }
+            return new CodeResult(true, null, passed, suite.size(), total > 0 ? earned / total : 0, cases, false);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not prepare code job: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(directory);
+        }
+    }
+
+    // Compiler diagnostics if the source did not compile within the time limit, otherwise null
+    private String compile(Path directory, Path sourceFile, Path classes) throws IOException {
+        File output = directory.resolve("javac-output").toFile();
+        List<String> command = new ArrayList<>(javacCommand);
+        command.addAll(List.of("-d", classes.toString(), sourceFile.toString()));
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectOutput(output)
+                .redirectErrorStream(true);
+        builder.environment().clear();
+
+        Process process = builder.start();
+        try {
+            if (!process.waitFor(compileTimeMs, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly().waitFor();
+                return "Compilation did not finish within " + compileTimeMs + " ms";
+            }
+            if (process.exitValue() == 0) {
+                return null;
+            }
+            byte[] diagnostics = Files.readAllBytes(output.toPath());
+            return new String(diagnostics, 0, Math.min(diagnostics.length, MAX_COMPILER_OUTPUT * 4), StandardCharsets.UTF_8);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while compiling", e);
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private CaseResult runCase(Path classes, Path caseDirectory, TestCase testCase) {
+        testCasesCounter.increment();
+        Process process = null;
+        try {
+            File input = caseDirectory.resolve("input").toFile();
+            File output = caseDirectory.resolve("output").toFile();
+            Files.writeString(input.toPath(), testCase.input() != null ? testCase.input() : "", StandardCharsets.UTF_8);
+
+            List<String> command = new ArrayList<>(javaCommand);
+            command.addAll(List.of("-Djava.io.tmpdir=" + caseDirectory, "-cp", classes.toString(), ENTRY_CLASS));
+            ProcessBuilder builder = new ProcessBuilder(command)
+                    .directory(caseDirectory.toFile())
+                    .redirectInput(input)
+                    .redirectOutput(output)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD);
+            builder.environment().clear();
+
+            long started = System.nanoTime();
+            process = builder.start();
+            long cpuMillis = 0;
+            CaseOutcome limit = null;
+            while (!process.waitFor(POLL_MS, TimeUnit.MILLISECONDS)) {
+                cpuMillis = process.info().totalCpuDuration().map(Duration::toMillis).orElse(cpuMillis);
+                if (cpuMillis > cpuTimeMs || System.nanoTime() - started > TimeUnit.MILLISECONDS.toNanos(wallTimeMs)) {
+                    limit = CaseOutcome.TIME_LIMIT;
+                } else if (output.length() > maxOutputBytes) {
+                    limit = CaseOutcome.OUTPUT_LIMIT;
+                }
+                if (limit != null) {
+                    process.destroyForcibly().waitFor();
+                    break;
+                }
+            }
+            long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            if (limit != null) {
+                return new CaseResult(limit, cpuMillis, wallMillis);
+            }
+            if (output.length() > maxOutputBytes) {
+                return new CaseResult(CaseOutcome.OUTPUT_LIMIT, cpuMillis, wallMillis);
+            }
+            if (process.exitValue() == OUT_OF_MEMORY_EXIT) {
+                return new CaseResult(CaseOutcome.MEMORY_LIMIT, cpuMillis, wallMillis);
+            }
+            if (process.exitValue() != 0) {
+                return new CaseResult(CaseOutcome.RUNTIME_ERROR, cpuMillis, wallMillis);
+            }
+            String actual = Files.readString(output.toPath(), StandardCharsets.UTF_8);
+            boolean correct = normalizeOutput(actual).equals(normalizeOutput(testCase.expectedOutput()));
+            return new CaseResult(correct ? CaseOutcome.PASSED : CaseOutcome.WRONG_ANSWER, cpuMillis, wallMillis);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not run test case: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running test case", e);
+        } finally {
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    // Outputs compare line by line ignoring trailing whitespace and trailing blank lines
+    private static String normalizeOutput(String output) {
+        return normalizeSource(output);
+    }
+
+    private static void deleteQuietly(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.project.api.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.api.config.JwtPrincipal;
+import com.project.api.event.AssessmentStatusChangedEvent;
+import com.project.api.model.AssessmentStatus;
+import com.project.api.model.AssessmentType;
+import com.project.api.model.UserRole;
+
+// What students download when they open an ACTIVE assessment. The snapshot is the assessment,
+// its questions and MCQ option texts serialized once to gzipped JSON, without correct answers,
+// correctness flags or grading keywords. It is built when the assessment goes ACTIVE (or on the
+// first request on a node that did not run the transition, with concurrent requests waiting for
+// one build) and kept in a bounded in-memory cache, so a fetch is a lookup plus a write of the
+// cached bytes. Each snapshot records the assessment's updated_at; a periodic check rebuilds
+// snapshots whose row changed and drops those that are no longer ACTIVE.
+@Service
+public class DeliverySnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliverySnapshotService.class);
+
+    // Questions read per query while building
+    private static final int QUESTION_PAGE_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${assessment.snapshot.max-entries:200}")
+    private int maxEntries;
+
+    // One future per assessment so concurrent first requests share a single build
+    private final Map<Long, CompletableFuture<Snapshot>> snapshots = new ConcurrentHashMap<>();
+
+    public static final class Snapshot {
+        private final long assessmentId;
+        private final AssessmentType type;
+        private final byte[] gzipped;
+        private final String tag;
+        private final LocalDateTime updatedAt;
+        // Students enrolled in an assigned class when the snapshot was built, sorted
+        private final long[] studentIds;
+        // Canonical order: question ids, and for each question its option ids (empty if none)
+        private final long[] questionIds;
+        private final long[][] optionIds;
+        // questionIds sorted, with the canonical index of each, for indexOf
+        private final long[] sortedQuestionIds;
+        private final int[] sortedIndexes;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Snapshot(long assessmentId, AssessmentType type, byte[] gzipped, String tag, LocalDateTime updatedAt,
+                         long[] studentIds, long[] questionIds, long[][] optionIds) {
+            this.assessmentId = assessmentId;
+            this.type = type;
+            this.gzipped = gzipped;
+            this.tag = tag;
+            this.updatedAt = updatedAt;
+            this.studentIds = studentIds;
+            this.questionIds = questionIds;
+            this.optionIds = optionIds;
+            Integer[] order = new Integer[questionIds.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(questionIds[a], questionIds[b]));
+            this.sortedQuestionIds = new long[order.length];
+            this.sortedIndexes = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedQuestionIds[i] = questionIds[order[i]];
+                sortedIndexes[i] = order[i];
+            }
+        }
+
+        public long getAssessmentId() {
+            return assessmentId;
+        }
+
+        public AssessmentType getType() {
+            return type;
+        }
+
+        // Shared arrays; callers must not modify them
+        public long[] getQuestionIds() {
+            return questionIds;
+        }
+
+        public long[] getOptionIds(int questionIndex) {
+            return optionIds[questionIndex];
+        }
+
+        // Canonical index of a question, or -1 if it is not part of the assessment
+        public int indexOf(long questionId) {
+            int found = Arrays.binarySearch(sortedQuestionIds, questionId);
+            return found >= 0 ? sortedIndexes[found] : -1;
+        }
+
+        // The cached bytes themselves; callers must not modify them
+        public byte[] getGzipped() {
+            return gzipped;
+        }
+
+        // Strong ETag of one representation; gzip and identity bodies differ, so their tags do too
+        public String getETag(boolean gzip) {
+            return "\"" + tag + (gzip ? "-gz" : "") + "\"";
+        }
+
+        public byte[] decompress() {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Snapshot of an ACTIVE assessment for a student it is assigned to.
+     * @throws IllegalArgumentException if the assessment is not ACTIVE or not assigned to the student.
+     */
+    public Snapshot getForStudent(Long assessmentId, JwtPrincipal principal) {
+        if (!principal.hasRole(UserRole.STUDENT) || principal.getStudentId() == null) {
+            logger.error("User {} is not a student", principal.getEmail());
+            throw new IllegalArgumentException("Only students can open assessments");
+        }
+        Snapshot snapshot = get(assessmentId);
+        long studentId = principal.getStudentId();
+        // Students who joined a class after the build are not in the array; confirm them in the database
+        if (Arrays.binarySearch(snapshot.studentIds, studentId) < 0 && !isAssigned(assessmentId, studentId)) {
+            logger.error("Assessment {} is not assigned to student {}", assessmentId, principal.getEmail());
+            throw new IllegalArgumentException("This assessment is not assigned to you");
+        }
+        snapshot.lastAccess = System.nanoTime();
+        return snapshot;
+    }
+
+    // Drop a snapshot after the assessment's content changed; the next request rebuilds it
+    public void invalidate(Long assessmentId) {
+        if (snapshots.remove(assessmentId) != null) {
+            logger.info("Invalidated delivery snapshot of assessment {}", assessmentId);
+        }
+    }
+
+    @EventListener
+    public void onStatusChanged(AssessmentStatusChangedEvent event) {
+        for (Long assessmentId : event.getAssessmentIds()) {
+            invalidate(assessmentId);
+            if (event.getTo() == AssessmentStatus.ACTIVE) {
+                try {
+                    get(assessmentId);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not build delivery snapshot of assessment {}: {}", assessmentId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Rebuild snapshots whose assessment row changed, drop those that are gone or no longer ACTIVE
+    @Scheduled(fixedDelayString = "${assessment.snapshot.validate-interval-ms:30000}")
+    public void validateSnapshots() {
+        Map<Long, Snapshot> built = new HashMap<>();
+        for (Map.Entry<Long, CompletableFuture<Snapshot>> entry : snapshots.entrySet()) {
+            CompletableFuture<Snapshot> future = entry.getValue();
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                built.put(entry.getKey(), future.join());
+            }
+        }
+        if (built.isEmpty()) {
+            return;
+        }
+        Map<Long, LocalDateTime> current = new HashMap<>();
+        namedParameterJdbcTemplate.query(
+                "SELECT assessment_id, updated_at FROM assessments WHERE assessment_id IN (:ids) AND status = :status",
+                new MapSqlParameterSource("ids", built.keySet()).addValue("status", AssessmentStatus.ACTIVE.name()),
+                rs -> {
+                    current.put(rs.getLong("assessment_id"), rs.getTimestamp("updated_at").toLocalDateTime());
+                });
+        for (Snapshot snapshot : built.values()) {
+            LocalDateTime updatedAt = current.get(snapshot.assessmentId);
+            if (updatedAt == null || !updatedAt.equals(snapshot.updatedAt)) {
+                snapshots.remove(snapshot.assessmentId);
+                if (updatedAt != null) {
+                    logger.info("Assessment {} changed since its delivery snapshot was built, rebuilding", snapshot.assessmentId);
+                    try {
+                        get(snapshot.assessmentId);
+                    } catch (RuntimeException e) {
+                        logger.warn("Could not rebuild delivery snapshot of assessment {}: {}", snapshot.assessmentId, e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private Snapshot get(Long assessmentId) {
+        CompletableFuture<Snapshot> future = snapshots.get(assessmentId);
+        if (future == null) {
+            CompletableFuture<Snapshot> created = new CompletableFuture<>();
+            future = snapshots.putIfAbsent(assessmentId, created);
+            if (future == null) {
+                future = created;
+                try {
+                    evictIfFull();
+                    created.complete(build(assessmentId));
+                } catch (RuntimeException e) {
+                    // Not cached: an assessment that is not ACTIVE yet may become ACTIVE any moment
+                    snapshots.remove(assessmentId, created);
+                    created.completeExceptionally(e);
+                }
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Make room by dropping the least recently fetched snapshot
+    private void evictIfFull() {
+        while (snapshots.size() > maxEntries) {
+            Long oldest = null;
+            long oldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<Long, CompletableFuture<Snapshot>> entry : snapshots.entrySet()) {
+                CompletableFuture<Snapshot> future = entry.getValue();
+                if (future.isDone() && !future.isCompletedExceptionally() && future.join().lastAccess < oldestAccess) {
+                    oldest = entry.getKey();
+                    oldestAccess = future.join().lastAccess;
+                }
+            }
+            if (oldest == null) {
+                return; // only builds in progress
+            }
+            snapshots.remove(oldest);
+            logger.debug("Evicted delivery snapshot of assessment {}", oldest);
+        }
+    }
+
+    private boolean isAssigned(Long assessmentId, long studentId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM assessment_classes ac JOIN class_students cs ON cs.class_id = ac.class_id "
+                        + "WHERE ac.assessment_id = ? AND cs.student_id = ?",
+                Integer.class, assessmentId, studentId);
+        return count != null && count > 0;
+    }
+
+    private Snapshot build(Long assessmentId) {
+        long started = System.nanoTime();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT title, description, type, duration_minutes, start_time, end_time, status, updated_at "
+                        + "FROM assessments WHERE assessment_id = ?",
+                assessmentId);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Assessment not found");
+        }
+        Map<String, Object> assessment = rows.get(0);
+        if (!AssessmentStatus.ACTIVE.name().equals(assessment.get("status"))) {
+            throw new IllegalArgumentException("This assessment is not open");
+        }
+        long[] studentIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT cs.student_id FROM assessment_classes ac JOIN class_students cs ON cs.class_id = ac.class_id "
+                        + "WHERE ac.assessment_id = ?",
+                Long.class, assessmentId).stream().mapToLong(Long::longValue).sorted().toArray();
+
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        List<Long> questionIds = new ArrayList<>();
+        List<long[]> optionIds = new ArrayList<>();
+        try {
+            // The digest sees the uncompressed JSON, so the tag changes exactly when the content does
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(
+                    new DigestOutputStream(new GZIPOutputStream(buffer), sha));
+            generator.writeStartObject();
+            generator.writeNumberField("assessmentId", assessmentId);
+            generator.writeStringField("title", (String) assessment.get("title"));
+            generator.writeStringField("description", (String) assessment.get("description"));
+            generator.writeStringField("type", (String) assessment.get("type"));
+            generator.writeNumberField("durationMinutes", ((Number) assessment.get("duration_minutes")).intValue());
+            generator.writeStringField("startTime", toLocalDateTime(assessment.get("start_time")).toString());
+            generator.writeStringField("endTime", toLocalDateTime(assessment.get("end_time")).toString());
+            generator.writeArrayFieldStart("questions");
+            writeQuestions(assessmentId, generator, questionIds, optionIds);
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        String tag = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(sha.digest(), 16));
+        Snapshot snapshot = new Snapshot(assessmentId, AssessmentType.valueOf((String) assessment.get("type")),
+                buffer.toByteArray(), tag, toLocalDateTime(assessment.get("updated_at")), studentIds,
+                questionIds.stream().mapToLong(Long::longValue).toArray(), optionIds.toArray(new long[0][]));
+        logger.info("Built delivery snapshot of assessment {}: {} questions, {} bytes gzipped, {} students, {} ms",
+                assessmentId, questionIds.size(), snapshot.gzipped.length, studentIds.length, (System.nanoTime() - started) / 1_000_000);
+        return snapshot;
+    }
+
+    // Keyset pages of the linked questions in (sort_order, question_id) order; option texts
+    // (never is_correct) are loaded per page. The canonical question and option ids are collected on the way.
+    private void writeQuestions(Long assessmentId, JsonGenerator generator, List<Long> questionIds,
+                                List<long[]> optionIds) throws IOException {
+        int afterSortOrder = -1;
+        long afterId = 0;
+        while (true) {
+            Map<Long, Map<String, Object>> page = new LinkedHashMap<>();
+            for (Map<String, Object> row : jdbcTemplate.queryForList(
+                    "SELECT q.question_id, q.text, q.type, q.max_score, q.instructions, l.sort_order "
+                            + "FROM assessment_questions l JOIN questions q ON q.question_id = l.question_id "
+                            + "WHERE l.assessment_id = ? AND (l.sort_order > ? OR (l.sort_order = ? AND l.question_id > ?)) "
+                            + "ORDER BY l.sort_order, l.question_id LIMIT ?",
+                    assessmentId, afterSortOrder, afterSortOrder, afterId, QUESTION_PAGE_SIZE)) {
+                page.put(((Number) row.get("question_id")).longValue(), row);
+            }
+            if (page.isEmpty()) {
+                return;
+            }
+            Map<Long, List<Map<String, Object>>> options = new HashMap<>();
+            namedParameterJdbcTemplate.query(
+                    "SELECT option_id, question_id, option_text FROM question_options "
+                            + "WHERE question_id IN (:ids) ORDER BY question_id, option_id",
+                    new MapSqlParameterSource("ids", page.keySet()),
+                    rs -> {
+                        options.computeIfAbsent(rs.getLong("question_id"), id -> new ArrayList<>())
+                                .add(Map.of("optionId", rs.getLong("option_id"), "text", rs.getString("option_text")));
+                    });
+
+            for (Map.Entry<Long, Map<String, Object>> entry : page.entrySet()) {
+                Map<String, Object> question = entry.getValue();
+                generator.writeStartObject();
+                generator.writeNumberField("questionId", entry.getKey());
+                generator.writeStringField("text", (String) question.get("text"));
+                generator.writeStringField("type", (String) question.get("type"));
+                if (question.get("max_score") != null) {
+                    generator.writeNumberField("maxScore", ((Number) question.get("max_score")).doubleValue());
+                }
+                if (question.get("instructions") != null) {
+                    generator.writeStringField("instructions", (String) question.get("instructions"));
+                }
+                List<Map<String, Object>> questionOptions = options.getOrDefault(entry.getKey(), List.of());
+                long[] ids = new long[questionOptions.size()];
+                if (!questionOptions.isEmpty()) {
+                    generator.writeArrayFieldStart("options");
+                    for (int i = 0; i < ids.length; i++) {
+                        Map<String, Object> option = questionOptions.get(i);
+                        ids[i] = (Long) option.get("optionId");
+                        generator.writeStartObject();
+                        generator.writeNumberField("optionId", (Long) option.get("optionId"));
+                        generator.writeStringField("text", (String) option.get("text"));
+                        generator.writeEndObject();
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
+                questionIds.add(entry.getKey());
+                optionIds.add(ids);
+                afterSortOrder = ((Number) question.get("sort_order")).intValue();
+                afterId = entry.getKey();
+            }
+            if (page.size() < QUESTION_PAGE_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime;
+        }
+        return ((Timestamp) value).toLocalDateTime();
+    }
+}
@@ -0,0 +1,673 @@
+package com.project.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.ReviewItem;
+import com.project.api.dto.ReviewQueuePage;
+import com.project.api.exception.CodeExecutionQueueFullException;
+import com.project.api.model.QuestionType;
+import com.project.api.model.UserRole;
+import com.project.api.service.LeaseService.Lease;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Grading jobs: one row in grading_jobs per SubmissionAnswer, written in the same transaction as
+// the answers. AUTO jobs (answers the assessment's answer key can score) are claimed in batches by
+// a dispatcher thread on every node and scored on a work-stealing fork-join pool; REVIEW jobs wait
+// in the assessment owner's review queue. Assessments are served least-slack first: the grading
+// deadline (end time plus grading.jobs.target-minutes) minus the time the backlog is expected to
+// take at the measured rate. Each submission's answers are scored in one transaction that holds
+// the submission row, writes the scores, recomputes the total and flips the submission to GRADED
+// when no answer is left PENDING, so the flip happens with the last score and only once. Jobs are
+// the only state: claims expire and are requeued, so a restart resumes where it stopped.
+@Service
+public class GradingJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradingJobService.class);
+
+    private static final String BACKFILL_JOB_NAME = "grading-jobs-backfill";
+
+    // Submission ids per enqueue statement
+    private static final int ENQUEUE_BATCH_SIZE = 1000;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final int MAX_COMMENTS_LENGTH = 1000;
+
+    // Weight of the latest cycle in the per-job time estimate
+    private static final double RATE_SMOOTHING = 0.2;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AutoGradingService autoGradingService;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private KeywordScoringService keywordScoringService;
+
+    @Autowired
+    private LeaseService leaseService;
+
+    @Autowired
+    private ScoreStatisticsService scoreStatisticsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${grading.jobs.parallelism:0}")
+    private int parallelism;
+
+    // Jobs claimed per dispatch cycle
+    @Value("${grading.jobs.batch-size:500}")
+    private int batchSize;
+
+    @Value("${grading.jobs.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    // A claim not finished within this time is requeued
+    @Value("${grading.jobs.claim-timeout-ms:600000}")
+    private long claimTimeoutMs;
+
+    // Failed AUTO jobs are retried this many times, then left to the reviewer
+    @Value("${grading.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    // A CODING job turned away by a full execution queue is not claimed again for this long
+    @Value("${grading.jobs.capacity-backoff-ms:5000}")
+    private long capacityBackoffMs;
+
+    // Grading deadline of an assessment, counted from its end time
+    @Value("${grading.jobs.target-minutes:1440}")
+    private int targetMinutes;
+
+    private ForkJoinPool pool;
+
+    private Thread dispatcher;
+
+    private volatile boolean running;
+
+    // Smoothed wall time per job and pool thread, the rate used to estimate a backlog's duration
+    private volatile double nanosPerJob = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private Counter scoredCounter;
+    private Counter reviewedCounter;
+    private Counter routedCounter;
+    private Counter gradedSubmissionsCounter;
+    private Timer cycleTimer;
+
+    // A job's outcome: a score to write, or done without one (already graded elsewhere). The score
+    // only applies while the answer still references questionId (see RegradeService)
+    private record Outcome(long jobId, long answerId, long questionId, double score, String comments, Long gradedBy,
+                           boolean autoGraded) {
+    }
+
+    private static final class ClaimedJob {
+        final long jobId;
+        final long answerId;
+        final long assessmentId;
+        final long questionId;
+        final String answerText;
+        final boolean pending;
+
+        ClaimedJob(long jobId, long answerId, long assessmentId, long questionId, String answerText, boolean pending) {
+            this.jobId = jobId;
+            this.answerId = answerId;
+            this.assessmentId = assessmentId;
+            this.questionId = questionId;
+            this.answerText = answerText;
+            this.pending = pending;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        scoredCounter = Counter.builder("grading.jobs.scored")
+                .description("Answers scored by AUTO grading jobs")
+                .register(meterRegistry);
+        reviewedCounter = Counter.builder("grading.jobs.reviewed")
+                .description("Answers scored from educators' review queues")
+                .register(meterRegistry);
+        routedCounter = Counter.builder("grading.jobs.routed")
+                .description("AUTO jobs moved to a review queue because the key could not score them")
+                .register(meterRegistry);
+        gradedSubmissionsCounter = Counter.builder("grading.jobs.submissions.graded")
+                .description("Submissions flipped to GRADED by their last score")
+                .register(meterRegistry);
+        cycleTimer = Timer.builder("grading.jobs.cycle")
+                .description("Time to claim, score and write one batch of jobs")
+                .register(meterRegistry);
+
+        running = true;
+        dispatcher = new Thread(this::runDispatcher, "grading-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        logger.info("Grading job dispatcher started with parallelism {}, batch size {}", pool.getParallelism(), batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+        pool.shutdown();
+    }
+
+    /**
+     * Create the grading jobs of new submissions. Must run in the transaction that inserted their
+     * answers. MANUAL assessments get REVIEW jobs only; otherwise MCQ, TRUE_FALSE and CODING
+     * answers are AUTO, and SHORT_ANSWER and ESSAY answers are AUTO only in AUTO assessments.
+     * Answers that already have a job are skipped.
+     * @return Number of jobs created.
+     */
+    public int enqueue(Collection<Long> submissionIds) {
+        List<Long> ids = new ArrayList<>(submissionIds);
+        int created = 0;
+        for (int i = 0; i < ids.size(); i += ENQUEUE_BATCH_SIZE) {
+            created += namedParameterJdbcTemplate.update(
+                    "INSERT IGNORE INTO grading_jobs (submission_answer_id, submission_id, assessment_id, question_id, kind, status, "
+                            + "reviewer_id, deadline, attempts, created_at, updated_at) "
+                            + "SELECT sa.submission_answer_id, sa.submission_id, s.assessment_id, sa.question_id, "
+                            + "CASE WHEN a.grading_mode = 'MANUAL' THEN 'REVIEW' "
+                            + "WHEN q.type IN ('MCQ', 'TRUE_FALSE', 'CODING') THEN 'AUTO' "
+                            + "WHEN a.grading_mode = 'AUTO' AND q.type IN ('SHORT_ANSWER', 'ESSAY') THEN 'AUTO' "
+                            + "ELSE 'REVIEW' END, "
+                            + "'QUEUED', a.created_by, DATE_ADD(a.end_time, INTERVAL :targetMinutes MINUTE), 0, :now, :now "
+                            + "FROM submission_answers sa "
+                            + "JOIN submissions s ON s.submission_id = sa.submission_id "
+                            + "JOIN assessments a ON a.assessment_id = s.assessment_id "
+                            + "JOIN questions q ON q.question_id = sa.question_id "
+                            + "WHERE sa.submission_id IN (:ids) AND sa.status = 'PENDING'",
+                    new MapSqlParameterSource("ids", ids.subList(i, Math.min(ids.size(), i + ENQUEUE_BATCH_SIZE)))
+                            .addValue("targetMinutes", targetMinutes)
+                            .addValue("now", LocalDateTime.now()));
+        }
+        return created;
+    }
+
+    // Submissions written before grading jobs existed (or by an older node) get their jobs; runs
+    // once per startup on the node holding the backfill lease
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Lease lease = leaseService.tryAcquire(BACKFILL_JOB_NAME);
+        if (lease == null) {
+            return;
+        }
+        try {
+            int created = 0;
+            long afterId = 0;
+            while (true) {
+                List<Long> submissionIds = jdbcTemplate.queryForList(
+                        "SELECT submission_id FROM submissions WHERE status <> 'GRADED' AND submission_id > ? "
+                                + "ORDER BY submission_id LIMIT ?",
+                        Long.class, afterId, ENQUEUE_BATCH_SIZE);
+                if (submissionIds.isEmpty()) {
+                    break;
+                }
+                created += transactionTemplate.execute(status -> enqueue(submissionIds));
+                afterId = submissionIds.get(submissionIds.size() - 1);
+            }
+            if (created > 0) {
+                logger.info("Grading job backfill created {} jobs", created);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Grading job backfill failed: {}", e.getMessage(), e);
+        } finally {
+            leaseService.release(lease);
+        }
+    }
+
+    // Claims of a node that died (or hung) are given back to the queue; after maxAttempts an AUTO
+    // job goes to review instead of being retried forever
+    @Scheduled(fixedDelayString = "${grading.jobs.requeue-interval-ms:30000}")
+    public void requeueExpired() {
+        int requeued = jdbcTemplate.update(
+                "UPDATE grading_jobs SET status = 'QUEUED', "
+                        + "kind = CASE WHEN attempts >= ? THEN 'REVIEW' ELSE kind END, "
+                        + "claim_token = NULL, locked_until = NULL, updated_at = ? "
+                        + "WHERE status = 'RUNNING' AND locked_until < ?",
+                maxAttempts, Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(LocalDateTime.now()));
+        if (requeued > 0) {
+            logger.warn("Requeued {} grading jobs with expired claims", requeued);
+        }
+    }
+
+    private void runDispatcher() {
+        while (running) {
+            try {
+                if (dispatch() < batchSize) {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Grading dispatch failed: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // One cycle: claim up to batchSize AUTO jobs, least-slack assessments first, and grade them
+    private int dispatch() {
+        long started = System.nanoTime();
+        String token = UUID.randomUUID().toString();
+        int claimed = claim(token);
+        if (claimed == 0) {
+            return 0;
+        }
+        Map<Long, List<ClaimedJob>> bySubmission = loadClaimed(token);
+        Map<Long, AnswerKey> keys = new HashMap<>();
+        for (List<ClaimedJob> jobs : bySubmission.values()) {
+            for (ClaimedJob job : jobs) {
+                keys.computeIfAbsent(job.assessmentId, autoGradingService::compile);
+            }
+        }
+        List<Map.Entry<Long, List<ClaimedJob>>> submissions = new ArrayList<>(bySubmission.entrySet());
+        pool.invoke(new SubmissionTask(keys, submissions, 0, submissions.size()));
+
+        long elapsed = System.nanoTime() - started;
+        cycleTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        double latest = (double) elapsed * pool.getParallelism() / claimed;
+        nanosPerJob = nanosPerJob + RATE_SMOOTHING * (latest - nanosPerJob);
+        return claimed;
+    }
+
+    // Slack of an assessment = deadline - now - backlog * time per job / threads; the budget goes
+    // to the smallest slack first, so a large backlog due soon outranks a small one due at the same time
+    private int claim(String token) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Map<String, Object>> backlogs = jdbcTemplate.queryForList(
+                "SELECT assessment_id, MIN(deadline) AS deadline, COUNT(*) AS backlog FROM grading_jobs "
+                        + "WHERE status = 'QUEUED' AND kind = 'AUTO' AND (locked_until IS NULL OR locked_until <= ?) "
+                        + "GROUP BY assessment_id",
+                Timestamp.valueOf(now));
+        if (backlogs.isEmpty()) {
+            return 0;
+        }
+        long nowMillis = Timestamp.valueOf(now).getTime();
+        double millisPerJob = nanosPerJob / 1_000_000.0 / pool.getParallelism();
+        backlogs.sort((a, b) -> Double.compare(slack(a, nowMillis, millisPerJob), slack(b, nowMillis, millisPerJob)));
+
+        Timestamp lockedUntil = Timestamp.valueOf(now.plusNanos(TimeUnit.MILLISECONDS.toNanos(claimTimeoutMs)));
+        int claimed = 0;
+        for (Map<String, Object> backlog : backlogs) {
+            if (claimed >= batchSize) {
+                break;
+            }
+            int limit = (int) Math.min(batchSize - claimed, ((Number) backlog.get("backlog")).longValue());
+            // Whole submissions where possible, so one transaction covers all of a submission's answers
+            claimed += jdbcTemplate.update(
+                    "UPDATE grading_jobs SET status = 'RUNNING', claim_token = ?, locked_until = ?, "
+                            + "attempts = attempts + 1, updated_at = ? "
+                            + "WHERE assessment_id = ? AND status = 'QUEUED' AND kind = 'AUTO' "
+                            + "AND (locked_until IS NULL OR locked_until <= ?) "
+                            + "ORDER BY submission_id, job_id LIMIT ?",
+                    token, lockedUntil, Timestamp.valueOf(now), backlog.get("assessment_id"), Timestamp.valueOf(now), limit);
+        }
+        return claimed;
+    }
+
+    private static double slack(Map<String, Object> backlog, long nowMillis, double millisPerJob) {
+        Object value = backlog.get("deadline");
+        long deadline = value instanceof LocalDateTime localDateTime
+                ? Timestamp.valueOf(localDateTime).getTime() : ((Timestamp) value).getTime();
+        return deadline - nowMillis - ((Number) backlog.get("backlog")).longValue() * millisPerJob;
+    }
+
+    private Map<Long, List<ClaimedJob>> loadClaimed(String token) {
+        Map<Long, List<ClaimedJob>> bySubmission = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT j.job_id, j.submission_answer_id, j.submission_id, j.assessment_id, j.question_id, "
+                        + "sa.answer_text, sa.status FROM grading_jobs j "
+                        + "JOIN submission_answers sa ON sa.submission_answer_id = j.submission_answer_id "
+                        + "WHERE j.claim_token = ? ORDER BY j.submission_id, j.job_id",
+                rs -> {
+                    bySubmission.computeIfAbsent(rs.getLong(3), id -> new ArrayList<>()).add(new ClaimedJob(
+                            rs.getLong(1), rs.getLong(2), rs.getLong(4), rs.getLong(5), rs.getString(6),
+                            "PENDING".equals(rs.getString(7))));
+                },
+                token);
+        return bySubmission;
+    }
+
+    // Scores one submission's claimed jobs and writes them; CODING answers of the submission run
+    // concurrently on the execution pool. A job whose question the key no longer scores goes to
+    // review; a failure gives the jobs back to the queue for another attempt. A CODING job the full
+    // execution queue turned away is given back without spending an attempt, after a back-off.
+    private void gradeSubmission(long submissionId, List<ClaimedJob> jobs, Map<Long, AnswerKey> keys) {
+        List<Outcome> outcomes = new ArrayList<>(jobs.size());
+        List<Long> toReview = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        List<Long> deferred = new ArrayList<>();
+        Map<ClaimedJob, CompletableFuture<CodeExecutionService.CodeResult>> runs = new LinkedHashMap<>();
+        for (ClaimedJob job : jobs) {
+            AnswerKey key = keys.get(job.assessmentId);
+            int index = key.indexOf(job.questionId);
+            if (!job.pending) {
+                outcomes.add(new Outcome(job.jobId, job.answerId, job.questionId, Double.NaN, null, null, true));
+            } else if (index < 0 || key.kindAt(index) == AnswerKey.MANUAL) {
+                toReview.add(job.jobId);
+            } else if (key.kindAt(index) == AnswerKey.CODE) {
+                try {
+                    runs.put(job, codeExecutionService.submit(job.questionId, job.answerText));
+                } catch (CodeExecutionQueueFullException e) {
+                    deferred.add(job.jobId);
+                } catch (RuntimeException e) {
+                    logger.warn("Code answer {} was not submitted: {}", job.answerId, e.getMessage());
+                    failed.add(job.jobId);
+                }
+            } else {
+                outcomes.add(new Outcome(job.jobId, job.answerId, job.questionId, key.score(index, job.answerText),
+                        null, null, true));
+            }
+        }
+        runs.forEach((job, run) -> {
+            AnswerKey key = keys.get(job.assessmentId);
+            try {
+                double fraction = CodeExecutionService.await(run).scoreFraction();
+                outcomes.add(new Outcome(job.jobId, job.answerId, job.questionId,
+                        fraction * key.maxScoreAt(key.indexOf(job.questionId)), null, null, true));
+            } catch (CompletionException e) {
+                logger.warn("Code answer {} was not graded: {}", job.answerId, e.getCause().getMessage());
+                failed.add(job.jobId);
+            }
+        });
+
+        try {
+            if (!outcomes.isEmpty()) {
+                ScoreStatisticsService.Batch statistics = new ScoreStatisticsService.Batch();
+                long assessmentId = jobs.get(0).assessmentId;
+                int scored = transactionTemplate.execute(status -> complete(assessmentId, submissionId, outcomes, statistics));
+                scoreStatisticsService.record(statistics);
+                scoredCounter.increment(scored);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Grading of submission {} failed, jobs requeued: {}", submissionId, e.getMessage());
+            outcomes.forEach(outcome -> failed.add(outcome.jobId()));
+        }
+        if (!toReview.isEmpty()) {
+            routedCounter.increment(jdbcTemplate.update(
+                    "UPDATE grading_jobs SET kind = 'REVIEW', status = 'QUEUED', claim_token = NULL, locked_until = NULL, "
+                            + "updated_at = ? WHERE job_id IN (" + placeholders(toReview.size()) + ")",
+                    withNow(toReview)));
+        }
+        if (!failed.isEmpty()) {
+            jdbcTemplate.update(
+                    "UPDATE grading_jobs SET status = 'QUEUED', kind = CASE WHEN attempts >= " + maxAttempts
+                            + " THEN 'REVIEW' ELSE kind END, claim_token = NULL, locked_until = NULL, updated_at = ? "
+                            + "WHERE job_id IN (" + placeholders(failed.size()) + ")",
+                    withNow(failed));
+        }
+        if (!deferred.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            List<Object> args = new ArrayList<>(deferred.size() + 2);
+            args.add(Timestamp.valueOf(now.plusNanos(TimeUnit.MILLISECONDS.toNanos(capacityBackoffMs))));
+            args.add(Timestamp.valueOf(now));
+            args.addAll(deferred);
+            jdbcTemplate.update(
+                    "UPDATE grading_jobs SET status = 'QUEUED', attempts = attempts - 1, claim_token = NULL, locked_until = ?, "
+                            + "updated_at = ? WHERE job_id IN (" + placeholders(deferred.size()) + ")",
+                    args.toArray());
+        }
+    }
+
+    // Writes the outcomes of one submission while holding its row: each answer moves
+    // PENDING -> GRADED with a guarded UPDATE and gets its AnswerScore only if that hit; then the
+    // total is recomputed and the submission is GRADED if nothing is left PENDING. Must run in a
+    // transaction. Returns the number of answers scored; their scores, and the total if the
+    // submission turned GRADED, are added to statistics.
+    private int complete(long assessmentId, long submissionId, List<Outcome> outcomes, ScoreStatisticsService.Batch statistics) {
+        scoreStatisticsService.lockEpoch(statistics, assessmentId);
+        String before = jdbcTemplate.queryForObject(
+                "SELECT status FROM submissions WHERE submission_id = ? FOR UPDATE", String.class, submissionId);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Outcome> scored = new ArrayList<>(outcomes.size());
+        List<Object[]> claims = new ArrayList<>(outcomes.size());
+        for (Outcome outcome : outcomes) {
+            if (!Double.isNaN(outcome.score())) {
+                scored.add(outcome);
+                claims.add(new Object[] {outcome.autoGraded(), now, outcome.answerId(), outcome.questionId()});
+            }
+        }
+        int[] counts = jdbcTemplate.batchUpdate(
+                "UPDATE submission_answers SET status = 'GRADED', is_auto_graded = ?, updated_at = ? "
+                        + "WHERE submission_answer_id = ? AND status = 'PENDING' AND question_id = ?",
+                claims);
+        List<Object[]> scores = new ArrayList<>(scored.size());
+        for (int c = 0; c < counts.length; c++) {
+            // Graded by another path in the meantime, or its answer key was corrected
+            if (counts[c] == 0) {
+                continue;
+            }
+            Outcome outcome = scored.get(c);
+            scores.add(new Object[] {outcome.answerId(), outcome.score(), outcome.comments(), outcome.gradedBy(), now, now});
+            statistics.answer(assessmentId, outcome.questionId(), outcome.score());
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO answer_scores (submission_answer_id, score, comments, graded_by, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)",
+                scores);
+        jdbcTemplate.update(
+                "UPDATE submissions s SET "
+                        + "s.total_score = (SELECT COALESCE(SUM(sc.score), 0) FROM submission_answers sa "
+                        + "JOIN answer_scores sc ON sc.submission_answer_id = sa.submission_answer_id WHERE sa.submission_id = s.submission_id), "
+                        + "s.status = CASE WHEN EXISTS (SELECT 1 FROM submission_answers p WHERE p.submission_id = s.submission_id AND p.status = 'PENDING') "
+                        + "THEN s.status ELSE 'GRADED' END, "
+                        + "s.updated_at = ? WHERE s.submission_id = ?",
+                now, submissionId);
+        Map<String, Object> after = jdbcTemplate.queryForMap(
+                "SELECT status, total_score FROM submissions WHERE submission_id = ?", submissionId);
+        if (!"GRADED".equals(before) && "GRADED".equals(after.get("status"))) {
+            gradedSubmissionsCounter.increment();
+            statistics.total(assessmentId, ((Number) after.get("total_score")).doubleValue());
+        }
+        // A job whose answer is still PENDING (its key was corrected meanwhile) goes back to the queue
+        List<Long> jobIds = outcomes.stream().map(Outcome::jobId).toList();
+        jdbcTemplate.update(
+                "UPDATE grading_jobs j JOIN submission_answers sa ON sa.submission_answer_id = j.submission_answer_id "
+                        + "SET j.status = CASE WHEN sa.status = 'PENDING' THEN 'QUEUED' ELSE 'DONE' END, "
+                        + "j.claim_token = NULL, j.locked_until = NULL, j.updated_at = ? "
+                        + "WHERE j.job_id IN (" + placeholders(jobIds.size()) + ")",
+                withNow(jobIds));
+        return scores.size();
+    }
+
+    /**
+     * One page of the educator's review queue, earliest grading deadline first.
+     * @param cursor nextCursor of the previous page, or null for the first page.
+     * @param limit Page size, capped at MAX_PAGE_SIZE.
+     * @return The page and the cursor of the next one.
+     */
+    public ReviewQueuePage getReviewQueue(JwtPrincipal principal, String cursor, Integer limit) {
+        requireEducator(principal);
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        LocalDateTime afterDeadline = LocalDateTime.of(1970, 1, 1, 0, 0);
+        long afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                afterDeadline = LocalDateTime.parse(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        // One extra row tells whether there is a next page without a COUNT query
+        List<ReviewItem> items = namedParameterJdbcTemplate.query(
+                "SELECT j.job_id, j.submission_id, j.submission_answer_id, j.assessment_id, a.title, j.question_id, "
+                        + "q.text, q.type, q.max_score, sa.answer_text, j.deadline FROM grading_jobs j "
+                        + "JOIN submission_answers sa ON sa.submission_answer_id = j.submission_answer_id "
+                        + "JOIN questions q ON q.question_id = j.question_id "
+                        + "JOIN assessments a ON a.assessment_id = j.assessment_id "
+                        + "WHERE j.reviewer_id = :reviewerId AND j.kind = 'REVIEW' AND j.status = 'QUEUED' "
+                        + "AND (j.deadline > :afterDeadline OR (j.deadline = :afterDeadline AND j.job_id > :afterId)) "
+                        + "ORDER BY j.deadline, j.job_id LIMIT :limit",
+                new MapSqlParameterSource("reviewerId", principal.getUserId())
+                        .addValue("afterDeadline", afterDeadline).addValue("afterId", afterId)
+                        .addValue("limit", pageSize + 1),
+                (rs, rowNum) -> new ReviewItem(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4),
+                        rs.getString(5), rs.getLong(6), rs.getString(7), QuestionType.valueOf(rs.getString(8)),
+                        rs.getObject(9) != null ? rs.getDouble(9) : 1.0, rs.getString(10), null,
+                        rs.getTimestamp(11).toLocalDateTime()));
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+            ReviewItem last = items.get(pageSize - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getDeadline() + "|" + last.getJobId()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Long> keywordQuestions = items.stream()
+                .filter(item -> item.getQuestionType() == QuestionType.SHORT_ANSWER || item.getQuestionType() == QuestionType.ESSAY)
+                .map(ReviewItem::getQuestionId).distinct().toList();
+        Map<Long, KeywordMatcher> matchers = keywordScoringService.getMatchers(keywordQuestions);
+        for (ReviewItem item : items) {
+            KeywordMatcher matcher = matchers.get(item.getQuestionId());
+            if (matcher != null && matcher.size() > 0) {
+                item.setSuggestedScore(Math.min(item.getMaxScore(), matcher.score(item.getAnswerText())));
+            }
+        }
+        return new ReviewQueuePage(items, nextCursor);
+    }
+
+    /**
+     * Score an answer from the educator's review queue. Completes the submission like an AUTO job
+     * does, so the submission is GRADED once this was its last pending answer.
+     * @throws IllegalArgumentException if the job is not in the educator's queue or the score is out of range.
+     * @throws IllegalStateException if the answer has already been graded.
+     */
+    public void submitReview(Long jobId, Double score, String comments, JwtPrincipal principal) {
+        requireEducator(principal);
+        if (jobId == null) {
+            throw new IllegalArgumentException("Job id is required");
+        }
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT j.submission_id, j.assessment_id, j.submission_answer_id, j.question_id, j.reviewer_id, j.kind, j.status, q.max_score "
+                        + "FROM grading_jobs j JOIN questions q ON q.question_id = j.question_id WHERE j.job_id = ?",
+                jobId);
+        if (rows.isEmpty() || !principal.getUserId().equals(((Number) rows.get(0).get("reviewer_id")).longValue())
+                || !"REVIEW".equals(rows.get(0).get("kind"))) {
+            throw new IllegalArgumentException("Review job not found");
+        }
+        Map<String, Object> job = rows.get(0);
+        if ("DONE".equals(job.get("status"))) {
+            throw new IllegalStateException("Answer has already been graded");
+        }
+        double maxScore = job.get("max_score") != null ? ((Number) job.get("max_score")).doubleValue() : 1.0;
+        if (score == null || score.isNaN() || score < 0 || score > maxScore) {
+            throw new IllegalArgumentException("Score must be between 0 and " + maxScore);
+        }
+        if (comments != null && comments.length() > MAX_COMMENTS_LENGTH) {
+            throw new IllegalArgumentException("Comments must be at most " + MAX_COMMENTS_LENGTH + " characters");
+        }
+
+        long submissionId = ((Number) job.get("submission_id")).longValue();
+        long assessmentId = ((Number) job.get("assessment_id")).longValue();
+        Outcome outcome = new Outcome(jobId, ((Number) job.get("submission_answer_id")).longValue(),
+                ((Number) job.get("question_id")).longValue(), score, comments, principal.getUserId(), false);
+        ScoreStatisticsService.Batch statistics = new ScoreStatisticsService.Batch();
+        int scored = transactionTemplate.execute(status -> complete(assessmentId, submissionId, List.of(outcome), statistics));
+        if (scored == 0) {
+            throw new IllegalStateException("Answer has already been graded");
+        }
+        scoreStatisticsService.record(statistics);
+        reviewedCounter.increment();
+    }
+
+    private static void requireEducator(JwtPrincipal principal) {
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            throw new IllegalArgumentException("Only educators can review answers");
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Object[] withNow(List<Long> ids) {
+        Object[] args = new Object[ids.size() + 1];
+        args[0] = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < ids.size(); i++) {
+            args[i + 1] = ids.get(i);
+        }
+        return args;
+    }
+
+    // Splits the claimed submissions until one is left and grades it; idle threads steal halves
+    private final class SubmissionTask extends RecursiveAction {
+        private final Map<Long, AnswerKey> keys;
+        private final List<Map.Entry<Long, List<ClaimedJob>>> submissions;
+        private final int from;
+        private final int to;
+
+        SubmissionTask(Map<Long, AnswerKey> keys, List<Map.Entry<Long, List<ClaimedJob>>> submissions, int from, int to) {
+            this.keys = keys;
+            this.submissions = submissions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                Map.Entry<Long, List<ClaimedJob>> submission = submissions.get(from);
+                gradeSubmission(submission.getKey(), submission.getValue(), keys);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SubmissionTask(keys, submissions, from, middle), new SubmissionTask(keys, submissions, middle, to));
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.project.api.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+// The weighted keywords of one question compiled into a single Aho-Corasick automaton, so an
+// answer is scored in one pass over its characters however many keywords there are. Text is
+// normalized on the fly: letters and digits are lower-cased, every other run of characters is
+// one space, and the text is framed by spaces. Keywords are normalized the same way and matched
+// as whole words ("cell" does not match "cellular"); a keyword counts once however often it occurs.
+// The automaton is a dense transition table over the keywords' own characters, which keeps
+// matching to one array read per character.
+//
+// A keyword with a tolerance of 1 or 2 also matches misspellings within that many edits
+// (Levenshtein distance over the whole keyword, spaces between words excluded). Those keywords
+// are not in the automaton; when the matcher has any, the same pass also splits the text into
+// words, and each word is checked only against tolerant keywords whose first word has a length
+// within tolerance of it and passes a character-set filter, before an edit distance computed
+// only within the diagonal band of the tolerance confirms the match. Short keywords get less tolerance than requested: none up to 2 letters,
+// at most 1 up to 5. Immutable and safe to share between threads.
+public final class KeywordMatcher {
+
+    private static final int ASCII = 128;
+
+    public static final int MAX_TOLERANCE = 2;
+
+    // Column 0 of the transition table: any character that does not occur in a keyword
+    private static final int OTHER = 0;
+
+    private final String[] keywords;
+    private final double[] weights;
+
+    // ASCII character -> column; other characters are looked up in sortedChars
+    private final int[] asciiColumns;
+    private final char[] sortedChars;
+    private final int[] charColumns;
+    private final int columns;
+
+    // transitions[state * columns + column] -> next state; state 0 is the root
+    private final int[] transitions;
+
+    // Keywords ending in each state, suffixes included: outputs[outputStart[s] .. outputStart[s + 1])
+    private final int[] outputStart;
+    private final int[] outputs;
+
+    // Keywords with a tolerance; null if there are none
+    private final FuzzyIndex fuzzy;
+
+    private KeywordMatcher(String[] keywords, double[] weights, int[] asciiColumns, char[] sortedChars, int[] charColumns,
+                           int columns, int[] transitions, int[] outputStart, int[] outputs, FuzzyIndex fuzzy) {
+        this.keywords = keywords;
+        this.weights = weights;
+        this.asciiColumns = asciiColumns;
+        this.sortedChars = sortedChars;
+        this.charColumns = charColumns;
+        this.columns = columns;
+        this.transitions = transitions;
+        this.outputStart = outputStart;
+        this.outputs = outputs;
+        this.fuzzy = fuzzy;
+    }
+
+    // Exact matching only
+    public static KeywordMatcher compile(List<String> keywords, List<Double> weights) {
+        return compile(keywords, weights, null);
+    }
+
+    /**
+     * Build the matcher for a question's keywords. A keyword without letters or digits never matches.
+     * @param tolerances Edits allowed per keyword (0 to MAX_TOLERANCE, null = 0), or null for all 0.
+     */
+    public static KeywordMatcher compile(List<String> keywords, List<Double> weights, List<Integer> tolerances) {
+        String[] patterns = new String[keywords.size()];
+        TreeSet<Character> alphabet = new TreeSet<>();
+        List<Integer> fuzzyIds = new ArrayList<>();
+        List<String> fuzzyKeywords = new ArrayList<>();
+        List<Integer> fuzzyBudgets = new ArrayList<>();
+        for (int k = 0; k < patterns.length; k++) {
+            String normalized = normalize(keywords.get(k));
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            Integer tolerance = tolerances != null ? tolerances.get(k) : null;
+            int budget = effectiveTolerance(tolerance != null ? tolerance : 0, normalized.replace(" ", "").length());
+            if (budget > 0) {
+                fuzzyIds.add(k);
+                fuzzyKeywords.add(normalized);
+                fuzzyBudgets.add(budget);
+                continue;
+            }
+            patterns[k] = ' ' + normalized + ' ';
+            for (int i = 0; i < patterns[k].length(); i++) {
+                alphabet.add(patterns[k].charAt(i));
+            }
+        }
+
+        int[] asciiColumns = new int[ASCII];
+        List<Character> wide = new ArrayList<>();
+        int columns = 1;
+        for (char c : alphabet) {
+            if (c < ASCII) {
+                asciiColumns[c] = columns++;
+            } else {
+                wide.add(c);
+            }
+        }
+        char[] sortedChars = new char[wide.size()];
+        int[] charColumns = new int[wide.size()];
+        for (int i = 0; i < sortedChars.length; i++) {
+            sortedChars[i] = wide.get(i);
+            charColumns[i] = columns++;
+        }
+
+        // Trie with one row per state; -1 = no edge yet
+        List<int[]> rows = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        rows.add(newRow(columns));
+        ends.add(new ArrayList<>());
+        for (int k = 0; k < patterns.length; k++) {
+            if (patterns[k] == null) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < patterns[k].length(); i++) {
+                int column = column(patterns[k].charAt(i), asciiColumns, sortedChars, charColumns);
+                if (rows.get(state)[column] < 0) {
+                    rows.get(state)[column] = rows.size();
+                    rows.add(newRow(columns));
+                    ends.add(new ArrayList<>());
+                }
+                state = rows.get(state)[column];
+            }
+            ends.get(state).add(k);
+        }
+
+        // Breadth-first: complete every missing edge with the failure state's edge, so matching
+        // never follows failure links, and inherit the failure state's outputs
+        int states = rows.size();
+        int[] transitions = new int[states * columns];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int column = 0; column < columns; column++) {
+            int next = rows.get(0)[column];
+            transitions[column] = next < 0 ? 0 : next;
+            if (next > 0) {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            ends.get(state).addAll(ends.get(fail[state]));
+            for (int column = 0; column < columns; column++) {
+                int next = rows.get(state)[column];
+                int fallback = transitions[fail[state] * columns + column];
+                if (next < 0) {
+                    transitions[state * columns + column] = fallback;
+                } else {
+                    transitions[state * columns + column] = next;
+                    fail[next] = fallback;
+                    queue.add(next);
+                }
+            }
+        }
+
+        int[] outputStart = new int[states + 1];
+        for (int state = 0; state < states; state++) {
+            outputStart[state + 1] = outputStart[state] + ends.get(state).size();
+        }
+        int[] outputs = new int[outputStart[states]];
+        for (int state = 0; state < states; state++) {
+            List<Integer> found = ends.get(state);
+            for (int i = 0; i < found.size(); i++) {
+                outputs[outputStart[state] + i] = found.get(i);
+            }
+        }
+
+        double[] weightArray = new double[weights.size()];
+        for (int k = 0; k < weightArray.length; k++) {
+            weightArray[k] = weights.get(k);
+        }
+        FuzzyIndex fuzzy = fuzzyIds.isEmpty() ? null : new FuzzyIndex(fuzzyIds, fuzzyKeywords, fuzzyBudgets);
+        return new KeywordMatcher(keywords.toArray(new String[0]), weightArray, asciiColumns, sortedChars, charColumns,
+                columns, transitions, outputStart, outputs, fuzzy);
+    }
+
+    // Tolerance actually applied to a keyword of the given number of letters and digits
+    public static int effectiveTolerance(int tolerance, int length) {
+        int cap = length <= 2 ? 0 : length <= 5 ? 1 : MAX_TOLERANCE;
+        return Math.max(0, Math.min(tolerance, cap));
+    }
+
+    // Lower-cased letters and digits, other runs collapsed to one space, no leading or trailing space
+    public static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        int length = normalized.length();
+        if (length > 0 && normalized.charAt(length - 1) == ' ') {
+            normalized.setLength(length - 1);
+        }
+        return normalized.toString();
+    }
+
+    public int size() {
+        return keywords.length;
+    }
+
+    // Sum of the weights of the keywords found in the text
+    public double score(CharSequence text) {
+        boolean[] found = match(text);
+        double score = 0;
+        for (int k = 0; k < found.length; k++) {
+            if (found[k]) {
+                score += weights[k];
+            }
+        }
+        return score;
+    }
+
+    // found[k] is true if keyword k occurs in the text
+    public boolean[] match(CharSequence text) {
+        boolean[] found = new boolean[keywords.length];
+        if (text == null) {
+            return found;
+        }
+        // Words of the normalized text for the tolerant keywords: letters[wordStart[w] .. wordEnd[w])
+        Words words = fuzzy != null ? new Words(text.length()) : null;
+        int spaceColumn = asciiColumns[' '];
+        int state = transitions[spaceColumn];
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int column;
+            if (c < ASCII && (c >= 'a' && c <= 'z' || c >= '0' && c <= '9')) {
+                column = asciiColumns[c];
+            } else if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                column = column(c, asciiColumns, sortedChars, charColumns);
+            } else if (!space) {
+                column = spaceColumn;
+                space = true;
+                if (words != null) {
+                    words.end();
+                }
+                state = transitions[state * columns + column];
+                for (int o = outputStart[state]; o < outputStart[state + 1]; o++) {
+                    found[outputs[o]] = true;
+                }
+                continue;
+            } else {
+                continue;
+            }
+            space = false;
+            if (words != null) {
+                words.add(c);
+            }
+            state = transitions[state * columns + column];
+            for (int o = outputStart[state]; o < outputStart[state + 1]; o++) {
+                found[outputs[o]] = true;
+            }
+        }
+        if (!space) {
+            state = transitions[state * columns + spaceColumn];
+            for (int o = outputStart[state]; o < outputStart[state + 1]; o++) {
+                found[outputs[o]] = true;
+            }
+            if (words != null) {
+                words.end();
+            }
+        }
+        if (words != null) {
+            fuzzy.match(words, found);
+        }
+        return found;
+    }
+
+    private static int column(char c, int[] asciiColumns, char[] sortedChars, int[] charColumns) {
+        if (c < ASCII) {
+            return asciiColumns[c];
+        }
+        int index = Arrays.binarySearch(sortedChars, c);
+        return index >= 0 ? charColumns[index] : OTHER;
+    }
+
+    private static int[] newRow(int columns) {
+        int[] row = new int[columns];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    // Bit per character for the character-set filter: a-z, 0-9, anything else folded into the rest
+    private static long signatureBit(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return 1L << (c - 'a');
+        }
+        if (c >= '0' && c <= '9') {
+            return 1L << (26 + c - '0');
+        }
+        return 1L << (36 + c % 28);
+    }
+
+    // The normalized words of one text, with their character sets
+    private static final class Words {
+        final char[] letters;
+        final int[] start;
+        final int[] end;
+        final long[] signature;
+        int count;
+        int length;
+        boolean inWord;
+
+        Words(int capacity) {
+            letters = new char[capacity];
+            start = new int[capacity / 2 + 1];
+            end = new int[capacity / 2 + 1];
+            signature = new long[capacity / 2 + 1];
+        }
+
+        void add(char c) {
+            if (!inWord) {
+                start[count] = length;
+                signature[count] = 0;
+                inWord = true;
+            }
+            letters[length++] = c;
+            signature[count] |= signatureBit(c);
+        }
+
+        void end() {
+            if (inWord) {
+                end[count++] = length;
+                inWord = false;
+            }
+        }
+    }
+
+    // Keywords with a tolerance, indexed by the length of their first word
+    private static final class FuzzyIndex {
+        final int[] keywordIds;
+        // words[f][w]: the letters of word w of tolerant keyword f
+        final char[][][] words;
+        final long[] firstSignatures;
+        final int[] budgets;
+        // byLength[n]: tolerant keywords whose first word is within budget of n letters
+        final int[][] byLength;
+        final int maxWordLength;
+
+        FuzzyIndex(List<Integer> keywordIds, List<String> keywords, List<Integer> budgets) {
+            int size = keywordIds.size();
+            this.keywordIds = new int[size];
+            this.words = new char[size][][];
+            this.firstSignatures = new long[size];
+            this.budgets = new int[size];
+            int longest = 0;
+            for (int f = 0; f < size; f++) {
+                this.keywordIds[f] = keywordIds.get(f);
+                this.budgets[f] = budgets.get(f);
+                String[] parts = keywords.get(f).split(" ");
+                words[f] = new char[parts.length][];
+                for (int w = 0; w < parts.length; w++) {
+                    words[f][w] = parts[w].toCharArray();
+                    longest = Math.max(longest, parts[w].length());
+                }
+                for (char c : words[f][0]) {
+                    firstSignatures[f] |= signatureBit(c);
+                }
+            }
+            maxWordLength = longest;
+
+            List<List<Integer>> lengths = new ArrayList<>();
+            for (int n = 0; n <= longest + MAX_TOLERANCE; n++) {
+                lengths.add(new ArrayList<>());
+            }
+            for (int f = 0; f < size; f++) {
+                int first = words[f][0].length;
+                for (int n = Math.max(1, first - this.budgets[f]); n <= first + this.budgets[f]; n++) {
+                    lengths.get(n).add(f);
+                }
+            }
+            byLength = new int[lengths.size()][];
+            for (int n = 0; n < byLength.length; n++) {
+                byLength[n] = lengths.get(n).stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        void match(Words text, boolean[] found) {
+            int[] previous = new int[maxWordLength + MAX_TOLERANCE + 1];
+            int[] current = new int[previous.length];
+            for (int t = 0; t < text.count; t++) {
+                int length = text.end[t] - text.start[t];
+                if (length >= byLength.length) {
+                    continue;
+                }
+                for (int f : byLength[length]) {
+                    if (found[keywordIds[f]]) {
+                        continue;
+                    }
+                    int budget = budgets[f];
+                    // Every edit removes at most one of the keyword's characters and adds at most one new one
+                    long signature = text.signature[t];
+                    if (Long.bitCount(firstSignatures[f] & ~signature) > budget || Long.bitCount(signature & ~firstSignatures[f]) > budget) {
+                        continue;
+                    }
+                    char[][] keyword = words[f];
+                    if (t + keyword.length > text.count) {
+                        continue;
+                    }
+                    int used = 0;
+                    for (int w = 0; w < keyword.length && used <= budget; w++) {
+                        used += distance(keyword[w], text.letters, text.start[t + w], text.end[t + w], budget - used, previous, current);
+                    }
+                    if (used <= budget) {
+                        found[keywordIds[f]] = true;
+                    }
+                }
+            }
+        }
+
+        // Edit distance between word and text[from, to) if at most max, otherwise max + 1. Only the
+        // diagonal band |i - j| <= max of the table is computed: a cell outside it already costs more
+        // than max edits, so it is treated as max + 1
+        private static int distance(char[] word, char[] text, int from, int to, int max, int[] previous, int[] current) {
+            int m = to - from;
+            if (Math.abs(word.length - m) > max || m >= previous.length) {
+                return max + 1;
+            }
+            int beyond = max + 1;
+            for (int j = 0; j <= m; j++) {
+                previous[j] = Math.min(j, beyond);
+            }
+            for (int i = 1; i <= word.length; i++) {
+                int lo = Math.max(1, i - max);
+                int hi = Math.min(m, i + max);
+                current[0] = Math.min(i, beyond);
+                current[lo - 1] = lo > 1 ? beyond : current[0];
+                int rowMin = current[lo - 1];
+                char c = word[i - 1];
+                for (int j = lo; j <= hi; j++) {
+                    int value = Math.min(previous[j - 1] + (c == text[from + j - 1] ? 0 : 1), Math.min(previous[j], current[j - 1]) + 1);
+                    current[j] = Math.min(value, beyond);
+                    rowMin = Math.min(rowMin, current[j]);
+                }
+                if (hi < m) {
+                    current[hi + 1] = beyond;
+                }
+                if (rowMin > max) {
+                    return beyond;
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return Math.min(previous[m], beyond);
+        }
+    }
+}
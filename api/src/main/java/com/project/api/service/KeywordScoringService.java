@@ -0,0 +1,122 @@
+package com.project.api.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+// Keyword scoring of SHORT_ANSWER and ESSAY answers. Each question's weighted keywords are
+// compiled once into a KeywordMatcher and kept in a bounded cache by question id. Questions are
+// copy-on-write, so an id's keywords only change if its rows are edited directly; editing through
+// the service replaces the question and invalidates the old id.
+@Service
+public class KeywordScoringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeywordScoringService.class);
+
+    // Question ids per keyword query
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${grading.keyword-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<Long, CachedMatcher> matchers = new ConcurrentHashMap<>();
+
+    private static final class CachedMatcher {
+        final KeywordMatcher matcher;
+        volatile long lastAccess = System.nanoTime();
+
+        CachedMatcher(KeywordMatcher matcher) {
+            this.matcher = matcher;
+        }
+    }
+
+    /**
+     * Score an answer against a question's keywords.
+     * @return Sum of the weights of the keywords found, or 0 if the question has none.
+     */
+    public double score(Long questionId, String answerText) {
+        return getMatchers(List.of(questionId)).get(questionId).score(answerText);
+    }
+
+    /**
+     * Compiled matchers for the given questions, loading the missing ones with one query per batch.
+     * A question without keywords gets a matcher that scores 0.
+     */
+    public Map<Long, KeywordMatcher> getMatchers(Collection<Long> questionIds) {
+        Map<Long, KeywordMatcher> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long questionId : questionIds) {
+            CachedMatcher cached = matchers.get(questionId);
+            if (cached != null) {
+                cached.lastAccess = System.nanoTime();
+                result.put(questionId, cached.matcher);
+            } else {
+                missing.add(questionId);
+            }
+        }
+        for (int i = 0; i < missing.size(); i += LOAD_BATCH_SIZE) {
+            Map<Long, KeywordMatcher> loaded = load(missing.subList(i, Math.min(missing.size(), i + LOAD_BATCH_SIZE)));
+            evictIfFull(loaded.size());
+            loaded.forEach((questionId, matcher) -> matchers.put(questionId, new CachedMatcher(matcher)));
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    // Drop a question's compiled keywords after they changed
+    public void invalidate(Long questionId) {
+        if (matchers.remove(questionId) != null) {
+            logger.debug("Invalidated keyword matcher of question {}", questionId);
+        }
+    }
+
+    private Map<Long, KeywordMatcher> load(List<Long> questionIds) {
+        Map<Long, List<String>> keywords = new HashMap<>();
+        Map<Long, List<Double>> weights = new HashMap<>();
+        Map<Long, List<Integer>> tolerances = new HashMap<>();
+        namedParameterJdbcTemplate.query(
+                "SELECT question_id, keyword, weight, tolerance FROM question_keywords WHERE question_id IN (:ids) ORDER BY question_id, keyword_id",
+                new MapSqlParameterSource("ids", questionIds),
+                rs -> {
+                    long questionId = rs.getLong("question_id");
+                    keywords.computeIfAbsent(questionId, id -> new ArrayList<>()).add(rs.getString("keyword"));
+                    weights.computeIfAbsent(questionId, id -> new ArrayList<>()).add(rs.getDouble("weight"));
+                    tolerances.computeIfAbsent(questionId, id -> new ArrayList<>()).add(rs.getInt("tolerance"));
+                });
+        Map<Long, KeywordMatcher> loaded = new HashMap<>();
+        for (Long questionId : questionIds) {
+            loaded.put(questionId, KeywordMatcher.compile(
+                    keywords.getOrDefault(questionId, List.of()), weights.getOrDefault(questionId, List.of()),
+                    tolerances.getOrDefault(questionId, List.of())));
+        }
+        return loaded;
+    }
+
+    // Make room by dropping the least recently used matchers
+    private void evictIfFull(int adding) {
+        int excess = matchers.size() + adding - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        matchers.entrySet().stream()
+                .sorted((a, b) -> Long.compare(a.getValue().lastAccess, b.getValue().lastAccess))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(matchers::remove);
+    }
+}
@@ -0,0 +1,205 @@
+package com.project.api.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.project.api.exception.LeaseLostException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Database-backed leases so each scheduled job runs on one api node at a time. A lease row
+// names its owner and expiry (in database time, so node clocks do not matter); the holder
+// extends it with a heartbeat and any node may take it over once it has expired, which gives
+// failover within one TTL. Every takeover increments the fencing token, and writes made
+// under a lease call assertHeld in their transaction, so a paused former leader cannot commit.
+@Service
+public class LeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaseService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Identifies this node in job_leases.owner; defaults to host name plus a random suffix
+    @Value("${scheduler.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${scheduler.lease.ttl-ms:30000}")
+    private long ttlMs;
+
+    // 0 = a node may hold every shard of a job
+    @Value("${scheduler.lease.max-shards-per-node:0}")
+    private int maxShardsPerNode;
+
+    private String nodeId;
+
+    // Leases this node believes it holds, by job name
+    private final Map<String, Lease> held = new ConcurrentHashMap<>();
+
+    public record Lease(String jobName, long fencingToken) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId != null && !configuredNodeId.isBlank()) {
+            nodeId = configuredNodeId;
+        } else {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                host = "node";
+            }
+            nodeId = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        logger.info("Scheduler node id: {}", nodeId);
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        for (Lease lease : new ArrayList<>(held.values())) {
+            release(lease);
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Acquire or renew the lease for a job.
+     * @param jobName Name of the job.
+     * @return The lease if this node holds it now, otherwise null.
+     */
+    public Lease tryAcquire(String jobName) {
+        try {
+            jdbcTemplate.update(
+                    "INSERT IGNORE INTO job_leases (job_name, owner, fencing_token, expires_at) VALUES (?, NULL, 0, CURRENT_TIMESTAMP(6))",
+                    jobName);
+            // fencing_token is assigned first: MySQL evaluates SET left to right, so the CASE still sees the old owner
+            int updated = jdbcTemplate.update(
+                    "UPDATE job_leases SET "
+                            + "fencing_token = CASE WHEN owner = ? THEN fencing_token ELSE fencing_token + 1 END, "
+                            + "owner = ?, "
+                            + "expires_at = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(6)), "
+                            + "heartbeat_at = CURRENT_TIMESTAMP(6) "
+                            + "WHERE job_name = ? AND (owner = ? OR owner IS NULL OR expires_at < CURRENT_TIMESTAMP(6))",
+                    nodeId, nodeId, ttlMs * 1000, jobName, nodeId);
+            if (updated == 0) {
+                if (held.remove(jobName) != null) {
+                    logger.warn("Lease {} was taken over by another node", jobName);
+                }
+                return null;
+            }
+            Long token = jdbcTemplate.queryForObject(
+                    "SELECT fencing_token FROM job_leases WHERE job_name = ?", Long.class, jobName);
+            Lease lease = new Lease(jobName, token);
+            Lease previous = held.put(jobName, lease);
+            if (previous == null || previous.fencingToken() != token) {
+                logger.info("Acquired lease {} with fencing token {}", jobName, token);
+            }
+            return lease;
+        } catch (DataAccessException e) {
+            logger.error("Could not acquire lease {}: {}", jobName, e.getMessage());
+            held.remove(jobName);
+            return null;
+        }
+    }
+
+    /**
+     * Acquire shard leases "jobName#0" .. "jobName#(shards-1)". Shards already held are renewed
+     * first; free shards are then taken in a random order up to scheduler.lease.max-shards-per-node,
+     * so several nodes end up splitting the shards between them.
+     * @return Shard numbers this node holds, with their leases.
+     */
+    public Map<Integer, Lease> tryAcquireShards(String jobName, int shards) {
+        List<Integer> order = new ArrayList<>();
+        List<Integer> free = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            (held.containsKey(shardName(jobName, shard)) ? order : free).add(shard);
+        }
+        Collections.shuffle(free);
+        order.addAll(free);
+
+        Map<Integer, Lease> acquired = new HashMap<>();
+        int limit = maxShardsPerNode > 0 ? maxShardsPerNode : shards;
+        for (int shard : order) {
+            if (acquired.size() >= limit) {
+                break;
+            }
+            Lease lease = tryAcquire(shardName(jobName, shard));
+            if (lease != null) {
+                acquired.put(shard, lease);
+            }
+        }
+        return acquired;
+    }
+
+    /**
+     * Fencing check for writes made under a lease. Call inside the write transaction: the
+     * lease row stays locked until commit, so no other node can take over mid-transaction.
+     * @throws LeaseLostException if another node has taken the lease since it was acquired.
+     */
+    public void assertHeld(Lease lease) {
+        List<Long> tokens = jdbcTemplate.queryForList(
+                "SELECT fencing_token FROM job_leases WHERE job_name = ? AND owner = ? FOR UPDATE",
+                Long.class, lease.jobName(), nodeId);
+        if (tokens.isEmpty() || tokens.get(0) != lease.fencingToken()) {
+            held.remove(lease.jobName());
+            throw new LeaseLostException("Lease " + lease.jobName() + " is no longer held by " + nodeId);
+        }
+    }
+
+    public void release(Lease lease) {
+        try {
+            jdbcTemplate.update(
+                    "UPDATE job_leases SET owner = NULL, expires_at = CURRENT_TIMESTAMP(6) "
+                            + "WHERE job_name = ? AND owner = ? AND fencing_token = ?",
+                    lease.jobName(), nodeId, lease.fencingToken());
+        } catch (DataAccessException e) {
+            logger.warn("Could not release lease {}: {}", lease.jobName(), e.getMessage());
+        }
+        held.remove(lease.jobName());
+    }
+
+    // Extend every lease this node holds; a lease that cannot be extended has been lost
+    @Scheduled(fixedDelayString = "${scheduler.lease.heartbeat-ms:10000}")
+    public void heartbeat() {
+        for (Lease lease : new ArrayList<>(held.values())) {
+            try {
+                int updated = jdbcTemplate.update(
+                        "UPDATE job_leases SET expires_at = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(6)), "
+                                + "heartbeat_at = CURRENT_TIMESTAMP(6) "
+                                + "WHERE job_name = ? AND owner = ? AND fencing_token = ?",
+                        ttlMs * 1000, lease.jobName(), nodeId, lease.fencingToken());
+                if (updated == 0) {
+                    held.remove(lease.jobName());
+                    logger.warn("Lost lease {} (fencing token {})", lease.jobName(), lease.fencingToken());
+                }
+            } catch (DataAccessException e) {
+                logger.error("Lease heartbeat for {} failed: {}", lease.jobName(), e.getMessage());
+            }
+        }
+    }
+
+    private static String shardName(String jobName, int shard) {
+        return jobName + "#" + shard;
+    }
+}
@@ -0,0 +1,216 @@
+package com.project.api.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.project.api.exception.HashingCapacityExceededException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Runs BCrypt on a dedicated, size-limited pool so a login spike queues here instead of
+// pinning every Tomcat thread. When the queue is full callers fail fast with
+// HashingCapacityExceededException, which the controllers turn into 503 + Retry-After.
+// Bulk imports share the pool one password per task, with a cap on their tasks in flight, so
+// logins and registrations always find a worker within one hash.
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    // Hashed at startup and matched against for unknown emails so both paths cost one BCrypt check
+    private static final String DUMMY_PASSWORD = "dummy-password-for-constant-time-login";
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+
+    @Value("${auth.hashing.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${auth.hashing.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${auth.hashing.retry-after-seconds:2}")
+    private int retryAfterSeconds;
+
+    // Bulk hashing tasks queued or running at once, across all imports (0 = half the pool)
+    @Value("${auth.hashing.bulk-permits:0}")
+    private int bulkPermits;
+
+    private ThreadPoolExecutor executor;
+
+    private Semaphore bulkSlots;
+
+    private String dummyHash;
+
+    private Timer queueWaitTimer;
+    private Timer hashTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        bulkSlots = new Semaphore(bulkPermits > 0 ? bulkPermits : Math.max(1, poolSize / 2));
+
+        queueWaitTimer = Timer.builder("auth.hashing.queue.wait")
+                .description("Time a hashing task waits before a worker picks it up")
+                .register(meterRegistry);
+        hashTimer = Timer.builder("auth.hashing.duration")
+                .description("Time spent in BCrypt encode/matches")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("auth.hashing.rejected")
+                .description("Hashing tasks rejected because the queue was full or timed out")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+
+        dummyHash = passwordEncoder.encode(DUMMY_PASSWORD);
+        logger.info("Password hashing pool started with {} threads and queue capacity {}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Hash a raw password on the hashing pool.
+     * @param rawPassword The password to hash.
+     * @return The encoded password.
+     */
+    public String encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Hash many passwords in parallel for bulk imports. Each password is its own task, and at
+     * most bulkPermits of them are queued or running at once, so interactive hashes queue behind
+     * a few single hashes rather than behind the import. A task that cannot be queued is hashed
+     * on the calling thread instead of failing the import.
+     * @param rawPasswords Passwords to hash.
+     * @return Encoded passwords in the same order.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        int size = rawPasswords.size();
+        String[] encoded = new String[size];
+        List<Future<?>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final int index = i;
+            try {
+                bulkSlots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while hashing passwords", e);
+            }
+            try {
+                futures.add(executor.submit(() -> {
+                    try {
+                        encoded[index] = hashTimer.record(() -> passwordEncoder.encode(rawPasswords.get(index)));
+                    } finally {
+                        bulkSlots.release();
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                bulkSlots.release();
+                encoded[index] = passwordEncoder.encode(rawPasswords.get(index));
+            }
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while hashing passwords", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Password hashing failed", e.getCause());
+            }
+        }
+        return Arrays.asList(encoded);
+    }
+
+    /**
+     * Check a raw password on the hashing pool. A null encoded password (unknown user) is
+     * checked against a fixed dummy hash so the response time does not reveal whether the email exists.
+     * @param rawPassword The password supplied by the client.
+     * @param encodedPassword The stored hash, or null if there is no such user.
+     * @return true only if encodedPassword is not null and matches.
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        String raw = rawPassword != null ? rawPassword : "";
+        if (encodedPassword == null) {
+            submit(() -> passwordEncoder.matches(raw, dummyHash));
+            return false;
+        }
+        return submit(() -> passwordEncoder.matches(raw, encodedPassword));
+    }
+
+    private <T> T submit(Callable<T> task) {
+        final long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            logger.warn("Password hashing queue is full ({} waiting), rejecting request", executor.getQueue().size());
+            throw new HashingCapacityExceededException("Server is busy, please retry shortly", retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            logger.warn("Password hashing did not complete within {} ms", timeoutMs);
+            throw new HashingCapacityExceededException("Server is busy, please retry shortly", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
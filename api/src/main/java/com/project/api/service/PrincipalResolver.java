@@ -0,0 +1,91 @@
+package com.project.api.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.project.api.config.JwtPrincipal;
+import com.project.api.model.Student;
+import com.project.api.model.User;
+import com.project.api.model.UserRole;
+import com.project.api.repository.StudentRepository;
+import com.project.api.repository.UserRepository;
+
+// Completes a JwtPrincipal with userId/studentId. Tokens issued at login already carry both,
+// so the common case never touches the database; older tokens and students whose Student row
+// was created after login are resolved once and cached by email until invalidated. A student
+// without a Student row is not cached: the row may be created on any node (see
+// ClassService.joinClass), and invalidate only reaches this one.
+@Service
+public class PrincipalResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalResolver.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Value("${auth.principal-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, Identity> identities = new ConcurrentHashMap<>();
+
+    /**
+     * Resolve the ids of the authenticated user.
+     * @param principal Principal parsed from the token.
+     * @return The principal with userId and studentId filled in, or the input if the user no longer exists.
+     */
+    public JwtPrincipal resolve(JwtPrincipal principal) {
+        if (principal.isResolved()) {
+            return principal;
+        }
+
+        Identity identity = identities.get(principal.getEmail());
+        if (identity == null) {
+            Optional<User> userOpt = userRepository.findByEmail(principal.getEmail());
+            if (userOpt.isEmpty()) {
+                logger.warn("No user found for authenticated email: {}", principal.getEmail());
+                return principal;
+            }
+            User user = userOpt.get();
+            Long studentId = studentRepository.findByUser(user).map(Student::getStudentId).orElse(null);
+            identity = new Identity(user.getUserId(), studentId);
+            if (studentId != null || !principal.hasRole(UserRole.STUDENT)) {
+                if (identities.size() >= maxEntries) {
+                    identities.clear();
+                }
+                identities.put(principal.getEmail(), identity);
+            }
+            logger.debug("Resolved identity for {}: userId={}, studentId={}", principal.getEmail(), identity.userId, identity.studentId);
+        }
+
+        Long userId = principal.getUserId() != null ? principal.getUserId() : identity.userId;
+        Long studentId = principal.getStudentId() != null ? principal.getStudentId() : identity.studentId;
+        return principal.withIdentity(userId, studentId);
+    }
+
+    // Drop the cached identity after the user or its Student row changes
+    public void invalidate(String email) {
+        if (email != null) {
+            identities.remove(email);
+        }
+    }
+
+    private static final class Identity {
+        private final Long userId;
+        private final Long studentId;
+
+        private Identity(Long userId, Long studentId) {
+            this.userId = userId;
+            this.studentId = studentId;
+        }
+    }
+}
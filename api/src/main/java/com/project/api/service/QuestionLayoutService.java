@@ -0,0 +1,190 @@
+package com.project.api.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.SubmissionRequest;
+import com.project.api.model.AssessmentType;
+import com.project.api.util.SeededShuffle;
+
+import jakarta.annotation.PostConstruct;
+
+// Per-student question and option order for EXAM assessments. Nothing is stored: the order is
+// a seeded shuffle whose seed is HMAC(secret, assessmentId, studentId), so the same student
+// always sees the same order and students cannot predict each other's. The delivery snapshot
+// stays canonical and shared; students fetch their layout separately and render the snapshot
+// in that order. Answers given by displayed position are mapped back with canonicalOptionIndex.
+@Service
+public class QuestionLayoutService {
+
+    // Upper bound for one answer (an essay or a program); submission_answers.answer_text is LONGTEXT
+    private static final int MAX_ANSWER_LENGTH = 100_000;
+
+    @Autowired
+    private DeliverySnapshotService deliverySnapshotService;
+
+    // Blank = use the JWT secret, so a deployment works without extra configuration
+    @Value("${assessment.shuffle.secret:}")
+    private String secret;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    private SecretKeySpec key;
+
+    // Mac instances are not thread-safe; one per request thread
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    public void init() {
+        String keyMaterial = secret != null && !secret.isBlank() ? secret : jwtSecret;
+        key = new SecretKeySpec(keyMaterial.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        newMac(); // fail at startup rather than on the first request
+    }
+
+    // Only exams are shuffled; quizzes and tests keep the authored order
+    public boolean isShuffled(AssessmentType type) {
+        return type == AssessmentType.EXAM;
+    }
+
+    /**
+     * The student's layout of an ACTIVE assessment.
+     * @return "shuffled", and when true "questionOrder" (question ids in display order) and
+     *         "optionOrder" (question id -> option ids in display order, MCQ only).
+     * @throws IllegalArgumentException if the assessment is not open to the student.
+     */
+    public Map<String, Object> layoutFor(Long assessmentId, JwtPrincipal principal) {
+        DeliverySnapshotService.Snapshot snapshot = deliverySnapshotService.getForStudent(assessmentId, principal);
+        Map<String, Object> layout = new LinkedHashMap<>();
+        layout.put("assessmentId", assessmentId);
+        layout.put("shuffled", isShuffled(snapshot.getType()));
+        if (!isShuffled(snapshot.getType())) {
+            return layout;
+        }
+
+        long seed = seed(assessmentId, principal.getStudentId());
+        long[] questionIds = snapshot.getQuestionIds();
+        int[] order = new int[questionIds.length];
+        SeededShuffle.permute(order, questionIds.length, seed);
+
+        long[] questionOrder = new long[questionIds.length];
+        Map<Long, long[]> optionOrder = new LinkedHashMap<>();
+        int[] optionScratch = new int[0];
+        for (int position = 0; position < order.length; position++) {
+            int questionIndex = order[position];
+            long questionId = questionIds[questionIndex];
+            questionOrder[position] = questionId;
+            long[] optionIds = snapshot.getOptionIds(questionIndex);
+            if (optionIds.length > 1) {
+                if (optionScratch.length < optionIds.length) {
+                    optionScratch = new int[optionIds.length];
+                }
+                SeededShuffle.permute(optionScratch, optionIds.length, SeededShuffle.derive(seed, questionId));
+                long[] shuffled = new long[optionIds.length];
+                for (int i = 0; i < optionIds.length; i++) {
+                    shuffled[i] = optionIds[optionScratch[i]];
+                }
+                optionOrder.put(questionId, shuffled);
+            }
+        }
+        layout.put("questionOrder", questionOrder);
+        layout.put("optionOrder", optionOrder);
+        return layout;
+    }
+
+    /**
+     * Map an MCQ answer given as a displayed option position back to the canonical option index
+     * (the index QuestionOption rows and Question.correctAnswer use).
+     * @param type Type of the assessment; other types than EXAM are not shuffled.
+     * @param optionCount Number of options of the question.
+     * @param displayedIndex Position of the chosen option as shown to the student.
+     */
+    public int canonicalOptionIndex(AssessmentType type, long assessmentId, long studentId, long questionId,
+                                    int optionCount, int displayedIndex) {
+        if (!isShuffled(type)) {
+            return displayedIndex;
+        }
+        long seed = SeededShuffle.derive(seed(assessmentId, studentId), questionId);
+        return SeededShuffle.canonicalIndex(optionCount, seed, displayedIndex);
+    }
+
+    /**
+     * Map a displayed question position back to the canonical index of the question in the assessment.
+     */
+    public int canonicalQuestionIndex(AssessmentType type, long assessmentId, long studentId, int questionCount,
+                                      int displayedPosition) {
+        if (!isShuffled(type)) {
+            return displayedPosition;
+        }
+        return SeededShuffle.canonicalIndex(questionCount, seed(assessmentId, studentId), displayedPosition);
+    }
+
+    /**
+     * Validate a student's answers against the assessment and convert them to their stored form:
+     * MCQ answers given as displayed option positions become canonical option indexes, other
+     * answers are kept as text.
+     * @return Question id -> stored answer text, in request order.
+     * @throws IllegalArgumentException if an answer is for an unknown question, repeats a question,
+     *         names an option that does not exist or is too long.
+     */
+    public Map<Long, String> canonicalAnswers(DeliverySnapshotService.Snapshot snapshot, long studentId,
+                                              List<SubmissionRequest.Answer> answers) {
+        Map<Long, String> stored = new LinkedHashMap<>();
+        for (SubmissionRequest.Answer answer : answers) {
+            if (answer.getQuestionId() == null) {
+                throw new IllegalArgumentException("Every answer needs a questionId");
+            }
+            long questionId = answer.getQuestionId();
+            int questionIndex = snapshot.indexOf(questionId);
+            if (questionIndex < 0) {
+                throw new IllegalArgumentException("Question " + questionId + " is not part of this assessment");
+            }
+            if (stored.containsKey(questionId)) {
+                throw new IllegalArgumentException("Question " + questionId + " is answered more than once");
+            }
+            if (answer.getOptionIndex() != null) {
+                int optionCount = snapshot.getOptionIds(questionIndex).length;
+                if (answer.getOptionIndex() < 0 || answer.getOptionIndex() >= optionCount) {
+                    throw new IllegalArgumentException("Option " + answer.getOptionIndex() + " does not exist for question " + questionId);
+                }
+                stored.put(questionId, String.valueOf(canonicalOptionIndex(snapshot.getType(), snapshot.getAssessmentId(),
+                        studentId, questionId, optionCount, answer.getOptionIndex())));
+            } else {
+                if (answer.getAnswerText() != null && answer.getAnswerText().length() > MAX_ANSWER_LENGTH) {
+                    throw new IllegalArgumentException("Answer to question " + questionId + " exceeds " + MAX_ANSWER_LENGTH + " characters");
+                }
+                stored.put(questionId, answer.getAnswerText());
+            }
+        }
+        return stored;
+    }
+
+    long seed(long assessmentId, long studentId) {
+        Mac mac = macs.get();
+        byte[] digest = mac.doFinal(ByteBuffer.allocate(16).putLong(assessmentId).putLong(studentId).array());
+        return ByteBuffer.wrap(digest).getLong();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
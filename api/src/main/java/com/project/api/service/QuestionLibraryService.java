@@ -0,0 +1,345 @@
+package com.project.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.QuestionLibraryEntry;
+import com.project.api.model.Assessment;
+import com.project.api.model.AssessmentQuestion;
+import com.project.api.model.Question;
+import com.project.api.model.QuestionKeyword;
+import com.project.api.model.QuestionOption;
+import com.project.api.model.QuestionTestCase;
+import com.project.api.model.QuestionType;
+import com.project.api.model.User;
+import com.project.api.model.UserRole;
+import com.project.api.repository.QuestionRepository;
+import com.project.api.service.LeaseService.Lease;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+// Each educator has one library of questions; assessments link library questions through
+// assessment_questions instead of owning copies. New questions are hashed over their normalized
+// content and an identical question already in the owner's library is linked rather than
+// inserted again, so the content tables grow with unique questions only. Library questions
+// can also be linked explicitly by id.
+@Service
+public class QuestionLibraryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionLibraryService.class);
+
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
+    public static final int LIBRARY_PAGE_SIZE = 50;
+
+    // Separates normalized fields so different splits of the same characters hash differently
+    private static final char SEP = '\u001F';
+
+    private static final String BACKFILL_JOB_NAME = "question-library-backfill";
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LeaseService leaseService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // created: new library questions; reused: existing library questions linked; duplicates: already in the assessment
+    public record LinkResult(int created, int reused, int duplicates) {
+    }
+
+    /**
+     * Add questions to an assessment, reusing identical questions from the owner's library.
+     * Must run inside a transaction. Questions are linked in list order starting at firstSortOrder.
+     * @param questions Built, unsaved questions (see AssessmentService.buildQuestion).
+     */
+    public LinkResult addQuestions(Long assessmentId, Long ownerId, List<Question> questions, int firstSortOrder) {
+        Set<String> hashes = new LinkedHashSet<>();
+        for (Question question : questions) {
+            question.setContentHash(contentHash(question));
+            hashes.add(question.getContentHash());
+        }
+        Map<String, Long> library = findByHashes(ownerId, hashes);
+        Set<Long> linked = new HashSet<>(findLinkedIds(assessmentId, library.values()));
+
+        Assessment assessment = entityManager.getReference(Assessment.class, assessmentId);
+        User owner = entityManager.getReference(User.class, ownerId);
+        List<Long> toLink = new ArrayList<>(questions.size());
+        int created = 0;
+        int reused = 0;
+        int duplicates = 0;
+        for (Question question : questions) {
+            Long questionId = library.get(question.getContentHash());
+            boolean isNew = questionId == null;
+            if (isNew) {
+                question.setAssessment(assessment);
+                question.setCreatedBy(owner);
+                entityManager.persist(question); // the pooled generator assigns the id here
+                questionId = question.getQuestionId();
+                library.put(question.getContentHash(), questionId);
+            }
+            if (!linked.add(questionId)) {
+                duplicates++;
+                continue;
+            }
+            if (isNew) {
+                created++;
+            } else {
+                reused++;
+            }
+            toLink.add(questionId);
+        }
+        // Question rows must exist before the links that reference them
+        entityManager.flush();
+        persistLinks(assessmentId, toLink, firstSortOrder);
+        return new LinkResult(created, reused, duplicates);
+    }
+
+    /**
+     * Link existing library questions of the owner into an assessment. Must run inside a transaction.
+     * @return Number of links added (questions already in the assessment are skipped).
+     * @throws IllegalArgumentException if a question is not in the owner's library.
+     */
+    public int linkLibraryQuestions(Long assessmentId, Long ownerId, List<Long> questionIds, int firstSortOrder) {
+        Set<Long> requested = new LinkedHashSet<>(questionIds);
+        if (requested.isEmpty()) {
+            return 0;
+        }
+        Set<Long> owned = new HashSet<>(questionRepository.findOwnedIds(ownerId, requested));
+        for (Long questionId : requested) {
+            if (!owned.contains(questionId)) {
+                throw new IllegalArgumentException("Question " + questionId + " is not in your library");
+            }
+        }
+        requested.removeAll(findLinkedIds(assessmentId, requested));
+        persistLinks(assessmentId, new ArrayList<>(requested), firstSortOrder);
+        return requested.size();
+    }
+
+    /**
+     * Give an assessment the same questions, in the same order, as another one. One statement
+     * regardless of size: only link rows are written, all question content is shared.
+     * @return Number of links copied.
+     */
+    public int copyLinks(Long fromAssessmentId, Long toAssessmentId) {
+        return jdbcTemplate.update(
+                "INSERT INTO assessment_questions (assessment_id, question_id, sort_order, created_at) "
+                        + "SELECT ?, question_id, sort_order, ? FROM assessment_questions WHERE assessment_id = ?",
+                toAssessmentId, LocalDateTime.now(), fromAssessmentId);
+    }
+
+    /**
+     * Copy-on-write edit of one question of an assessment. Question rows are never updated, since
+     * other assessments (earlier versions among them) and submitted answers may reference them;
+     * the edited content becomes a library question of its own (or reuses an identical one) and
+     * only this assessment's link is moved to it, keeping its position. Must run inside a transaction.
+     * @return Id of the question now linked in place of questionId.
+     * @throws IllegalArgumentException if the question is not in the assessment, or the edit makes
+     *         it identical to another question of the assessment.
+     */
+    public Long replaceQuestion(Long assessmentId, Long ownerId, Long questionId, Question replacement) {
+        List<String> current = jdbcTemplate.queryForList(
+                "SELECT q.content_hash FROM assessment_questions l JOIN questions q ON q.question_id = l.question_id "
+                        + "WHERE l.assessment_id = ? AND l.question_id = ?",
+                String.class, assessmentId, questionId);
+        if (current.isEmpty()) {
+            throw new IllegalArgumentException("Question " + questionId + " is not part of this assessment");
+        }
+        replacement.setContentHash(contentHash(replacement));
+        if (replacement.getContentHash().equals(current.get(0))) {
+            return questionId;
+        }
+
+        Long replacementId = findByHashes(ownerId, Set.of(replacement.getContentHash())).get(replacement.getContentHash());
+        if (replacementId == null) {
+            replacement.setAssessment(entityManager.getReference(Assessment.class, assessmentId));
+            replacement.setCreatedBy(entityManager.getReference(User.class, ownerId));
+            entityManager.persist(replacement);
+            entityManager.flush();
+            replacementId = replacement.getQuestionId();
+        } else if (!findLinkedIds(assessmentId, List.of(replacementId)).isEmpty()) {
+            throw new IllegalArgumentException("The assessment already contains an identical question");
+        }
+        jdbcTemplate.update("UPDATE assessment_questions SET question_id = ? WHERE assessment_id = ? AND question_id = ?",
+                replacementId, assessmentId, questionId);
+        return replacementId;
+    }
+
+    // Sort order after the assessment's last linked question
+    public int nextSortOrder(Long assessmentId) {
+        Integer next = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(sort_order) + 1, 0) FROM assessment_questions WHERE assessment_id = ?",
+                Integer.class, assessmentId);
+        return next != null ? next : 0;
+    }
+
+    /**
+     * One page of the educator's question library, newest first.
+     * @param afterId questionId of the last entry of the previous page, or null for the first page.
+     */
+    public List<QuestionLibraryEntry> getLibrary(JwtPrincipal principal, String type, Long afterId) {
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            logger.error("User {} is not an educator or does not exist", principal.getEmail());
+            throw new IllegalArgumentException("Only educators can view the question library");
+        }
+        QuestionType typeFilter = null;
+        if (type != null && !type.isBlank()) {
+            try {
+                typeFilter = QuestionType.valueOf(type.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid question type: " + type);
+            }
+        }
+        return questionRepository.findLibraryPage(principal.getUserId(), typeFilter,
+                afterId != null ? afterId : Long.MAX_VALUE, PageRequest.of(0, LIBRARY_PAGE_SIZE));
+    }
+
+    /**
+     * SHA-256 over the normalized content: type, text, score, answer, instructions, options with
+     * their correctness, keywords with weights and tolerances, and test cases. Whitespace around text is ignored
+     * and keywords compare case-insensitively, matching how they are graded. A tolerance of 0 is
+     * left out, so hashes from before tolerances existed stay valid.
+     */
+    public String contentHash(Question question) {
+        StringBuilder content = new StringBuilder(256);
+        content.append(question.getType()).append(SEP)
+                .append(normalize(question.getText())).append(SEP)
+                .append(question.getMaxScore()).append(SEP)
+                .append(normalize(question.getCorrectAnswer())).append(SEP)
+                .append(normalize(question.getInstructions()));
+        for (QuestionOption option : question.getOptions()) {
+            content.append(SEP).append('o').append(Boolean.TRUE.equals(option.getIsCorrect()) ? '+' : '-')
+                    .append(normalize(option.getOptionText()));
+        }
+        for (QuestionKeyword keyword : question.getKeywords()) {
+            content.append(SEP).append('k').append(normalize(keyword.getKeyword()).toLowerCase(Locale.ROOT))
+                    .append('=').append(keyword.getWeight());
+            if (keyword.getTolerance() != null && keyword.getTolerance() > 0) {
+                content.append('~').append(keyword.getTolerance());
+            }
+        }
+        for (QuestionTestCase testCase : question.getTestCases()) {
+            content.append(SEP).append('t').append(testCase.getInput()).append(SEP)
+                    .append(testCase.getExpectedOutput()).append('=').append(testCase.getWeight());
+        }
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Questions written before the library existed get an owner, a link to their assessment and
+    // a content hash; runs once per startup on the node holding the backfill lease
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Lease lease = leaseService.tryAcquire(BACKFILL_JOB_NAME);
+        if (lease == null) {
+            return;
+        }
+        try {
+            int owners = jdbcTemplate.update(
+                    "UPDATE questions q JOIN assessments a ON a.assessment_id = q.assessment_id "
+                            + "SET q.created_by = a.created_by WHERE q.created_by IS NULL");
+            int links = jdbcTemplate.update(
+                    "INSERT IGNORE INTO assessment_questions (assessment_id, question_id, sort_order, created_at) "
+                            + "SELECT q.assessment_id, q.question_id, q.question_id, q.created_at FROM questions q "
+                            + "WHERE NOT EXISTS (SELECT 1 FROM assessment_questions l WHERE l.question_id = q.question_id)");
+            int hashed = 0;
+            int page;
+            do {
+                page = transactionTemplate.execute(status -> {
+                    List<Question> questions = questionRepository.findWithoutContentHash(PageRequest.of(0, 200));
+                    for (Question question : questions) {
+                        question.setContentHash(contentHash(question));
+                    }
+                    return questions.size();
+                });
+                hashed += page;
+            } while (page > 0);
+            if (owners + links + hashed > 0) {
+                logger.info("Question library backfill: {} owners set, {} links added, {} hashes computed", owners, links, hashed);
+            }
+        } finally {
+            leaseService.release(lease);
+        }
+    }
+
+    private Map<String, Long> findByHashes(Long ownerId, Set<String> hashes) {
+        Map<String, Long> library = new HashMap<>();
+        List<String> all = new ArrayList<>(hashes);
+        for (int i = 0; i < all.size(); i += LOOKUP_BATCH_SIZE) {
+            List<String> batch = all.subList(i, Math.min(all.size(), i + LOOKUP_BATCH_SIZE));
+            for (Object[] row : questionRepository.findIdsByOwnerAndContentHashes(ownerId, batch)) {
+                // Ordered by id, so concurrent duplicates resolve to the oldest question
+                library.putIfAbsent((String) row[0], (Long) row[1]);
+            }
+        }
+        return library;
+    }
+
+    private List<Long> findLinkedIds(Long assessmentId, Collection<Long> questionIds) {
+        if (questionIds.isEmpty()) {
+            return List.of();
+        }
+        return namedParameterJdbcTemplate.queryForList(
+                "SELECT question_id FROM assessment_questions WHERE assessment_id = :assessmentId AND question_id IN (:ids)",
+                new MapSqlParameterSource("assessmentId", assessmentId).addValue("ids", questionIds),
+                Long.class);
+    }
+
+    private void persistLinks(Long assessmentId, List<Long> questionIds, int firstSortOrder) {
+        LocalDateTime now = LocalDateTime.now();
+        int sortOrder = firstSortOrder;
+        for (Long questionId : questionIds) {
+            AssessmentQuestion link = new AssessmentQuestion();
+            link.setAssessmentId(assessmentId);
+            link.setQuestionId(questionId);
+            link.setSortOrder(sortOrder++);
+            link.setCreatedAt(now);
+            entityManager.persist(link);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.strip();
+    }
+}
@@ -0,0 +1,449 @@
+package com.project.api.service;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.RegradeProgress;
+import com.project.api.model.RegradeStatus;
+import com.project.api.model.UserRole;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Incremental regrade after an answer key correction. The correction moves the assessment's
+// answers to the corrected question (see AssessmentService.correctAnswerKey) and queues a run;
+// a runner thread on each node claims queued runs and reads only the auto-graded answers of that
+// question in keyset pages. Each page is rescored on the grading pool and written in one
+// transaction: the changed AnswerScores are updated (guarded by their old score and question, so
+// a concurrent grade or a later correction wins), and each submission's total_score is moved by
+// the sum of its changes instead of being recomputed from its other answers. Progress is kept in
+// the run row and streamed to subscribers with server-sent events, from whichever node they hit.
+@Service
+public class RegradeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegradeService.class);
+
+    // Submission ids per lock statement
+    private static final int LOCK_BATCH_SIZE = 1000;
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AutoGradingService autoGradingService;
+
+    @Autowired
+    private ScoreStatisticsService scoreStatisticsService;
+
+    @Value("${regrade.page-size:5000}")
+    private int pageSize;
+
+    @Value("${regrade.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    // A RUNNING run without progress for this long is requeued (its node died)
+    @Value("${regrade.stale-ms:60000}")
+    private long staleMs;
+
+    @Value("${regrade.progress-interval-ms:500}")
+    private long progressIntervalMs;
+
+    @Value("${regrade.stream-timeout-ms:600000}")
+    private long streamTimeoutMs;
+
+    private Thread runner;
+
+    private volatile boolean running;
+
+    private ScheduledExecutorService progressPublisher;
+
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    // Last progress sent per run, so unchanged progress is not sent again
+    private final Map<Long, RegradeProgress> lastSent = new ConcurrentHashMap<>();
+
+    private static final RowMapper<RegradeProgress> PROGRESS_MAPPER = (rs, rowNum) -> new RegradeProgress(
+            rs.getLong("regrade_id"), rs.getLong("assessment_id"), rs.getLong("question_id"),
+            RegradeStatus.valueOf(rs.getString("status")), rs.getInt("total"), rs.getInt("processed"),
+            rs.getInt("changed"), rs.getDouble("score_delta"), rs.getString("error"),
+            rs.getTimestamp("finished_at") != null ? rs.getTimestamp("finished_at").toLocalDateTime() : null);
+
+    private static final class RegradePage {
+        final long[] answerIds;
+        final long[] submissionIds;
+        final long[] questionIds;
+        final long[] scoreIds;
+        final double[] oldScores;
+        final String[] answerTexts;
+        final double[] scores;
+        int size;
+
+        RegradePage(int capacity) {
+            answerIds = new long[capacity];
+            submissionIds = new long[capacity];
+            questionIds = new long[capacity];
+            scoreIds = new long[capacity];
+            oldScores = new double[capacity];
+            answerTexts = new String[capacity];
+            scores = new double[capacity];
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        running = true;
+        runner = new Thread(this::runRunner, "regrade-runner");
+        runner.setDaemon(true);
+        runner.start();
+        progressPublisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "regrade-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progressPublisher.scheduleWithFixedDelay(this::publishProgress, progressIntervalMs, progressIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        runner.interrupt();
+        progressPublisher.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    /**
+     * Queue a regrade of the auto-graded answers to a question in an assessment. Must run in the
+     * transaction that moved the answers to the question, so the run only starts once they are there.
+     * @return Id of the run.
+     */
+    public long enqueue(long assessmentId, long questionId, long previousQuestionId, long requestedBy) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO regrade_runs (assessment_id, question_id, previous_question_id, requested_by, status, "
+                            + "total, processed, changed, score_delta, created_at) VALUES (?, ?, ?, ?, 'QUEUED', 0, 0, 0, 0, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, assessmentId);
+            ps.setLong(2, questionId);
+            ps.setLong(3, previousQuestionId);
+            ps.setLong(4, requestedBy);
+            ps.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+            return ps;
+        }, keys);
+        return keys.getKey().longValue();
+    }
+
+    /**
+     * Stream the progress of a run: a "progress" event now and on every change, until the run is
+     * DONE or FAILED.
+     * @throws IllegalArgumentException if the run is not one of the educator's.
+     */
+    public SseEmitter subscribe(Long regradeId, JwtPrincipal principal) {
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            throw new IllegalArgumentException("Only educators can follow regrades");
+        }
+        List<Long> owners = jdbcTemplate.queryForList(
+                "SELECT a.created_by FROM regrade_runs r JOIN assessments a ON a.assessment_id = r.assessment_id "
+                        + "WHERE r.regrade_id = ?",
+                Long.class, regradeId);
+        if (owners.isEmpty() || !principal.getUserId().equals(owners.get(0))) {
+            throw new IllegalArgumentException("Regrade not found");
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Runnable remove = () -> unsubscribe(regradeId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        RegradeProgress progress = loadProgress(List.of(regradeId)).get(0);
+        if (!send(emitter, progress)) {
+            return emitter;
+        }
+        if (isFinished(progress)) {
+            emitter.complete();
+        } else {
+            subscribers.computeIfAbsent(regradeId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        }
+        return emitter;
+    }
+
+    private void unsubscribe(Long regradeId, SseEmitter emitter) {
+        subscribers.computeIfPresent(regradeId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    // One query for every watched run; sends the runs whose progress changed since the last tick
+    private void publishProgress() {
+        try {
+            lastSent.keySet().retainAll(subscribers.keySet());
+            if (subscribers.isEmpty()) {
+                return;
+            }
+            for (RegradeProgress progress : loadProgress(new ArrayList<>(subscribers.keySet()))) {
+                if (progress.equals(lastSent.put(progress.getRegradeId(), progress))) {
+                    continue;
+                }
+                List<SseEmitter> emitters = subscribers.getOrDefault(progress.getRegradeId(), List.of());
+                for (SseEmitter emitter : emitters) {
+                    if (send(emitter, progress) && isFinished(progress)) {
+                        emitter.complete();
+                    }
+                }
+                if (isFinished(progress)) {
+                    subscribers.remove(progress.getRegradeId());
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Publishing regrade progress failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean send(SseEmitter emitter, RegradeProgress progress) {
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(progress));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the completion callback unsubscribes it
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static boolean isFinished(RegradeProgress progress) {
+        return progress.getStatus() == RegradeStatus.DONE || progress.getStatus() == RegradeStatus.FAILED;
+    }
+
+    private List<RegradeProgress> loadProgress(Collection<Long> regradeIds) {
+        return namedParameterJdbcTemplate.query(
+                "SELECT regrade_id, assessment_id, question_id, status, total, processed, changed, score_delta, error, finished_at "
+                        + "FROM regrade_runs WHERE regrade_id IN (:ids)",
+                new MapSqlParameterSource("ids", regradeIds), PROGRESS_MAPPER);
+    }
+
+    private void runRunner() {
+        while (running) {
+            try {
+                requeueStale();
+                if (!runNext()) {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Regrade runner failed: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Runs of a node that stopped reporting progress start over elsewhere; answers it already
+    // rescored compare equal to their new score and are skipped
+    private void requeueStale() {
+        LocalDateTime now = LocalDateTime.now();
+        int requeued = jdbcTemplate.update(
+                "UPDATE regrade_runs SET status = 'QUEUED', owner = NULL, processed = 0 "
+                        + "WHERE status = 'RUNNING' AND heartbeat_at < ?",
+                Timestamp.valueOf(now.minusNanos(TimeUnit.MILLISECONDS.toNanos(staleMs))));
+        if (requeued > 0) {
+            logger.warn("Requeued {} stalled regrade runs", requeued);
+        }
+    }
+
+    // Claims the oldest queued run and runs it to the end; false if there was none
+    private boolean runNext() {
+        String owner = UUID.randomUUID().toString();
+        int claimed = jdbcTemplate.update(
+                "UPDATE regrade_runs SET status = 'RUNNING', owner = ?, heartbeat_at = ? "
+                        + "WHERE status = 'QUEUED' ORDER BY regrade_id LIMIT 1",
+                owner, Timestamp.valueOf(LocalDateTime.now()));
+        if (claimed == 0) {
+            return false;
+        }
+        Map<String, Object> run = jdbcTemplate.queryForMap(
+                "SELECT regrade_id, assessment_id, question_id FROM regrade_runs WHERE owner = ? AND status = 'RUNNING'", owner);
+        long regradeId = ((Number) run.get("regrade_id")).longValue();
+        try {
+            regrade(regradeId, ((Number) run.get("assessment_id")).longValue(),
+                    ((Number) run.get("question_id")).longValue(), owner);
+        } catch (RuntimeException e) {
+            logger.error("Regrade {} failed: {}", regradeId, e.getMessage(), e);
+            String error = e.getMessage() != null && e.getMessage().length() > MAX_ERROR_LENGTH
+                    ? e.getMessage().substring(0, MAX_ERROR_LENGTH) : e.getMessage();
+            jdbcTemplate.update(
+                    "UPDATE regrade_runs SET status = 'FAILED', error = ?, finished_at = ? WHERE regrade_id = ? AND owner = ?",
+                    error, Timestamp.valueOf(LocalDateTime.now()), regradeId, owner);
+        }
+        return true;
+    }
+
+    private void regrade(long regradeId, long assessmentId, long questionId, String owner) {
+        long started = System.currentTimeMillis();
+        AnswerKey key = autoGradingService.compileQuestion(assessmentId, questionId);
+        if (key.size() == 0 || key.kindAt(0) == AnswerKey.MANUAL || key.kindAt(0) == AnswerKey.CODE) {
+            throw new IllegalStateException("Question " + questionId + " cannot be regraded from its answer key");
+        }
+        Integer total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM submission_answers sa JOIN submissions s ON s.submission_id = sa.submission_id "
+                        + "WHERE s.assessment_id = ? AND sa.question_id = ? AND sa.status = 'GRADED' AND sa.is_auto_graded = true",
+                Integer.class, assessmentId, questionId);
+        jdbcTemplate.update("UPDATE regrade_runs SET total = ?, heartbeat_at = ? WHERE regrade_id = ? AND owner = ?",
+                total, Timestamp.valueOf(LocalDateTime.now()), regradeId, owner);
+
+        long afterId = 0;
+        while (true) {
+            RegradePage page = loadPage(assessmentId, questionId, afterId);
+            if (page.size == 0) {
+                break;
+            }
+            autoGradingService.scoreAll(key, page.questionIds, page.answerTexts, page.scores, page.size);
+            transactionTemplate.executeWithoutResult(status -> writePage(regradeId, owner, page));
+            afterId = page.answerIds[page.size - 1];
+            if (page.size < pageSize) {
+                break;
+            }
+        }
+        jdbcTemplate.update(
+                "UPDATE regrade_runs SET status = 'DONE', finished_at = ? WHERE regrade_id = ? AND owner = ?",
+                Timestamp.valueOf(LocalDateTime.now()), regradeId, owner);
+        logger.info("Regrade {} of question {} in assessment {} finished in {} ms",
+                regradeId, questionId, assessmentId, System.currentTimeMillis() - started);
+        // Changed scores cannot be taken out of the stored sketches, and the answers now belong to
+        // the corrected question's id
+        try {
+            scoreStatisticsService.rebuild(assessmentId);
+        } catch (RuntimeException e) {
+            logger.warn("Rebuilding score statistics of assessment {} failed: {}", assessmentId, e.getMessage());
+        }
+    }
+
+    // Auto-graded answers of the question with their automatic score; manual scores are left alone
+    private RegradePage loadPage(long assessmentId, long questionId, long afterId) {
+        RegradePage page = new RegradePage(pageSize);
+        jdbcTemplate.query(
+                "SELECT sa.submission_answer_id, sa.submission_id, sa.answer_text, sc.answer_score_id, sc.score "
+                        + "FROM submission_answers sa "
+                        + "JOIN submissions s ON s.submission_id = sa.submission_id "
+                        + "JOIN answer_scores sc ON sc.submission_answer_id = sa.submission_answer_id AND sc.graded_by IS NULL "
+                        + "WHERE s.assessment_id = ? AND sa.question_id = ? AND sa.status = 'GRADED' AND sa.is_auto_graded = true "
+                        + "AND sa.submission_answer_id > ? ORDER BY sa.submission_answer_id LIMIT ?",
+                rs -> {
+                    int i = page.size++;
+                    page.answerIds[i] = rs.getLong(1);
+                    page.submissionIds[i] = rs.getLong(2);
+                    page.questionIds[i] = questionId;
+                    page.answerTexts[i] = rs.getString(3);
+                    page.scoreIds[i] = rs.getLong(4);
+                    page.oldScores[i] = rs.getDouble(5);
+                },
+                assessmentId, questionId, afterId, pageSize);
+        return page;
+    }
+
+    // One transaction: lock the submissions with changed answers in id order (as the graders do),
+    // update the changed scores, move each total by its delta and record the progress
+    private void writePage(long regradeId, String owner, RegradePage page) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Integer> changedIndexes = new ArrayList<>();
+        Map<Long, Double> deltas = new TreeMap<>();
+        for (int i = 0; i < page.size; i++) {
+            if (!Double.isNaN(page.scores[i]) && page.scores[i] != page.oldScores[i]) {
+                changedIndexes.add(i);
+                deltas.putIfAbsent(page.submissionIds[i], 0.0);
+            }
+        }
+        List<Long> lockOrder = new ArrayList<>(deltas.keySet());
+        for (int i = 0; i < lockOrder.size(); i += LOCK_BATCH_SIZE) {
+            namedParameterJdbcTemplate.queryForList(
+                    "SELECT submission_id FROM submissions WHERE submission_id IN (:ids) ORDER BY submission_id FOR UPDATE",
+                    new MapSqlParameterSource("ids", lockOrder.subList(i, Math.min(lockOrder.size(), i + LOCK_BATCH_SIZE))),
+                    Long.class);
+        }
+
+        List<Object[]> updates = new ArrayList<>(changedIndexes.size());
+        for (int i : changedIndexes) {
+            updates.add(new Object[] {page.scores[i], now, page.scoreIds[i], page.oldScores[i], page.questionIds[i]});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(
+                "UPDATE answer_scores sc JOIN submission_answers sa ON sa.submission_answer_id = sc.submission_answer_id "
+                        + "SET sc.score = ?, sc.updated_at = ? "
+                        + "WHERE sc.answer_score_id = ? AND sc.score = ? AND sa.question_id = ?",
+                updates);
+        int changed = 0;
+        double pageDelta = 0;
+        for (int c = 0; c < counts.length; c++) {
+            // Rescored or regraded by someone else since the page was read
+            if (counts[c] == 0) {
+                continue;
+            }
+            int i = changedIndexes.get(c);
+            double delta = page.scores[i] - page.oldScores[i];
+            deltas.merge(page.submissionIds[i], delta, Double::sum);
+            pageDelta += delta;
+            changed++;
+        }
+
+        List<Object[]> totals = new ArrayList<>(deltas.size());
+        deltas.forEach((submissionId, delta) -> {
+            if (delta != 0) {
+                totals.add(new Object[] {delta, now, submissionId});
+            }
+        });
+        jdbcTemplate.batchUpdate(
+                "UPDATE submissions SET total_score = COALESCE(total_score, 0) + ?, updated_at = ? WHERE submission_id = ?",
+                totals);
+        int recorded = jdbcTemplate.update(
+                "UPDATE regrade_runs SET processed = processed + ?, changed = changed + ?, score_delta = score_delta + ?, "
+                        + "heartbeat_at = ? WHERE regrade_id = ? AND owner = ? AND status = 'RUNNING'",
+                page.size, changed, pageDelta, now, regradeId, owner);
+        // Requeued while this node stalled; the new owner redoes the page, so this one must not commit
+        if (recorded == 0) {
+            throw new IllegalStateException("Regrade " + regradeId + " is no longer owned by this node");
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.project.api.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Mergeable summary of a stream of scores: count, mean and variance by Welford's method (merged
+// with Chan's formula), min and max, and a merging t-digest for quantiles and histograms. The
+// digest keeps centroids (mean, weight) sorted by mean; new scores are buffered and folded in with
+// one sorted merge, and a centroid may only grow while it spans at most one unit of the scale
+// k(q) = compression / (2 pi) * asin(2q - 1), so centroids near the tails stay small (single
+// scores for small classes) and about compression centroids remain in total. Values can only be
+// added; a changed score is handled by rebuilding the sketch. Not thread-safe.
+public final class ScoreSketch {
+
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final double compression;
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    // Centroids, sorted by mean
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+
+    // Scores not yet folded into the centroids
+    private final double[] buffer;
+    private int buffered;
+
+    public ScoreSketch() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public ScoreSketch(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("Compression must be at least 10");
+        }
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression) * 2 + 10;
+        means = new double[capacity];
+        weights = new double[capacity];
+        buffer = new double[(int) Math.ceil(compression) * 5];
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Score must be a finite number");
+        }
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+        buffer[buffered++] = value;
+        if (buffered == buffer.length) {
+            foldBuffer();
+        }
+    }
+
+    /**
+     * Add everything another sketch has seen. The result is the same summary (up to the digest's
+     * approximation) as if all scores had been added to one sketch.
+     */
+    public void merge(ScoreSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        other.foldBuffer();
+        foldBuffer();
+        if (count == 0) {
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+        } else {
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        count += other.count;
+        compress(other.means, other.weights, other.centroids);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    // Population standard deviation: the scores are the whole class, not a sample of it
+    public double getStandardDeviation() {
+        return count == 0 ? Double.NaN : Math.sqrt(m2 / count);
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Estimated q-quantile, 0 <= q <= 1. Exact while every centroid holds a single score.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        foldBuffer();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q == 0) {
+            return min;
+        }
+        if (q == 1) {
+            return max;
+        }
+        double index = q * count;
+        double cumulative = 0;
+        for (int i = 0; i < centroids; i++) {
+            if (index < cumulative + weights[i]) {
+                if (weights[i] == 1) {
+                    return means[i];
+                }
+                double left = leftEdge(i);
+                return left + (rightEdge(i) - left) * (index - cumulative) / weights[i];
+            }
+            cumulative += weights[i];
+        }
+        return max;
+    }
+
+    /**
+     * Estimated number of scores below value; a centroid holding several scores is taken as spread
+     * evenly between the midpoints to its neighbours.
+     */
+    public double countBelow(double value) {
+        foldBuffer();
+        if (count == 0 || value <= min) {
+            return 0;
+        }
+        if (value > max) {
+            return count;
+        }
+        double below = 0;
+        for (int i = 0; i < centroids; i++) {
+            if (weights[i] == 1) {
+                if (means[i] < value) {
+                    below++;
+                }
+                continue;
+            }
+            double left = leftEdge(i);
+            double right = rightEdge(i);
+            if (value >= right) {
+                below += weights[i];
+            } else if (value > left) {
+                below += weights[i] * (value - left) / (right - left);
+            }
+        }
+        return below;
+    }
+
+    /**
+     * Histogram of bins equal-width bins over [from, to]; the last bin includes to.
+     */
+    public long[] histogram(double from, double to, int bins) {
+        long[] counts = new long[bins];
+        double width = (to - from) / bins;
+        long previous = Math.round(countBelow(from));
+        for (int b = 0; b < bins; b++) {
+            long upTo = Math.round(countBelow(b == bins - 1 ? Math.nextUp(to) : from + width * (b + 1)));
+            counts[b] = Math.max(0, upTo - previous);
+            previous = upTo;
+        }
+        return counts;
+    }
+
+    // Sum of squared deviations from the mean, the Welford state kept with the count and mean
+    public double getSumOfSquares() {
+        return m2;
+    }
+
+    /**
+     * Rebuild a sketch from its stored parts (see getSumOfSquares and digestBytes).
+     */
+    public static ScoreSketch restore(long count, double mean, double m2, double min, double max, byte[] digest) {
+        ByteBuffer in = ByteBuffer.wrap(digest);
+        if (in.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown score digest format");
+        }
+        ScoreSketch sketch = new ScoreSketch(in.getDouble());
+        int centroids = in.getInt();
+        if (centroids > sketch.means.length) {
+            sketch.means = new double[centroids];
+            sketch.weights = new double[centroids];
+        }
+        for (int i = 0; i < centroids; i++) {
+            sketch.means[i] = in.getDouble();
+            sketch.weights[i] = in.getDouble();
+        }
+        sketch.centroids = centroids;
+        sketch.count = count;
+        sketch.mean = mean;
+        sketch.m2 = m2;
+        sketch.min = count == 0 ? Double.NaN : min;
+        sketch.max = count == 0 ? Double.NaN : max;
+        return sketch;
+    }
+
+    // Compression and centroids; the Welford state is stored in columns of its own
+    public byte[] digestBytes() {
+        foldBuffer();
+        ByteBuffer out = ByteBuffer.allocate(1 + 8 + 4 + centroids * 16);
+        out.put(FORMAT_VERSION).putDouble(compression).putInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            out.putDouble(means[i]).putDouble(weights[i]);
+        }
+        return out.array();
+    }
+
+    private double leftEdge(int i) {
+        return i == 0 ? min : (means[i - 1] + means[i]) / 2;
+    }
+
+    private double rightEdge(int i) {
+        return i == centroids - 1 ? max : (means[i] + means[i + 1]) / 2;
+    }
+
+    private void foldBuffer() {
+        if (buffered == 0) {
+            return;
+        }
+        Arrays.sort(buffer, 0, buffered);
+        double[] ones = new double[buffered];
+        Arrays.fill(ones, 1);
+        int added = buffered;
+        buffered = 0;
+        compress(Arrays.copyOf(buffer, added), ones, added);
+    }
+
+    // Merges the sorted centroids with the given sorted points, then recombines neighbours as far
+    // as the scale function allows
+    private void compress(double[] otherMeans, double[] otherWeights, int others) {
+        int size = centroids + others;
+        double[] mergedMeans = new double[size];
+        double[] mergedWeights = new double[size];
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < size; i++) {
+            if (b >= others || (a < centroids && means[a] <= otherMeans[b])) {
+                mergedMeans[i] = means[a];
+                mergedWeights[i] = weights[a++];
+            } else {
+                mergedMeans[i] = otherMeans[b];
+                mergedWeights[i] = otherWeights[b++];
+            }
+        }
+
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += mergedWeights[i];
+        }
+        if (means.length < size) {
+            means = new double[size];
+            weights = new double[size];
+        }
+        int out = 0;
+        double before = 0;
+        double currentMean = mergedMeans[0];
+        double currentWeight = mergedWeights[0];
+        for (int i = 1; i < size; i++) {
+            double proposed = currentWeight + mergedWeights[i];
+            if (scale((before + proposed) / total) - scale(before / total) <= 1) {
+                currentMean += (mergedMeans[i] - currentMean) * mergedWeights[i] / proposed;
+                currentWeight = proposed;
+            } else {
+                means[out] = currentMean;
+                weights[out++] = currentWeight;
+                before += currentWeight;
+                currentMean = mergedMeans[i];
+                currentWeight = mergedWeights[i];
+            }
+        }
+        means[out] = currentMean;
+        weights[out++] = currentWeight;
+        centroids = out;
+    }
+
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+}
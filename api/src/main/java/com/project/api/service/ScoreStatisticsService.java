@@ -0,0 +1,384 @@
+package com.project.api.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.AssessmentStatistics;
+import com.project.api.model.UserRole;
+import com.project.api.service.LeaseService.Lease;
+
+import jakarta.annotation.PreDestroy;
+
+// Per-assessment score statistics kept up to date as scores are written. The graders collect the
+// scores of a transaction in a Batch and record it after commit: each answer score goes to its
+// question's sketch and each submission total to the assessment's (question 0) once the
+// submission is GRADED. Every node buffers them in ScoreSketches per assessment and question and
+// merges the buffers into the score_statistics rows every flush interval, so nodes never
+// overwrite each other and a dashboard read is one indexed query. A rebuild recomputes an
+// assessment's rows from the stored scores; it replaces merging after a regrade (sketches only
+// add) and fills in assessments scored before the statistics existed.
+// Each assessment has an epoch in score_statistics_epochs. A scoring transaction holds the row in
+// share mode and stamps its batch with the epoch; a rebuild increments it and reads the scores
+// while holding it exclusively. So every score of an older epoch committed before the rebuild read
+// and is in the rebuilt rows, every score of the current one is not, and buffered scores of an
+// older epoch are dropped at the next flush instead of being merged twice.
+@Service
+public class ScoreStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoreStatisticsService.class);
+
+    private static final String BACKFILL_JOB_NAME = "score-statistics-backfill";
+
+    // question_id of an assessment's submission totals
+    public static final long TOTALS = 0;
+
+    // Submissions per rebuild query
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private static final double[] PERCENTILES = {0.10, 0.25, 0.50, 0.75, 0.90};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LeaseService leaseService;
+
+    @Value("${statistics.compression:100}")
+    private double compression;
+
+    @Value("${statistics.histogram-bins:10}")
+    private int histogramBins;
+
+    private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+
+    private record Key(long assessmentId, long questionId) {
+    }
+
+    // Scores of one epoch this node recorded since its last flush of a key
+    private static final class Pending {
+        final ScoreSketch sketch;
+        final long epoch;
+
+        Pending(ScoreSketch sketch, long epoch) {
+            this.sketch = sketch;
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * Scores written by one transaction, recorded once it committed. The transaction must call
+     * lockEpoch for each assessment it scores, before it locks anything else.
+     */
+    public static final class Batch {
+        private final Map<Long, Long> epochs = new HashMap<>();
+        private final List<Key> keys = new ArrayList<>();
+        private final List<Double> scores = new ArrayList<>();
+
+        public void answer(long assessmentId, long questionId, double score) {
+            keys.add(new Key(assessmentId, questionId));
+            scores.add(score);
+        }
+
+        // Total of a submission that just became GRADED
+        public void total(long assessmentId, double totalScore) {
+            keys.add(new Key(assessmentId, TOTALS));
+            scores.add(totalScore);
+        }
+    }
+
+    /**
+     * Hold the assessment's statistics epoch in share mode until the transaction ends and stamp
+     * the batch with it, so a rebuild either waits for this transaction or is seen by it. Must run
+     * in the transaction writing the scores.
+     */
+    public void lockEpoch(Batch batch, long assessmentId) {
+        jdbcTemplate.update("INSERT IGNORE INTO score_statistics_epochs (assessment_id, epoch) VALUES (?, 0)", assessmentId);
+        Long epoch = jdbcTemplate.queryForObject(
+                "SELECT epoch FROM score_statistics_epochs WHERE assessment_id = ? FOR SHARE", Long.class, assessmentId);
+        batch.epochs.put(assessmentId, epoch);
+    }
+
+    /**
+     * Buffer the scores of a committed transaction; they reach the stored statistics with the next flush.
+     */
+    public void record(Batch batch) {
+        for (int i = 0; i < batch.keys.size(); i++) {
+            double score = batch.scores.get(i);
+            Key scored = batch.keys.get(i);
+            Long epoch = batch.epochs.get(scored.assessmentId());
+            if (epoch == null) {
+                logger.warn("Score of assessment {} recorded without its statistics epoch, left to the next rebuild",
+                        scored.assessmentId());
+                continue;
+            }
+            pending.compute(scored, (key, buffered) -> {
+                // Scores of an older epoch are in the rebuilt rows already
+                if (buffered != null && buffered.epoch > epoch) {
+                    return buffered;
+                }
+                Pending result = buffered != null && buffered.epoch == epoch ? buffered : new Pending(new ScoreSketch(compression), epoch);
+                result.sketch.add(score);
+                return result;
+            });
+        }
+    }
+
+    // Merges each buffered sketch into its row under a row lock; a sketch whose merge failed is
+    // put back for the next flush
+    @Scheduled(fixedDelayString = "${statistics.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        for (Key key : new ArrayList<>(pending.keySet())) {
+            Pending buffered = pending.remove(key);
+            if (buffered == null) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> mergeInto(key, buffered));
+            } catch (RuntimeException e) {
+                logger.warn("Merging score statistics of assessment {} question {} failed: {}",
+                        key.assessmentId(), key.questionId(), e.getMessage());
+                pending.merge(key, buffered, (current, failed) -> {
+                    if (current.epoch != failed.epoch) {
+                        return current.epoch > failed.epoch ? current : failed;
+                    }
+                    failed.sketch.merge(current.sketch);
+                    return failed;
+                });
+            }
+        }
+    }
+
+    // Locks the epoch before the row, in the order a rebuild does
+    private void mergeInto(Key key, Pending buffered) {
+        List<Long> epochs = jdbcTemplate.queryForList(
+                "SELECT epoch FROM score_statistics_epochs WHERE assessment_id = ? FOR SHARE", Long.class, key.assessmentId());
+        // Rebuilt since these scores committed, and they are in the rebuilt rows
+        if (!epochs.isEmpty() && buffered.epoch < epochs.get(0)) {
+            return;
+        }
+        jdbcTemplate.update(
+                "INSERT IGNORE INTO score_statistics (assessment_id, question_id, score_count, mean, sum_of_squares, updated_at) "
+                        + "VALUES (?, ?, 0, 0, 0, ?)",
+                key.assessmentId(), key.questionId(), Timestamp.valueOf(LocalDateTime.now()));
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT score_count, mean, sum_of_squares, min_score, max_score, digest FROM score_statistics "
+                        + "WHERE assessment_id = ? AND question_id = ? FOR UPDATE",
+                key.assessmentId(), key.questionId());
+        ScoreSketch stored = toSketch(row);
+        stored.merge(buffered.sketch);
+        write(key, stored, false);
+    }
+
+    /**
+     * Recompute an assessment's statistics from its stored scores and replace its rows, in one
+     * transaction that holds the assessment's epoch: scoring transactions of the assessment wait
+     * for it. Scores buffered by any node before the rebuild are dropped at the next flush instead
+     * of being merged again.
+     */
+    public void rebuild(long assessmentId) {
+        ScoreSketch totals = new ScoreSketch(compression);
+        Map<Long, ScoreSketch> questions = new TreeMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(
+                    "INSERT INTO score_statistics_epochs (assessment_id, epoch) VALUES (?, 1) "
+                            + "ON DUPLICATE KEY UPDATE epoch = epoch + 1",
+                    assessmentId);
+            read(assessmentId, totals, questions);
+            jdbcTemplate.update("DELETE FROM score_statistics WHERE assessment_id = ?", assessmentId);
+            write(new Key(assessmentId, TOTALS), totals, true);
+            questions.forEach((questionId, sketch) -> write(new Key(assessmentId, questionId), sketch, true));
+        });
+        logger.info("Rebuilt score statistics of assessment {}: {} graded submissions, {} questions",
+                assessmentId, totals.getCount(), questions.size());
+    }
+
+    // Every graded total and answer score of the assessment
+    private void read(long assessmentId, ScoreSketch totals, Map<Long, ScoreSketch> questions) {
+        long afterId = 0;
+        while (true) {
+            List<Map<String, Object>> submissions = jdbcTemplate.queryForList(
+                    "SELECT submission_id, status, total_score FROM submissions WHERE assessment_id = ? AND submission_id > ? "
+                            + "ORDER BY submission_id LIMIT ?",
+                    assessmentId, afterId, REBUILD_PAGE_SIZE);
+            if (submissions.isEmpty()) {
+                break;
+            }
+            List<Long> ids = new ArrayList<>(submissions.size());
+            for (Map<String, Object> submission : submissions) {
+                ids.add(((Number) submission.get("submission_id")).longValue());
+                if ("GRADED".equals(submission.get("status")) && submission.get("total_score") != null) {
+                    totals.add(((Number) submission.get("total_score")).doubleValue());
+                }
+            }
+            namedParameterJdbcTemplate.query(
+                    "SELECT sa.question_id, sc.score FROM submission_answers sa "
+                            + "JOIN answer_scores sc ON sc.submission_answer_id = sa.submission_answer_id "
+                            + "WHERE sa.submission_id IN (:ids)",
+                    new MapSqlParameterSource("ids", ids),
+                    rs -> {
+                        questions.computeIfAbsent(rs.getLong(1), id -> new ScoreSketch(compression)).add(rs.getDouble(2));
+                    });
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    /**
+     * Rebuild the statistics of one of the educator's assessments.
+     * @throws IllegalArgumentException if the assessment is not the educator's.
+     */
+    public void rebuild(Long assessmentId, JwtPrincipal principal) {
+        requireOwner(assessmentId, principal);
+        rebuild(assessmentId.longValue());
+    }
+
+    // Assessments with submissions but no rebuilt totals row (scored before the statistics
+    // existed) are rebuilt once per startup on the node holding the backfill lease
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Lease lease = leaseService.tryAcquire(BACKFILL_JOB_NAME);
+        if (lease == null) {
+            return;
+        }
+        try {
+            List<Long> assessmentIds = jdbcTemplate.queryForList(
+                    "SELECT a.assessment_id FROM assessments a "
+                            + "WHERE EXISTS (SELECT 1 FROM submissions s WHERE s.assessment_id = a.assessment_id) "
+                            + "AND NOT EXISTS (SELECT 1 FROM score_statistics st WHERE st.assessment_id = a.assessment_id "
+                            + "AND st.question_id = 0 AND st.rebuilt_at IS NOT NULL)",
+                    Long.class);
+            for (Long assessmentId : assessmentIds) {
+                rebuild(assessmentId.longValue());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Score statistics backfill failed: {}", e.getMessage(), e);
+        } finally {
+            leaseService.release(lease);
+        }
+    }
+
+    /**
+     * Statistics of one of the educator's assessments: submission totals and each linked question.
+     * Histograms span 0 to the maximum score (wider if scores fall outside it).
+     * @throws IllegalArgumentException if the assessment is not the educator's.
+     */
+    public AssessmentStatistics getStatistics(Long assessmentId, JwtPrincipal principal) {
+        requireOwner(assessmentId, principal);
+        Map<Long, Double> maxScores = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT q.question_id, q.max_score FROM assessment_questions l JOIN questions q ON q.question_id = l.question_id "
+                        + "WHERE l.assessment_id = ? ORDER BY l.sort_order, q.question_id",
+                rs -> {
+                    maxScores.put(rs.getLong(1), rs.getObject(2) != null ? rs.getDouble(2) : 1.0);
+                },
+                assessmentId);
+        Map<Long, ScoreSketch> sketches = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT question_id, score_count, mean, sum_of_squares, min_score, max_score, digest FROM score_statistics "
+                        + "WHERE assessment_id = ?",
+                rs -> {
+                    Map<String, Object> row = new HashMap<>();
+                    for (String column : List.of("score_count", "mean", "sum_of_squares", "min_score", "max_score", "digest")) {
+                        row.put(column, rs.getObject(column));
+                    }
+                    sketches.put(rs.getLong("question_id"), toSketch(row));
+                },
+                assessmentId);
+
+        double totalMax = maxScores.values().stream().mapToDouble(Double::doubleValue).sum();
+        AssessmentStatistics.Summary totals = summarize(null, sketches.getOrDefault(TOTALS, new ScoreSketch(compression)), totalMax);
+        List<AssessmentStatistics.Summary> questions = new ArrayList<>(maxScores.size());
+        maxScores.forEach((questionId, maxScore) -> questions.add(
+                summarize(questionId, sketches.getOrDefault(questionId, new ScoreSketch(compression)), maxScore)));
+        return new AssessmentStatistics(assessmentId, totals, questions);
+    }
+
+    private AssessmentStatistics.Summary summarize(Long questionId, ScoreSketch sketch, double maxScore) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        List<AssessmentStatistics.Bin> histogram = new ArrayList<>(histogramBins);
+        if (sketch.getCount() > 0) {
+            for (double q : PERCENTILES) {
+                percentiles.put("p" + Math.round(q * 100), sketch.quantile(q));
+            }
+            double from = Math.min(0, sketch.getMin());
+            double to = Math.max(maxScore, sketch.getMax());
+            if (to <= from) {
+                to = from + 1;
+            }
+            long[] counts = sketch.histogram(from, to, histogramBins);
+            double width = (to - from) / histogramBins;
+            for (int b = 0; b < histogramBins; b++) {
+                histogram.add(new AssessmentStatistics.Bin(from + width * b, b == histogramBins - 1 ? to : from + width * (b + 1), counts[b]));
+            }
+        }
+        return new AssessmentStatistics.Summary(questionId, sketch.getCount(), nullIfNaN(sketch.getMean()),
+                nullIfNaN(sketch.getStandardDeviation()), nullIfNaN(sketch.getMin()), nullIfNaN(sketch.getMax()),
+                maxScore, percentiles, histogram);
+    }
+
+    private void requireOwner(Long assessmentId, JwtPrincipal principal) {
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            throw new IllegalArgumentException("Only educators can view score statistics");
+        }
+        List<Long> owners = jdbcTemplate.queryForList(
+                "SELECT created_by FROM assessments WHERE assessment_id = ?", Long.class, assessmentId);
+        if (owners.isEmpty() || !principal.getUserId().equals(owners.get(0))) {
+            throw new IllegalArgumentException("Assessment not found");
+        }
+    }
+
+    // Inserts or replaces the row of a key; rebuilt_at (database time) is kept unless a rebuild writes it
+    private void write(Key key, ScoreSketch sketch, boolean rebuilt) {
+        boolean empty = sketch.getCount() == 0;
+        jdbcTemplate.update(
+                "INSERT INTO score_statistics (assessment_id, question_id, score_count, mean, sum_of_squares, min_score, max_score, "
+                        + "digest, rebuilt_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, IF(?, NOW(6), NULL), ?) "
+                        + "ON DUPLICATE KEY UPDATE score_count = VALUES(score_count), mean = VALUES(mean), "
+                        + "sum_of_squares = VALUES(sum_of_squares), min_score = VALUES(min_score), max_score = VALUES(max_score), "
+                        + "digest = VALUES(digest), rebuilt_at = COALESCE(VALUES(rebuilt_at), rebuilt_at), updated_at = VALUES(updated_at)",
+                key.assessmentId(), key.questionId(), sketch.getCount(), empty ? 0 : sketch.getMean(),
+                sketch.getSumOfSquares(), empty ? null : sketch.getMin(), empty ? null : sketch.getMax(),
+                sketch.digestBytes(), rebuilt, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private ScoreSketch toSketch(Map<String, Object> row) {
+        long count = ((Number) row.get("score_count")).longValue();
+        if (count == 0 || row.get("digest") == null) {
+            return new ScoreSketch(compression);
+        }
+        return ScoreSketch.restore(count, ((Number) row.get("mean")).doubleValue(),
+                ((Number) row.get("sum_of_squares")).doubleValue(), ((Number) row.get("min_score")).doubleValue(),
+                ((Number) row.get("max_score")).doubleValue(), (byte[]) row.get("digest"));
+    }
+
+    private static Double nullIfNaN(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
@@ -0,0 +1,314 @@
+package com.project.api.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.StudentImportResult;
+import com.project.api.dto.StudentImportRow;
+import com.project.api.model.Class;
+import com.project.api.model.UserRole;
+import com.project.api.repository.ClassRepository;
+import com.project.api.repository.UserRepository;
+import com.project.api.util.CsvReader;
+
+// Bulk student onboarding. Rows are streamed from CSV or JSON and processed in chunks: one IN
+// query finds already-registered emails, passwords are hashed in parallel, and users, students
+// and (optionally) class enrolments are written with JDBC batches in one transaction per chunk.
+// Invalid rows are reported individually and never abort the rest of the file.
+@Service
+public class StudentRosterImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentRosterImportService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${import.roster.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Import students from a CSV (header: email,name,password) or JSON (array or stream of objects) upload.
+     * @param in The uploaded content.
+     * @param csv true for CSV, false for JSON.
+     * @param classId Optional class owned by the educator to enrol imported students into.
+     * @param principal The educator running the import.
+     * @return Counts plus one error entry per rejected row.
+     */
+    public StudentImportResult importStudents(InputStream in, boolean csv, Long classId, JwtPrincipal principal) throws IOException {
+        if (!principal.hasRole(UserRole.EDUCATOR) || principal.getUserId() == null) {
+            logger.error("User {} is not an educator or does not exist", principal.getEmail());
+            throw new IllegalArgumentException("Only educators can import students");
+        }
+        if (classId != null) {
+            Optional<Class> classOpt = classRepository.findById(classId);
+            if (classOpt.isEmpty()) {
+                throw new IllegalArgumentException("Class not found");
+            }
+            if (!classOpt.get().getCreatedBy().getUserId().equals(principal.getUserId())) {
+                logger.error("Educator {} is not authorized to import into class {}", principal.getEmail(), classId);
+                throw new IllegalArgumentException("You are not authorized to import students into this class");
+            }
+        }
+
+        logger.info("Starting student import by educator: {} (format={}, classId={})", principal.getEmail(), csv ? "csv" : "json", classId);
+        StudentImportResult result = new StudentImportResult();
+        Set<String> seenEmails = new HashSet<>();
+        List<StudentImportRow> chunk = new ArrayList<>(chunkSize);
+
+        RowSource source = csv ? csvRows(in) : jsonRows(in);
+        StudentImportRow row;
+        while ((row = source.next()) != null) {
+            result.setTotalRows(result.getTotalRows() + 1);
+            String error = row.getError() != null ? row.getError() : validateRow(row, seenEmails);
+            if (error != null) {
+                result.addError(row.getRowNumber(), row.getEmail(), error);
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() >= chunkSize) {
+                processChunk(chunk, classId, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, classId, result);
+        }
+
+        logger.info("Student import finished: total={}, imported={}, failed={}", result.getTotalRows(), result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private String validateRow(StudentImportRow row, Set<String> seenEmails) {
+        if (row.getEmail() == null || !UserService.EMAIL_PATTERN.matcher(row.getEmail()).matches()) {
+            return "Invalid email format";
+        }
+        if (row.getName() == null || row.getName().trim().isEmpty()) {
+            return "Name is required";
+        }
+        if (row.getName().length() > 255) {
+            return "Name must not exceed 255 characters";
+        }
+        if (row.getPassword() == null || !UserService.PASSWORD_PATTERN.matcher(row.getPassword()).matches()) {
+            return "Password must be at least 8 characters long and contain at least one uppercase letter, one lowercase letter, one number, and one special character";
+        }
+        if (!seenEmails.add(row.getEmail().toLowerCase(Locale.ROOT))) {
+            return "Duplicate email in import file";
+        }
+        return null;
+    }
+
+    private void processChunk(List<StudentImportRow> chunk, Long classId, StudentImportResult result) {
+        List<String> emails = new ArrayList<>(chunk.size());
+        for (StudentImportRow row : chunk) {
+            emails.add(row.getEmail());
+        }
+        Set<String> existing = new HashSet<>();
+        for (String email : userRepository.findExistingEmails(emails)) {
+            existing.add(email.toLowerCase(Locale.ROOT));
+        }
+
+        List<StudentImportRow> fresh = new ArrayList<>(chunk.size());
+        for (StudentImportRow row : chunk) {
+            if (existing.contains(row.getEmail().toLowerCase(Locale.ROOT))) {
+                result.addError(row.getRowNumber(), row.getEmail(), "Email is already registered");
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        List<String> passwords = new ArrayList<>(fresh.size());
+        for (StudentImportRow row : fresh) {
+            passwords.add(row.getPassword());
+        }
+        List<String> hashes = passwordHashingService.encodeAll(passwords);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertRows(fresh, hashes, classId));
+            result.setImported(result.getImported() + fresh.size());
+        } catch (DataAccessException e) {
+            // Usually a concurrent registration of one of the emails: retry row by row so only the offender fails
+            logger.warn("Batch insert of {} students failed ({}), retrying rows individually", fresh.size(), e.getMessage());
+            for (int i = 0; i < fresh.size(); i++) {
+                StudentImportRow row = fresh.get(i);
+                String hash = hashes.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertRows(List.of(row), List.of(hash), classId));
+                    result.setImported(result.getImported() + 1);
+                } catch (DataAccessException rowError) {
+                    result.addError(row.getRowNumber(), row.getEmail(), "Could not be saved: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private void insertRows(List<StudentImportRow> rows, List<String> hashes, Long classId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> userArgs = new ArrayList<>(rows.size());
+        List<String> emails = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            StudentImportRow row = rows.get(i);
+            userArgs.add(new Object[] {row.getEmail(), hashes.get(i), row.getName().trim(), UserRole.STUDENT.name(), now, now});
+            emails.add(row.getEmail());
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (email, password, name, role, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)",
+                userArgs);
+
+        Map<String, Long> userIds = new HashMap<>();
+        namedParameterJdbcTemplate.query(
+                "SELECT user_id, email FROM users WHERE email IN (:emails)",
+                new MapSqlParameterSource("emails", emails),
+                rs -> {
+                    userIds.put(rs.getString("email"), rs.getLong("user_id"));
+                });
+
+        List<Object[]> studentArgs = new ArrayList<>(rows.size());
+        for (Long userId : userIds.values()) {
+            studentArgs.add(new Object[] {userId, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO students (user_id, created_at, updated_at) VALUES (?, ?, ?)", studentArgs);
+
+        if (classId != null) {
+            namedParameterJdbcTemplate.update(
+                    "INSERT INTO class_students (class_id, student_id) "
+                            + "SELECT :classId, s.student_id FROM students s WHERE s.user_id IN (:userIds)",
+                    new MapSqlParameterSource("classId", classId).addValue("userIds", userIds.values()));
+        }
+    }
+
+    // Pull-style row iterator so neither format is materialized in memory
+    private interface RowSource {
+        StudentImportRow next() throws IOException;
+    }
+
+    private RowSource csvRows(InputStream in) throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> header = reader.readRecord();
+        if (header == null) {
+            return () -> null;
+        }
+        int emailCol = -1, nameCol = -1, passwordCol = -1;
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            if (i == 0 && column.startsWith("\uFEFF")) {
+                column = column.substring(1);
+            }
+            switch (column) {
+                case "email" -> emailCol = i;
+                case "name" -> nameCol = i;
+                case "password" -> passwordCol = i;
+                default -> { }
+            }
+        }
+        if (emailCol < 0 || nameCol < 0 || passwordCol < 0) {
+            throw new IllegalArgumentException("CSV header must contain email, name and password columns");
+        }
+        final int e = emailCol, n = nameCol, p = passwordCol;
+        return () -> {
+            List<String> record;
+            long line;
+            do {
+                line = reader.getLineNumber();
+                record = reader.readRecord();
+            } while (record != null && record.size() == 1 && record.get(0).isBlank());
+            if (record == null) {
+                return null;
+            }
+            StudentImportRow row = new StudentImportRow();
+            row.setRowNumber(line);
+            row.setEmail(field(record, e));
+            row.setName(field(record, n));
+            row.setPassword(field(record, p));
+            return row;
+        };
+    }
+
+    private static String field(List<String> record, int index) {
+        if (index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Accepts a top-level JSON array or a stream of whitespace/newline separated objects
+    private RowSource jsonRows(InputStream in) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(in);
+        JsonToken first = parser.nextToken();
+        boolean array = first == JsonToken.START_ARRAY;
+        long[] counter = {0};
+        JsonToken[] pending = {array ? null : first};
+        return () -> {
+            JsonToken token = pending[0] != null ? pending[0] : parser.nextToken();
+            pending[0] = null;
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a JSON object for row " + (counter[0] + 1));
+            }
+            JsonNode node = parser.readValueAsTree();
+            StudentImportRow row;
+            try {
+                row = objectMapper.treeToValue(node, StudentImportRow.class);
+            } catch (JsonProcessingException e) {
+                row = new StudentImportRow();
+                row.setEmail(node.path("email").isTextual() ? node.path("email").asText() : null);
+                row.setError("Invalid row: " + e.getOriginalMessage());
+            }
+            row.setRowNumber(++counter[0]);
+            return row;
+        };
+    }
+}
@@ -0,0 +1,512 @@
+package com.project.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.SubmissionReceipt;
+import com.project.api.dto.SubmissionRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Accepts final submissions at deadline rates. A request is validated against the in-memory
+// delivery snapshot, appended to submission_inbox with one INSERT and acknowledged; the unique
+// keys on the inbox make client retries (same idempotency key) and second submissions cheap to
+// detect in that same statement. Worker threads drain a bounded queue of inbox ids and write
+// Submission and SubmissionAnswer rows for many students per transaction with JDBC batches.
+// Rows the queue could not take, or that a crashed node left behind, are picked up by the
+// sweep; SKIP LOCKED keeps nodes and workers from processing the same row twice. A payload may
+// name a question whose answer key was corrected after it was accepted (or by a node whose
+// snapshot was stale); its answer is written under the corrected question. A row is rejected
+// only for what a retry cannot fix (an unreadable payload, a constraint violation) or after
+// max-attempts failed writes; other failures (deadlocks, lock waits, lost connections) leave
+// it PENDING for the sweep.
+@Service
+public class SubmissionIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionIngestService.class);
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+
+    @Autowired
+    private DeliverySnapshotService deliverySnapshotService;
+
+    @Autowired
+    private QuestionLayoutService questionLayoutService;
+
+    @Autowired
+    private AnswerAutosaveService answerAutosaveService;
+
+    @Autowired
+    private GradingJobService gradingJobService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${submission.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${submission.ingest.workers:2}")
+    private int workers;
+
+    @Value("${submission.ingest.batch-size:200}")
+    private int batchSize;
+
+    @Value("${submission.ingest.linger-ms:20}")
+    private long lingerMs;
+
+    @Value("${submission.ingest.sweep-age-ms:10000}")
+    private long sweepAgeMs;
+
+    @Value("${submission.ingest.max-attempts:10}")
+    private int maxAttempts;
+
+    private BlockingQueue<Long> queue;
+
+    private final List<Thread> workerThreads = new ArrayList<>();
+
+    private volatile boolean running;
+
+    private Counter acceptedCounter;
+    private Counter duplicateCounter;
+    private Counter overflowCounter;
+    private Counter writtenCounter;
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        acceptedCounter = Counter.builder("submission.ingest.accepted")
+                .description("Submissions durably appended and acknowledged")
+                .register(meterRegistry);
+        duplicateCounter = Counter.builder("submission.ingest.duplicates")
+                .description("Retries answered from an existing inbox row")
+                .register(meterRegistry);
+        overflowCounter = Counter.builder("submission.ingest.overflow")
+                .description("Acknowledged submissions left to the sweep because the queue was full")
+                .register(meterRegistry);
+        writtenCounter = Counter.builder("submission.ingest.written")
+                .description("Inbox rows turned into submissions")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("submission.ingest.flush")
+                .description("Time to write one batch of submissions")
+                .register(meterRegistry);
+        Gauge.builder("submission.ingest.queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+
+        running = true;
+        for (int i = 1; i <= Math.max(1, workers); i++) {
+            Thread thread = new Thread(this::runWorker, "submission-writer-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workerThreads.add(thread);
+        }
+        logger.info("Submission ingest started with {} writers, queue capacity {}, batch size {}", workerThreads.size(), queueCapacity, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Queued ids are still PENDING in the inbox; the next sweep on any node writes them
+        running = false;
+        for (Thread thread : workerThreads) {
+            thread.interrupt();
+        }
+        for (Thread thread : workerThreads) {
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Accept a student's final submission. Returns once the submission is durably stored; the
+     * Submission row is written shortly after. MCQ answers given as displayed positions are
+     * stored as canonical option indexes. A request without answers submits the autosaved ones.
+     * @param idempotencyKey Client-chosen key; a retry with the same key returns the original receipt.
+     * @throws IllegalArgumentException if the request is invalid or the assessment is not open to the student.
+     * @throws IllegalStateException if the student already submitted, or the key was used for a different body.
+     */
+    public SubmissionReceipt submit(SubmissionRequest request, String idempotencyKey, JwtPrincipal principal) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("An Idempotency-Key of at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters is required");
+        }
+        if (request.getAssessmentId() == null) {
+            throw new IllegalArgumentException("assessmentId is required");
+        }
+        Long assessmentId = request.getAssessmentId();
+        DeliverySnapshotService.Snapshot snapshot = deliverySnapshotService.getForStudent(assessmentId, principal);
+        long studentId = principal.getStudentId();
+
+        // Without answers in the request the autosaved ones are submitted; either way the
+        // attempt's autosave buffer is written out first
+        Map<Long, String> answers = request.getAnswers() != null
+                ? questionLayoutService.canonicalAnswers(snapshot, studentId, request.getAnswers())
+                : answerAutosaveService.findSaved(assessmentId, studentId);
+        if (request.getAnswers() != null) {
+            answerAutosaveService.flushAttempt(assessmentId, studentId);
+        }
+        ArrayNode payload = objectMapper.createArrayNode();
+        for (Map.Entry<Long, String> answer : answers.entrySet()) {
+            payload.addObject()
+                    .put("questionId", answer.getKey())
+                    .put("answerText", answer.getValue());
+        }
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize submission", e);
+        }
+        String payloadHash = sha256(json);
+        LocalDateTime receivedAt = LocalDateTime.now();
+
+        KeyHolder key = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(
+                        "INSERT INTO submission_inbox (student_id, assessment_id, idempotency_key, payload, payload_hash, status, received_at) "
+                                + "VALUES (?, ?, ?, ?, ?, 'PENDING', ?)",
+                        Statement.RETURN_GENERATED_KEYS);
+                ps.setLong(1, studentId);
+                ps.setLong(2, assessmentId);
+                ps.setString(3, idempotencyKey);
+                ps.setString(4, json);
+                ps.setString(5, payloadHash);
+                ps.setTimestamp(6, Timestamp.valueOf(receivedAt));
+                return ps;
+            }, key);
+        } catch (DuplicateKeyException e) {
+            return existingReceipt(studentId, assessmentId, idempotencyKey, payloadHash);
+        }
+
+        Long inboxId = key.getKey().longValue();
+        answerAutosaveService.discard(assessmentId, studentId);
+        acceptedCounter.increment();
+        if (!queue.offer(inboxId)) {
+            overflowCounter.increment();
+            logger.debug("Submission queue is full, inbox row {} is left to the sweep", inboxId);
+        }
+        return new SubmissionReceipt(inboxId, assessmentId, receivedAt, false);
+    }
+
+    // Write inbox rows that were not queued (full queue, other node's crash, restart)
+    @Scheduled(fixedDelayString = "${submission.ingest.sweep-interval-ms:5000}")
+    public void sweep() {
+        while (running) {
+            LocalDateTime cutoff = LocalDateTime.now().minusNanos(sweepAgeMs * 1_000_000);
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT inbox_id FROM submission_inbox WHERE status = 'PENDING' AND received_at < ? "
+                            + "ORDER BY received_at LIMIT ?",
+                    Long.class, cutoff, batchSize);
+            if (ids.isEmpty()) {
+                return;
+            }
+            int written = flush(ids);
+            logger.info("Submission sweep wrote {} of {} pending inbox rows", written, ids.size());
+            // Rows another worker holds locked are skipped; stop rather than spin on them
+            if (written == 0 || ids.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private SubmissionReceipt existingReceipt(long studentId, Long assessmentId, String idempotencyKey, String payloadHash) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT inbox_id, assessment_id, payload_hash, received_at FROM submission_inbox "
+                        + "WHERE student_id = ? AND idempotency_key = ?",
+                studentId, idempotencyKey);
+        if (rows.isEmpty()) {
+            // The other unique key: a different key for an assessment already submitted
+            throw new IllegalStateException("You have already submitted this assessment");
+        }
+        Map<String, Object> row = rows.get(0);
+        if (((Number) row.get("assessment_id")).longValue() != assessmentId || !payloadHash.equals(row.get("payload_hash"))) {
+            throw new IllegalStateException("This Idempotency-Key was already used for a different submission");
+        }
+        duplicateCounter.increment();
+        return new SubmissionReceipt(((Number) row.get("inbox_id")).longValue(), assessmentId,
+                toLocalDateTime(row.get("received_at")), true);
+    }
+
+    private void runWorker() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Wait briefly for more so one transaction carries many students
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Long next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Writing {} submissions failed, the sweep will retry: {}", batch.size(), e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private int flush(List<Long> ids) {
+        long started = System.nanoTime();
+        try {
+            return transactionTemplate.execute(status -> write(ids));
+        } catch (RuntimeException e) {
+            // Retry row by row so one bad row does not hold back the others
+            logger.warn("Batch write of {} submissions failed ({}), retrying rows individually", ids.size(), e.getMessage());
+            int written = 0;
+            for (Long id : ids) {
+                try {
+                    written += transactionTemplate.execute(status -> write(List.of(id)));
+                } catch (RuntimeException rowError) {
+                    recordFailure(id, rowError);
+                }
+            }
+            return written;
+        } finally {
+            flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Rejects the row if retrying cannot help, otherwise counts the attempt and leaves it PENDING
+    // for the sweep until max-attempts is reached
+    private void recordFailure(Long id, RuntimeException error) {
+        boolean permanent = error instanceof DataIntegrityViolationException || error instanceof IllegalArgumentException;
+        String message = truncate(error.getMessage());
+        try {
+            jdbcTemplate.update(
+                    "UPDATE submission_inbox SET attempts = attempts + 1, error = ? WHERE inbox_id = ? AND status = 'PENDING'",
+                    message, id);
+            int rejected = jdbcTemplate.update(
+                    "UPDATE submission_inbox SET status = 'REJECTED', processed_at = ? "
+                            + "WHERE inbox_id = ? AND status = 'PENDING' AND (? OR attempts >= ?)",
+                    LocalDateTime.now(), id, permanent, maxAttempts);
+            if (rejected > 0) {
+                logger.error("Submission inbox row {} rejected: {}", id, error.getMessage());
+            } else {
+                logger.warn("Writing submission inbox row {} failed, the sweep will retry: {}", id, error.getMessage());
+            }
+        } catch (RuntimeException e) {
+            // Likely the same outage; the row is still PENDING
+            logger.warn("Writing submission inbox row {} failed ({}) and the failure could not be recorded: {}",
+                    id, error.getMessage(), e.getMessage());
+        }
+    }
+
+    // One transaction: lock the still-PENDING rows, insert their submissions and answers, mark them PROCESSED
+    private int write(Collection<Long> ids) {
+        List<Map<String, Object>> rows = namedParameterJdbcTemplate.queryForList(
+                "SELECT inbox_id, student_id, assessment_id, payload, received_at FROM submission_inbox "
+                        + "WHERE inbox_id IN (:ids) AND status = 'PENDING' FOR UPDATE SKIP LOCKED",
+                new MapSqlParameterSource("ids", ids));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<Long, Map<Long, Long>> corrections = lockCorrections(rows);
+
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(
+                        "INSERT INTO submissions (student_id, assessment_id, status, created_at, updated_at) "
+                                + "VALUES (?, ?, 'SUBMITTED', ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Map<String, Object> row = rows.get(i);
+                        ps.setLong(1, ((Number) row.get("student_id")).longValue());
+                        ps.setLong(2, ((Number) row.get("assessment_id")).longValue());
+                        // Submitted at the time it was accepted, not when the writer got to it
+                        ps.setTimestamp(3, Timestamp.valueOf(toLocalDateTime(row.get("received_at"))));
+                        ps.setTimestamp(4, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        if (generated.size() != rows.size()) {
+            throw new IllegalStateException("Expected " + rows.size() + " submission ids, got " + generated.size());
+        }
+
+        List<Object[]> answers = new ArrayList<>();
+        List<Object[]> processed = new ArrayList<>(rows.size());
+        List<Object[]> drafts = new ArrayList<>(rows.size());
+        List<Long> submissionIds = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> row = rows.get(i);
+            long submissionId = ((Number) generated.get(i).values().iterator().next()).longValue();
+            Timestamp receivedAt = Timestamp.valueOf(toLocalDateTime(row.get("received_at")));
+            Map<Long, Long> corrected = corrections.getOrDefault(((Number) row.get("assessment_id")).longValue(), Map.of());
+            for (JsonNode answer : readPayload((String) row.get("payload"))) {
+                JsonNode text = answer.get("answerText");
+                JsonNode question = answer.get("questionId");
+                if (question == null || !question.canConvertToLong()) {
+                    throw new IllegalArgumentException("Submission payload has an answer without a questionId");
+                }
+                long questionId = question.asLong();
+                answers.add(new Object[] {submissionId, corrected.getOrDefault(questionId, questionId),
+                        text == null || text.isNull() ? null : text.asText(), receivedAt, now});
+            }
+            processed.add(new Object[] {submissionId, now, row.get("inbox_id")});
+            submissionIds.add(submissionId);
+            drafts.add(new Object[] {row.get("assessment_id"), row.get("student_id")});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO submission_answers (submission_id, question_id, answer_text, is_auto_graded, status, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, false, 'PENDING', ?, ?)",
+                answers);
+        // Grading jobs commit with the answers, so no answer is ever without one
+        gradingJobService.enqueue(submissionIds);
+        jdbcTemplate.batchUpdate(
+                "UPDATE submission_inbox SET status = 'PROCESSED', submission_id = ?, processed_at = ? WHERE inbox_id = ?",
+                processed);
+        // Autosaved drafts are no longer needed once the submission exists
+        jdbcTemplate.batchUpdate("DELETE FROM answer_drafts WHERE assessment_id = ? AND student_id = ?", drafts);
+        writtenCounter.increment(rows.size());
+        return rows.size();
+    }
+
+    // Holds the rows' assessments in share mode until the transaction ends, so an answer key
+    // correction (which takes them exclusively, see AssessmentService.correctAnswerKey) either
+    // moves these answers or is seen here. Returns, per assessment, each replaced question id
+    // mapped to the id of the question that now stands in its place.
+    private Map<Long, Map<Long, Long>> lockCorrections(List<Map<String, Object>> rows) {
+        TreeSet<Long> assessmentIds = new TreeSet<>();
+        for (Map<String, Object> row : rows) {
+            assessmentIds.add(((Number) row.get("assessment_id")).longValue());
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", assessmentIds);
+        namedParameterJdbcTemplate.queryForList(
+                "SELECT assessment_id FROM assessments WHERE assessment_id IN (:ids) ORDER BY assessment_id FOR SHARE",
+                params, Long.class);
+        Map<Long, Map<Long, Long>> corrections = new HashMap<>();
+        // In order, so a question corrected twice (or back) maps to the one linked now
+        namedParameterJdbcTemplate.query(
+                "SELECT assessment_id, previous_question_id, question_id FROM regrade_runs "
+                        + "WHERE assessment_id IN (:ids) ORDER BY regrade_id",
+                params,
+                rs -> {
+                    Map<Long, Long> replaced = corrections.computeIfAbsent(rs.getLong(1), id -> new HashMap<>());
+                    long previous = rs.getLong(2);
+                    long current = rs.getLong(3);
+                    replaced.replaceAll((from, to) -> to == previous ? current : to);
+                    replaced.put(previous, current);
+                    replaced.remove(current);
+                });
+        return corrections;
+    }
+
+    private JsonNode readPayload(String payload) {
+        JsonNode answers;
+        try {
+            answers = objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unreadable submission payload", e);
+        }
+        if (!answers.isArray()) {
+            throw new IllegalArgumentException("Submission payload is not an array of answers");
+        }
+        return answers;
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime;
+        }
+        return ((Timestamp) value).toLocalDateTime();
+    }
+}
@@ -0,0 +1,138 @@
+package com.project.api.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.api.model.RevokedToken;
+import com.project.api.repository.RefreshTokenRepository;
+import com.project.api.repository.RevokedTokenRepository;
+import com.project.api.util.BloomFilter;
+
+import jakarta.annotation.PostConstruct;
+
+// Per-request revocation check for access tokens. Revoked jtis live in the revoked_tokens table
+// and in an in-memory Bloom filter built from it at startup. A negative filter answer (the
+// common case) needs no SQL; only a filter hit is confirmed against the table, so a false
+// positive costs one primary-key lookup rather than a wrongly rejected request.
+// Revocations from this instance are added to the filter immediately, those from other
+// instances are picked up by a short poll, and a periodic rebuild drops expired entries.
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String PURGE_JOB_NAME = "token-purge";
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LeaseService leaseService;
+
+    @Value("${jwt.revocation.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${jwt.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    // Overlap between polls so a row committed just before the previous poll is not missed
+    @Value("${jwt.revocation.poll-overlap-ms:5000}")
+    private long pollOverlapMs;
+
+    private volatile BloomFilter filter;
+
+    private volatile LocalDateTime lastPoll;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * Check whether an access token has been revoked.
+     * @param tokenId The token's jti; null (tokens without a jti) is never revoked.
+     * @return true if the token id is in the revocation table.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        return revokedTokenRepository.existsById(tokenId);
+    }
+
+    /**
+     * Revoke an access token until it expires.
+     * @param tokenId The token's jti.
+     * @param expiresAt When the token expires; the revocation row can be purged after that.
+     */
+    public void revoke(String tokenId, LocalDateTime expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.isAfter(LocalDateTime.now())) {
+            return;
+        }
+        if (!revokedTokenRepository.existsById(tokenId)) {
+            RevokedToken revoked = new RevokedToken();
+            revoked.setTokenId(tokenId);
+            revoked.setExpiresAt(expiresAt);
+            revoked.setRevokedAt(LocalDateTime.now());
+            revokedTokenRepository.save(revoked);
+        }
+        filter.add(tokenId);
+        logger.info("Revoked access token {}", tokenId);
+    }
+
+    // Pick up revocations written by other instances
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-interval-ms:15000}")
+    public void pollRevocations() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = lastPoll.minusNanos(pollOverlapMs * 1_000_000);
+        List<String> tokenIds = revokedTokenRepository.findTokenIdsRevokedSince(since, now);
+        BloomFilter current = filter;
+        for (String tokenId : tokenIds) {
+            current.add(tokenId);
+        }
+        lastPoll = now;
+        if (!tokenIds.isEmpty()) {
+            logger.debug("Added {} revoked token ids from poll", tokenIds.size());
+        }
+    }
+
+    // Purge expired revocations and refresh tokens, then rebuild the filter without them
+    @Scheduled(initialDelayString = "${jwt.revocation.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${jwt.revocation.rebuild-interval-ms:3600000}")
+    public void purgeAndRebuild() {
+        // The purge is shared, so one node does it; every node rebuilds its own filter
+        if (leaseService.tryAcquire(PURGE_JOB_NAME) != null) {
+            LocalDateTime now = LocalDateTime.now();
+            Integer purged = transactionTemplate.execute(status ->
+                    revokedTokenRepository.deleteExpired(now) + refreshTokenRepository.deleteExpired(now));
+            logger.info("Purged {} expired revoked/refresh token rows", purged);
+        }
+        rebuild();
+    }
+
+    private void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> tokenIds = revokedTokenRepository.findLiveTokenIds(now);
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, tokenIds.size() * 2L), falsePositiveRate);
+        for (String tokenId : tokenIds) {
+            rebuilt.add(tokenId);
+        }
+        filter = rebuilt;
+        lastPoll = now;
+        logger.info("Revocation filter built with {} entries ({} bits, {} hashes)", tokenIds.size(), rebuilt.bitSize(), rebuilt.hashCount());
+    }
+}
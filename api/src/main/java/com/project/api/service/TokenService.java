@@ -0,0 +1,172 @@
+package com.project.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.project.api.config.JwtPrincipal;
+import com.project.api.config.JwtUtil;
+import com.project.api.dto.TokenPair;
+import com.project.api.exception.InvalidRefreshTokenException;
+import com.project.api.model.RefreshToken;
+import com.project.api.model.User;
+import com.project.api.repository.RefreshTokenRepository;
+
+// Issues short-lived access tokens together with opaque, rotating refresh tokens. A refresh
+// token can be used exactly once; presenting it again after a short grace window means it was copied, so its whole
+// family (every token descended from the same login) and the access tokens issued with it are revoked.
+@Service
+public class TokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Value("${jwt.refresh-token.validity-ms:43200000}")
+    private long refreshTokenValidity;
+
+    @Value("${jwt.refresh-token.reuse-grace-ms:10000}")
+    private long reuseGraceMs;
+
+    /**
+     * Start a new session for a user who has just logged in.
+     * @param user The authenticated user.
+     * @return A fresh access token and the first refresh token of a new family.
+     */
+    @Transactional
+    public TokenPair issueTokens(User user) {
+        return issue(user, UUID.randomUUID().toString()).pair;
+    }
+
+    /**
+     * Exchange a refresh token for a new access token and a new refresh token.
+     * @param rawRefreshToken The refresh token presented by the client.
+     * @return The new token pair.
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, or was already used.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public TokenPair refresh(String rawRefreshToken) {
+        if (rawRefreshToken == null || rawRefreshToken.isBlank()) {
+            throw new InvalidRefreshTokenException("Refresh token is required");
+        }
+        Optional<RefreshToken> storedOpt = refreshTokenRepository.findByTokenHash(hash(rawRefreshToken));
+        if (storedOpt.isEmpty()) {
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+        RefreshToken stored = storedOpt.get();
+        LocalDateTime now = LocalDateTime.now();
+
+        if (stored.getRevokedAt() != null) {
+            // Parallel requests from one browser can race to refresh; only later reuse is treated as theft
+            if (stored.getReplacedBy() != null && stored.getRevokedAt().plusNanos(reuseGraceMs * 1_000_000).isAfter(now)) {
+                throw new InvalidRefreshTokenException("Refresh token has already been used");
+            }
+            logger.warn("Refresh token reuse detected for family {}, revoking the family", stored.getFamilyId());
+            revokeFamily(stored.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+        if (!stored.getExpiresAt().isAfter(now)) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+        // Lost a race with a concurrent refresh of the same token; the winner keeps the session
+        if (refreshTokenRepository.markUsed(stored.getRefreshTokenId(), now) == 0) {
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+
+        Issued issued = issue(stored.getUser(), stored.getFamilyId());
+        // Keep the managed entity in line with markUsed so the flush does not clear revoked_at
+        stored.setRevokedAt(now);
+        stored.setReplacedBy(issued.refreshTokenId);
+        return issued.pair;
+    }
+
+    /**
+     * End a session: the current access token is revoked right away and, if given, the
+     * refresh token's family can no longer be used.
+     * @param principal The authenticated caller.
+     * @param rawRefreshToken Optional refresh token of the same session.
+     */
+    @Transactional
+    public void logout(JwtPrincipal principal, String rawRefreshToken) {
+        tokenRevocationService.revoke(principal.getTokenId(), toLocalDateTime(principal.getExpiresAt()));
+        if (rawRefreshToken != null && !rawRefreshToken.isBlank()) {
+            refreshTokenRepository.findByTokenHash(hash(rawRefreshToken))
+                    .filter(stored -> stored.getUser().getUserId().equals(principal.getUserId()))
+                    .ifPresent(stored -> revokeFamily(stored.getFamilyId()));
+        }
+        logger.info("Logged out user: {}", principal.getEmail());
+    }
+
+    private void revokeFamily(String familyId) {
+        LocalDateTime now = LocalDateTime.now();
+        for (RefreshToken token : refreshTokenRepository.findByFamilyId(familyId)) {
+            if (token.getAccessExpiresAt() != null && token.getAccessExpiresAt().isAfter(now)) {
+                tokenRevocationService.revoke(token.getAccessTokenId(), token.getAccessExpiresAt());
+            }
+        }
+        refreshTokenRepository.revokeFamily(familyId, now);
+    }
+
+    private Issued issue(User user, String familyId) {
+        String accessToken = jwtUtil.generateToken(user);
+        JwtPrincipal access = jwtUtil.parseToken(accessToken);
+
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawRefreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(rawRefreshToken));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setUser(user);
+        refreshToken.setAccessTokenId(access.getTokenId());
+        refreshToken.setAccessExpiresAt(toLocalDateTime(access.getExpiresAt()));
+        refreshToken.setCreatedAt(now);
+        refreshToken.setExpiresAt(now.plusNanos(refreshTokenValidity * 1_000_000));
+        refreshTokenRepository.save(refreshToken);
+
+        TokenPair pair = new TokenPair(accessToken, rawRefreshToken, user.getRole().name(), access.getExpiresAt());
+        return new Issued(pair, refreshToken.getRefreshTokenId());
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(rawToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Issued(TokenPair pair, Long refreshTokenId) {
+    }
+}
@@ -8,7 +8,6 @@ import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.project.api.dto.EducatorLoginRequest;
@@ -37,11 +36,14 @@ public class UserService {
     StudentRepository studentRepository;
 
     @Autowired
-    PasswordEncoder passwordEncoder;
+    PasswordHashingService passwordHashingService;
+
+    @Autowired
+    PrincipalResolver principalResolver;
 
     // Email regex for validation
-    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$");
-    private static final Pattern PASSWORD_PATTERN = Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[@$!%*?&])[A-Za-z\\d@$!%*?&]{8,}$");
+    static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$");
+    static final Pattern PASSWORD_PATTERN = Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[@$!%*?&])[A-Za-z\\d@$!%*?&]{8,}$");
 
     /**
      * Find a user by their email address.
@@ -90,7 +92,7 @@ public class UserService {
 
         User newUser = new User();
         newUser.setEmail(registerRequest.getEmail());
-        newUser.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
+        newUser.setPassword(passwordHashingService.encode(registerRequest.getPassword()));
         newUser.setName(registerRequest.getName());
         newUser.setRole(role);
         newUser.setCreatedAt(LocalDateTime.now());
@@ -105,7 +107,7 @@ public class UserService {
 
             User newUser = new User();
             newUser.setEmail(registerRequest.getEmail());
-            newUser.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
+            newUser.setPassword(passwordHashingService.encode(registerRequest.getPassword()));
             newUser.setName(registerRequest.getName());
             newUser.setRole(role);
             newUser.setCreatedAt(LocalDateTime.now());
@@ -132,7 +134,7 @@ public class UserService {
 
         User newUser = new User();
         newUser.setEmail(registerRequest.getEmail());
-        newUser.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
+        newUser.setPassword(passwordHashingService.encode(registerRequest.getPassword()));
         newUser.setName(registerRequest.getName());
         newUser.setRole(role);
         newUser.setCreatedAt(LocalDateTime.now());
@@ -173,6 +175,7 @@ public class UserService {
     private User saveUser(User newUser, UserRole role) {
         User savedUser = userRepository.save(newUser);
         userRepository.flush(); // Ensure the user is saved immediately
+        principalResolver.invalidate(savedUser.getEmail());
 
         logger.info("{} registered successfully with email: {}", role, savedUser.getEmail());
         return savedUser;
@@ -183,12 +186,14 @@ public class UserService {
     Optional<User> userOpt = userRepository.findByEmail(loginRequest.getEmail());
 
     if (userOpt.isEmpty() || userOpt.get().getRole() != UserRole.EDUCATOR) {
+        // Still pay for one hash so unknown emails are not distinguishable by response time
+        passwordHashingService.matches(loginRequest.getPassword(), null);
         logger.warn("Educator login failed for email: {}. User does not exist or is not an educator.", loginRequest.getEmail());
         return Optional.empty();
     }
 
     User user = userOpt.get();
-    if (passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+    if (passwordHashingService.matches(loginRequest.getPassword(), user.getPassword())) {
         logger.info("Educator logged in successfully with email: {}", loginRequest.getEmail());
         return Optional.of(user);
     } else {
@@ -201,12 +206,14 @@ public class UserService {
         Optional<User> userOpt = userRepository.findByEmail(loginRequest.getEmail());
 
         if (userOpt.isEmpty() || userOpt.get().getRole() != UserRole.STUDENT) {
+            // Still pay for one hash so unknown emails are not distinguishable by response time
+            passwordHashingService.matches(loginRequest.getPassword(), null);
             logger.warn("Student login failed for email: {}. User does not exist or is not a student.", loginRequest.getEmail());
             return Optional.empty();
         }
 
         User user = userOpt.get();
-        if (passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+        if (passwordHashingService.matches(loginRequest.getPassword(), user.getPassword())) {
             logger.info("Student logged in successfully with email: {}", loginRequest.getEmail());
             return Optional.of(user);
         } else {
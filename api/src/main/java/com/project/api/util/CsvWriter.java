@@ -0,0 +1,57 @@
+package com.project.api.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Counterpart of CsvReader: writes one RFC 4180 record at a time, quoting fields that contain
+// the separator, quotes or line breaks. Nothing is buffered beyond the underlying writer.
+public class CsvWriter {
+
+    private final Writer writer;
+    private final char separator;
+
+    public CsvWriter(Writer writer) {
+        this(writer, ',');
+    }
+
+    public CsvWriter(Writer writer, char separator) {
+        this.writer = writer;
+        this.separator = separator;
+    }
+
+    /**
+     * Write one record terminated by CRLF.
+     * @param fields Field values; null is written as an empty field.
+     */
+    public void writeRecord(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(separator);
+            }
+            writeField(fields[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == separator || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,69 @@
+package com.project.api.util;
+
+// Fisher-Yates shuffle driven by a counter-based generator: the random draw for step i is
+// mix(seed + i * GOLDEN), so any step can be recomputed on its own. That makes the shuffle
+// reproducible from the seed alone and lets canonicalIndex undo it for a single position
+// in O(n) without building the permutation.
+public final class SeededShuffle {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private SeededShuffle() {
+    }
+
+    /**
+     * Fill order[0..n) with a permutation of 0..n-1: order[position] is the canonical index shown there.
+     * @param order Index array with room for n entries; reusable across calls.
+     */
+    public static void permute(int[] order, int n, long seed) {
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = draw(seed, i);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+
+    /**
+     * Inverse for one position: the canonical index that permute(order, n, seed) puts at position.
+     */
+    public static int canonicalIndex(int n, long seed, int position) {
+        if (position < 0 || position >= n) {
+            throw new IllegalArgumentException("Position " + position + " is outside 0.." + (n - 1));
+        }
+        // Replay the swaps last to first, following the slot the element came from
+        int slot = position;
+        for (int i = 1; i < n; i++) {
+            int j = draw(seed, i);
+            if (slot == i) {
+                slot = j;
+            } else if (slot == j) {
+                slot = i;
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Independent seed for a sub-shuffle, e.g. the options of one question.
+     */
+    public static long derive(long seed, long salt) {
+        return mix(seed ^ mix(salt + GOLDEN));
+    }
+
+    // Uniform in [0, i]; multiply-shift on 32 random bits (bias below i / 2^32)
+    private static int draw(long seed, int i) {
+        long bits = mix(seed + i * GOLDEN) >>> 32;
+        return (int) ((bits * (i + 1L)) >>> 32);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,162 @@
+-- Tables written and read with JdbcTemplate only (no JPA entity), and column changes that
+-- Hibernate's ddl-auto does not apply to existing tables. These statements run on every startup,
+-- before Hibernate, so each must be idempotent and must not assume a mapped table exists.
+
+-- One row per scheduled job (or job shard), see LeaseService. owner is null when released;
+-- fencing_token is incremented on every change of owner.
+CREATE TABLE IF NOT EXISTS job_leases (
+    job_name VARCHAR(100) NOT NULL,
+    owner VARCHAR(100),
+    fencing_token BIGINT NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    heartbeat_at DATETIME(6),
+    PRIMARY KEY (job_name)
+);
+
+-- Durable append log of incoming submissions, see SubmissionIngestService. status is PENDING,
+-- PROCESSED or REJECTED; payload is a JSON array of {questionId, answerText} and payload_hash its
+-- SHA-256, so a retry with the same key but a different body is refused. attempts counts failed
+-- writes; a row is REJECTED when they reach submission.ingest.max-attempts.
+CREATE TABLE IF NOT EXISTS submission_inbox (
+    inbox_id BIGINT NOT NULL AUTO_INCREMENT,
+    student_id BIGINT NOT NULL,
+    assessment_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(100) NOT NULL,
+    payload LONGTEXT NOT NULL,
+    payload_hash VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    submission_id BIGINT,
+    error VARCHAR(1000),
+    attempts INT NOT NULL DEFAULT 0,
+    received_at DATETIME(6) NOT NULL,
+    processed_at DATETIME(6),
+    PRIMARY KEY (inbox_id),
+    UNIQUE KEY uk_submission_inbox_idempotency (student_id, idempotency_key),
+    UNIQUE KEY uk_submission_inbox_assessment_student (assessment_id, student_id),
+    KEY idx_submission_inbox_status_received (status, received_at)
+);
+
+-- Cached outcome of running one normalized source against one test suite, see
+-- CodeExecutionService. result_hash is the SHA-256 of the suite, the limits and the source.
+CREATE TABLE IF NOT EXISTS code_execution_results (
+    result_hash VARCHAR(64) NOT NULL,
+    question_id BIGINT NOT NULL,
+    compiled BIT NOT NULL,
+    passed INT NOT NULL,
+    total INT NOT NULL,
+    score_fraction DOUBLE NOT NULL,
+    details LONGTEXT,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (result_hash)
+);
+
+-- One grading job per submission answer, see GradingJobService. kind is AUTO or REVIEW, status
+-- QUEUED, RUNNING or DONE; reviewer_id is the assessment's owner and deadline its end time plus
+-- the grading target. A RUNNING job past locked_until is requeued; a QUEUED job is not claimed
+-- before its locked_until (the back-off after a full code execution queue).
+CREATE TABLE IF NOT EXISTS grading_jobs (
+    job_id BIGINT NOT NULL AUTO_INCREMENT,
+    submission_answer_id BIGINT NOT NULL,
+    submission_id BIGINT NOT NULL,
+    assessment_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    kind VARCHAR(10) NOT NULL,
+    status VARCHAR(10) NOT NULL,
+    reviewer_id BIGINT NOT NULL,
+    deadline DATETIME(6) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    claim_token VARCHAR(36),
+    locked_until DATETIME(6),
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (job_id),
+    UNIQUE KEY uk_grading_jobs_answer (submission_answer_id),
+    KEY idx_grading_jobs_assessment_status (assessment_id, status, kind, submission_id),
+    KEY idx_grading_jobs_reviewer (reviewer_id, kind, status, deadline, job_id),
+    KEY idx_grading_jobs_status_kind (status, kind, assessment_id, deadline),
+    KEY idx_grading_jobs_claim (claim_token)
+);
+
+-- One regrade of a question's auto-graded answers after its answer key was corrected, see
+-- RegradeService. The row is the run's only state, so progress is visible from any node.
+CREATE TABLE IF NOT EXISTS regrade_runs (
+    regrade_id BIGINT NOT NULL AUTO_INCREMENT,
+    assessment_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    previous_question_id BIGINT NOT NULL,
+    requested_by BIGINT NOT NULL,
+    status VARCHAR(10) NOT NULL,
+    owner VARCHAR(100),
+    heartbeat_at DATETIME(6),
+    total INT NOT NULL DEFAULT 0,
+    processed INT NOT NULL DEFAULT 0,
+    changed INT NOT NULL DEFAULT 0,
+    score_delta DOUBLE NOT NULL DEFAULT 0,
+    error VARCHAR(500),
+    created_at DATETIME(6) NOT NULL,
+    finished_at DATETIME(6),
+    PRIMARY KEY (regrade_id),
+    KEY idx_regrade_runs_status (status, regrade_id),
+    KEY idx_regrade_runs_assessment (assessment_id)
+);
+
+-- Score statistics of an assessment (question_id 0: submission totals) or one of its questions,
+-- see ScoreStatisticsService: the Welford state in columns and the t-digest in digest.
+CREATE TABLE IF NOT EXISTS score_statistics (
+    statistics_id BIGINT NOT NULL AUTO_INCREMENT,
+    assessment_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    score_count BIGINT NOT NULL,
+    mean DOUBLE NOT NULL,
+    sum_of_squares DOUBLE NOT NULL,
+    min_score DOUBLE,
+    max_score DOUBLE,
+    digest LONGBLOB,
+    rebuilt_at DATETIME(6),
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (statistics_id),
+    UNIQUE KEY uk_score_statistics_assessment_question (assessment_id, question_id)
+);
+
+-- Statistics epoch of an assessment, incremented by every rebuild; scores are buffered per epoch
+-- and those of an older epoch are not merged, see ScoreStatisticsService.
+CREATE TABLE IF NOT EXISTS score_statistics_epochs (
+    assessment_id BIGINT NOT NULL,
+    epoch BIGINT NOT NULL,
+    PRIMARY KEY (assessment_id)
+);
+
+-- submission_answers.answer_text was VARCHAR(1000); essays and CODING programs need LONGTEXT.
+-- Widened in place only where the old column exists (a new schema is created as LONGTEXT).
+SET @widen_answer_text = IF((SELECT DATA_TYPE FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+        AND TABLE_NAME = 'submission_answers' AND COLUMN_NAME = 'answer_text') = 'varchar',
+    'ALTER TABLE submission_answers MODIFY answer_text LONGTEXT', 'DO 0');
+PREPARE widen_answer_text FROM @widen_answer_text;
+EXECUTE widen_answer_text;
+DEALLOCATE PREPARE widen_answer_text;
+
+-- answer_drafts.answer_text likewise
+SET @widen_draft_text = IF((SELECT DATA_TYPE FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+        AND TABLE_NAME = 'answer_drafts' AND COLUMN_NAME = 'answer_text') = 'varchar',
+    'ALTER TABLE answer_drafts MODIFY answer_text LONGTEXT', 'DO 0');
+PREPARE widen_draft_text FROM @widen_draft_text;
+EXECUTE widen_draft_text;
+DEALLOCATE PREPARE widen_draft_text;
+
+-- submission_inbox.attempts was added after the table; added in place where it is missing
+SET @add_inbox_attempts = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+        AND TABLE_NAME = 'submission_inbox' AND COLUMN_NAME = 'attempts') = 0,
+    'ALTER TABLE submission_inbox ADD COLUMN attempts INT NOT NULL DEFAULT 0 AFTER error', 'DO 0');
+PREPARE add_inbox_attempts FROM @add_inbox_attempts;
+EXECUTE add_inbox_attempts;
+DEALLOCATE PREPARE add_inbox_attempts;
+
+-- idx_assessment_root_version was created non-unique; version numbers are unique within a lineage.
+-- Rebuilt as a unique index only where the old one exists (a new schema gets the unique one).
+SET @unique_root_version = IF((SELECT MAX(NON_UNIQUE) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE()
+        AND TABLE_NAME = 'assessments' AND INDEX_NAME = 'idx_assessment_root_version') = 1,
+    'ALTER TABLE assessments DROP INDEX idx_assessment_root_version, ADD UNIQUE INDEX idx_assessment_root_version (root_assessment_id, version)',
+    'DO 0');
+PREPARE unique_root_version FROM @unique_root_version;
+EXECUTE unique_root_version;
+DEALLOCATE PREPARE unique_root_version;
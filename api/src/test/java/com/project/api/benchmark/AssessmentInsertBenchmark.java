@@ -0,0 +1,181 @@
+package com.project.api.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.project.api.ApiApplication;
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.AssessmentCreateRequest;
+import com.project.api.service.AssessmentService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Creates one assessment with N MCQ questions (4 options each) through AssessmentService and
+ * reports latency plus database round trips: statements Hibernate prepared and statements the
+ * MySQL server received (global "Questions" counter, so run it on an otherwise idle database).
+ * Compare against a checkout that still uses IDENTITY ids to see the effect of batching. Every
+ * invocation uses new question text, so content-hash dedup (see QuestionLibraryService) never
+ * turns a run into links to the questions of an earlier one.
+ *
+ * Needs the database from application.properties. Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.project.api.benchmark.AssessmentInsertBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AssessmentInsertBenchmark {
+
+    private static final String EDUCATOR_EMAIL = "insert-benchmark@example.com";
+
+    @Param({"50", "500", "5000"})
+    public int questions;
+
+    private ConfigurableApplicationContext context;
+
+    private AssessmentService assessmentService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    private JwtPrincipal educator;
+
+    private AssessmentCreateRequest request;
+
+    // Prefix that makes each invocation's questions distinct
+    private int invocation;
+
+    private long serverStatementsBefore;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(ApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "logging.level.root=WARN")
+                .run();
+        assessmentService = context.getBean(AssessmentService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(
+                "INSERT IGNORE INTO users (email, password, name, role, created_at, updated_at) VALUES (?, '-', 'Insert Benchmark', 'EDUCATOR', ?, ?)",
+                EDUCATOR_EMAIL, now, now);
+        Long userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = ?", Long.class, EDUCATOR_EMAIL);
+        educator = new JwtPrincipal(EDUCATOR_EMAIL, "EDUCATOR", userId, null, null, Long.MAX_VALUE);
+    }
+
+    @Setup(Level.Invocation)
+    public void newRequest() {
+        request = buildRequest(questions, ++invocation);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        statistics.clear();
+        serverStatementsBefore = serverStatements();
+    }
+
+    @Benchmark
+    public Long createAssessment() {
+        return assessmentService.createAssessment(request, educator).getAssessmentId();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportRoundTrips() {
+        // -1 excludes the SHOW STATUS issued by serverStatements() itself
+        long serverStatements = serverStatements() - serverStatementsBefore - 1;
+        System.out.printf("%nquestions=%d rowsInserted=%d preparedStatements=%d serverStatements=%d%n",
+                questions, statistics.getEntityInsertCount(), statistics.getPrepareStatementCount(), serverStatements);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() {
+        String owner = "(SELECT user_id FROM users WHERE email = ?)";
+        String owned = "SELECT question_id FROM questions WHERE created_by = " + owner;
+        // Links and question content first: their foreign keys point at the questions
+        jdbcTemplate.update("DELETE FROM assessment_questions WHERE assessment_id IN "
+                + "(SELECT assessment_id FROM assessments WHERE created_by = " + owner + ")", EDUCATOR_EMAIL);
+        for (String table : List.of("question_options", "question_keywords", "question_test_cases", "rubric_criteria")) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE question_id IN (" + owned + ")", EDUCATOR_EMAIL);
+        }
+        jdbcTemplate.update("DELETE FROM questions WHERE created_by = " + owner, EDUCATOR_EMAIL);
+        jdbcTemplate.update("DELETE FROM assessments WHERE created_by = " + owner, EDUCATOR_EMAIL);
+        context.close();
+    }
+
+    private long serverStatements() {
+        return jdbcTemplate.query("SHOW GLOBAL STATUS LIKE 'Questions'", rs -> {
+            rs.next();
+            return rs.getLong("Value");
+        });
+    }
+
+    private static AssessmentCreateRequest buildRequest(int questionCount, int invocation) {
+        AssessmentCreateRequest request = new AssessmentCreateRequest();
+        request.setTitle("Insert benchmark (" + questionCount + " questions)");
+        request.setType("EXAM");
+        request.setDurationMinutes(60);
+        request.setStartTime(LocalDateTime.now().plusDays(30));
+        request.setEndTime(LocalDateTime.now().plusDays(31));
+        request.setGradingMode("AUTO");
+        List<AssessmentCreateRequest.Question> questions = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            AssessmentCreateRequest.Question question = new AssessmentCreateRequest.Question();
+            question.setText("Run " + invocation + " question " + i);
+            question.setType("MCQ");
+            question.setMaxScore(1.0);
+            question.setCorrectAnswer("0");
+            List<AssessmentCreateRequest.Option> options = new ArrayList<>(4);
+            for (int o = 0; o < 4; o++) {
+                AssessmentCreateRequest.Option option = new AssessmentCreateRequest.Option();
+                option.setText("Option " + o);
+                options.add(option);
+            }
+            question.setOptions(options);
+            questions.add(question);
+        }
+        request.setQuestions(questions);
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AssessmentInsertBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.project.api.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Measures BCrypt matches() per cost factor on the current machine and prints the highest
+ * cost whose single-hash latency stays within the login budget (auth.bcrypt.strength).
+ *
+ * Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.project.api.benchmark.BCryptCostBenchmark
+ * Optional: -Dbudget.ms=250 to change the per-hash latency budget (default 100 ms).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class BCryptCostBenchmark {
+
+    private static final String PASSWORD = "Str0ng!Passw0rd";
+
+    @Param({"8", "10", "11", "12", "13", "14"})
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+
+    private String hash;
+
+    @Setup
+    public void setup() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        double budgetMs = Double.parseDouble(System.getProperty("budget.ms", "100"));
+        Options options = new OptionsBuilder()
+                .include(BCryptCostBenchmark.class.getSimpleName())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        int recommended = -1;
+        for (RunResult result : results) {
+            int cost = Integer.parseInt(result.getParams().getParam("strength"));
+            double avgMs = result.getPrimaryResult().getScore();
+            System.out.printf("strength=%d matches=%.2f ms%n", cost, avgMs);
+            if (avgMs <= budgetMs && cost > recommended) {
+                recommended = cost;
+            }
+        }
+        if (recommended < 0) {
+            System.out.printf("No cost factor fits a %.0f ms budget; use the lowest measured one and add hashing threads%n", budgetMs);
+        } else {
+            System.out.printf("Recommended auth.bcrypt.strength=%d (budget %.0f ms per hash)%n", recommended, budgetMs);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.project.api.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.project.api.service.KeywordMatcher;
+
+/**
+ * Keyword scoring of one essay: the compiled Aho-Corasick matcher against the naive loop of one
+ * contains per keyword over the normalized text. Both find the same whole-word matches; the naive
+ * loop is what scoring would cost without compilation. Essays are random words from a fixed
+ * vocabulary that includes the keywords, so roughly half of the keywords occur, some of them
+ * misspelled. With a tolerance, compiled() also matches those misspellings; naiveFuzzy() is the
+ * edit distance of every word against every keyword that it replaces.
+ *
+ * No database needed. Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.project.api.benchmark.KeywordMatcherBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordMatcherBenchmark {
+
+    @Param({"50"})
+    public int keywordCount;
+
+    @Param({"5120"})
+    public int essayChars;
+
+    // Tolerance of every keyword
+    @Param({"0", "1", "2"})
+    public int tolerance;
+
+    private List<String> keywords;
+
+    private List<Double> weights;
+
+    private List<Integer> tolerances;
+
+    private String[] naivePatterns;
+
+    private KeywordMatcher matcher;
+
+    private String essay;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> vocabulary = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            vocabulary.add(randomWord(random));
+        }
+
+        keywords = new ArrayList<>(keywordCount);
+        weights = new ArrayList<>(keywordCount);
+        tolerances = new ArrayList<>(keywordCount);
+        naivePatterns = new String[keywordCount];
+        for (int k = 0; k < keywordCount; k++) {
+            // Every fifth keyword is a two-word phrase
+            String keyword = vocabulary.get(random.nextInt(vocabulary.size()));
+            if (k % 5 == 0) {
+                keyword += " " + vocabulary.get(random.nextInt(vocabulary.size()));
+            }
+            keywords.add(k % 2 == 0 ? keyword : keyword.toUpperCase());
+            weights.add(1.0 + random.nextInt(4));
+            tolerances.add(tolerance);
+            naivePatterns[k] = " " + KeywordMatcher.normalize(keyword) + " ";
+        }
+        matcher = KeywordMatcher.compile(keywords, weights, tolerances);
+
+        StringBuilder text = new StringBuilder(essayChars + 32);
+        while (text.length() < essayChars) {
+            // Half of the keywords are planted somewhere in the essay
+            if (random.nextInt(200) == 0) {
+                text.append(keywords.get(random.nextInt(keywordCount / 2) * 2));
+            } else if (random.nextInt(400) == 0) {
+                text.append(misspell(keywords.get(random.nextInt(keywordCount / 2) * 2 + 1), random));
+            } else {
+                text.append(vocabulary.get(random.nextInt(vocabulary.size())));
+            }
+            text.append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        essay = text.toString();
+
+        if (naiveFuzzy() != compiled()) {
+            throw new IllegalStateException("Naive and compiled scores differ: " + naiveFuzzy() + " vs " + compiled());
+        }
+    }
+
+    @Benchmark
+    public double compiled() {
+        return matcher.score(essay);
+    }
+
+    @Benchmark
+    public double naive() {
+        String normalized = " " + KeywordMatcher.normalize(essay) + " ";
+        double score = 0;
+        for (int k = 0; k < naivePatterns.length; k++) {
+            if (normalized.contains(naivePatterns[k])) {
+                score += weights.get(k);
+            }
+        }
+        return score;
+    }
+
+    @Benchmark
+    public double naiveFuzzy() {
+        String[] words = KeywordMatcher.normalize(essay).split(" ");
+        double score = 0;
+        for (int k = 0; k < naivePatterns.length; k++) {
+            String[] keyword = naivePatterns[k].trim().split(" ");
+            int budget = KeywordMatcher.effectiveTolerance(tolerance, String.join("", keyword).length());
+            search:
+            for (int w = 0; w + keyword.length <= words.length; w++) {
+                int distance = 0;
+                for (int p = 0; p < keyword.length; p++) {
+                    distance += levenshtein(keyword[p], words[w + p]);
+                }
+                if (distance <= budget) {
+                    score += weights.get(k);
+                    break search;
+                }
+            }
+        }
+        return score;
+    }
+
+    @Benchmark
+    public KeywordMatcher compile() {
+        return KeywordMatcher.compile(keywords, weights, tolerances);
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    // One substituted letter, outside the first letter
+    private static String misspell(String keyword, Random random) {
+        char[] chars = keyword.toCharArray();
+        int at = 1 + random.nextInt(Math.max(1, chars.length - 1));
+        if (at < chars.length && Character.isLetter(chars[at])) {
+            chars[at] = chars[at] == 'x' ? 'y' : 'x';
+        }
+        return new String(chars);
+    }
+
+    private static String randomWord(Random random) {
+        int length = 3 + random.nextInt(8);
+        char[] word = new char[length];
+        for (int i = 0; i < length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(KeywordMatcherBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
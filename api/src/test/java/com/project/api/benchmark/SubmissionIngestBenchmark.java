@@ -0,0 +1,242 @@
+package com.project.api.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.project.api.ApiApplication;
+import com.project.api.config.JwtPrincipal;
+import com.project.api.dto.AssessmentCreateRequest;
+import com.project.api.dto.SubmissionRequest;
+import com.project.api.service.AssessmentService;
+import com.project.api.service.DeliverySnapshotService;
+import com.project.api.service.SubmissionIngestService;
+
+/**
+ * Deadline load test for submission ingest: N students of one class submit a 20-question exam
+ * from a pool of client threads, as at the end of an exam. Each iteration reports how long it
+ * took until every submission was acknowledged and until the writers had turned every inbox
+ * row into a Submission, plus the resulting submissions per second. One retry per student with
+ * the same idempotency key is sent as well and must come back as a duplicate.
+ *
+ * Needs the database from application.properties. Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.project.api.benchmark.SubmissionIngestBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SubmissionIngestBenchmark {
+
+    private static final String EMAIL_PREFIX = "ingest-benchmark-";
+
+    private static final int QUESTIONS = 20;
+
+    @Param({"1000", "5000"})
+    public int students;
+
+    @Param({"32"})
+    public int clientThreads;
+
+    private ConfigurableApplicationContext context;
+
+    private SubmissionIngestService ingestService;
+
+    private AssessmentService assessmentService;
+
+    private DeliverySnapshotService deliverySnapshotService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ExecutorService clients;
+
+    private JwtPrincipal educator;
+
+    private Long classId;
+
+    private final List<JwtPrincipal> principals = new ArrayList<>();
+
+    private Long assessmentId;
+
+    private List<Long> questionIds;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(ApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+                .run();
+        ingestService = context.getBean(SubmissionIngestService.class);
+        assessmentService = context.getBean(AssessmentService.class);
+        deliverySnapshotService = context.getBean(DeliverySnapshotService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        clients = Executors.newFixedThreadPool(clientThreads);
+
+        LocalDateTime now = LocalDateTime.now();
+        String educatorEmail = EMAIL_PREFIX + "educator@example.com";
+        jdbcTemplate.update(
+                "INSERT IGNORE INTO users (email, password, name, role, created_at, updated_at) VALUES (?, '-', 'Ingest Benchmark', 'EDUCATOR', ?, ?)",
+                educatorEmail, now, now);
+        Long educatorId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = ?", Long.class, educatorEmail);
+        educator = new JwtPrincipal(educatorEmail, "EDUCATOR", educatorId, null, null, Long.MAX_VALUE);
+
+        jdbcTemplate.update(
+                "INSERT IGNORE INTO classes (class_name, class_code, status, created_by, created_at, updated_at) VALUES ('Ingest Benchmark', 'INGEST-BENCH', 'ACTIVE', ?, ?, ?)",
+                educatorId, now, now);
+        classId = jdbcTemplate.queryForObject("SELECT class_id FROM classes WHERE class_code = 'INGEST-BENCH'", Long.class);
+
+        List<Object[]> users = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            users.add(new Object[] {EMAIL_PREFIX + i + "@example.com", now, now});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT IGNORE INTO users (email, password, name, role, created_at, updated_at) VALUES (?, '-', 'Student', 'STUDENT', ?, ?)", users);
+        jdbcTemplate.update(
+                "INSERT IGNORE INTO students (user_id, created_at, updated_at) SELECT user_id, ?, ? FROM users WHERE email LIKE ? AND role = 'STUDENT'",
+                now, now, EMAIL_PREFIX + "%");
+        jdbcTemplate.update(
+                "INSERT INTO class_students (class_id, student_id) SELECT ?, s.student_id FROM students s JOIN users u ON u.user_id = s.user_id "
+                        + "WHERE u.email LIKE ? AND NOT EXISTS (SELECT 1 FROM class_students x WHERE x.class_id = ? AND x.student_id = s.student_id)",
+                classId, EMAIL_PREFIX + "%", classId);
+        jdbcTemplate.query(
+                "SELECT u.email, u.user_id, s.student_id FROM students s JOIN users u ON u.user_id = s.user_id WHERE u.email LIKE ? ORDER BY s.student_id LIMIT ?",
+                rs -> {
+                    principals.add(new JwtPrincipal(rs.getString("email"), "STUDENT", rs.getLong("user_id"), rs.getLong("student_id"), null, Long.MAX_VALUE));
+                },
+                EMAIL_PREFIX + "%", students);
+    }
+
+    // A fresh ACTIVE exam per iteration, so every student can submit again
+    @Setup(Level.Iteration)
+    public void openAssessment() {
+        assessmentId = assessmentService.createAssessment(buildRequest(), educator).getAssessmentId();
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO assessment_classes (assessment_id, class_id) VALUES (?, ?)", assessmentId, classId);
+        jdbcTemplate.update("UPDATE assessments SET status = 'ACTIVE', start_time = ?, end_time = ?, updated_at = ? WHERE assessment_id = ?",
+                now.minusMinutes(1), now.plusHours(1), now, assessmentId);
+        deliverySnapshotService.invalidate(assessmentId);
+        questionIds = jdbcTemplate.queryForList(
+                "SELECT question_id FROM assessment_questions WHERE assessment_id = ? ORDER BY sort_order", Long.class, assessmentId);
+    }
+
+    @Benchmark
+    public long submitAtDeadline() throws Exception {
+        long started = System.nanoTime();
+        List<Future<Boolean>> acks = new ArrayList<>(principals.size() * 2);
+        for (JwtPrincipal student : principals) {
+            String key = UUID.randomUUID().toString();
+            SubmissionRequest request = buildSubmission(student.getStudentId());
+            acks.add(clients.submit(() -> ingestService.submit(request, key, student).isDuplicate()));
+            // Client retry after a lost response
+            acks.add(clients.submit(() -> ingestService.submit(request, key, student).isDuplicate()));
+        }
+        int duplicates = 0;
+        for (Future<Boolean> ack : acks) {
+            duplicates += ack.get() ? 1 : 0;
+        }
+        long acknowledged = System.nanoTime();
+
+        long pending;
+        do {
+            Thread.sleep(10);
+            pending = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM submission_inbox WHERE assessment_id = ? AND status = 'PENDING'", Long.class, assessmentId);
+        } while (pending > 0);
+        long written = System.nanoTime();
+
+        double ackMs = (acknowledged - started) / 1e6;
+        double writtenMs = (written - started) / 1e6;
+        System.out.printf("%nstudents=%d duplicates=%d ackMs=%.0f writtenMs=%.0f acksPerSecond=%.0f submissionsPerSecond=%.0f%n",
+                principals.size(), duplicates, ackMs, writtenMs, principals.size() * 1000 / ackMs, principals.size() * 1000 / writtenMs);
+        return pending;
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() {
+        String students = "SELECT s.student_id FROM students s JOIN users u ON u.user_id = s.user_id WHERE u.email LIKE ?";
+        String pattern = EMAIL_PREFIX + "%";
+        jdbcTemplate.update("DELETE FROM submission_answers WHERE submission_id IN (SELECT submission_id FROM submissions WHERE student_id IN (" + students + "))", pattern);
+        jdbcTemplate.update("DELETE FROM submissions WHERE student_id IN (" + students + ")", pattern);
+        jdbcTemplate.update("DELETE FROM submission_inbox WHERE student_id IN (" + students + ")", pattern);
+        clients.shutdown();
+        context.close();
+    }
+
+    private SubmissionRequest buildSubmission(long studentId) {
+        SubmissionRequest request = new SubmissionRequest();
+        request.setAssessmentId(assessmentId);
+        List<SubmissionRequest.Answer> answers = new ArrayList<>(questionIds.size());
+        for (int i = 0; i < questionIds.size(); i++) {
+            SubmissionRequest.Answer answer = new SubmissionRequest.Answer();
+            answer.setQuestionId(questionIds.get(i));
+            answer.setOptionIndex((int) ((studentId + i) % 4));
+            answers.add(answer);
+        }
+        request.setAnswers(answers);
+        return request;
+    }
+
+    private static AssessmentCreateRequest buildRequest() {
+        AssessmentCreateRequest request = new AssessmentCreateRequest();
+        request.setTitle("Ingest benchmark");
+        request.setType("EXAM");
+        request.setDurationMinutes(60);
+        request.setStartTime(LocalDateTime.now().plusDays(30));
+        request.setEndTime(LocalDateTime.now().plusDays(31));
+        request.setGradingMode("AUTO");
+        List<AssessmentCreateRequest.Question> questions = new ArrayList<>(QUESTIONS);
+        for (int i = 0; i < QUESTIONS; i++) {
+            AssessmentCreateRequest.Question question = new AssessmentCreateRequest.Question();
+            question.setText("Ingest question " + i);
+            question.setType("MCQ");
+            question.setMaxScore(1.0);
+            question.setCorrectAnswer("0");
+            List<AssessmentCreateRequest.Option> options = new ArrayList<>(4);
+            for (int o = 0; o < 4; o++) {
+                AssessmentCreateRequest.Option option = new AssessmentCreateRequest.Option();
+                option.setText("Option " + o);
+                options.add(option);
+            }
+            question.setOptions(options);
+            questions.add(question);
+        }
+        request.setQuestions(questions);
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SubmissionIngestBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.project.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class AnswerKeyTest {
+
+    private static final long MCQ_QUESTION = 10;
+    private static final long TRUE_FALSE_QUESTION = 20;
+    private static final long KEYWORD_QUESTION = 30;
+    private static final long MANUAL_QUESTION = 40;
+
+    private AutoGradingService grading;
+
+    // Questions sorted by id, as AutoGradingService compiles them
+    private static AnswerKey key() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("mitochondria", "atp", "respiration"), List.of(2.0, 2.0, 2.0));
+        return new AnswerKey(1,
+                new long[] {MCQ_QUESTION, TRUE_FALSE_QUESTION, KEYWORD_QUESTION, MANUAL_QUESTION},
+                new byte[] {AnswerKey.MCQ, AnswerKey.TRUE_FALSE, AnswerKey.KEYWORD, AnswerKey.MANUAL},
+                new int[] {2, 1, 0, 0},
+                new double[] {3, 1, 5, 10},
+                new KeywordMatcher[] {null, null, matcher, null});
+    }
+
+    @AfterEach
+    void stopPool() {
+        if (grading != null) {
+            grading.shutdown();
+        }
+    }
+
+    @Test
+    void mcqScoresOnlyTheCanonicalIndexOfTheCorrectOption() {
+        AnswerKey key = key();
+        int mcq = key.indexOf(MCQ_QUESTION);
+
+        assertEquals(3, key.score(mcq, "2"));
+        assertEquals(3, key.score(mcq, " 2 "));
+        assertEquals(0, key.score(mcq, "1"));
+        assertEquals(0, key.score(mcq, "-2"));
+        assertEquals(0, key.score(mcq, "two"));
+        assertEquals(0, key.score(mcq, "9999999999"));
+        assertEquals(0, key.score(mcq, null));
+    }
+
+    @Test
+    void mcqWithoutACorrectOptionScoresNothing() {
+        AnswerKey key = new AnswerKey(1, new long[] {MCQ_QUESTION}, new byte[] {AnswerKey.MCQ}, new int[] {-1},
+                new double[] {3}, new KeywordMatcher[1]);
+
+        assertEquals(0, key.score(0, "-1"));
+        assertEquals(0, key.score(0, "0"));
+    }
+
+    @Test
+    void trueFalseParsesCaseAndWhitespaceInsensitively() {
+        AnswerKey key = key();
+        int trueFalse = key.indexOf(TRUE_FALSE_QUESTION);
+
+        assertEquals(1, AnswerKey.parseBoolean(" TRUE "));
+        assertEquals(0, AnswerKey.parseBoolean("False"));
+        assertEquals(-1, AnswerKey.parseBoolean("yes"));
+        assertEquals(-1, AnswerKey.parseBoolean(null));
+        assertEquals(1, key.score(trueFalse, "True"));
+        assertEquals(0, key.score(trueFalse, "false"));
+        assertEquals(0, key.score(trueFalse, "1"));
+    }
+
+    @Test
+    void keywordScoreIsCappedAtTheMaxScore() {
+        AnswerKey key = key();
+        int keyword = key.indexOf(KEYWORD_QUESTION);
+
+        assertEquals(2, key.score(keyword, "Mitochondria make energy"));
+        assertEquals(4, key.score(keyword, "ATP comes from mitochondria"));
+        assertEquals(5, key.score(keyword, "Mitochondria produce ATP by cellular respiration"));
+    }
+
+    @Test
+    void questionsNotGradedFromTheKeyScoreNaN() {
+        AnswerKey key = key();
+
+        assertTrue(Double.isNaN(key.score(key.indexOf(MANUAL_QUESTION), "anything")));
+        assertEquals(-1, key.indexOf(99));
+    }
+
+    @Test
+    void scoreAllMatchesScoringEachAnswerAndMarksUnknownQuestions() {
+        grading = new AutoGradingService();
+        ReflectionTestUtils.setField(grading, "parallelism", 4);
+        ReflectionTestUtils.setField(grading, "chunkSize", 8);
+        grading.init();
+        AnswerKey key = key();
+        long[] questionIds = {MCQ_QUESTION, TRUE_FALSE_QUESTION, KEYWORD_QUESTION, MANUAL_QUESTION, 99};
+        String[] samples = {"2", "true", "mitochondria and atp", "essay", "2"};
+        int size = 1000;
+        long[] pageQuestions = new long[size];
+        String[] pageAnswers = new String[size];
+        for (int i = 0; i < size; i++) {
+            pageQuestions[i] = questionIds[i % questionIds.length];
+            pageAnswers[i] = samples[i % samples.length];
+        }
+        double[] scores = new double[size];
+
+        grading.scoreAll(key, pageQuestions, pageAnswers, scores, size);
+
+        for (int i = 0; i < size; i++) {
+            int index = key.indexOf(pageQuestions[i]);
+            double expected = index < 0 ? Double.NaN : key.score(index, pageAnswers[i]);
+            assertEquals(expected, scores[i], "answer " + i);
+        }
+        assertEquals(3, scores[0]);
+        assertEquals(4, scores[2]);
+        assertTrue(Double.isNaN(scores[4]));
+    }
+}
@@ -0,0 +1,140 @@
+package com.project.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class KeywordMatcherTest {
+
+    private static KeywordMatcher exact(String... keywords) {
+        Double[] weights = new Double[keywords.length];
+        Arrays.fill(weights, 1.0);
+        return KeywordMatcher.compile(List.of(keywords), List.of(weights));
+    }
+
+    @Test
+    void matchesWholeWordsOnly() {
+        KeywordMatcher matcher = exact("cell", "ion");
+
+        assertArrayEquals(new boolean[] {false, false}, matcher.match("Cellular respiration in a region"));
+        assertArrayEquals(new boolean[] {true, false}, matcher.match("The cell wall"));
+        assertArrayEquals(new boolean[] {true, true}, matcher.match("cell: ion!"));
+        assertArrayEquals(new boolean[] {true, false}, matcher.match("cell"));
+    }
+
+    @Test
+    void matchesMultiWordKeywordsAcrossAnySeparators() {
+        KeywordMatcher matcher = exact("cell wall", "wall");
+
+        assertArrayEquals(new boolean[] {true, true}, matcher.match("the CELL -- wall protects"));
+        assertArrayEquals(new boolean[] {true, true}, matcher.match("cell\n\twall"));
+        assertArrayEquals(new boolean[] {false, true}, matcher.match("cell membrane and wall"));
+        assertArrayEquals(new boolean[] {false, false}, matcher.match("cellwall"));
+    }
+
+    @Test
+    void countsEachKeywordOnce() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("atp", "energy"), List.of(2.0, 0.5));
+
+        assertEquals(2.0, matcher.score("ATP, ATP and more atp"));
+        assertEquals(2.5, matcher.score("atp energy atp energy"));
+        assertEquals(0.0, matcher.score(""));
+        assertEquals(0.0, matcher.score(null));
+    }
+
+    @Test
+    void foldsCaseOfNonAsciiLetters() {
+        KeywordMatcher matcher = exact("Straße", "énergie", "ΑΤΡ");
+
+        assertArrayEquals(new boolean[] {true, true, true}, matcher.match("STRAßE, ÉNERGIE et ατρ"));
+        assertArrayEquals(new boolean[] {false, false, false}, matcher.match("strasse energie atp"));
+    }
+
+    @Test
+    void keywordsOverlappingAsSuffixesAreAllFound() {
+        KeywordMatcher matcher = exact("photo synthesis", "synthesis", "protein synthesis");
+
+        assertArrayEquals(new boolean[] {true, true, false}, matcher.match("photo synthesis"));
+        assertArrayEquals(new boolean[] {false, true, true}, matcher.match("protein synthesis"));
+    }
+
+    @Test
+    void keywordsWithoutLettersOrDigitsNeverMatch() {
+        KeywordMatcher matcher = exact("--", "atp");
+
+        assertArrayEquals(new boolean[] {false, true}, matcher.match("-- atp --"));
+    }
+
+    @Test
+    void worksWithNoExactKeywords() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("photosynthesis", "chlorophyll"), List.of(1.0, 1.0), List.of(2, 1));
+
+        assertArrayEquals(new boolean[] {true, true}, matcher.match("Photosynthesis uses chlorophyll"));
+        assertArrayEquals(new boolean[] {true, true}, matcher.match("fotosynthesis uses chlorophyl"));
+        assertArrayEquals(new boolean[] {false, false}, matcher.match("respiration"));
+        assertArrayEquals(new boolean[] {false, false}, matcher.match(""));
+    }
+
+    @Test
+    void effectiveToleranceIsCappedForShortKeywords() {
+        assertEquals(0, KeywordMatcher.effectiveTolerance(2, 1));
+        assertEquals(0, KeywordMatcher.effectiveTolerance(2, 2));
+        assertEquals(1, KeywordMatcher.effectiveTolerance(2, 3));
+        assertEquals(1, KeywordMatcher.effectiveTolerance(2, 5));
+        assertEquals(2, KeywordMatcher.effectiveTolerance(2, 6));
+        assertEquals(2, KeywordMatcher.effectiveTolerance(5, 20));
+        assertEquals(1, KeywordMatcher.effectiveTolerance(1, 20));
+        assertEquals(0, KeywordMatcher.effectiveTolerance(-1, 20));
+    }
+
+    @Test
+    void shortKeywordsStayWithinTheirCap() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("ox", "atp"), List.of(1.0, 1.0), List.of(2, 2));
+
+        assertArrayEquals(new boolean[] {false, true}, matcher.match("ax adp"));
+        assertArrayEquals(new boolean[] {false, true}, matcher.match("ax atb"));
+        assertArrayEquals(new boolean[] {false, false}, matcher.match("ax abb"));
+        assertArrayEquals(new boolean[] {true, true}, matcher.match("ox atp"));
+    }
+
+    @Test
+    void wordsOfAPhraseShareOneEditBudget() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("natural selection"), List.of(1.0), List.of(2));
+
+        assertArrayEquals(new boolean[] {true}, matcher.match("natural selection"));
+        assertArrayEquals(new boolean[] {true}, matcher.match("naturel selektion"));
+        assertArrayEquals(new boolean[] {true}, matcher.match("natral selecton"));
+        // Two edits in each word is four for the phrase
+        assertArrayEquals(new boolean[] {false}, matcher.match("nturel selecshun"));
+        assertArrayEquals(new boolean[] {false}, matcher.match("natureel sellektionn"));
+        assertArrayEquals(new boolean[] {false}, matcher.match("natural"));
+    }
+
+    @Test
+    void matchesEveryKindOfEditAtDistanceTwo() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("photosynthesis"), List.of(1.0), List.of(2));
+
+        // Two substitutions bringing characters the keyword does not contain
+        assertArrayEquals(new boolean[] {true}, matcher.match("phqtosynthexis"));
+        // Two deletions
+        assertArrayEquals(new boolean[] {true}, matcher.match("hotosynthess"));
+        // Two insertions, a digit and a non-ASCII letter
+        assertArrayEquals(new boolean[] {true}, matcher.match("photo9synthesisé"));
+        // A transposition costs two edits
+        assertArrayEquals(new boolean[] {true}, matcher.match("photosytnhesis"));
+        assertArrayEquals(new boolean[] {false}, matcher.match("phqtqsynthexis"));
+        assertArrayEquals(new boolean[] {false}, matcher.match("photosynthesisxyz"));
+    }
+
+    @Test
+    void toleranceAppliesPerKeyword() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("mitochondria", "ribosome"), List.of(1.0, 1.0), List.of(1, 0));
+
+        assertArrayEquals(new boolean[] {true, false}, matcher.match("mitocondria ribosom"));
+        assertArrayEquals(new boolean[] {false, true}, matcher.match("mitocndra ribosome"));
+    }
+}
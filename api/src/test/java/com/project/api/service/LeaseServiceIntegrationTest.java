@@ -0,0 +1,144 @@
+package com.project.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.project.api.exception.LeaseLostException;
+import com.project.api.service.LeaseService.Lease;
+
+// Two application contexts, each with its own LeaseService and node id, against the local
+// database from application.properties (like ApiApplicationTests). Scheduling is not enabled,
+// so no heartbeat extends a lease behind the test's back.
+class LeaseServiceIntegrationTest {
+
+    private static final long TTL_MS = 1000;
+
+    private AnnotationConfigApplicationContext nodeA;
+    private AnnotationConfigApplicationContext nodeB;
+    private String jobName;
+
+    @Configuration
+    @PropertySource("classpath:application.properties")
+    static class LeaseContext {
+
+        @Bean
+        DataSource dataSource(@Value("${spring.datasource.url}") String url,
+                              @Value("${spring.datasource.username}") String username,
+                              @Value("${spring.datasource.password}") String password) {
+            DataSource dataSource = DataSourceBuilder.create().url(url).username(username).password(password).build();
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+            return dataSource;
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        LeaseService leaseService() {
+            return new LeaseService();
+        }
+    }
+
+    @BeforeEach
+    void startNodes() {
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+        jobName = "lease-test-" + UUID.randomUUID();
+    }
+
+    @AfterEach
+    void stopNodes() {
+        if (nodeA != null) {
+            nodeA.getBean(JdbcTemplate.class).update("DELETE FROM job_leases WHERE job_name = ?", jobName);
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    @Test
+    void onlyOneNodeHoldsTheLease() {
+        Lease lease = leases(nodeA).tryAcquire(jobName);
+
+        assertNotNull(lease);
+        assertNull(leases(nodeB).tryAcquire(jobName));
+        // Renewal by the holder keeps the token
+        assertEquals(lease.fencingToken(), leases(nodeA).tryAcquire(jobName).fencingToken());
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverWithAHigherFencingToken() throws InterruptedException {
+        Lease first = leases(nodeA).tryAcquire(jobName);
+        assertNotNull(first);
+
+        Thread.sleep(TTL_MS + 500);
+        Lease second = leases(nodeB).tryAcquire(jobName);
+
+        assertNotNull(second);
+        assertTrue(second.fencingToken() > first.fencingToken());
+        assertNull(leases(nodeA).tryAcquire(jobName));
+    }
+
+    @Test
+    void assertHeldRejectsTheStaleHolder() throws InterruptedException {
+        Lease first = leases(nodeA).tryAcquire(jobName);
+        assertDoesNotThrow(() -> leases(nodeA).assertHeld(first));
+
+        Thread.sleep(TTL_MS + 500);
+        Lease second = leases(nodeB).tryAcquire(jobName);
+        assertNotNull(second);
+
+        assertThrows(LeaseLostException.class, () -> leases(nodeA).assertHeld(first));
+        assertDoesNotThrow(() -> leases(nodeB).assertHeld(second));
+    }
+
+    @Test
+    void releasedLeaseCanBeTakenAtOnce() {
+        Lease first = leases(nodeA).tryAcquire(jobName);
+        leases(nodeA).release(first);
+
+        Lease second = leases(nodeB).tryAcquire(jobName);
+
+        assertNotNull(second);
+        assertTrue(second.fencingToken() > first.fencingToken());
+    }
+
+    private static AnnotationConfigApplicationContext startNode(String nodeId) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("lease-test",
+                Map.of("scheduler.node-id", nodeId, "scheduler.lease.ttl-ms", TTL_MS)));
+        context.register(LeaseContext.class);
+        context.refresh();
+        return context;
+    }
+
+    private static LeaseService leases(AnnotationConfigApplicationContext context) {
+        return context.getBean(LeaseService.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.project.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ScoreSketchTest {
+
+    private static final double[] QUANTILES = {0.01, 0.10, 0.25, 0.50, 0.75, 0.90, 0.99};
+
+    private static double[] scores(long seed, int count) {
+        Random random = new Random(seed);
+        double[] scores = new double[count];
+        for (int i = 0; i < count; i++) {
+            // Skewed like real marks, with repeated values
+            scores[i] = Math.round(Math.min(100, Math.max(0, 70 + random.nextGaussian() * 15)) * 2) / 2.0;
+        }
+        return scores;
+    }
+
+    // The score at rank floor(q * n) of the sorted scores, what quantile returns while exact
+    private static double exactQuantile(double[] scores, double q) {
+        double[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) Math.floor(q * sorted.length))];
+    }
+
+    @Test
+    void mergedSketchesMatchASingleStream() {
+        double[] scores = scores(42, 20_000);
+        ScoreSketch single = new ScoreSketch();
+        for (double score : scores) {
+            single.add(score);
+        }
+        // Uneven parts, as the nodes' buffers are
+        int[] bounds = {0, 3, 700, 701, 5_000, 12_345, 19_999, 20_000};
+        ScoreSketch merged = new ScoreSketch();
+        for (int p = 0; p + 1 < bounds.length; p++) {
+            ScoreSketch part = new ScoreSketch();
+            for (int i = bounds[p]; i < bounds[p + 1]; i++) {
+                part.add(scores[i]);
+            }
+            merged.merge(part);
+        }
+
+        assertEquals(single.getCount(), merged.getCount());
+        assertEquals(single.getMean(), merged.getMean(), 1e-9);
+        assertEquals(single.getStandardDeviation(), merged.getStandardDeviation(), 1e-9);
+        assertEquals(single.getMin(), merged.getMin());
+        assertEquals(single.getMax(), merged.getMax());
+        for (double q : QUANTILES) {
+            assertEquals(single.quantile(q), merged.quantile(q), 1.0, "q = " + q);
+            assertEquals(exactQuantile(scores, q), merged.quantile(q), 1.0, "q = " + q);
+        }
+        assertEquals(scores.length, Arrays.stream(merged.histogram(0, 100, 10)).sum());
+    }
+
+    @Test
+    void quantilesAreExactForSmallCounts() {
+        double[] scores = {12, 3.5, 19, 7, 7, 15.5, 0, 20, 11, 4, 18, 9.5, 16, 2, 13};
+        ScoreSketch sketch = new ScoreSketch();
+        for (double score : scores) {
+            sketch.add(score);
+        }
+
+        for (double q : QUANTILES) {
+            assertEquals(exactQuantile(scores, q), sketch.quantile(q), "q = " + q);
+        }
+        assertEquals(0, sketch.quantile(0));
+        assertEquals(20, sketch.quantile(1));
+        assertEquals(4, sketch.countBelow(5));
+    }
+
+    @Test
+    void mergingSmallSketchesKeepsQuantilesExact() {
+        double[] scores = {5, 1, 9, 3, 7, 2, 8, 4, 6, 10, 0, 5};
+        ScoreSketch merged = new ScoreSketch();
+        for (int from = 0; from < scores.length; from += 5) {
+            ScoreSketch part = new ScoreSketch();
+            for (int i = from; i < Math.min(scores.length, from + 5); i++) {
+                part.add(scores[i]);
+            }
+            merged.merge(part);
+        }
+
+        for (double q : QUANTILES) {
+            assertEquals(exactQuantile(scores, q), merged.quantile(q), "q = " + q);
+        }
+        assertArrayEquals(new long[] {2, 2, 3, 2, 3}, merged.histogram(0, 10, 5));
+    }
+
+    @Test
+    void restoredSketchMatchesTheStoredOne() {
+        double[] scores = scores(7, 5_000);
+        ScoreSketch sketch = new ScoreSketch();
+        for (double score : scores) {
+            sketch.add(score);
+        }
+
+        ScoreSketch restored = ScoreSketch.restore(sketch.getCount(), sketch.getMean(), sketch.getSumOfSquares(),
+                sketch.getMin(), sketch.getMax(), sketch.digestBytes());
+
+        assertEquals(sketch.getCount(), restored.getCount());
+        assertEquals(sketch.getStandardDeviation(), restored.getStandardDeviation());
+        for (double q : QUANTILES) {
+            assertEquals(sketch.quantile(q), restored.quantile(q), "q = " + q);
+        }
+    }
+}
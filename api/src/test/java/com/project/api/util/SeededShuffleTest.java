@@ -0,0 +1,80 @@
+package com.project.api.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class SeededShuffleTest {
+
+    private static final int[] SIZES = {1, 2, 3, 4, 5, 8, 13, 50, 257};
+
+    private static final long[] SEEDS = {0, 1, -1, 42, Long.MAX_VALUE, Long.MIN_VALUE, 0x9E3779B97F4A7C15L,
+            SeededShuffle.derive(7, 3)};
+
+    @Test
+    void permuteYieldsAPermutation() {
+        for (int n : SIZES) {
+            for (long seed : SEEDS) {
+                int[] order = new int[n];
+                SeededShuffle.permute(order, n, seed);
+
+                int[] sorted = order.clone();
+                Arrays.sort(sorted);
+                for (int i = 0; i < n; i++) {
+                    assertEquals(i, sorted[i], "n = " + n + ", seed = " + seed);
+                }
+            }
+        }
+    }
+
+    @Test
+    void canonicalIndexInvertsEveryPosition() {
+        for (int n : SIZES) {
+            for (long seed : SEEDS) {
+                int[] order = new int[n];
+                SeededShuffle.permute(order, n, seed);
+
+                for (int position = 0; position < n; position++) {
+                    assertEquals(order[position], SeededShuffle.canonicalIndex(n, seed, position),
+                            "n = " + n + ", seed = " + seed + ", position = " + position);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sameSeedGivesTheSameOrder() {
+        int[] first = new int[20];
+        int[] second = new int[32];
+        SeededShuffle.permute(first, 20, 12345);
+        // A reused, larger array is only filled up to n
+        Arrays.fill(second, -1);
+        SeededShuffle.permute(second, 20, 12345);
+
+        assertArrayEquals(first, Arrays.copyOf(second, 20));
+        assertEquals(-1, second[20]);
+    }
+
+    @Test
+    void derivedSeedsShuffleIndependently() {
+        int[] base = new int[50];
+        int[] derived = new int[50];
+        SeededShuffle.permute(base, 50, 99);
+        SeededShuffle.permute(derived, 50, SeededShuffle.derive(99, 1));
+
+        assertFalse(Arrays.equals(base, derived));
+        assertTrue(SeededShuffle.derive(99, 1) != SeededShuffle.derive(99, 2));
+    }
+
+    @Test
+    void positionsOutsideTheRangeAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SeededShuffle.canonicalIndex(5, 1, 5));
+        assertThrows(IllegalArgumentException.class, () -> SeededShuffle.canonicalIndex(5, 1, -1));
+    }
+}
@@ -0,0 +1,37 @@
+package com.project.mvc.config;
+
+import jakarta.servlet.http.Cookie;
+
+// Cookies holding the api's access token and refresh token. Both are HttpOnly; the access
+// token is short-lived and JwtRequestFilter renews it with the refresh token when it expires.
+public final class AuthCookies {
+
+    public static final String ACCESS_TOKEN = "jwtToken";
+
+    public static final String REFRESH_TOKEN = "refreshToken";
+
+    private static final int ACCESS_MAX_AGE = 5 * 60 * 60; // 5 hours; the token inside expires sooner
+
+    private static final int REFRESH_MAX_AGE = 12 * 60 * 60; // matches jwt.refresh-token.validity-ms on the api
+
+    private AuthCookies() {
+    }
+
+    public static Cookie accessToken(String token) {
+        return create(ACCESS_TOKEN, token, token != null ? ACCESS_MAX_AGE : 0);
+    }
+
+    public static Cookie refreshToken(String token) {
+        return create(REFRESH_TOKEN, token, token != null ? REFRESH_MAX_AGE : 0);
+    }
+
+    private static Cookie create(String name, String value, int maxAge) {
+        Cookie cookie = new Cookie(name, value);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge(maxAge);
+        cookie.setAttribute("SameSite", "Lax");
+        cookie.setDomain("localhost");
+        return cookie;
+    }
+}
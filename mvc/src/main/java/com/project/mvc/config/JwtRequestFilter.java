@@ -7,13 +7,18 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.project.mvc.service.AuthService;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.Cookie;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -27,6 +32,9 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private AuthService authService;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -72,6 +80,25 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             }
         }
 
+        // Access token missing or expired: renew it once with the refresh token cookie
+        String refreshToken = email == null ? getCookieValue(request, AuthCookies.REFRESH_TOKEN) : null;
+        if (refreshToken != null) {
+            Map<String, String> refreshed = authService.refreshTokens(refreshToken);
+            if (refreshed != null) {
+                jwtToken = refreshed.get("token");
+                Map<String, String> validationResult = jwtUtil.validateToken(jwtToken);
+                if ("valid".equals(validationResult.get("status"))) {
+                    email = validationResult.get("email");
+                    role = validationResult.get("role");
+                    response.addCookie(AuthCookies.accessToken(jwtToken));
+                    response.addCookie(AuthCookies.refreshToken(refreshed.get("refreshToken")));
+                    // Controllers read the token from the request cookies, so hand them the new one
+                    request = new RefreshedTokenRequest(request, jwtToken);
+                    logger.info("Access token refreshed for user: {}", email);
+                }
+            }
+        }
+
         // Set authentication in SecurityContext if token is valid
         if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
@@ -86,4 +113,40 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         // Proceed with the filter chain, let SecurityConfig handle authorization
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private static String getCookieValue(HttpServletRequest request, String name) {
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (name.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    // Replaces the stale access token cookie for the rest of this request
+    private static class RefreshedTokenRequest extends HttpServletRequestWrapper {
+
+        private final String jwtToken;
+
+        RefreshedTokenRequest(HttpServletRequest request, String jwtToken) {
+            super(request);
+            this.jwtToken = jwtToken;
+        }
+
+        @Override
+        public Cookie[] getCookies() {
+            List<Cookie> cookies = new ArrayList<>();
+            if (super.getCookies() != null) {
+                for (Cookie cookie : super.getCookies()) {
+                    if (!AuthCookies.ACCESS_TOKEN.equals(cookie.getName())) {
+                        cookies.add(cookie);
+                    }
+                }
+            }
+            cookies.add(new Cookie(AuthCookies.ACCESS_TOKEN, jwtToken));
+            return cookies.toArray(new Cookie[0]);
+        }
+    }
+}
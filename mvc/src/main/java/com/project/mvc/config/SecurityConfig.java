@@ -9,6 +9,8 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 
+import com.project.mvc.service.AuthService;
+
 import jakarta.servlet.http.Cookie;
 
 @Configuration
@@ -18,6 +20,9 @@ public class SecurityConfig {
     @Autowired
     private JwtRequestFilter jwtRequestFilter;
 
+    @Autowired
+    private AuthService authService;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -65,13 +70,23 @@ public class SecurityConfig {
                     }
                 })
                 .addLogoutHandler((request, response, authentication) -> {
-                    Cookie cookie = new Cookie("jwtToken", null);
-                    cookie.setPath("/");
-                    cookie.setHttpOnly(true);
-                    cookie.setMaxAge(0);
-                    cookie.setAttribute("SameSite", "Lax");
-                    cookie.setDomain("localhost");
-                    response.addCookie(cookie);
+                    // Revoke the session on the api before dropping the cookies
+                    String jwtToken = null;
+                    String refreshToken = null;
+                    if (request.getCookies() != null) {
+                        for (Cookie cookie : request.getCookies()) {
+                            if (AuthCookies.ACCESS_TOKEN.equals(cookie.getName())) {
+                                jwtToken = cookie.getValue();
+                            } else if (AuthCookies.REFRESH_TOKEN.equals(cookie.getName())) {
+                                refreshToken = cookie.getValue();
+                            }
+                        }
+                    }
+                    if (jwtToken != null) {
+                        authService.logout(jwtToken, refreshToken);
+                    }
+                    response.addCookie(AuthCookies.accessToken(null));
+                    response.addCookie(AuthCookies.refreshToken(null));
                 })
                 .invalidateHttpSession(true)
                 .clearAuthentication(true)
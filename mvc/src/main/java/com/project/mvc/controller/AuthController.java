@@ -15,6 +15,7 @@ import com.project.mvc.dto.StudentLoginRequest;
 import com.project.mvc.dto.StudentRegisterRequest;
 import com.project.mvc.dto.ClassCreateRequest;
 import com.project.mvc.dto.EducatorLoginRequest;
+import com.project.mvc.config.AuthCookies;
 import com.project.mvc.service.AuthService;
 
 import jakarta.servlet.http.Cookie;
@@ -68,14 +69,11 @@ public class AuthController {
             logger.info("Processing educator login for email: {}", request.getEmail());
             String result = authService.loginEducator(request);
             if (result.startsWith("Login successful:")) {
-                String token = result.split(":")[1];
-                Cookie cookie = new Cookie("jwtToken", token);
-                cookie.setPath("/");
-                cookie.setHttpOnly(true);
-                cookie.setMaxAge(5 * 60 * 60); // 5 hours
-                cookie.setAttribute("SameSite", "Lax");
-                cookie.setDomain("localhost");
-                response.addCookie(cookie);
+                String[] parts = result.split(":");
+                response.addCookie(AuthCookies.accessToken(parts[1]));
+                if (parts.length > 2) {
+                    response.addCookie(AuthCookies.refreshToken(parts[2]));
+                }
                 logger.info("Set JWT cookie for educator: email={}", request.getEmail());
                 redirectAttributes.addFlashAttribute("success", "Login successful!");
                 return "redirect:/educator/dashboard";
@@ -144,14 +142,11 @@ public class AuthController {
         logger.info("Processing student login for email: {}", request.getEmail());
         String result = authService.loginStudent(request);
         if (result.startsWith("Login successful:")) {
-            String token = result.split(":")[1];
-            Cookie cookie = new Cookie("jwtToken", token);
-            cookie.setPath("/");
-            cookie.setHttpOnly(true);
-            cookie.setMaxAge(5 * 60 * 60); // 5 hours
-            cookie.setAttribute("SameSite", "Lax");
-            cookie.setDomain("localhost");
-            response.addCookie(cookie);
+            String[] parts = result.split(":");
+            response.addCookie(AuthCookies.accessToken(parts[1]));
+            if (parts.length > 2) {
+                response.addCookie(AuthCookies.refreshToken(parts[2]));
+            }
             logger.info("Set JWT cookie for student: email={}", request.getEmail());
             redirectAttributes.addFlashAttribute("success", "Login successful!");
             return "redirect:/student/dashboard";
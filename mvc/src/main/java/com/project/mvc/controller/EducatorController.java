@@ -46,7 +46,10 @@ public class EducatorController {
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$");
 
     @GetMapping("/dashboard")
-    public String educatorDashboard(Model model, HttpServletRequest request) {
+    public String educatorDashboard(Model model, HttpServletRequest request,
+                                    @RequestParam(value = "status", required = false) String status,
+                                    @RequestParam(value = "type", required = false) String type,
+                                    @RequestParam(value = "cursor", required = false) String cursor) {
         logger.info("Rendering educator dashboard");
 
         String jwtToken = null;
@@ -69,13 +72,21 @@ public class EducatorController {
             List<Map<String, Object>> classes = classService.getEducatorClasses(jwtToken);
             model.addAttribute("classes", classes);
 
-            List<Map<String, Object>> assessments = assessmentService.getEducatorAssessments(jwtToken);
-            model.addAttribute("assessments", assessments);
+            Map<String, Object> assessmentPage = assessmentService.getEducatorAssessments(jwtToken, status, type, cursor);
+            model.addAttribute("assessments", assessmentPage.get("assessments"));
+            model.addAttribute("nextCursor", assessmentPage.get("nextCursor"));
         } catch (Exception e) {
             logger.error("Error fetching data for dashboard: {}", e.getMessage());
             model.addAttribute("error", "Failed to load dashboard data: " + e.getMessage());
         }
 
+        model.addAttribute("statusFilter", status);
+        model.addAttribute("typeFilter", type);
+        // Paging or filtering reopens the assessments section
+        if (status != null || type != null || cursor != null) {
+            model.addAttribute("activeSection", "assessments-section");
+        }
+
         if (!model.containsAttribute("classCreateRequest")) {
             model.addAttribute("classCreateRequest", new ClassCreateRequest());
         }
@@ -11,6 +11,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import com.project.mvc.dto.AssessmentCreateRequest;
 
@@ -56,22 +57,34 @@ public class AssessmentService {
         }
     }
 
-    public List<Map<String, Object>> getEducatorAssessments(String jwtToken) {
+    // One page of assessment summaries; the result holds "assessments" and "nextCursor" (null on the last page)
+    public Map<String, Object> getEducatorAssessments(String jwtToken, String status, String type, String cursor) {
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "Bearer " + jwtToken);
 
             HttpEntity<Void> entity = new HttpEntity<>(headers);
 
+            UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(backendUrl + "/api/educator/assessment/list");
+            if (status != null && !status.isBlank()) {
+                uri.queryParam("status", status);
+            }
+            if (type != null && !type.isBlank()) {
+                uri.queryParam("type", type);
+            }
+            if (cursor != null && !cursor.isBlank()) {
+                uri.queryParam("cursor", cursor);
+            }
+
             ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                backendUrl + "/api/educator/assessment/list",
+                uri.build().toUri(),
                 HttpMethod.GET,
                 entity,
                 new ParameterizedTypeReference<Map<String, Object>>() {}
             );
 
             if (response.getStatusCode() == HttpStatus.OK && "success".equals(response.getBody().get("status"))) {
-                return (List<Map<String, Object>>) response.getBody().get("assessments");
+                return response.getBody();
             } else {
                 logger.error("Failed to fetch educator assessments: {}", response.getBody().get("message"));
                 throw new RuntimeException("Failed to fetch assessments: " + response.getBody().get("message"));
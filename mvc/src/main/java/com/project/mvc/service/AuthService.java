@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -72,7 +73,8 @@ public class AuthService {
             );
             if (response.getStatusCode() == HttpStatus.OK && "success".equals(response.getBody().get("status"))) {
                 String token = (String) response.getBody().get("token");
-                return "Login successful:" + token;
+                String refreshToken = (String) response.getBody().get("refreshToken");
+                return "Login successful:" + token + (refreshToken != null ? ":" + refreshToken : "");
             } else {
                 return "Login failed: " + response.getBody().get("message");
             }
@@ -121,7 +123,8 @@ public class AuthService {
             );
             if (response.getStatusCode() == HttpStatus.OK && "success".equals(response.getBody().get("status"))) {
                 String token = (String) response.getBody().get("token");
-                return "Login successful:" + token;
+                String refreshToken = (String) response.getBody().get("refreshToken");
+                return "Login successful:" + token + (refreshToken != null ? ":" + refreshToken : "");
             } else {
                 return "Login failed: " + response.getBody().get("message");
             }
@@ -156,4 +159,43 @@ public class AuthService {
             throw new RuntimeException("Error validating token: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Exchange a refresh token for a new access/refresh pair; null if the api rejects it
+    public Map<String, String> refreshTokens(String refreshToken) {
+        try {
+            Map<String, String> requestBody = new HashMap<>();
+            requestBody.put("refreshToken", refreshToken);
+            ResponseEntity<Map<String, String>> response = restTemplate.exchange(
+                backendUrl + "/api/auth/refresh",
+                HttpMethod.POST,
+                new HttpEntity<>(requestBody),
+                new ParameterizedTypeReference<Map<String, String>>() {}
+            );
+            if (response.getStatusCode() == HttpStatus.OK && "success".equals(response.getBody().get("status"))) {
+                return response.getBody();
+            }
+            return null;
+        } catch (Exception e) {
+            logger.warn("Token refresh failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Revoke the session on the api; failures are logged since the cookies are cleared anyway
+    public void logout(String jwtToken, String refreshToken) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", "Bearer " + jwtToken);
+            Map<String, String> requestBody = new HashMap<>();
+            requestBody.put("refreshToken", refreshToken);
+            restTemplate.exchange(
+                backendUrl + "/api/auth/logout",
+                HttpMethod.POST,
+                new HttpEntity<>(requestBody, headers),
+                String.class
+            );
+        } catch (Exception e) {
+            logger.warn("Logout on api failed: {}", e.getMessage());
+        }
+    }
+}